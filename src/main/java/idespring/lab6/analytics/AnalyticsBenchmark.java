@@ -0,0 +1,100 @@
+package idespring.lab6.analytics;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// allocates up to maxMarks rows and pins the CPU, so it only exists where it was asked for
+@Component
+@ConditionalOnProperty(name = "analytics.benchmark.enabled", havingValue = "true")
+public class AnalyticsBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsBenchmark.class);
+
+    private final int maxMarks;
+
+    public record Timing(double bestMillis, double meanMillis) {}
+
+    public record Report(int marks, int subjects, int students, int groups, int rounds,
+                         long buildMillis, Map<String, Timing> timings) {}
+
+    @Autowired
+    public AnalyticsBenchmark(@Value("${analytics.benchmark.maxMarks:5000000}") int maxMarks) {
+        this.maxMarks = maxMarks;
+    }
+
+    public synchronized Report run(int marks, int subjects, int students, int groups,
+                                   int rounds, long seed) {
+        if (marks <= 0 || marks > maxMarks) {
+            throw new ValidationException("Количество оценок должно быть от 1 до " + maxMarks);
+        }
+        if (subjects <= 0 || students <= 0 || groups <= 0 || rounds <= 0) {
+            throw new ValidationException(
+                    "Поля 'subjects', 'students', 'groups' и 'rounds' должны быть положительными");
+        }
+
+        final long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        MarkColumns.Builder builder = new MarkColumns.Builder(marks);
+        long id = 0;
+        for (int subject = 1; subject <= subjects; subject++) {
+            int perSubject = marks / subjects + (subject <= marks % subjects ? 1 : 0);
+            for (int i = 0; i < perSubject; i++) {
+                builder.add(++id, random.nextInt(students) + 1L, subject,
+                        (byte) (random.nextInt(MarkSnapshot.MAX_VALUE) + 1));
+            }
+        }
+        MarkSnapshot snapshot = new MarkSnapshot(builder.build(), MarkColumns.EMPTY, 0);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Map<Long, Long> groupOfStudent = new HashMap<>(students * 2);
+        Map<Long, String> groupNames = new HashMap<>();
+        for (long student = 1; student <= students; student++) {
+            groupOfStudent.put(student, student % groups + 1);
+        }
+        for (long group = 1; group <= groups; group++) {
+            groupNames.put(group, "group-" + group);
+        }
+        long subjectId = random.nextInt(subjects) + 1L;
+
+        Map<String, Timing> timings = new LinkedHashMap<>();
+        timings.put("histogram", time(rounds, snapshot::histogram));
+        timings.put("subjectStats", time(rounds, () -> MarkAnalytics.subjectStats(snapshot)));
+        timings.put("subjectStatsSingle",
+                time(rounds, () -> MarkAnalytics.subjectStats(snapshot, subjectId)));
+        timings.put("topStudents",
+                time(rounds, () -> MarkAnalytics.topStudents(snapshot, subjectId, 10)));
+        timings.put("totalsByStudent", time(rounds, snapshot::totalsByStudent));
+        timings.put("groupRanking", time(rounds, () ->
+                MarkAnalytics.groupRanking(snapshot, groupOfStudent, groupNames)));
+
+        Report report = new Report(marks, subjects, students, groups, rounds, buildMillis,
+                timings);
+        long end = System.nanoTime();
+        logger.info("Execution time for analytics benchmark: {} ms, {} marks",
+                (end - start) / 1_000_000, marks);
+        return report;
+    }
+
+    private static Timing time(int rounds, Supplier<?> operation) {
+        operation.get();
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            operation.get();
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+        return new Timing(best / 1e6, total / 1e6 / rounds);
+    }
+}
@@ -0,0 +1,31 @@
+package idespring.lab6.analytics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/analytics")
+@ConditionalOnProperty(name = "analytics.benchmark.enabled", havingValue = "true")
+public class AnalyticsBenchmarkController {
+    private final AnalyticsBenchmark analyticsBenchmark;
+
+    public AnalyticsBenchmarkController(AnalyticsBenchmark analyticsBenchmark) {
+        this.analyticsBenchmark = analyticsBenchmark;
+    }
+
+    @PostMapping("/benchmark")
+    public ResponseEntity<AnalyticsBenchmark.Report> runBenchmark(
+            @RequestParam(defaultValue = "2000000") int marks,
+            @RequestParam(defaultValue = "200") int subjects,
+            @RequestParam(defaultValue = "50000") int students,
+            @RequestParam(defaultValue = "500") int groups,
+            @RequestParam(defaultValue = "20") int rounds,
+            @RequestParam(defaultValue = "42") long seed) {
+        return ResponseEntity.ok(
+                analyticsBenchmark.run(marks, subjects, students, groups, rounds, seed));
+    }
+}
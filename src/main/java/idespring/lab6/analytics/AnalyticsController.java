@@ -0,0 +1,47 @@
+package idespring.lab6.analytics;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping("/subjects")
+    public ResponseEntity<List<SubjectStats>> getSubjectStats() {
+        return ResponseEntity.ok(analyticsService.subjectStats());
+    }
+
+    @GetMapping("/subjects/{subjectId}")
+    public ResponseEntity<SubjectStats> getSubjectStats(
+            @Positive @NotNull @PathVariable Long subjectId) {
+        SubjectStats stats = analyticsService.subjectStats(subjectId);
+        return stats.count() > 0
+                ? ResponseEntity.ok(stats)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    @GetMapping("/subjects/{subjectId}/top")
+    public ResponseEntity<List<StudentRanking>> getTopStudents(
+            @Positive @NotNull @PathVariable Long subjectId,
+            @RequestParam(defaultValue = "10") @Positive @Max(1000) int limit) {
+        return ResponseEntity.ok(analyticsService.topStudents(subjectId, limit));
+    }
+
+    @GetMapping("/groups")
+    public ResponseEntity<List<GroupRanking>> getGroupRanking() {
+        return ResponseEntity.ok(analyticsService.groupRanking());
+    }
+}
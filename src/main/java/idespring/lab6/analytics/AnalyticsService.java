@@ -0,0 +1,82 @@
+package idespring.lab6.analytics;
+
+import idespring.lab6.config.CacheConfig;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AnalyticsService {
+    public static final String GROUP_RANKING_KEY = "analytics-group-ranking";
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+    private static final String LOAD_GROUPS = "SELECT id, name FROM studentmanagement.groups";
+    private static final String LOAD_MEMBERSHIP = "SELECT id, groupid "
+            + "FROM studentmanagement.students WHERE groupid IS NOT NULL";
+
+    private final MarkStore markStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheConfig<String, Object> cache;
+
+    private record Versioned(long version, Object value) {}
+
+    @Autowired
+    public AnalyticsService(MarkStore markStore, JdbcTemplate jdbcTemplate,
+                            CacheConfig<String, Object> cache) {
+        this.markStore = markStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = cache;
+    }
+
+    public List<SubjectStats> subjectStats() {
+        return cached("analytics-subjects", "subjectStats", MarkAnalytics::subjectStats);
+    }
+
+    public SubjectStats subjectStats(long subjectId) {
+        return cached("analytics-subject-" + subjectId, "subjectStats",
+                snapshot -> MarkAnalytics.subjectStats(snapshot, subjectId));
+    }
+
+    public List<StudentRanking> topStudents(long subjectId, int limit) {
+        return cached("analytics-top-" + subjectId + "-" + limit, "topStudents",
+                snapshot -> MarkAnalytics.topStudents(snapshot, subjectId, limit));
+    }
+
+    public List<GroupRanking> groupRanking() {
+        return cached(GROUP_RANKING_KEY, "groupRanking", snapshot -> {
+            Map<Long, String> groupNames = new HashMap<>();
+            jdbcTemplate.query(LOAD_GROUPS, (RowCallbackHandler) rs ->
+                    groupNames.put(rs.getLong(1), rs.getString(2)));
+            Map<Long, Long> groupOfStudent = new HashMap<>();
+            jdbcTemplate.query(LOAD_MEMBERSHIP, (RowCallbackHandler) rs ->
+                    groupOfStudent.put(rs.getLong(1), rs.getLong(2)));
+            return MarkAnalytics.groupRanking(snapshot, groupOfStudent, groupNames);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, String operation, Function<MarkSnapshot, T> compute) {
+        final long start = System.nanoTime();
+        MarkSnapshot snapshot = markStore.snapshot();
+
+        Versioned entry = (Versioned) cache.get(key);
+        T result;
+        if (entry != null && entry.version() == snapshot.version()) {
+            result = (T) entry.value();
+        } else {
+            result = compute.apply(snapshot);
+            cache.put(key, new Versioned(snapshot.version(), result));
+        }
+
+        long end = System.nanoTime();
+        logger.info("Execution time for {}: {} ms", operation, (end - start) / 1_000_000);
+        return result;
+    }
+}
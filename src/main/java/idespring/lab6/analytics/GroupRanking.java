@@ -0,0 +1,3 @@
+package idespring.lab6.analytics;
+
+public record GroupRanking(int rank, long groupId, String name, long count, Double average) {}
@@ -0,0 +1,64 @@
+package idespring.lab6.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+final class MarkAnalytics {
+    private static final Comparator<Map.Entry<Long, MarkTotals>> BY_AVERAGE_DESC =
+            Comparator.comparingDouble((Map.Entry<Long, MarkTotals> entry) ->
+                            entry.getValue().average())
+                    .reversed()
+                    .thenComparing(entry -> entry.getValue().count(), Comparator.reverseOrder())
+                    .thenComparing(Map.Entry::getKey);
+
+    private MarkAnalytics() {}
+
+    static List<SubjectStats> subjectStats(MarkSnapshot snapshot) {
+        List<SubjectStats> result = new ArrayList<>();
+        snapshot.histogramsBySubject().forEach((subjectId, histogram) ->
+                result.add(SubjectStats.of(subjectId, histogram)));
+        return result;
+    }
+
+    static SubjectStats subjectStats(MarkSnapshot snapshot, long subjectId) {
+        return SubjectStats.of(subjectId, snapshot.histogram(subjectId));
+    }
+
+    static List<StudentRanking> topStudents(MarkSnapshot snapshot, long subjectId, int limit) {
+        PriorityQueue<Map.Entry<Long, MarkTotals>> top =
+                new PriorityQueue<>(limit + 1, BY_AVERAGE_DESC.reversed());
+        for (Map.Entry<Long, MarkTotals> entry : snapshot.totalsByStudent(subjectId).entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Map.Entry<Long, MarkTotals>> sorted = new ArrayList<>(top);
+        sorted.sort(BY_AVERAGE_DESC);
+        List<StudentRanking> result = new ArrayList<>(sorted.size());
+        for (Map.Entry<Long, MarkTotals> entry : sorted) {
+            MarkTotals totals = entry.getValue();
+            result.add(new StudentRanking(result.size() + 1, entry.getKey(), totals.count(),
+                    totals.average()));
+        }
+        return result;
+    }
+
+    static List<GroupRanking> groupRanking(MarkSnapshot snapshot, Map<Long, Long> groupOfStudent,
+                                           Map<Long, String> groupNames) {
+        List<Map.Entry<Long, MarkTotals>> sorted =
+                new ArrayList<>(snapshot.totalsByGroup(groupOfStudent).entrySet());
+        sorted.sort(BY_AVERAGE_DESC);
+        List<GroupRanking> result = new ArrayList<>(sorted.size());
+        for (Map.Entry<Long, MarkTotals> entry : sorted) {
+            MarkTotals totals = entry.getValue();
+            result.add(new GroupRanking(result.size() + 1, entry.getKey(),
+                    groupNames.get(entry.getKey()), totals.count(), totals.average()));
+        }
+        return result;
+    }
+}
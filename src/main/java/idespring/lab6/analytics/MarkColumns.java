@@ -0,0 +1,188 @@
+package idespring.lab6.analytics;
+
+import java.util.Arrays;
+
+public final class MarkColumns {
+    private static final int[] NONE = new int[0];
+    public static final MarkColumns EMPTY = new Builder(0).build();
+
+    final long[] ids;
+    final long[] studentIds;
+    final long[] subjectIds;
+    final byte[] values;
+    final int size;
+
+    final long[] subjects;
+    final int[] offsets;
+    final long[] students;
+    final int[] studentSlots;
+    // tombstones: sorted rows deleted since the columns were built; the row arrays are shared
+    // between snapshots, so a delete only copies this array and readers subtract these rows
+    final int[] deleted;
+
+    private MarkColumns(long[] ids, long[] studentIds, long[] subjectIds, byte[] values,
+                        int size, long[] subjects, int[] offsets, long[] students,
+                        int[] studentSlots, int[] deleted) {
+        this.ids = ids;
+        this.studentIds = studentIds;
+        this.subjectIds = subjectIds;
+        this.values = values;
+        this.size = size;
+        this.subjects = subjects;
+        this.offsets = offsets;
+        this.students = students;
+        this.studentSlots = studentSlots;
+        this.deleted = deleted;
+    }
+
+    private static MarkColumns indexed(long[] ids, long[] studentIds, long[] subjectIds,
+                                       byte[] values, int size) {
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || subjectIds[i] != subjectIds[i - 1]) {
+                distinct++;
+            }
+        }
+        long[] subjects = new long[distinct];
+        int[] offsets = new int[distinct + 1];
+        for (int i = 0, s = -1; i < size; i++) {
+            if (i == 0 || subjectIds[i] != subjectIds[i - 1]) {
+                subjects[++s] = subjectIds[i];
+                offsets[s] = i;
+            }
+        }
+        offsets[distinct] = size;
+
+        long[] sorted = Arrays.copyOf(studentIds, size);
+        Arrays.parallelSort(sorted);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        long[] students = Arrays.copyOf(sorted, unique);
+        int[] studentSlots = new int[size];
+        Arrays.parallelSetAll(studentSlots,
+                i -> Arrays.binarySearch(students, studentIds[i]));
+        return new MarkColumns(ids, studentIds, subjectIds, values, size, subjects, offsets,
+                students, studentSlots, NONE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int deletedCount() {
+        return deleted.length;
+    }
+
+    boolean isDeleted(int row) {
+        return Arrays.binarySearch(deleted, row) >= 0;
+    }
+
+    // index of the first tombstone at or after row
+    int firstDeleted(int row) {
+        int at = Arrays.binarySearch(deleted, row);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    int deletedBetween(int from, int to) {
+        return firstDeleted(to) - firstDeleted(from);
+    }
+
+    int subjectIndex(long subjectId) {
+        return Arrays.binarySearch(subjects, subjectId);
+    }
+
+    int find(long id, long subjectId) {
+        int s = subjectIndex(subjectId);
+        if (s < 0) {
+            return -1;
+        }
+        int row = Arrays.binarySearch(ids, offsets[s], offsets[s + 1], id);
+        return row >= 0 && !isDeleted(row) ? row : -1;
+    }
+
+    // O(tombstones + rows), independent of the column size
+    MarkColumns withDeleted(int[] rows) {
+        int[] sorted = rows.clone();
+        Arrays.sort(sorted);
+        int[] merged = new int[deleted.length + sorted.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < deleted.length || j < sorted.length) {
+            int row = j >= sorted.length || i < deleted.length && deleted[i] <= sorted[j]
+                    ? deleted[i++] : sorted[j++];
+            if (n == 0 || merged[n - 1] != row) {
+                merged[n++] = row;
+            }
+        }
+        return new MarkColumns(ids, studentIds, subjectIds, values, size, subjects, offsets,
+                students, studentSlots, Arrays.copyOf(merged, n));
+    }
+
+    static MarkColumns merge(MarkColumns base, MarkColumns delta) {
+        Builder builder = new Builder(base.size + delta.size);
+        int i = 0;
+        int j = 0;
+        while (i < base.size || j < delta.size) {
+            boolean fromBase = j >= delta.size || i < base.size
+                    && (base.subjectIds[i] < delta.subjectIds[j]
+                    || base.subjectIds[i] == delta.subjectIds[j] && base.ids[i] < delta.ids[j]);
+            if (fromBase) {
+                builder.copy(base, i, ++i);
+            } else {
+                builder.copy(delta, j, ++j);
+            }
+        }
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private long[] ids;
+        private long[] studentIds;
+        private long[] subjectIds;
+        private byte[] values;
+        private int size;
+
+        public Builder(int capacity) {
+            ids = new long[capacity];
+            studentIds = new long[capacity];
+            subjectIds = new long[capacity];
+            values = new byte[capacity];
+        }
+
+        public Builder add(long id, long studentId, long subjectId, byte value) {
+            if (size == ids.length) {
+                int capacity = Math.max(16, size + (size >> 1));
+                ids = Arrays.copyOf(ids, capacity);
+                studentIds = Arrays.copyOf(studentIds, capacity);
+                subjectIds = Arrays.copyOf(subjectIds, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            ids[size] = id;
+            studentIds[size] = studentId;
+            subjectIds[size] = subjectId;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        private void copy(MarkColumns from, int start, int end) {
+            int tombstone = from.firstDeleted(start);
+            for (int i = start; i < end; i++) {
+                if (tombstone < from.deleted.length && from.deleted[tombstone] == i) {
+                    tombstone++;
+                    continue;
+                }
+                add(from.ids[i], from.studentIds[i], from.subjectIds[i], from.values[i]);
+            }
+        }
+
+        public MarkColumns build() {
+            return indexed(ids, studentIds, subjectIds, values, size);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package idespring.lab6.analytics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+public record MarkSnapshot(MarkColumns base, MarkColumns delta, long version) {
+    public static final int MAX_VALUE = 10;
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    public long size() {
+        return count(base, 0, base.size) + count(delta, 0, delta.size);
+    }
+
+    public long[] histogram() {
+        long[] histogram = IntStream.range(0, PARALLELISM).parallel()
+                .mapToObj(chunk -> histogram(base, chunkStart(base, chunk),
+                        chunkStart(base, chunk + 1)))
+                .reduce(MarkSnapshot::add)
+                .orElseGet(() -> new long[MAX_VALUE + 1]);
+        add(histogram, histogram(delta, 0, delta.size));
+        return histogram;
+    }
+
+    public long[] histogram(long subjectId) {
+        long[] histogram = new long[MAX_VALUE + 1];
+        for (MarkColumns columns : new MarkColumns[] {base, delta}) {
+            int s = columns.subjectIndex(subjectId);
+            if (s >= 0) {
+                add(histogram, histogram(columns, columns.offsets[s], columns.offsets[s + 1]));
+            }
+        }
+        return histogram;
+    }
+
+    public Map<Long, long[]> histogramsBySubject() {
+        Map<Long, long[]> result = new TreeMap<>();
+        long[][] perSubject = IntStream.range(0, base.subjects.length).parallel()
+                .mapToObj(s -> histogram(base, base.offsets[s], base.offsets[s + 1]))
+                .toArray(long[][]::new);
+        for (int s = 0; s < perSubject.length; s++) {
+            result.put(base.subjects[s], perSubject[s]);
+        }
+        for (int s = 0; s < delta.subjects.length; s++) {
+            long[] deltaHistogram =
+                    histogram(delta, delta.offsets[s], delta.offsets[s + 1]);
+            result.merge(delta.subjects[s], deltaHistogram, MarkSnapshot::add);
+        }
+        result.values().removeIf(histogram -> total(histogram) == 0);
+        return result;
+    }
+
+    public Map<Long, MarkTotals> totalsBySubject() {
+        Map<Long, MarkTotals> result = new TreeMap<>();
+        histogramsBySubject().forEach((subjectId, histogram) ->
+                result.put(subjectId, totals(histogram)));
+        return result;
+    }
+
+    public Map<Long, MarkTotals> totalsByStudent() {
+        int students = base.students.length;
+        long[][] merged = IntStream.range(0, PARALLELISM).parallel()
+                .mapToObj(chunk -> studentTotals(chunkStart(base, chunk),
+                        chunkStart(base, chunk + 1)))
+                .reduce(MarkSnapshot::add)
+                .orElseGet(() -> new long[2][students]);
+
+        Map<Long, MarkTotals> result = new HashMap<>();
+        for (int slot = 0; slot < students; slot++) {
+            if (merged[0][slot] > 0) {
+                result.put(base.students[slot], new MarkTotals(merged[0][slot], merged[1][slot]));
+            }
+        }
+        mergeDelta(result, -1);
+        return result;
+    }
+
+    public Map<Long, MarkTotals> totalsByStudent(long subjectId) {
+        Map<Long, MarkTotals> result = new HashMap<>();
+        int s = base.subjectIndex(subjectId);
+        if (s >= 0) {
+            int from = base.offsets[s];
+            int to = base.offsets[s + 1];
+            long[][] totals = studentTotals(from, to);
+            for (int i = from; i < to; i++) {
+                int slot = base.studentSlots[i];
+                if (totals[0][slot] > 0) {
+                    result.put(base.studentIds[i], new MarkTotals(totals[0][slot],
+                            totals[1][slot]));
+                    totals[0][slot] = 0;
+                }
+            }
+        }
+        mergeDelta(result, subjectId);
+        return result;
+    }
+
+    public Map<Long, MarkTotals> totalsByGroup(Map<Long, Long> groupOfStudent) {
+        Map<Long, MarkTotals> result = new TreeMap<>();
+        totalsByStudent().forEach((studentId, totals) -> {
+            Long groupId = groupOfStudent.get(studentId);
+            if (groupId != null) {
+                result.merge(groupId, totals, (a, b) -> a.plus(b.count(), b.sum()));
+            }
+        });
+        return result;
+    }
+
+    public Map<Long, MarkTotals> failingStudents(double threshold) {
+        Map<Long, MarkTotals> result = new LinkedHashMap<>();
+        totalsByStudent().entrySet().stream()
+                .filter(entry -> entry.getValue().average() < threshold)
+                .sorted(Comparator.comparingDouble(
+                                (Map.Entry<Long, MarkTotals> entry) -> entry.getValue().average())
+                        .thenComparing(Map.Entry::getKey))
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    public static MarkTotals totals(long[] histogram) {
+        long count = 0;
+        long sum = 0;
+        for (int value = 1; value < histogram.length; value++) {
+            count += histogram[value];
+            sum += histogram[value] * value;
+        }
+        return new MarkTotals(count, sum);
+    }
+
+    private long[][] studentTotals(int from, int to) {
+        long[] counts = new long[base.students.length];
+        long[] sums = new long[base.students.length];
+        int[] slots = base.studentSlots;
+        byte[] values = base.values;
+        for (int i = from; i < to; i++) {
+            counts[slots[i]]++;
+            sums[slots[i]] += values[i];
+        }
+        int[] deleted = base.deleted;
+        for (int d = base.firstDeleted(from); d < deleted.length && deleted[d] < to; d++) {
+            counts[slots[deleted[d]]]--;
+            sums[slots[deleted[d]]] -= values[deleted[d]];
+        }
+        return new long[][] {counts, sums};
+    }
+
+    private void mergeDelta(Map<Long, MarkTotals> result, long subjectId) {
+        for (int i = 0; i < delta.size; i++) {
+            if (!delta.isDeleted(i) && (subjectId < 0 || delta.subjectIds[i] == subjectId)) {
+                result.merge(delta.studentIds[i], new MarkTotals(1, delta.values[i]),
+                        (a, b) -> a.plus(b.count(), b.sum()));
+            }
+        }
+    }
+
+    private static long[] histogram(MarkColumns columns, int from, int to) {
+        long[] histogram = new long[MAX_VALUE + 1];
+        byte[] values = columns.values;
+        for (int i = from; i < to; i++) {
+            histogram[values[i]]++;
+        }
+        int[] deleted = columns.deleted;
+        for (int d = columns.firstDeleted(from); d < deleted.length && deleted[d] < to; d++) {
+            histogram[values[deleted[d]]]--;
+        }
+        return histogram;
+    }
+
+    private static long count(MarkColumns columns, int from, int to) {
+        return to - from - columns.deletedBetween(from, to);
+    }
+
+    private static int chunkStart(MarkColumns columns, int chunk) {
+        return (int) ((long) columns.size * chunk / PARALLELISM);
+    }
+
+    private static long total(long[] histogram) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static long[] add(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+        return target;
+    }
+
+    private static long[][] add(long[][] target, long[][] source) {
+        for (int row = 0; row < target.length; row++) {
+            for (int i = 0; i < target[row].length; i++) {
+                target[row][i] += source[row][i];
+            }
+        }
+        return target;
+    }
+}
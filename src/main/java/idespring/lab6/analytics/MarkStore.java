@@ -0,0 +1,215 @@
+package idespring.lab6.analytics;
+
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.service.markservice.MarksChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class MarkStore {
+    private static final Logger logger = LoggerFactory.getLogger(MarkStore.class);
+    private static final Comparator<MarkView> BY_SUBJECT_AND_ID =
+            Comparator.comparing(MarkView::subjectId).thenComparing(MarkView::id);
+    private static final String LOAD_MARKS = "SELECT id, studentid, subjectid, value "
+            + "FROM studentmanagement.marks ORDER BY subjectid, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int deltaLimit;
+    private final int fetchSize;
+    private final int retryMaxSeconds;
+    private final List<MarkStoreListener> listeners;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private volatile boolean loaded;
+    // consecutive failed reloads, only touched on the executor thread
+    private int failures;
+
+    private volatile MarkSnapshot snapshot =
+            new MarkSnapshot(MarkColumns.EMPTY, MarkColumns.EMPTY, 0);
+    private List<MarksChangedEvent> replay;
+
+    @Autowired
+    public MarkStore(JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${analytics.store.deltaLimit:4096}") int deltaLimit,
+                     @Value("${analytics.store.fetchSize:10000}") int fetchSize,
+                     @Value("${analytics.store.retryMaxSeconds:60}") int retryMaxSeconds,
+                     List<MarkStoreListener> listeners) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.deltaLimit = deltaLimit;
+        this.fetchSize = fetchSize;
+        this.retryMaxSeconds = retryMaxSeconds;
+        this.listeners = listeners;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        requestReload();
+    }
+
+    // false until the first reload succeeds; until then the snapshot only holds the changes
+    // committed since startup
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public MarkSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public long version() {
+        return snapshot.version();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMarksChanged(MarksChangedEvent event) {
+        apply(event);
+    }
+
+    public void requestReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            executor.execute(this::reloadQuietly);
+        }
+    }
+
+    private synchronized void apply(MarksChangedEvent event) {
+        if (replay != null) {
+            replay.add(event);
+        }
+        MarkColumns base = snapshot.base();
+        MarkColumns delta = snapshot.delta();
+        List<MarkView> removed = new ArrayList<>();
+        int[] baseRows = new int[event.removed().size()];
+        int[] deltaRows = new int[event.removed().size()];
+        int fromBase = 0;
+        int fromDelta = 0;
+        for (MarkView mark : event.removed()) {
+            int row = base.find(mark.id(), mark.subjectId());
+            if (row >= 0) {
+                removed.add(view(base, row));
+                baseRows[fromBase++] = row;
+            } else if ((row = delta.find(mark.id(), mark.subjectId())) >= 0) {
+                removed.add(view(delta, row));
+                deltaRows[fromDelta++] = row;
+            }
+        }
+        if (fromBase > 0) {
+            base = base.withDeleted(Arrays.copyOf(baseRows, fromBase));
+        }
+        if (fromDelta > 0) {
+            delta = delta.withDeleted(Arrays.copyOf(deltaRows, fromDelta));
+        }
+
+        // added marks are sorted into one small column set and merged in a single pass
+        List<MarkView> incoming = new ArrayList<>(event.added());
+        incoming.sort(BY_SUBJECT_AND_ID);
+        List<MarkView> added = new ArrayList<>();
+        MarkColumns.Builder builder = new MarkColumns.Builder(incoming.size());
+        for (MarkView mark : incoming) {
+            boolean repeated = !added.isEmpty()
+                    && added.get(added.size() - 1).id().equals(mark.id());
+            if (!repeated && base.find(mark.id(), mark.subjectId()) < 0
+                    && delta.find(mark.id(), mark.subjectId()) < 0) {
+                added.add(mark);
+                builder.add(mark.id(), mark.studentId(), mark.subjectId(), (byte) mark.value());
+            }
+        }
+        if (!added.isEmpty()) {
+            delta = MarkColumns.merge(delta, builder.build());
+        }
+
+        if (delta.size() + base.deletedCount() > deltaLimit) {
+            base = MarkColumns.merge(base, delta);
+            delta = MarkColumns.EMPTY;
+        }
+        snapshot = new MarkSnapshot(base, delta, snapshot.version() + 1);
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            listeners.forEach(listener -> listener.onApplied(added, removed));
+        }
+    }
+
+    private static MarkView view(MarkColumns columns, int row) {
+        return new MarkView(columns.ids[row], columns.values[row], columns.studentIds[row],
+                columns.subjectIds[row]);
+    }
+
+    private void reloadQuietly() {
+        reloadPending.set(false);
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                replay = null;
+            }
+            long delay = Math.min(TimeUnit.SECONDS.toMillis(retryMaxSeconds),
+                    250L << Math.min(failures++, 16));
+            logger.warn("Mark store reload failed, retrying in {} ms", delay, e);
+            if (reloadPending.compareAndSet(false, true)) {
+                executor.schedule(this::reloadQuietly, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void reload() {
+        final long start = System.nanoTime();
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+
+        MarkColumns.Builder builder = new MarkColumns.Builder(snapshot.base().size() + 1024);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_MARKS);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> builder.add(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                (byte) rs.getInt(4))));
+        MarkColumns loaded = builder.build();
+        List<Runnable> installs = new ArrayList<>(listeners.size());
+        for (MarkStoreListener listener : listeners) {
+            installs.add(listener.prepareReload(new MarkSnapshot(loaded, MarkColumns.EMPTY, 0)));
+        }
+
+        synchronized (this) {
+            List<MarksChangedEvent> pending = replay;
+            replay = null;
+            snapshot = new MarkSnapshot(loaded, MarkColumns.EMPTY, snapshot.version() + 1);
+            installs.forEach(Runnable::run);
+            pending.forEach(this::apply);
+        }
+        failures = 0;
+        this.loaded = true;
+        long end = System.nanoTime();
+        logger.info("Execution time for mark store reload: {} ms, {} marks",
+                (end - start) / 1_000_000, loaded.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,10 @@
+package idespring.lab6.analytics;
+
+import idespring.lab6.model.projection.MarkView;
+import java.util.List;
+
+public interface MarkStoreListener {
+    Runnable prepareReload(MarkSnapshot loaded);
+
+    void onApplied(List<MarkView> added, List<MarkView> removed);
+}
@@ -0,0 +1,11 @@
+package idespring.lab6.analytics;
+
+public record MarkTotals(long count, long sum) {
+    public Double average() {
+        return count > 0 ? (double) sum / count : null;
+    }
+
+    MarkTotals plus(long count, long sum) {
+        return new MarkTotals(this.count + count, this.sum + sum);
+    }
+}
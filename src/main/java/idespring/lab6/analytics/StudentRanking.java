@@ -0,0 +1,3 @@
+package idespring.lab6.analytics;
+
+public record StudentRanking(int rank, long studentId, long count, Double average) {}
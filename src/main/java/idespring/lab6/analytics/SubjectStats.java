@@ -0,0 +1,31 @@
+package idespring.lab6.analytics;
+
+import java.util.Arrays;
+
+// histogram[i] counts marks with value i + 1; snapshots index by value and keep a
+// never-used slot 0, which is dropped here so the JSON has exactly MAX_VALUE buckets
+public record SubjectStats(long subjectId, long count, Double average, Integer median,
+                           Integer p90, long[] histogram) {
+    static SubjectStats of(long subjectId, long[] histogram) {
+        MarkTotals totals = MarkSnapshot.totals(histogram);
+        return new SubjectStats(subjectId, totals.count(), totals.average(),
+                percentile(histogram, totals.count(), 0.5),
+                percentile(histogram, totals.count(), 0.9),
+                Arrays.copyOfRange(histogram, 1, histogram.length));
+    }
+
+    static Integer percentile(long[] histogram, long count, double p) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int value = 1; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen >= rank) {
+                return value;
+            }
+        }
+        return histogram.length - 1;
+    }
+}
@@ -1,5 +1,8 @@
 package idespring.lab6.config;
 
+import idespring.lab6.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -8,6 +11,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -23,22 +27,26 @@ public class CacheConfig<K, V> {
 
     private final Object lock = new Object();
 
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
     @Autowired
     public CacheConfig(@Value("${cache.maxAge}") long maxAgeInMillis,
                        @Value("${cache.maxSize}") int maxSize) {
         this.maxAgeInMillis = maxAgeInMillis;
         this.maxSize = maxSize;
-
-        executor.scheduleAtFixedRate(this::cleanExpiredEntries,
-                maxAgeInMillis / 2,
-                maxAgeInMillis / 2,
-                TimeUnit.MILLISECONDS);
     }
 
     public CacheConfig() {
         this.maxAgeInMillis = 600000000;
         this.maxSize = 100;
+    }
 
+    @PostConstruct
+    public void start() {
         executor.scheduleAtFixedRate(this::cleanExpiredEntries,
                 maxAgeInMillis / 2,
                 maxAgeInMillis / 2,
@@ -55,22 +63,28 @@ public class CacheConfig<K, V> {
                 K oldestKey = accessOrder.poll();
                 if (oldestKey != null) {
                     cache.remove(oldestKey);
+                    evictions.increment();
                 }
             }
 
             accessOrder.addLast(key);
             cache.put(key, entry);
         }
+        puts.increment();
 
-        executor.schedule(() -> remove(key), maxAgeInMillis, TimeUnit.MILLISECONDS);
+        executor.schedule(() -> expire(key, entry), maxAgeInMillis, TimeUnit.MILLISECONDS);
     }
 
     public V get(K key) {
         CacheEntry<V> entry = cache.get(key);
         if (entry == null) {
+            misses.increment();
+            Tracer.cacheMiss();
             return null;
         }
 
+        hits.increment();
+        Tracer.cacheHit();
         entry.updateAccessTime();
         synchronized (lock) {
             accessOrder.remove(key);
@@ -87,26 +101,67 @@ public class CacheConfig<K, V> {
         }
     }
 
+    public void clear() {
+        synchronized (lock) {
+            cache.clear();
+            accessOrder.clear();
+        }
+    }
+
     public int size() {
         return cache.size();
     }
 
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    @PreDestroy
     public void shutdown() {
         executor.shutdown();
     }
 
     private void cleanExpiredEntries() {
         long now = System.currentTimeMillis();
-        List<K> expiredKeys = new ArrayList<>();
+        List<Map.Entry<K, CacheEntry<V>>> expired = new ArrayList<>();
 
         for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet()) {
             if (now - entry.getValue().getCreationTime() > maxAgeInMillis) {
-                expiredKeys.add(entry.getKey());
+                expired.add(entry);
             }
         }
 
-        for (K key : expiredKeys) {
-            remove(key);
+        for (Map.Entry<K, CacheEntry<V>> entry : expired) {
+            expire(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void expire(K key, CacheEntry<V> entry) {
+        synchronized (lock) {
+            if (cache.remove(key, entry)) {
+                accessOrder.remove(key);
+                expirations.increment();
+            }
         }
     }
 
@@ -0,0 +1,26 @@
+package idespring.lab6.config;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SchemaConfig {
+
+    // Tables added by the application itself; the base schema is managed outside the repo.
+    // Runs before the EntityManagerFactory is built, so the JPA entities find their tables.
+    @Bean
+    public DataSourceScriptDatabaseInitializer applicationSchemaInitializer(
+            DataSource dataSource,
+            @Value("${schema.init.mode:always}") DatabaseInitializationMode mode) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of("classpath:db/mark_aggregates.sql"));
+        settings.setMode(mode);
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+    }
+}
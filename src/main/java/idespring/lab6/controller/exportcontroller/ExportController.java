@@ -0,0 +1,48 @@
+package idespring.lab6.controller.exportcontroller;
+
+import idespring.lab6.service.exportservice.ExportFormat;
+import idespring.lab6.service.exportservice.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/students")
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestParam(defaultValue = "json") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return stream("students", exportFormat,
+                out -> exportService.writeStudents(out, exportFormat));
+    }
+
+    @GetMapping("/marks")
+    public ResponseEntity<StreamingResponseBody> exportMarks(
+            @RequestParam(defaultValue = "json") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return stream("marks", exportFormat, out -> exportService.writeMarks(out, exportFormat));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(String table, ExportFormat format,
+                                                                StreamingResponseBody body) {
+        String extension = format == ExportFormat.NDJSON ? ".ndjson" : ".json";
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + table + extension)
+                .body(body);
+    }
+}
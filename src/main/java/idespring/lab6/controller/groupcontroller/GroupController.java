@@ -2,6 +2,10 @@ package idespring.lab6.controller.groupcontroller;
 
 import idespring.lab6.exceptions.ValidationException;
 import idespring.lab6.model.Group;
+import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.GroupDetails;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.service.bulkservice.BulkService;
 import idespring.lab6.service.groupservice.GroupService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotEmpty;
@@ -19,17 +23,19 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/groups")
 public class GroupController {
     private final GroupService groupService;
+    private final BulkService bulkService;
     private static final String STUDIDERR = "studentIds";
 
     @Autowired
-    public GroupController(GroupService groupService) {
+    public GroupController(GroupService groupService, BulkService bulkService) {
         this.groupService = groupService;
+        this.bulkService = bulkService;
     }
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Group>>
         createGroupsBulk(@RequestBody List<Map<String, Object>> requests) {
-        List<Group> createdGroups = requests.stream()
+        List<Group> groups = requests.stream()
                 .map(request -> {
                     if (!request.containsKey("name") || !(request.get("name") instanceof String)
                             || ((String) request.get("name")).isBlank()) {
@@ -43,13 +49,15 @@ public class GroupController {
                                 "Поле 'studentIds' обязательно и должно быть списком чисел");
                     }
 
-                    String name = (String) request.get("name");
-                    List<Integer> studentIds = (List<Integer>) request.get(STUDIDERR);
-                    return groupService.addGroup(name, studentIds);
+                    Group group = new Group((String) request.get("name"));
+                    for (Integer studentId : (List<Integer>) request.get(STUDIDERR)) {
+                        group.addStudent(new Student(studentId.longValue()));
+                    }
+                    return group;
                 })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdGroups);
+        return ResponseEntity.status(HttpStatus.CREATED).body(bulkService.addGroups(groups));
     }
 
     @PostMapping
@@ -81,6 +89,15 @@ public class GroupController {
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Group>> getGroupsPage(
+            @RequestParam(required = false) String namePattern,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(groupService.readGroupsPage(namePattern, sort, cursor, limit));
+    }
+
     @GetMapping("/{groupId}")
     public ResponseEntity<Group> getGroupById(@Positive @NotNull @PathVariable Long groupId) {
         Group group = groupService.findById(groupId);
@@ -90,6 +107,13 @@ public class GroupController {
         return ResponseEntity.ok(group);
     }
 
+    @GetMapping(value = "/{groupId}", params = "expand")
+    public ResponseEntity<GroupDetails> getGroupDetails(
+            @Positive @NotNull @PathVariable Long groupId,
+            @RequestParam String expand) {
+        return ResponseEntity.ok(groupService.findDetails(groupId, expand));
+    }
+
     @GetMapping("/name/{name}")
     public ResponseEntity<Group> getGroupByName(@NotEmpty @PathVariable String name) {
         Group group = groupService.findByName(name);
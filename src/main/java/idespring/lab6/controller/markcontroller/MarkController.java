@@ -1,15 +1,24 @@
 package idespring.lab6.controller.markcontroller;
 
 import idespring.lab6.model.Mark;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.service.bulkservice.BulkService;
+import idespring.lab6.service.markservice.MarkAggregateService;
+import idespring.lab6.service.markservice.MarkDistribution;
+import idespring.lab6.service.markservice.MarkImportResult;
+import idespring.lab6.service.markservice.MarkImportService;
 import idespring.lab6.service.markservice.MarkService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -19,18 +28,27 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/marks")
 public class MarkController {
     private final MarkService markService;
+    private final BulkService bulkService;
+    private final MarkImportService markImportService;
+    private final MarkAggregateService markAggregateService;
 
-    public MarkController(MarkService markService) {
+    public MarkController(MarkService markService, BulkService bulkService,
+                          MarkImportService markImportService,
+                          MarkAggregateService markAggregateService) {
         this.markService = markService;
+        this.bulkService = bulkService;
+        this.markImportService = markImportService;
+        this.markAggregateService = markAggregateService;
     }
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Mark>> createMarksBulk(@RequestBody List<Mark> marks) {
-        List<Mark> createdMarks = marks.stream()
-                .map(markService::addMark)
-                .collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.CREATED).body(bulkService.addMarks(marks));
+    }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdMarks);
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<MarkImportResult> importMarks(InputStream csv) throws IOException {
+        return ResponseEntity.ok(markImportService.importCsv(csv));
     }
 
     @PostMapping
@@ -39,18 +57,27 @@ public class MarkController {
     }
 
     @GetMapping
-    public ResponseEntity<Set<Mark>> getMarks(
+    public ResponseEntity<Set<MarkView>> getMarks(
             @RequestParam(required = false) @Positive Long studentId,
             @RequestParam(required = false) @Positive Long subjectId) {
-        Set<Mark> marks = new HashSet<>(markService.readMarks(studentId, subjectId));
+        Set<MarkView> marks = new HashSet<>(markService.readMarks(studentId, subjectId));
         return marks.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(marks);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<MarkView>> getMarksPage(
+            @RequestParam(required = false) @Positive Long studentId,
+            @RequestParam(required = false) @Positive Long subjectId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(markService.readMarksPage(studentId, subjectId, cursor, limit));
+    }
+
     @GetMapping("/value/{value}")
-    public ResponseEntity<Set<Mark>> getMarksByValue(@Positive @PathVariable int value) {
-        Set<Mark> marks = new HashSet<>(markService.findByValue(value));
+    public ResponseEntity<Set<MarkView>> getMarksByValue(@Positive @PathVariable int value) {
+        Set<MarkView> marks = new HashSet<>(markService.findByValue(value));
         return marks.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(marks);
@@ -74,6 +101,24 @@ public class MarkController {
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
+    @GetMapping("/distribution/student/{studentId}")
+    public ResponseEntity<MarkDistribution> getDistributionByStudent(
+            @Positive @NotNull @PathVariable Long studentId) {
+        return ResponseEntity.ok(markService.getDistributionByStudentId(studentId));
+    }
+
+    @GetMapping("/distribution/subject/{subjectId}")
+    public ResponseEntity<MarkDistribution> getDistributionBySubject(
+            @Positive @NotNull @PathVariable Long subjectId) {
+        return ResponseEntity.ok(markService.getDistributionBySubjectId(subjectId));
+    }
+
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<Void> rebuildAggregates() {
+        markAggregateService.rebuildAll();
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/delete-specific")
     public ResponseEntity<String> deleteSpecificMark(
             @RequestParam @Positive Long studentId,
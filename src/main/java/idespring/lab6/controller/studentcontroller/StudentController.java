@@ -1,12 +1,18 @@
 package idespring.lab6.controller.studentcontroller;
 
 import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.StudentDetails;
+import idespring.lab6.model.projection.StudentView;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.service.bulkservice.BulkService;
 import idespring.lab6.service.studservice.StudentServ;
+import idespring.lab6.studentfilter.StudentFilter;
+import idespring.lab6.studentfilter.StudentFilterPage;
+import idespring.lab6.studentfilter.StudentFilterService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,19 +24,20 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/students")
 public class StudentController {
     private final StudentServ studentService;
+    private final BulkService bulkService;
+    private final StudentFilterService studentFilterService;
 
     @Autowired
-    public StudentController(StudentServ studentService) {
+    public StudentController(StudentServ studentService, BulkService bulkService,
+                             StudentFilterService studentFilterService) {
         this.studentService = studentService;
+        this.bulkService = bulkService;
+        this.studentFilterService = studentFilterService;
     }
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Student>> createStudentsBulk(@RequestBody List<Student> students) {
-        List<Student> createdStudents = students.stream()
-                .map(studentService::addStudent)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdStudents);
+        return ResponseEntity.status(HttpStatus.CREATED).body(bulkService.addStudents(students));
     }
 
     @PostMapping
@@ -44,21 +51,45 @@ public class StudentController {
         return ResponseEntity.ok(student);
     }
 
+    @GetMapping(value = "/{studentId}", params = "expand")
+    public ResponseEntity<StudentDetails> getStudentDetails(
+            @Positive @NotNull @PathVariable Long studentId,
+            @RequestParam String expand) {
+        return ResponseEntity.ok(studentService.findDetails(studentId, expand));
+    }
+
     @GetMapping
-    public ResponseEntity<List<Student>> getStudents(
+    public ResponseEntity<List<StudentView>> getStudents(
             @RequestParam(required = false) Integer age,
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) Long id) {
-        List<Student> students = studentService.readStudents(age, sort, id);
+        List<StudentView> students = studentService.readStudents(age, sort, id);
         return students.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(students);
     }
 
+    @PostMapping("/filter")
+    public ResponseEntity<StudentFilterPage> filterStudents(
+            @RequestBody(required = false) @Valid StudentFilter filter,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(studentFilterService.filter(filter, offset, limit));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<StudentView>> getStudentsPage(
+            @RequestParam(required = false) Integer age,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(studentService.readStudentsPage(age, sort, cursor, limit));
+    }
+
     @GetMapping("/group/{groupId}")
-    public ResponseEntity<List<Student>>
+    public ResponseEntity<List<StudentView>>
         getStudentsByGroup(@Positive @NotNull @PathVariable Long groupId) {
-        List<Student> students = studentService.findByGroupId(groupId);
+        List<StudentView> students = studentService.findByGroupId(groupId);
         return students.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(students);
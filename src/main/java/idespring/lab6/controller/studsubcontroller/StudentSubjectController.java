@@ -2,7 +2,9 @@ package idespring.lab6.controller.studsubcontroller;
 
 import idespring.lab6.model.Student;
 import idespring.lab6.model.Subject;
+import idespring.lab6.service.studentsubjserv.EnrollmentOutcome;
 import idespring.lab6.service.studentsubjserv.StudentSubjectService;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.util.HashSet;
@@ -25,15 +27,22 @@ public class StudentSubjectController {
         this.studentSubjectService = studentSubjectService;
     }
 
+    public record EnrollmentRequest(@NotNull List<@NotNull @Positive Long> studentIds,
+                                    @NotNull List<@NotNull @Positive Long> subjectIds) {}
+
     @PostMapping("/bulk")
-    public ResponseEntity<Void> addSubjectsToStudentBulk(
+    public ResponseEntity<List<EnrollmentOutcome>> addSubjectsToStudentBulk(
             @RequestParam @NotNull @Positive Long studentId,
             @RequestBody @NotNull List<@Positive Long> subjectIds) {
-        subjectIds.stream()
-                .distinct()
-                .forEach(subjectId ->
-                        studentSubjectService.addSubjectToStudent(studentId, subjectId));
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(studentSubjectService.enroll(List.of(studentId), subjectIds));
+    }
+
+    @PostMapping("/enrollments")
+    public ResponseEntity<List<EnrollmentOutcome>> enroll(
+            @RequestBody @Valid EnrollmentRequest request) {
+        return ResponseEntity.ok(
+                studentSubjectService.enroll(request.studentIds(), request.subjectIds()));
     }
 
     @PostMapping
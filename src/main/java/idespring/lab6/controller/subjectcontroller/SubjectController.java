@@ -1,6 +1,9 @@
 package idespring.lab6.controller.subjectcontroller;
 
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.SubjectDetails;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.service.bulkservice.BulkService;
 import idespring.lab6.service.subjectservice.SubjectService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
@@ -9,7 +12,6 @@ import jakarta.validation.constraints.Positive;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,20 +23,18 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/subjects")
 public class SubjectController {
     private final SubjectService subjectService;
+    private final BulkService bulkService;
 
     @Autowired
-    public SubjectController(SubjectService subjectService) {
+    public SubjectController(SubjectService subjectService, BulkService bulkService) {
         this.subjectService = subjectService;
+        this.bulkService = bulkService;
     }
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Subject>>
         createSubjectsBulk(@RequestBody @Valid List<Subject> subjects) {
-        List<Subject> createdSubjects = subjects.stream()
-                .filter(subject -> !subjectService.existsByName(subject.getName()))
-                .map(subjectService::addSubject)
-                .collect(Collectors.toList());
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdSubjects);
+        return ResponseEntity.status(HttpStatus.CREATED).body(bulkService.addSubjects(subjects));
     }
 
     @PostMapping
@@ -55,12 +55,29 @@ public class SubjectController {
                 : ResponseEntity.ok(subjects);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Subject>> getSubjectsPage(
+            @RequestParam(required = false) String namePattern,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(
+                subjectService.readSubjectsPage(namePattern, sort, cursor, limit));
+    }
+
     @GetMapping("/{subjectId}")
     public ResponseEntity<Subject> getSubjectById(@PathVariable @NotNull @Positive Long subjectId) {
         Subject subject = subjectService.findById(subjectId);
         return ResponseEntity.ok(subject);
     }
 
+    @GetMapping(value = "/{subjectId}", params = "expand")
+    public ResponseEntity<SubjectDetails> getSubjectDetails(
+            @PathVariable @NotNull @Positive Long subjectId,
+            @RequestParam String expand) {
+        return ResponseEntity.ok(subjectService.findDetails(subjectId, expand));
+    }
+
     @GetMapping("/name/{name}")
     public ResponseEntity<Subject> getSubjectByName(@PathVariable @NotEmpty String name) {
         Subject subject = subjectService.findByName(name);
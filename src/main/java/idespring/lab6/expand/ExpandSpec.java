@@ -0,0 +1,54 @@
+package idespring.lab6.expand;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+public record ExpandSpec(SortedSet<String> attributes) {
+    private static final String NONE = "none";
+
+    public static ExpandSpec parse(String expand, Set<String> allowed) {
+        SortedSet<String> attributes = new TreeSet<>();
+        if (expand != null) {
+            for (String part : expand.split(",")) {
+                String attribute = part.trim();
+                if (attribute.isEmpty()) {
+                    continue;
+                }
+                if (!allowed.contains(attribute)) {
+                    throw new ValidationException("Недопустимое значение expand: '" + attribute
+                            + "', допустимые значения: " + new TreeSet<>(allowed));
+                }
+                attributes.add(attribute);
+            }
+        }
+        return new ExpandSpec(Collections.unmodifiableSortedSet(attributes));
+    }
+
+    public boolean has(String attribute) {
+        return attributes.contains(attribute);
+    }
+
+    public String cacheKey(String prefix, Object id) {
+        return prefix + id + "-" + (attributes.isEmpty() ? NONE : String.join(",", attributes));
+    }
+
+    public static List<String> cacheKeys(String prefix, Object id, Set<String> allowed) {
+        List<String> names = new ArrayList<>(new TreeSet<>(allowed));
+        List<String> keys = new ArrayList<>(1 << names.size());
+        for (int mask = 0; mask < 1 << names.size(); mask++) {
+            SortedSet<String> subset = new TreeSet<>();
+            for (int i = 0; i < names.size(); i++) {
+                if ((mask & 1 << i) != 0) {
+                    subset.add(names.get(i));
+                }
+            }
+            keys.add(new ExpandSpec(subset).cacheKey(prefix, id));
+        }
+        return keys;
+    }
+}
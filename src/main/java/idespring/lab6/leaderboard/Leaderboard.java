@@ -0,0 +1,111 @@
+package idespring.lab6.leaderboard;
+
+import idespring.lab6.analytics.MarkTotals;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+final class Leaderboard {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, MarkTotals> totals;
+    private final RankTreap treap;
+
+    Leaderboard() {
+        this(new HashMap<>(), new RankTreap());
+    }
+
+    private Leaderboard(Map<Long, MarkTotals> totals, RankTreap treap) {
+        this.totals = totals;
+        this.treap = treap;
+    }
+
+    static Leaderboard of(Map<Long, MarkTotals> totals) {
+        int size = totals.size();
+        long[] ids = new long[size];
+        long[] counts = new long[size];
+        long[] sums = new long[size];
+        int n = 0;
+        for (Map.Entry<Long, MarkTotals> entry : totals.entrySet()) {
+            ids[n] = entry.getKey();
+            counts[n] = entry.getValue().count();
+            sums[n++] = entry.getValue().sum();
+        }
+
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        Arrays.parallelSort(order, (a, b) -> RankTreap.compare(ids[a], counts[a], sums[a],
+                ids[b], counts[b], sums[b]));
+        long[] sortedIds = new long[size];
+        long[] sortedCounts = new long[size];
+        long[] sortedSums = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedCounts[i] = counts[order[i]];
+            sortedSums[i] = sums[order[i]];
+        }
+        return new Leaderboard(new HashMap<>(totals),
+                RankTreap.ofSorted(sortedIds, sortedCounts, sortedSums));
+    }
+
+    void update(long studentId, long count, long sum) {
+        lock.writeLock().lock();
+        try {
+            MarkTotals previous = totals.get(studentId);
+            long newCount = count;
+            long newSum = sum;
+            if (previous != null) {
+                treap.remove(studentId, previous.count(), previous.sum());
+                newCount += previous.count();
+                newSum += previous.sum();
+            }
+            if (newCount > 0) {
+                totals.put(studentId, new MarkTotals(newCount, newSum));
+                treap.insert(studentId, newCount, newSum);
+            } else {
+                totals.remove(studentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<LeaderboardEntry> top(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<LeaderboardEntry> result = new ArrayList<>();
+            for (RankTreap.Node node : treap.range(offset, limit)) {
+                result.add(new LeaderboardEntry(offset + result.size() + 1, node.studentId,
+                        node.count, (double) node.sum / node.count));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    LeaderboardEntry rankOf(long studentId) {
+        lock.readLock().lock();
+        try {
+            MarkTotals entry = totals.get(studentId);
+            if (entry == null) {
+                return null;
+            }
+            return new LeaderboardEntry(treap.rank(studentId, entry.count(), entry.sum()) + 1,
+                    studentId, entry.count(), entry.average());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return treap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
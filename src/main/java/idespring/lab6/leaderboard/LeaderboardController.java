@@ -0,0 +1,42 @@
+package idespring.lab6.leaderboard;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@RestController
+@RequestMapping("/leaderboard")
+public class LeaderboardController {
+    private final LeaderboardService leaderboardService;
+
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> getTop(
+            @RequestParam(required = false) @Positive Long subjectId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int offset,
+            @RequestParam(defaultValue = "10") @Positive @Max(1000) int limit) {
+        return ResponseEntity.ok(leaderboardService.top(subjectId, offset, limit));
+    }
+
+    @GetMapping("/students/{studentId}")
+    public ResponseEntity<LeaderboardEntry> getRank(
+            @Positive @NotNull @PathVariable Long studentId,
+            @RequestParam(required = false) @Positive Long subjectId) {
+        return ResponseEntity.ok(leaderboardService.rankOf(studentId, subjectId));
+    }
+
+    @GetMapping("/size")
+    public ResponseEntity<Integer> getSize(
+            @RequestParam(required = false) @Positive Long subjectId) {
+        return ResponseEntity.ok(leaderboardService.size(subjectId));
+    }
+}
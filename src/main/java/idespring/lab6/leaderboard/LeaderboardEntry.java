@@ -0,0 +1,3 @@
+package idespring.lab6.leaderboard;
+
+public record LeaderboardEntry(int rank, long studentId, long count, Double average) {}
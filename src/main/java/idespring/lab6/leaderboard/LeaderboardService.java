@@ -0,0 +1,86 @@
+package idespring.lab6.leaderboard;
+
+import idespring.lab6.analytics.MarkSnapshot;
+import idespring.lab6.analytics.MarkStoreListener;
+import idespring.lab6.exceptions.EntityNotFoundException;
+import idespring.lab6.model.projection.MarkView;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+@Service
+public class LeaderboardService implements MarkStoreListener {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+    private static final String STUDENT_ERR = "Студент не найден в рейтинге";
+
+    private volatile Leaderboard global = new Leaderboard();
+    private volatile Map<Long, Leaderboard> bySubject = new ConcurrentHashMap<>();
+
+    public List<LeaderboardEntry> top(Long subjectId, int offset, int limit) {
+        long start = System.nanoTime();
+        Leaderboard board = board(subjectId);
+        List<LeaderboardEntry> result = board != null ? board.top(offset, limit) : List.of();
+
+        long end = System.nanoTime();
+        logger.info("Execution time for leaderboard top: {} ms", (end - start) / 1_000_000);
+        return result;
+    }
+
+    public LeaderboardEntry rankOf(long studentId, Long subjectId) {
+        long start = System.nanoTime();
+        Leaderboard board = board(subjectId);
+        LeaderboardEntry entry = board != null ? board.rankOf(studentId) : null;
+        if (entry == null) {
+            throw new EntityNotFoundException(STUDENT_ERR);
+        }
+
+        long end = System.nanoTime();
+        logger.info("Execution time for leaderboard rank: {} ms", (end - start) / 1_000_000);
+        return entry;
+    }
+
+    public int size(Long subjectId) {
+        Leaderboard board = board(subjectId);
+        return board != null ? board.size() : 0;
+    }
+
+    @Override
+    public Runnable prepareReload(MarkSnapshot loaded) {
+        final long start = System.nanoTime();
+        Leaderboard newGlobal = Leaderboard.of(loaded.totalsByStudent());
+        Map<Long, Leaderboard> newBySubject = new ConcurrentHashMap<>();
+        loaded.histogramsBySubject().keySet().parallelStream().forEach(subjectId ->
+                newBySubject.put(subjectId, Leaderboard.of(loaded.totalsByStudent(subjectId))));
+
+        long end = System.nanoTime();
+        logger.info("Execution time for leaderboard rebuild: {} ms, {} students",
+                (end - start) / 1_000_000, newGlobal.size());
+        return () -> {
+            global = newGlobal;
+            bySubject = newBySubject;
+        };
+    }
+
+    @Override
+    public void onApplied(List<MarkView> added, List<MarkView> removed) {
+        for (MarkView mark : removed) {
+            apply(mark, -1);
+        }
+        for (MarkView mark : added) {
+            apply(mark, 1);
+        }
+    }
+
+    private void apply(MarkView mark, int sign) {
+        global.update(mark.studentId(), sign, (long) sign * mark.value());
+        bySubject.computeIfAbsent(mark.subjectId(), id -> new Leaderboard())
+                .update(mark.studentId(), sign, (long) sign * mark.value());
+    }
+
+    private Leaderboard board(Long subjectId) {
+        return subjectId == null ? global : bySubject.get(subjectId);
+    }
+}
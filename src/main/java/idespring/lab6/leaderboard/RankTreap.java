@@ -0,0 +1,180 @@
+package idespring.lab6.leaderboard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class RankTreap {
+    static final class Node {
+        final long studentId;
+        final long count;
+        final long sum;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(long studentId, long count, long sum, int priority) {
+            this.studentId = studentId;
+            this.count = count;
+            this.sum = sum;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    static RankTreap ofSorted(long[] studentIds, long[] counts, long[] sums) {
+        RankTreap treap = new RankTreap();
+        Deque<Node> spine = new ArrayDeque<>();
+        for (int i = 0; i < studentIds.length; i++) {
+            Node node = new Node(studentIds[i], counts[i], sums[i], treap.random.nextInt());
+            Node last = null;
+            while (!spine.isEmpty() && spine.peek().priority < node.priority) {
+                last = spine.pop();
+            }
+            node.left = last;
+            if (!spine.isEmpty()) {
+                spine.peek().right = node;
+            }
+            spine.push(node);
+        }
+        treap.root = spine.peekLast();
+        resize(treap.root);
+        return treap;
+    }
+
+    static int compare(long studentA, long countA, long sumA,
+                       long studentB, long countB, long sumB) {
+        int byAverage = Long.compare(sumB * countA, sumA * countB);
+        return byAverage != 0 ? byAverage : Long.compare(studentA, studentB);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(long studentId, long count, long sum) {
+        Node[] parts = split(root, studentId, count, sum);
+        root = merge(merge(parts[0], new Node(studentId, count, sum, random.nextInt())),
+                parts[1]);
+    }
+
+    void remove(long studentId, long count, long sum) {
+        root = remove(root, studentId, count, sum);
+    }
+
+    int rank(long studentId, long count, long sum) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(studentId, count, sum, node.studentId, node.count, node.sum);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    List<Node> range(int offset, int limit) {
+        List<Node> result = new ArrayList<>(Math.min(limit, Math.max(0, size() - offset)));
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int skip = offset;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        while (!path.isEmpty() && result.size() < limit) {
+            Node next = path.pop();
+            result.add(next);
+            for (Node child = next.right; child != null; child = child.left) {
+                path.push(child);
+            }
+        }
+        return result;
+    }
+
+    private Node[] split(Node node, long studentId, long count, long sum) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(node.studentId, node.count, node.sum, studentId, count, sum) < 0) {
+            Node[] parts = split(node.right, studentId, count, sum);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, studentId, count, sum);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node remove(Node node, long studentId, long count, long sum) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(studentId, count, sum, node.studentId, node.count, node.sum);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, studentId, count, sum);
+        } else {
+            node.right = remove(node.right, studentId, count, sum);
+        }
+        update(node);
+        return node;
+    }
+
+    private static int resize(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        node.size = resize(node.left) + resize(node.right) + 1;
+        return node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,178 @@
+package idespring.lab6.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import idespring.lab6.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AsyncLogDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger("ApplicationLog");
+    private static final String FQCN = AsyncLogDispatcher.class.getName();
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final boolean async;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long consumed;
+    private volatile boolean running;
+    private Thread worker;
+
+    private static final class Slot {
+        private boolean error;
+        private String message;
+        private String argument;
+        private Throwable cause;
+        private String traceId;
+        private String threadName;
+        private long timestamp;
+    }
+
+    public AsyncLogDispatcher(LoggingAspectProperties properties) {
+        this.async = properties.isAsync();
+        int capacity = Integer.highestOneBit(
+                Math.max(16, properties.getAsyncBufferSize()) * 2 - 1);
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (async) {
+            running = true;
+            worker = new Thread(this::drain, "log-dispatcher");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public void info(String message, String argument) {
+        if (!async) {
+            logger.info(message, argument);
+        } else {
+            publish(false, message, argument, null);
+        }
+    }
+
+    public void error(String message, String argument, Throwable cause) {
+        if (!async) {
+            logger.error(message, argument, cause);
+        } else {
+            publish(true, message, argument, cause);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void publish(boolean error, String message, String argument, Throwable cause) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        Slot slot = slots[index];
+        slot.error = error;
+        slot.message = message;
+        slot.argument = argument;
+        slot.cause = cause;
+        slot.traceId = MDC.get(Tracer.MDC_KEY);
+        slot.threadName = Thread.currentThread().getName();
+        slot.timestamp = System.currentTimeMillis();
+        published.set(index, sequence);
+    }
+
+    private void drain() {
+        long next = consumed;
+        while (true) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                if (!running && claimed.get() == next) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            Slot slot = slots[index];
+            try {
+                write(slot);
+            } catch (RuntimeException e) {
+                dropped.increment();
+            }
+            slot.message = null;
+            slot.argument = null;
+            slot.cause = null;
+            slot.traceId = null;
+            slot.threadName = null;
+            consumed = ++next;
+        }
+    }
+
+    private void write(Slot slot) {
+        if (logger instanceof ch.qos.logback.classic.Logger logbackLogger) {
+            Level level = slot.error ? Level.ERROR : Level.INFO;
+            if (!logbackLogger.isEnabledFor(level)) {
+                return;
+            }
+            LoggingEvent event = new LoggingEvent(FQCN, logbackLogger, level, slot.message,
+                    slot.cause, new Object[] {slot.argument});
+            event.setTimeStamp(slot.timestamp);
+            event.setThreadName(slot.threadName);
+            event.setMDCPropertyMap(slot.traceId != null
+                    ? Map.of(Tracer.MDC_KEY, slot.traceId) : Map.of());
+            logbackLogger.callAppenders(event);
+            return;
+        }
+
+        if (slot.traceId != null) {
+            MDC.put(Tracer.MDC_KEY, slot.traceId);
+        }
+        try {
+            if (slot.error) {
+                logger.error(slot.message, slot.argument, slot.cause);
+            } else {
+                logger.info(slot.message, slot.argument);
+            }
+        } finally {
+            MDC.remove(Tracer.MDC_KEY);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        long lost = dropped.sum();
+        if (lost > 0) {
+            logger.warn("Dropped {} log events because the async buffer was full", lost);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package idespring.lab6.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LogArchives {
+    private static final Logger logger = LoggerFactory.getLogger(LogArchives.class);
+    private static final Pattern DATE_IN_NAME = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+    private static final int STREAM_BUFFER = 256 * 1024;
+
+    private final Path directory;
+    private final Path manifest;
+    private final String prefix;
+
+    public record Archive(Path path, String firstDate, String lastDate) {
+        boolean overlaps(String fromDate, String toDate) {
+            return (fromDate == null || lastDate.compareTo(fromDate) >= 0)
+                    && (toDate == null || firstDate.compareTo(toDate) <= 0);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        boolean visit(byte[] record, int length, int headerLength) throws IOException;
+    }
+
+    public LogArchives(LogIndex logIndex,
+                       @Value("${logs.archive.dir:}") String directory,
+                       @Value("${logs.archive.manifest:archives.manifest}") String manifest) {
+        Path logFile = logIndex.getLogFile().toAbsolutePath();
+        this.directory = directory.isEmpty() ? logFile.getParent() : Paths.get(directory);
+        this.manifest = this.directory.resolve(manifest);
+        String name = logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.prefix = dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    public List<Archive> archivesBetween(String fromDate, String toDate) throws IOException {
+        List<Archive> result = new ArrayList<>();
+        for (Archive archive : discover()) {
+            if (archive.overlaps(fromDate, toDate)) {
+                result.add(archive);
+            }
+        }
+        return result;
+    }
+
+    private List<Archive> discover() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        Map<String, String[]> manifestDates = readManifest();
+        List<Archive> archives = new ArrayList<>();
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(directory, prefix + "*.gz")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String[] dates = manifestDates.get(name);
+                if (dates != null) {
+                    archives.add(new Archive(file, dates[0], dates[1]));
+                    continue;
+                }
+                Matcher matcher = DATE_IN_NAME.matcher(name);
+                if (matcher.find()) {
+                    archives.add(new Archive(file, matcher.group(1), matcher.group(1)));
+                } else {
+                    logger.warn("Skipping archive {} without a date in its name", file);
+                }
+            }
+        }
+        archives.sort(Comparator.comparing(Archive::firstDate)
+                .thenComparing(archive -> archive.path().getFileName().toString()));
+        return archives;
+    }
+
+    private Map<String, String[]> readManifest() throws IOException {
+        Map<String, String[]> dates = new HashMap<>();
+        if (!Files.exists(manifest)) {
+            return dates;
+        }
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length < 2 || parts[0].startsWith("#")) {
+                continue;
+            }
+            dates.put(parts[0], new String[] {parts[1], parts.length > 2 ? parts[2] : parts[1]});
+        }
+        return dates;
+    }
+
+    public static void scan(Archive archive, RecordVisitor visitor) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive.path()),
+                STREAM_BUFFER)) {
+            byte[] chunk = new byte[STREAM_BUFFER];
+            byte[] record = new byte[8192];
+            int length = 0;
+            int headerLength = -1;
+            int lineStart = 0;
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = chunk[i];
+                    if (length == record.length) {
+                        record = Arrays.copyOf(record, record.length * 2);
+                    }
+                    if (b != '\n') {
+                        record[length++] = b;
+                        continue;
+                    }
+
+                    if (LogFilter.isRecordStart(ByteBuffer.wrap(record), lineStart, length)) {
+                        if (headerLength >= 0) {
+                            if (!visitor.visit(record, lineStart - 1, headerLength)) {
+                                return;
+                            }
+                            System.arraycopy(record, lineStart, record, 0, length - lineStart);
+                            length -= lineStart;
+                        }
+                        headerLength = length;
+                    } else if (headerLength < 0) {
+                        length = 0;
+                        lineStart = 0;
+                        continue;
+                    }
+                    record[length++] = '\n';
+                    lineStart = length;
+                }
+            }
+            if (headerLength >= 0) {
+                int end = length > 0 && record[length - 1] == '\n' ? length - 1 : length;
+                visitor.visit(record, end, Math.min(headerLength, end));
+            }
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package idespring.lab6.logging;
 
+import idespring.lab6.exceptions.ValidationException;
+import idespring.lab6.metrics.MethodStats;
+import idespring.lab6.metrics.MethodTimings;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -21,15 +29,29 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/logs")
 @Tag(name = "Log Controller", description = "API for logs")
 public class LogController {
+    private static final int MAX_QUERY_LIMIT = 100_000;
+
     private final LogService logService;
+    private final LogQueryService logQueryService;
+    private final MethodTimings methodTimings;
+    private final LogFileSender logFileSender;
+    private final LogTailService logTailService;
 
-    public LogController(LogService logService) {
+    public LogController(LogService logService, LogQueryService logQueryService,
+                         MethodTimings methodTimings, LogFileSender logFileSender,
+                         LogTailService logTailService) {
         this.logService = logService;
+        this.logQueryService = logQueryService;
+        this.methodTimings = methodTimings;
+        this.logFileSender = logFileSender;
+        this.logTailService = logTailService;
     }
 
     @PostMapping("/{date}")
@@ -43,7 +65,7 @@ public class LogController {
         return future.thenApply(taskId ->
                 ResponseEntity.accepted().body(Map.of(
                         "taskId", taskId,
-                        "status", "PROCESSING",
+                        "status", logService.getTaskStatus(taskId),
                         "statusUrl", "/logs/" + taskId + "/status"
                 ))
         );
@@ -56,12 +78,15 @@ public class LogController {
         if ("NOT_FOUND".equals(status)) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(Map.of("status", status));
+        return ResponseEntity.ok(Map.of(
+                "status", status,
+                "progress", String.valueOf(logService.getTaskProgress(taskId))));
     }
 
     @GetMapping("/{taskId}/file")
     @Operation(summary = "Download log file")
-    public ResponseEntity<Resource> downloadLogFile(@PathVariable String taskId) {
+    public ResponseEntity<StreamingResponseBody> downloadLogFile(@PathVariable String taskId,
+                                                                 HttpServletRequest request) {
         try {
             String status = logService.getTaskStatus(taskId);
 
@@ -70,20 +95,124 @@ public class LogController {
                         ? HttpStatus.NOT_FOUND : HttpStatus.TOO_EARLY).build();
             }
 
-            String filePath = logService.getLogFilePath(taskId);
-            Path path = Paths.get(filePath);
-            if (!Files.exists(path)) {
+            LogExportJob job = logService.acquireDownload(taskId);
+            if (job == null) {
                 return ResponseEntity.notFound().build();
             }
-
-            Resource resource = new InputStreamResource(Files.newInputStream(path));
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=logs-" + taskId + ".log")
-                    .contentType(MediaType.TEXT_PLAIN)
-                    .body(resource);
+            return trackDownload(job, request);
         } catch (IOException e) {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    // The job stays pinned until the body has been written. Sendfile and bodiless responses
+    // release right away: Tomcat opens the file before the sweeper can get past the TTL
+    // measured from this access.
+    private ResponseEntity<StreamingResponseBody> trackDownload(LogExportJob job,
+                                                                HttpServletRequest request)
+            throws IOException {
+        boolean handedOff = false;
+        try {
+            Path path = Paths.get(job.getFilePath());
+            if (!Files.exists(path)) {
+                return ResponseEntity.notFound().build();
+            }
+            ResponseEntity<StreamingResponseBody> response = logFileSender.send(path,
+                    "logs-" + job.getTaskId() + ".log", request);
+            StreamingResponseBody body = response.getBody();
+            if (body == null) {
+                return response;
+            }
+            handedOff = true;
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(out -> {
+                        try {
+                            body.writeTo(out);
+                        } finally {
+                            logService.releaseDownload(job);
+                        }
+                    });
+        } finally {
+            if (!handedOff) {
+                logService.releaseDownload(job);
+            }
+        }
+    }
+
+    @GetMapping("/query")
+    @Operation(summary = "Query log records by time range, level, logger and regex")
+    public ResponseEntity<Map<String, Object>> queryLogs(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<String> level,
+            @RequestParam(required = false) String logger,
+            @RequestParam(required = false) String regex,
+            @RequestParam(defaultValue = "1000") int limit) {
+        LogFilter filter = LogFilter.of(from, to, level, logger, regex);
+        List<String> records = logQueryService.query(filter, checkLimit(limit));
+        return ResponseEntity.ok(Map.of("count", records.size(), "records", records));
+    }
+
+    @GetMapping(value = "/query", params = "stream=true")
+    @Operation(summary = "Stream matching log records as plain text")
+    public ResponseEntity<StreamingResponseBody> streamLogs(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<String> level,
+            @RequestParam(required = false) String logger,
+            @RequestParam(required = false) String regex,
+            @RequestParam(defaultValue = "1000") int limit) {
+        LogFilter filter = LogFilter.of(from, to, level, logger, regex);
+        int max = checkLimit(limit);
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                logQueryService.query(filter, max, record -> {
+                    try {
+                        writer.write(record);
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Tail application log as Server-Sent Events")
+    public SseEmitter tailLogs(
+            @RequestParam(required = false) List<String> level,
+            @RequestParam(required = false) String logger,
+            @RequestParam(required = false) String regex,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return logTailService.subscribe(LogFilter.of(null, null, level, logger, regex),
+                lastEventId);
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_QUERY_LIMIT) {
+            throw new ValidationException("Параметр 'limit' должен быть от 1 до "
+                    + MAX_QUERY_LIMIT);
+        }
+        return limit;
+    }
+
+    @GetMapping("/method-stats")
+    @Operation(summary = "Get aggregated per-method call statistics")
+    public ResponseEntity<List<MethodStats>> getMethodStats() {
+        return ResponseEntity.ok(methodTimings.snapshot());
+    }
+}
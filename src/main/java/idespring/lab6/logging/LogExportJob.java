@@ -0,0 +1,95 @@
+package idespring.lab6.logging;
+
+public class LogExportJob {
+    private final String taskId;
+    private final String date;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile String status = "PROCESSING";
+    private volatile int progress;
+    private volatile String filePath;
+    private volatile long finishedAt;
+    private int downloads;
+    private long lastDownloadAt;
+    private boolean evicted;
+
+    public LogExportJob(String taskId, String date) {
+        this.taskId = taskId;
+        this.date = date;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getProgress() {
+        return progress;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isRunning() {
+        return finishedAt == 0;
+    }
+
+    public boolean isCompleted() {
+        return "COMPLETED".equals(status);
+    }
+
+    // A download holds the file until release; the sweeper only evicts a job that has no
+    // download open and was not touched within the TTL, and an evicted job can't be reopened.
+    synchronized boolean acquireDownload() {
+        if (evicted) {
+            return false;
+        }
+        downloads++;
+        lastDownloadAt = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void releaseDownload() {
+        downloads--;
+        lastDownloadAt = System.currentTimeMillis();
+    }
+
+    synchronized boolean evictIfIdle(long deadline) {
+        if (isRunning() || downloads > 0 || Math.max(finishedAt, lastDownloadAt) > deadline) {
+            return false;
+        }
+        evicted = true;
+        return true;
+    }
+
+    void updateProgress(long done, long total) {
+        progress = total == 0 ? 100 : (int) Math.min(100, done * 100 / total);
+    }
+
+    void complete(String filePath) {
+        this.filePath = filePath;
+        this.progress = 100;
+        this.status = "COMPLETED";
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    void fail(String message) {
+        this.status = "FAILED: " + message;
+        this.finishedAt = System.currentTimeMillis();
+    }
+}
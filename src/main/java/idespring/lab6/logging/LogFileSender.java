@@ -0,0 +1,228 @@
+package idespring.lab6.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Component
+public class LogFileSender {
+    private static final Logger logger = LoggerFactory.getLogger(LogFileSender.class);
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+    private static final int GZIP_BUFFER = 64 * 1024;
+
+    private final Set<Path> compressing = ConcurrentHashMap.newKeySet();
+
+    public ResponseEntity<StreamingResponseBody> send(Path file, String filename,
+                                                      HttpServletRequest request)
+            throws IOException {
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + "\"";
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        boolean gzip = rangeHeader == null && acceptsGzip(request);
+        String variantTag = gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        headers.setETag(variantTag);
+        headers.setLastModified(modified);
+
+        if (matchesIfNoneMatch(request, variantTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            Path cached = gzipVariant(file);
+            if (Files.exists(cached)
+                    && Files.getLastModifiedTime(cached).toMillis() >= modified) {
+                return sendRegion(cached, 0, Files.size(cached), HttpStatus.OK, headers, request);
+            }
+            return ResponseEntity.ok().headers(headers).body(out -> compress(file, cached, out));
+        }
+
+        if (rangeHeader != null && ifRangeMatches(request, etag, modified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                long start = ranges.get(0).getRangeStart(size);
+                long end = ranges.get(0).getRangeEnd(size);
+                if (size == 0 || start >= size) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .headers(headers).build();
+                }
+                headers.set(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + end + "/" + size);
+                return sendRegion(file, start, end + 1, HttpStatus.PARTIAL_CONTENT,
+                        headers, request);
+            }
+        }
+        return sendRegion(file, 0, size, HttpStatus.OK, headers, request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> sendRegion(Path file, long start, long end,
+                                                             HttpStatus status,
+                                                             HttpHeaders headers,
+                                                             HttpServletRequest request) {
+        headers.setContentLength(end - start);
+        if (end - start >= SENDFILE_THRESHOLD
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        return ResponseEntity.status(status).headers(headers).body(out -> {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                while (position < end) {
+                    position += in.transferTo(position, end - position, target);
+                }
+            }
+        });
+    }
+
+    private void compress(Path file, Path cached, OutputStream out) throws IOException {
+        if (!compressing.add(cached)) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER)) {
+                Files.copy(file, gzip);
+            }
+            return;
+        }
+
+        Path tmp = cached.resolveSibling(cached.getFileName() + ".tmp");
+        boolean completed = false;
+        try (OutputStream cache = Files.newOutputStream(tmp);
+             GZIPOutputStream gzip = new GZIPOutputStream(new TeeOutputStream(out, cache),
+                     GZIP_BUFFER)) {
+            Files.copy(file, gzip);
+            gzip.finish();
+            completed = true;
+        } finally {
+            if (completed) {
+                Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.deleteIfExists(tmp);
+            }
+            compressing.remove(cached);
+        }
+        logger.info("Cached gzip variant {}", cached);
+    }
+
+    static Path gzipVariant(Path file) {
+        return file.resolveSibling(file.getFileName() + ".gz");
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (accept == null) {
+            return false;
+        }
+        for (String coding : accept.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesIfNoneMatch(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (header == null) {
+            return false;
+        }
+        for (String tag : header.split(",")) {
+            String value = tag.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag,
+                                          long modified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return since >= 0 && modified / 1000 <= since / 1000;
+    }
+
+    private static final class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                first.flush();
+            } finally {
+                second.close();
+            }
+        }
+    }
+}
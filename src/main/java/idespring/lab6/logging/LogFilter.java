@@ -0,0 +1,239 @@
+package idespring.lab6.logging;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public final class LogFilter {
+    private static final DateTimeFormatter KEY_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final int DATE_LENGTH = 10;
+    private static final int TIMESTAMP_LENGTH = 19;
+    private static final int HEADER_SCAN_LIMIT = 160;
+
+    private final byte[] from;
+    private final byte[] to;
+    private final byte[][] levels;
+    private final byte[] logger;
+    private final Pattern regex;
+
+    private LogFilter(byte[] from, byte[] to, byte[][] levels, byte[] logger, Pattern regex) {
+        this.from = from;
+        this.to = to;
+        this.levels = levels;
+        this.logger = logger;
+        this.regex = regex;
+    }
+
+    public static LogFilter of(LocalDateTime from, LocalDateTime to, List<String> levels,
+                               String logger, String regex) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("Параметр 'from' должен быть не позже 'to'");
+        }
+
+        byte[][] levelBytes = null;
+        if (levels != null && !levels.isEmpty()) {
+            levelBytes = levels.stream()
+                    .map(level -> level.trim().toUpperCase(Locale.ROOT))
+                    .filter(level -> !level.isEmpty())
+                    .map(level -> level.getBytes(StandardCharsets.US_ASCII))
+                    .toArray(byte[][]::new);
+        }
+
+        Pattern pattern = null;
+        if (regex != null && !regex.isEmpty()) {
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                throw new ValidationException("Некорректное регулярное выражение: "
+                        + e.getDescription());
+            }
+        }
+
+        return new LogFilter(
+                from != null ? key(from) : null,
+                to != null ? key(to) : null,
+                levelBytes,
+                logger != null && !logger.isEmpty()
+                        ? logger.getBytes(StandardCharsets.US_ASCII) : null,
+                pattern);
+    }
+
+    public static LogFilter matchAll() {
+        return new LogFilter(null, null, null, null, null);
+    }
+
+    private static byte[] key(LocalDateTime time) {
+        return time.format(KEY_FORMAT).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String fromDate() {
+        return from != null ? new String(from, 0, DATE_LENGTH, StandardCharsets.US_ASCII) : null;
+    }
+
+    public String toDate() {
+        return to != null ? new String(to, 0, DATE_LENGTH, StandardCharsets.US_ASCII) : null;
+    }
+
+    public static boolean isRecordStart(ByteBuffer buffer, int start, int end) {
+        if (end - start < DATE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            byte b = buffer.get(start + i);
+            boolean ok = (i == 4 || i == 7) ? b == '-' : b >= '0' && b <= '9';
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean matches(String record) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        return matches(ByteBuffer.wrap(bytes), 0, bytes.length, bytes.length, record);
+    }
+
+    // time, level and logger come from the header line [start, headerEnd); the regex is
+    // tested against the whole record up to end, stack trace lines included
+    public boolean matches(ByteBuffer buffer, int start, int headerEnd, int end) {
+        return matches(buffer, start, headerEnd, end, null);
+    }
+
+    private boolean matches(ByteBuffer buffer, int start, int headerEnd, int end,
+                            String decoded) {
+        if ((from != null || to != null) && !matchesTime(buffer, start, headerEnd)) {
+            return false;
+        }
+
+        int levelStart = -1;
+        int levelEnd = -1;
+        if (levels != null || logger != null) {
+            levelStart = skipTimestamp(buffer, start, headerEnd);
+            levelEnd = tokenEnd(buffer, levelStart, headerEnd);
+        }
+
+        if (levels != null && !matchesLevel(buffer, levelStart, levelEnd)) {
+            return false;
+        }
+        if (logger != null && !matchesLogger(buffer, levelEnd, headerEnd)) {
+            return false;
+        }
+        if (regex != null) {
+            String record = decoded != null ? decoded : decode(buffer, start, end);
+            return regex.matcher(record).find();
+        }
+        return true;
+    }
+
+    private boolean matchesTime(ByteBuffer buffer, int start, int end) {
+        if (end - start < TIMESTAMP_LENGTH) {
+            return false;
+        }
+        return (from == null || compare(buffer, start, from) >= 0)
+                && (to == null || compare(buffer, start, to) <= 0);
+    }
+
+    private static int compare(ByteBuffer buffer, int start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            byte b = buffer.get(start + i);
+            if (i == DATE_LENGTH && b == ' ') {
+                b = 'T';
+            }
+            if (b != key[i]) {
+                return b - key[i];
+            }
+        }
+        return 0;
+    }
+
+    private boolean matchesLevel(ByteBuffer buffer, int levelStart, int levelEnd) {
+        for (byte[] level : levels) {
+            if (regionEquals(buffer, levelStart, levelEnd, level)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesLogger(ByteBuffer buffer, int offset, int end) {
+        int limit = Math.min(end, offset + HEADER_SCAN_LIMIT);
+        int separator = -1;
+        for (int i = offset; i + 2 < limit; i++) {
+            if (buffer.get(i) == ' ' && buffer.get(i + 1) == ':' && buffer.get(i + 2) == ' ') {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 0) {
+            return false;
+        }
+
+        int tokenEnd = separator;
+        while (tokenEnd > offset && buffer.get(tokenEnd - 1) == ' ') {
+            tokenEnd--;
+        }
+        int tokenStart = tokenEnd;
+        while (tokenStart > offset && buffer.get(tokenStart - 1) != ' '
+                && buffer.get(tokenStart - 1) != ']') {
+            tokenStart--;
+        }
+        return contains(buffer, tokenStart, tokenEnd, logger);
+    }
+
+    private static int skipTimestamp(ByteBuffer buffer, int start, int end) {
+        int i = Math.min(start + TIMESTAMP_LENGTH, end);
+        while (i < end && buffer.get(i) != ' ') {
+            i++;
+        }
+        while (i < end && buffer.get(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int tokenEnd(ByteBuffer buffer, int offset, int end) {
+        int i = offset;
+        while (i < end && buffer.get(i) != ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean regionEquals(ByteBuffer buffer, int start, int end, byte[] value) {
+        if (end - start != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(ByteBuffer buffer, int start, int end, byte[] value) {
+        outer:
+        for (int i = start; i + value.length <= end; i++) {
+            for (int j = 0; j < value.length; j++) {
+                if (buffer.get(i + j) != value[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
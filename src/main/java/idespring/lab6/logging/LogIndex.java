@@ -0,0 +1,259 @@
+package idespring.lab6.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LogIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LogIndex.class);
+    private static final int DATE_LENGTH = 10;
+    private static final int FINGERPRINT_LENGTH = 256;
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+
+    private final Path logFile;
+    private final Path indexFile;
+    private final TreeMap<String, Long> dateOffsets = new TreeMap<>();
+    private final byte[] lastDate = new byte[DATE_LENGTH];
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final long refreshSeconds;
+    private long indexedUpTo;
+    private long fingerprint;
+    private boolean hasLastDate;
+
+    public record ByteRange(long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+
+    public LogIndex(@Value("${logs.file:logs/application.log}") String logFile,
+                    @Value("${logs.index.refreshSeconds:60}") long refreshSeconds) {
+        this.logFile = Paths.get(logFile);
+        this.indexFile = Paths.get(logFile + ".idx");
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        load();
+        if (refreshSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::refreshQuietly,
+                    refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    public synchronized ByteRange rangeFor(String date) throws IOException {
+        refresh();
+        Long start = dateOffsets.get(date);
+        if (start == null) {
+            return null;
+        }
+        Map.Entry<String, Long> next = dateOffsets.higherEntry(date);
+        long end = next != null ? next.getValue() : indexedUpTo;
+        return new ByteRange(start, end);
+    }
+
+    public synchronized ByteRange rangeBetween(String fromDate, String toDate, long fileSize)
+            throws IOException {
+        refresh();
+        long start = 0;
+        if (fromDate != null) {
+            Map.Entry<String, Long> first = dateOffsets.ceilingEntry(fromDate);
+            start = first != null ? first.getValue() : indexedUpTo;
+        }
+        long end = fileSize;
+        if (toDate != null) {
+            Map.Entry<String, Long> after = dateOffsets.higherEntry(toDate);
+            if (after != null) {
+                end = Math.min(end, after.getValue());
+            }
+        }
+        return new ByteRange(Math.min(start, end), end);
+    }
+
+    public synchronized void refresh() throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+
+        boolean changed = false;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < indexedUpTo || fingerprint(channel, indexedUpTo) != fingerprint) {
+                logger.info("Log file {} was truncated or rotated, rebuilding index", logFile);
+                reset();
+                changed = true;
+            }
+
+            long position = indexedUpTo;
+            boolean midLine = false;
+            while (position < size) {
+                long regionSize = Math.min(MAP_CHUNK, size - position);
+                MappedByteBuffer buffer =
+                        channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                int lineStart = scanRegion(buffer, position, midLine);
+                if (lineStart == 0 && regionSize == MAP_CHUNK) {
+                    position += regionSize;
+                    midLine = true;
+                } else if (lineStart == 0) {
+                    break;
+                } else {
+                    position += lineStart;
+                    midLine = false;
+                    indexedUpTo = position;
+                    changed = true;
+                }
+            }
+            fingerprint = fingerprint(channel, indexedUpTo);
+        }
+
+        if (changed) {
+            persist();
+        }
+    }
+
+    private int scanRegion(MappedByteBuffer buffer, long regionOffset, boolean midLine) {
+        int limit = buffer.limit();
+        int lineStart = 0;
+        boolean skipDate = midLine;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) != '\n') {
+                continue;
+            }
+            if (!skipDate) {
+                indexLine(buffer, lineStart, i, regionOffset);
+            }
+            skipDate = false;
+            lineStart = i + 1;
+        }
+        return lineStart;
+    }
+
+    private void indexLine(MappedByteBuffer buffer, int lineStart, int lineEnd, long regionOffset) {
+        if (lineEnd - lineStart < DATE_LENGTH || !isDateAt(buffer, lineStart)) {
+            return;
+        }
+        if (hasLastDate && sameAsLastDate(buffer, lineStart)) {
+            return;
+        }
+        buffer.get(lineStart, lastDate, 0, DATE_LENGTH);
+        hasLastDate = true;
+        String date = new String(lastDate, StandardCharsets.US_ASCII);
+        dateOffsets.putIfAbsent(date, regionOffset + lineStart);
+    }
+
+    private static boolean isDateAt(MappedByteBuffer buffer, int offset) {
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            byte b = buffer.get(offset + i);
+            boolean ok = (i == 4 || i == 7) ? b == '-' : b >= '0' && b <= '9';
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameAsLastDate(MappedByteBuffer buffer, int offset) {
+        for (int i = DATE_LENGTH - 1; i >= 0; i--) {
+            if (buffer.get(offset + i) != lastDate[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long fingerprint(FileChannel channel, long upTo) throws IOException {
+        int length = (int) Math.min(FINGERPRINT_LENGTH, upTo);
+        CRC32 crc = new CRC32();
+        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        return crc.getValue();
+    }
+
+    private void reset() {
+        dateOffsets.clear();
+        indexedUpTo = 0;
+        fingerprint = 0;
+        hasLastDate = false;
+    }
+
+    private void persist() throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.US_ASCII)) {
+            writer.write("size=" + indexedUpTo + "\n");
+            writer.write("fingerprint=" + fingerprint + "\n");
+            if (hasLastDate) {
+                writer.write("lastDate=" + new String(lastDate, StandardCharsets.US_ASCII) + "\n");
+            }
+            for (Map.Entry<String, Long> entry : dateOffsets.entrySet()) {
+                writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized void load() {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(indexFile, StandardCharsets.US_ASCII);
+            for (String line : lines) {
+                if (line.startsWith("size=")) {
+                    indexedUpTo = Long.parseLong(line.substring(5));
+                } else if (line.startsWith("fingerprint=")) {
+                    fingerprint = Long.parseLong(line.substring(12));
+                } else if (line.startsWith("lastDate=")) {
+                    byte[] date = line.substring(9).getBytes(StandardCharsets.US_ASCII);
+                    System.arraycopy(date, 0, lastDate, 0, DATE_LENGTH);
+                    hasLastDate = true;
+                } else if (!line.isBlank()) {
+                    int space = line.indexOf(' ');
+                    dateOffsets.put(line.substring(0, space),
+                            Long.parseLong(line.substring(space + 1)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable log index {}: {}", indexFile, e.getMessage());
+            reset();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException e) {
+            logger.warn("Failed to refresh log index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,177 @@
+package idespring.lab6.logging;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Service;
+
+@Service
+public class LogQueryService {
+    private static final long MIN_CHUNK = 4L * 1024 * 1024;
+    private static final long MAX_CHUNK = 256L * 1024 * 1024;
+    private static final int ALIGN_WINDOW = 64 * 1024;
+
+    private final LogIndex logIndex;
+    private final LogArchives logArchives;
+    private final ForkJoinPool pool =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public LogQueryService(LogIndex logIndex, LogArchives logArchives) {
+        this.logIndex = logIndex;
+        this.logArchives = logArchives;
+    }
+
+    public List<String> query(LogFilter filter, int limit) {
+        List<String> result = new ArrayList<>();
+        query(filter, limit, result::add);
+        return result;
+    }
+
+    public int query(LogFilter filter, int limit, Consumer<String> sink) {
+        Path logFile = logIndex.getLogFile();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ForkJoinTask<List<String>>> tasks = new ArrayList<>();
+        try (FileChannel channel = Files.exists(logFile)
+                ? FileChannel.open(logFile, StandardOpenOption.READ) : null) {
+            for (LogArchives.Archive archive
+                    : logArchives.archivesBetween(filter.fromDate(), filter.toDate())) {
+                tasks.add(pool.submit(() -> scanArchive(archive, filter, limit, cancelled)));
+            }
+
+            if (channel != null) {
+                LogIndex.ByteRange range =
+                        logIndex.rangeBetween(filter.fromDate(), filter.toDate(), channel.size());
+                for (long[] chunk : split(channel, range)) {
+                    tasks.add(pool.submit(() ->
+                            scanChunk(channel, chunk[0], chunk[1], filter, limit, cancelled)));
+                }
+            }
+
+            int emitted = 0;
+            try {
+                for (ForkJoinTask<List<String>> task : tasks) {
+                    for (String record : task.join()) {
+                        sink.accept(record);
+                        if (++emitted >= limit) {
+                            return emitted;
+                        }
+                    }
+                }
+                return emitted;
+            } finally {
+                cancelled.set(true);
+                tasks.forEach(task -> task.cancel(false));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> scanArchive(LogArchives.Archive archive, LogFilter filter, int limit,
+                                     AtomicBoolean cancelled) throws IOException {
+        List<String> matches = new ArrayList<>();
+        LogArchives.scan(archive, (record, length, headerLength) -> {
+            if (cancelled.get()) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            if (filter.matches(buffer, 0, headerLength, length)) {
+                matches.add(LogFilter.decode(buffer, 0, length));
+            }
+            return matches.size() < limit;
+        });
+        return matches;
+    }
+
+    private List<long[]> split(FileChannel channel, LogIndex.ByteRange range) throws IOException {
+        long length = range.length();
+        int parallelism = pool.getParallelism();
+        long chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, length / (parallelism * 4L) + 1));
+
+        List<long[]> chunks = new ArrayList<>();
+        long start = range.start();
+        while (start < range.end()) {
+            long end = start + chunkSize >= range.end()
+                    ? range.end() : alignToRecord(channel, start + chunkSize, range.end());
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private long alignToRecord(FileChannel channel, long position, long limit) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(ALIGN_WINDOW);
+        long base = position - 1;
+        while (base < limit) {
+            window.clear();
+            int read = channel.read(window, base);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read - 1; i++) {
+                if (window.get(i) == '\n'
+                        && LogFilter.isRecordStart(window, i + 1, Math.min(read, i + 11))) {
+                    return Math.min(base + i + 1, limit);
+                }
+            }
+            base += Math.max(1, read - 11);
+        }
+        return limit;
+    }
+
+    private List<String> scanChunk(FileChannel channel, long start, long end, LogFilter filter,
+                                   int limit, AtomicBoolean cancelled) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        List<String> matches = new ArrayList<>();
+        int size = buffer.limit();
+        int recordStart = -1;
+        int headerEnd = -1;
+        int lineStart = 0;
+
+        for (int i = 0; i <= size; i++) {
+            if (i < size && buffer.get(i) != '\n') {
+                continue;
+            }
+            if (LogFilter.isRecordStart(buffer, lineStart, i)) {
+                if (recordStart >= 0
+                        && filter.matches(buffer, recordStart, headerEnd, lineStart - 1)) {
+                    matches.add(LogFilter.decode(buffer, recordStart, lineStart - 1));
+                    if (matches.size() >= limit) {
+                        return matches;
+                    }
+                }
+                if (cancelled.get()) {
+                    return matches;
+                }
+                recordStart = lineStart;
+                headerEnd = i;
+            }
+            lineStart = i + 1;
+        }
+
+        if (recordStart >= 0) {
+            int recordEnd = size > 0 && buffer.get(size - 1) == '\n' ? size - 1 : size;
+            if (filter.matches(buffer, recordStart, Math.min(headerEnd, recordEnd), recordEnd)) {
+                matches.add(LogFilter.decode(buffer, recordStart, recordEnd));
+            }
+        }
+        return matches;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -1,66 +1,271 @@
 package idespring.lab6.logging;
 
+import idespring.lab6.exceptions.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 @Service
 public class LogService {
-    private static final String LOG_FILE_PATH = "logs/application.log";
     private static final String LOGS_DIR = "logs/";
+    private static final long COPY_STEP = 8L * 1024 * 1024;
+    private static final int PIPELINE_BLOCK = 256 * 1024;
+    private static final int PIPELINE_DEPTH = 8;
+    private static final ByteBuffer END_OF_ARCHIVE = ByteBuffer.allocate(0);
+    private static final Logger logger = LoggerFactory.getLogger(LogService.class);
 
-    private final Map<String, String> logFiles = new ConcurrentHashMap<>();
-    private final Map<String, String> taskStatus = new ConcurrentHashMap<>();
+    private final Map<String, LogExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, LogExportJob> jobsByDate = new ConcurrentHashMap<>();
+    private final LogIndex logIndex;
+    private final LogArchives logArchives;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService archiveReaders;
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor();
+    private final long ttlMillis;
+
+    public LogService(LogIndex logIndex, LogArchives logArchives,
+                      @Value("${logs.export.workers:2}") int workers,
+                      @Value("${logs.export.queueCapacity:16}") int queueCapacity,
+                      @Value("${logs.export.ttlMinutes:60}") long ttlMinutes,
+                      @Value("${logs.archive.parallelism:4}") int archiveParallelism) {
+        this.logIndex = logIndex;
+        this.logArchives = logArchives;
+        this.archiveReaders = Executors.newFixedThreadPool(archiveParallelism);
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PostConstruct
+    public void start() {
+        cleaner.scheduleWithFixedDelay(this::evictExpired, 1, 1, TimeUnit.MINUTES);
+    }
 
     @Async
     public CompletableFuture<String> generateLogFileForDateAsync(String date) {
-        String taskId = UUID.randomUUID().toString();
-        taskStatus.put(taskId, "PROCESSING");
+        return CompletableFuture.completedFuture(submitExport(date).getTaskId());
+    }
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(20000);
+    private synchronized LogExportJob submitExport(String date) {
+        LogExportJob existing = jobsByDate.get(date);
+        if (existing != null && (existing.isRunning() || isReusable(existing))) {
+            logger.info("Reusing log export {} for date {}", existing.getTaskId(), date);
+            return existing;
+        }
 
-                Path sourcePath = Paths.get(LOG_FILE_PATH);
-                if (!Files.exists(sourcePath)) {
-                    throw new IllegalStateException("Source log file not found");
-                }
+        LogExportJob job = new LogExportJob(UUID.randomUUID().toString(), date);
+        try {
+            executor.execute(() -> runExport(job));
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Очередь экспорта логов переполнена, "
+                    + "повторите запрос позже");
+        }
+        jobs.put(job.getTaskId(), job);
+        jobsByDate.put(date, job);
+        return job;
+    }
 
-                List<String> filteredLines;
-                try (Stream<String> lines = Files.lines(sourcePath)) {
-                    filteredLines = lines
-                            .filter(line -> line.startsWith(date))
-                            .toList();
+    private boolean isReusable(LogExportJob job) {
+        return job.isCompleted()
+                && LocalDate.parse(job.getDate()).isBefore(LocalDate.now())
+                && Files.exists(Paths.get(job.getFilePath()));
+    }
+
+    private void runExport(LogExportJob job) {
+        String date = job.getDate();
+        try {
+            List<LogArchives.Archive> archives = logArchives.archivesBetween(date, date);
+            Path sourcePath = logIndex.getLogFile();
+            LogIndex.ByteRange range = Files.exists(sourcePath) ? logIndex.rangeFor(date) : null;
+            boolean hasActive = range != null && range.length() > 0;
+            if (archives.isEmpty() && !hasActive) {
+                throw new IllegalStateException("No logs found for date");
+            }
+
+            Files.createDirectories(Paths.get(LOGS_DIR));
+            String filename = String.format("%slogs-%s-%s.log", LOGS_DIR, date, job.getTaskId());
+            Path target = Paths.get(filename);
+            int parts = archives.size() + (hasActive ? 1 : 0);
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                copyArchived(archives, date, out, job, parts);
+                if (hasActive) {
+                    copyRange(sourcePath, range, out, job, parts);
                 }
+            }
+            if (Files.size(target) == 0) {
+                Files.delete(target);
+                throw new IllegalStateException("No logs found for date");
+            }
+
+            job.complete(filename);
+        } catch (Exception e) {
+            job.fail(e.getMessage());
+        }
+    }
 
-                if (filteredLines.isEmpty()) {
-                    throw new IllegalStateException("No logs found for date");
+    private void copyArchived(List<LogArchives.Archive> archives, String date, FileChannel out,
+                              LogExportJob job, int parts) throws IOException {
+        List<BlockingQueue<ByteBuffer>> queues = new ArrayList<>(archives.size());
+        List<Future<?>> readers = new ArrayList<>(archives.size());
+        byte[] dateBytes = date.getBytes(StandardCharsets.US_ASCII);
+        for (LogArchives.Archive archive : archives) {
+            BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+            queues.add(queue);
+            readers.add(archiveReaders.submit(() -> {
+                try {
+                    readArchive(archive, dateBytes, queue);
+                } finally {
+                    queue.put(END_OF_ARCHIVE);
                 }
+                return null;
+            }));
+        }
 
-                Files.createDirectories(Paths.get(LOGS_DIR));
-                String filename = String.format("%slogs-%s-%s.log", LOGS_DIR, date, taskId);
-                Files.write(Paths.get(filename), filteredLines);
+        try {
+            for (int i = 0; i < archives.size(); i++) {
+                ByteBuffer block;
+                while ((block = queues.get(i).take()) != END_OF_ARCHIVE) {
+                    while (block.hasRemaining()) {
+                        out.write(block);
+                    }
+                }
+                readers.get(i).get();
+                job.updateProgress(i + 1, parts);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Log export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read archive: " + e.getCause().getMessage(),
+                    e.getCause());
+        } finally {
+            readers.forEach(reader -> reader.cancel(true));
+        }
+    }
 
-                logFiles.put(taskId, filename);
-                taskStatus.put(taskId, "COMPLETED");
-            } catch (Exception e) {
-                String errorMsg = e.getMessage();
-                taskStatus.put(taskId, "FAILED: " + errorMsg);
+    private static void readArchive(LogArchives.Archive archive, byte[] date,
+                                    BlockingQueue<ByteBuffer> queue)
+            throws IOException, InterruptedException {
+        ByteBuffer[] block = {ByteBuffer.allocate(PIPELINE_BLOCK)};
+        LogArchives.scan(archive, (record, length, headerLength) -> {
+            int cmp = Arrays.compare(record, 0, date.length, date, 0, date.length);
+            if (cmp > 0) {
+                return false;
+            }
+            if (cmp < 0) {
+                return true;
             }
+            if (block[0].remaining() < length + 1) {
+                handOff(block, queue, length + 1);
+            }
+            block[0].put(record, 0, length).put((byte) '\n');
+            return true;
         });
+        if (block[0].position() > 0) {
+            queue.put(block[0].flip());
+        }
+    }
+
+    private static void handOff(ByteBuffer[] block, BlockingQueue<ByteBuffer> queue, int needed)
+            throws InterruptedIOException {
+        try {
+            if (block[0].position() > 0) {
+                queue.put(block[0].flip());
+            }
+            block[0] = ByteBuffer.allocate(Math.max(PIPELINE_BLOCK, needed));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Archive read interrupted");
+        }
+    }
 
-        return CompletableFuture.completedFuture(taskId);
+    private void copyRange(Path source, LogIndex.ByteRange range, FileChannel out,
+                           LogExportJob job, int parts) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long position = range.start();
+            long done = (parts - 1) * range.length();
+            while (position < range.end()) {
+                long step = Math.min(COPY_STEP, range.end() - position);
+                position += in.transferTo(position, step, out);
+                job.updateProgress(done + position - range.start(), parts * range.length());
+            }
+        }
+    }
+
+    void evictExpired() {
+        long deadline = System.currentTimeMillis() - ttlMillis;
+        for (LogExportJob job : jobs.values()) {
+            if (!job.evictIfIdle(deadline)) {
+                continue;
+            }
+            jobs.remove(job.getTaskId());
+            jobsByDate.remove(job.getDate(), job);
+            if (job.getFilePath() != null) {
+                try {
+                    Path file = Paths.get(job.getFilePath());
+                    Files.deleteIfExists(file);
+                    Files.deleteIfExists(LogFileSender.gzipVariant(file));
+                } catch (IOException e) {
+                    logger.warn("Failed to delete expired log export {}: {}",
+                            job.getFilePath(), e.getMessage());
+                }
+            }
+        }
     }
 
     public String getLogFilePath(String taskId) {
-        return logFiles.get(taskId);
+        LogExportJob job = jobs.get(taskId);
+        return job != null ? job.getFilePath() : null;
+    }
+
+    public LogExportJob acquireDownload(String taskId) {
+        LogExportJob job = jobs.get(taskId);
+        return job != null && job.isCompleted() && job.acquireDownload() ? job : null;
+    }
+
+    public void releaseDownload(LogExportJob job) {
+        job.releaseDownload();
     }
 
     public String getTaskStatus(String taskId) {
-        return taskStatus.getOrDefault(taskId, "NOT_FOUND");
+        LogExportJob job = jobs.get(taskId);
+        return job != null ? job.getStatus() : "NOT_FOUND";
+    }
+
+    public int getTaskProgress(String taskId) {
+        LogExportJob job = jobs.get(taskId);
+        return job != null ? job.getProgress() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdown();
+        executor.shutdownNow();
+        archiveReaders.shutdownNow();
     }
 }
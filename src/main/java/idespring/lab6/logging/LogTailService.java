@@ -0,0 +1,262 @@
+package idespring.lab6.logging;
+
+import idespring.lab6.exceptions.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Service
+public class LogTailService {
+    private static final Logger logger = LoggerFactory.getLogger(LogTailService.class);
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final long POLL_MILLIS = 1000;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long RECORD_QUIET_MILLIS = 250;
+
+    private final Path logFile;
+    private final String[] ring;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final StringBuilder record = new StringBuilder();
+    private long head;
+    private volatile boolean running;
+    private Thread reader;
+    private WatchService watchService;
+    private byte[] line = new byte[1024];
+    private int lineLength;
+
+    public LogTailService(LogIndex logIndex,
+                          @Value("${logs.tail.bufferSize:4096}") int bufferSize,
+                          @Value("${logs.tail.maxSubscribers:64}") int maxSubscribers,
+                          @Value("${logs.tail.timeoutMinutes:30}") long timeoutMinutes) {
+        this.logFile = logIndex.getLogFile();
+        this.ring = new String[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    public SseEmitter subscribe(LogFilter filter, Long lastEventId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new TooManyRequestsException("Слишком много подписчиков на поток логов");
+        }
+        ensureReader();
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        long start = startSequence(lastEventId);
+        Thread subscriber = Thread.ofVirtual().name("log-tail-subscriber")
+                .start(() -> pump(emitter, filter, start));
+        emitter.onCompletion(subscriber::interrupt);
+        emitter.onTimeout(subscriber::interrupt);
+        emitter.onError(e -> subscriber.interrupt());
+        return emitter;
+    }
+
+    private long startSequence(Long lastEventId) {
+        lock.lock();
+        try {
+            if (lastEventId != null && lastEventId >= head - ring.length && lastEventId < head) {
+                return lastEventId + 1;
+            }
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pump(SseEmitter emitter, LogFilter filter, long start) {
+        long cursor = start;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                String next = null;
+                SseEmitter.SseEventBuilder overflow = null;
+                lock.lock();
+                try {
+                    if (cursor >= head) {
+                        published.await(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                    }
+                    if (head - cursor > ring.length) {
+                        overflow = SseEmitter.event().name("overflow")
+                                .data("Subscriber fell behind by " + (head - cursor)
+                                        + " records, buffer holds " + ring.length);
+                    } else if (cursor < head) {
+                        next = ring[(int) (cursor % ring.length)];
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                if (overflow != null) {
+                    emitter.send(overflow);
+                    emitter.complete();
+                    return;
+                }
+                if (next == null) {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                    continue;
+                }
+                if (filter.matches(next)) {
+                    emitter.send(SseEmitter.event().id(Long.toString(cursor)).data(next));
+                }
+                cursor++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        } finally {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    private synchronized void ensureReader() {
+        if (running) {
+            return;
+        }
+        running = true;
+        reader = Thread.ofPlatform().name("log-tailer").daemon().start(this::tail);
+    }
+
+    private void tail() {
+        long position = 0;
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            watchService = watcher;
+            Path dir = logFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            position = Files.exists(logFile) ? Files.size(logFile) : 0;
+            long lastGrowth = System.nanoTime();
+
+            while (running) {
+                long timeout = record.isEmpty() ? POLL_MILLIS : RECORD_QUIET_MILLIS;
+                WatchKey key = watcher.poll(timeout, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                if (!Files.exists(logFile)) {
+                    continue;
+                }
+                long size = Files.size(logFile);
+                if (size < position) {
+                    if (lineLength == 0) {
+                        flushRecord();
+                    }
+                    position = 0;
+                    lineLength = 0;
+                    record.setLength(0);
+                }
+                if (size > position) {
+                    position = readFrom(position);
+                    lastGrowth = System.nanoTime();
+                } else if (lineLength == 0 && System.nanoTime() - lastGrowth
+                        >= TimeUnit.MILLISECONDS.toNanos(RECORD_QUIET_MILLIS)) {
+                    flushRecord();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Log tail reader stopped: {}", e.getMessage());
+            running = false;
+        }
+    }
+
+    private long readFrom(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                position += read;
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '\n') {
+                        endLine();
+                    } else {
+                        appendToLine(b);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        return position;
+    }
+
+    private void appendToLine(byte b) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = b;
+    }
+
+    // A record ends when the next record header arrives, or when the file has been quiet
+    // for RECORD_QUIET_MILLIS after a full line, so stack-trace lines appended by the same
+    // logging call are never split off into a separate event.
+    private void flushRecord() {
+        if (!record.isEmpty()) {
+            publish(record.toString());
+            record.setLength(0);
+        }
+    }
+
+    private void endLine() {
+        if (LogFilter.isRecordStart(ByteBuffer.wrap(line), 0, lineLength)) {
+            flushRecord();
+        }
+        if (!record.isEmpty()) {
+            record.append('\n');
+        }
+        record.append(new String(line, 0, lineLength, StandardCharsets.UTF_8));
+        lineLength = 0;
+    }
+
+    private void publish(String entry) {
+        lock.lock();
+        try {
+            ring[(int) (head % ring.length)] = entry;
+            head++;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        running = false;
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+}
@@ -1,31 +1,85 @@
 package idespring.lab6.logging;
 
+import idespring.lab6.metrics.MethodTimings;
+import idespring.lab6.metrics.TimingHistogram;
+import idespring.lab6.tracing.Tracer;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
 @Aspect
 @Component
 public class LoggingAspect {
-    private static final Logger logger = LoggerFactory.getLogger("ApplicationLog");
+    private final MethodTimings methodTimings;
+    private final AsyncLogDispatcher dispatcher;
+    private final LoggingAspectProperties properties;
+    private final ConcurrentHashMap<Method, MethodProfile> profiles = new ConcurrentHashMap<>();
+
+    private record MethodProfile(String name, double sampleRate, TimingHistogram timings) {}
+
+    public LoggingAspect(MethodTimings methodTimings,
+                         AsyncLogDispatcher dispatcher,
+                         LoggingAspectProperties properties) {
+        this.methodTimings = methodTimings;
+        this.dispatcher = dispatcher;
+        this.properties = properties;
+    }
 
     @Around("execution(* idespring.lab6.service..*(..)) "
             + "|| execution(* idespring.lab6.controller..*(..)) "
             + "|| execution(* idespring.lab6.repository..*(..))")
     public Object logMethods(ProceedingJoinPoint joinPoint) throws Throwable {
-        String methodName = joinPoint.getSignature().toShortString();
-        logger.info("Executing: {}", methodName);
+        MethodProfile profile = profileOf(joinPoint);
+        boolean logCall = shouldLog(profile);
+        if (logCall) {
+            dispatcher.info("Executing: {}", profile.name());
+        }
+        int span = Tracer.enter(profile.name());
+        long start = System.nanoTime();
+        Throwable failure = null;
         try {
-            Object result = joinPoint.proceed();
-            logger.info("Successfully executed: {}", methodName);
-            return result;
-        } catch (Exception e) {
-            logger.error("Error in method: {}", methodName, e);
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
             throw e;
+        } finally {
+            profile.timings().record(System.nanoTime() - start, failure != null);
+            Tracer.exit(span, failure != null);
+            if (failure != null) {
+                dispatcher.error("Error in method: {}", profile.name(), failure);
+            } else if (logCall) {
+                dispatcher.info("Successfully executed: {}", profile.name());
+            }
         }
     }
-}
 
+    private boolean shouldLog(MethodProfile profile) {
+        return switch (properties.getMode()) {
+            case FULL -> true;
+            case AGGREGATE -> false;
+            case SAMPLED -> profile.sampleRate() >= 1.0
+                    || (profile.sampleRate() > 0.0
+                    && ThreadLocalRandom.current().nextDouble() < profile.sampleRate());
+        };
+    }
+
+    private MethodProfile profileOf(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Method method = signature.getMethod();
+        MethodProfile profile = profiles.get(method);
+        if (profile == null) {
+            profile = profiles.computeIfAbsent(method, m -> {
+                String name = signature.toShortString();
+                double rate = properties.resolveSampleRate(
+                        signature.getDeclaringType().getSimpleName(), m.getName());
+                return new MethodProfile(name, rate, methodTimings.histogram(name));
+            });
+        }
+        return profile;
+    }
+}
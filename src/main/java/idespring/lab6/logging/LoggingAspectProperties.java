@@ -0,0 +1,79 @@
+package idespring.lab6.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "logging.aspect")
+public class LoggingAspectProperties {
+    public enum Mode {
+        FULL,
+        SAMPLED,
+        AGGREGATE
+    }
+
+    private Mode mode = Mode.FULL;
+    private double sampleRate = 1.0;
+    private Map<String, Double> methodSampleRates = new HashMap<>();
+    private boolean async = false;
+    private int asyncBufferSize = 8192;
+    private long summaryIntervalSeconds = 60;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public Map<String, Double> getMethodSampleRates() {
+        return methodSampleRates;
+    }
+
+    public void setMethodSampleRates(Map<String, Double> methodSampleRates) {
+        this.methodSampleRates = methodSampleRates;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public int getAsyncBufferSize() {
+        return asyncBufferSize;
+    }
+
+    public void setAsyncBufferSize(int asyncBufferSize) {
+        this.asyncBufferSize = asyncBufferSize;
+    }
+
+    public long getSummaryIntervalSeconds() {
+        return summaryIntervalSeconds;
+    }
+
+    public void setSummaryIntervalSeconds(long summaryIntervalSeconds) {
+        this.summaryIntervalSeconds = summaryIntervalSeconds;
+    }
+
+    public double resolveSampleRate(String className, String methodName) {
+        Double rate = methodSampleRates.get(className + "." + methodName);
+        if (rate == null) {
+            rate = methodSampleRates.get(className);
+        }
+        return rate != null ? rate : sampleRate;
+    }
+}
@@ -0,0 +1,63 @@
+package idespring.lab6.logging;
+
+import idespring.lab6.metrics.MethodStats;
+import idespring.lab6.metrics.MethodTimings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MethodStatsReporter {
+    private static final Logger logger = LoggerFactory.getLogger("ApplicationLog");
+
+    private final MethodTimings methodTimings;
+    private final LoggingAspectProperties properties;
+    private final Map<String, MethodStats> previous = new HashMap<>();
+    private ScheduledExecutorService executor;
+
+    public MethodStatsReporter(MethodTimings methodTimings, LoggingAspectProperties properties) {
+        this.methodTimings = methodTimings;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = properties.getSummaryIntervalSeconds();
+        if (properties.getMode() == LoggingAspectProperties.Mode.AGGREGATE && interval > 0) {
+            executor = Executors.newSingleThreadScheduledExecutor();
+            executor.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    synchronized void report() {
+        for (MethodStats current : methodTimings.snapshot()) {
+            MethodStats last = previous.put(current.method(), current);
+            long maxNanos = methodTimings.histogram(current.method()).takeIntervalMaxNanos();
+            long calls = current.calls() - (last != null ? last.calls() : 0);
+            if (calls == 0) {
+                continue;
+            }
+            long errors = current.errors() - (last != null ? last.errors() : 0);
+            long nanos = current.totalNanos() - (last != null ? last.totalNanos() : 0);
+            logger.info("Method summary: {} calls={} errors={} avg={} ms max={} ms",
+                    current.method(), calls, errors,
+                    String.format("%.3f", nanos / 1e6 / calls),
+                    String.format("%.3f", maxNanos / 1e6));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            report();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package idespring.lab6.metrics;
+
+import idespring.lab6.analytics.MarkStore;
+import idespring.lab6.config.CacheConfig;
+import idespring.lab6.service.studentsubjserv.EnrollmentIndex;
+import idespring.lab6.visits.VisitCounterService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class Lab6MeterBinder implements MeterBinder {
+    private final VisitCounterService visitCounterService;
+    private final CacheConfig<String, Object> cache;
+    private final EnrollmentIndex enrollmentIndex;
+    private final MarkStore markStore;
+
+    public Lab6MeterBinder(VisitCounterService visitCounterService,
+                           CacheConfig<String, Object> cache,
+                           EnrollmentIndex enrollmentIndex,
+                           MarkStore markStore) {
+        this.visitCounterService = visitCounterService;
+        this.cache = cache;
+        this.enrollmentIndex = enrollmentIndex;
+        this.markStore = markStore;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("lab6.visits", visitCounterService,
+                        VisitCounterService::getTotalVisits)
+                .description("Total handled requests")
+                .register(registry);
+        Gauge.builder("lab6.visits.rate", visitCounterService,
+                        VisitCounterService::getVisitsPerSecond)
+                .description("Request rate over the last minute")
+                .baseUnit("requests/s")
+                .register(registry);
+        visitCounterService.onNewRoute(route -> Gauge.builder("lab6.unique.clients.today",
+                        visitCounterService, service -> service.getTodayUniqueClients(route))
+                .description("Estimated distinct clients per route today")
+                .tag("route", route)
+                .register(registry));
+
+        FunctionCounter.builder("lab6.cache.requests", cache, CacheConfig::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("lab6.cache.requests", cache, CacheConfig::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("lab6.cache.hit.ratio", cache, Lab6MeterBinder::hitRatio)
+                .description("Cache hit ratio since start")
+                .register(registry);
+        FunctionCounter.builder("lab6.cache.puts", cache, CacheConfig::getPutCount)
+                .description("Cache insertions")
+                .register(registry);
+        FunctionCounter.builder("lab6.cache.evictions", cache, CacheConfig::getEvictionCount)
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("lab6.cache.evictions", cache, CacheConfig::getExpirationCount)
+                .tag("cause", "expired")
+                .register(registry);
+        Gauge.builder("lab6.cache.size", cache, CacheConfig::size)
+                .register(registry);
+        Gauge.builder("lab6.cache.max.size", cache, CacheConfig::getMaxSize)
+                .description("Configured cache capacity")
+                .register(registry);
+
+        Gauge.builder("lab6.enrollment.index.loaded", enrollmentIndex,
+                        index -> index.isLoaded() ? 1 : 0)
+                .description("1 while enrollment checks are served from memory")
+                .register(registry);
+        FunctionCounter.builder("lab6.enrollment.fallback.queries", enrollmentIndex,
+                        EnrollmentIndex::getFallbackCount)
+                .description("Enrollment checks sent to the database while the index is down")
+                .register(registry);
+        Gauge.builder("lab6.analytics.store.loaded", markStore,
+                        store -> store.isLoaded() ? 1 : 0)
+                .description("1 once mark analytics are computed over every stored mark")
+                .register(registry);
+    }
+
+    private static double hitRatio(CacheConfig<String, Object> cache) {
+        long hits = cache.getHitCount();
+        long lookups = hits + cache.getMissCount();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
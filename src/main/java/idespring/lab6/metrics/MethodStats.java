@@ -0,0 +1,11 @@
+package idespring.lab6.metrics;
+
+public record MethodStats(String method, long calls, long errors, long totalNanos, long maxNanos) {
+    public double averageMillis() {
+        return calls == 0 ? 0.0 : totalNanos / 1e6 / calls;
+    }
+
+    public double maxMillis() {
+        return maxNanos / 1e6;
+    }
+}
@@ -0,0 +1,38 @@
+package idespring.lab6.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MethodTimings {
+    private final ConcurrentHashMap<String, TimingHistogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String method, long nanos, boolean failed) {
+        histogram(method).record(nanos, failed);
+    }
+
+    public TimingHistogram histogram(String method) {
+        TimingHistogram histogram = histograms.get(method);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(method, m -> new TimingHistogram());
+        }
+        return histogram;
+    }
+
+    public List<MethodStats> snapshot() {
+        List<MethodStats> stats = new ArrayList<>(histograms.size());
+        histograms.forEach((method, histogram) -> stats.add(new MethodStats(method,
+                histogram.getCount(), histogram.getErrors(),
+                histogram.getTotalNanos(), histogram.getMaxNanos())));
+        stats.sort(Comparator.comparingLong(MethodStats::totalNanos).reversed());
+        return stats;
+    }
+
+    public void forEach(BiConsumer<String, TimingHistogram> consumer) {
+        histograms.forEach(consumer);
+    }
+}
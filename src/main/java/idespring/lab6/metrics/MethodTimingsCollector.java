@@ -0,0 +1,86 @@
+package idespring.lab6.metrics;
+
+import io.prometheus.metrics.model.registry.MultiCollector;
+import io.prometheus.metrics.model.registry.PrometheusRegistry;
+import io.prometheus.metrics.model.snapshots.ClassicHistogramBuckets;
+import io.prometheus.metrics.model.snapshots.CounterSnapshot;
+import io.prometheus.metrics.model.snapshots.HistogramSnapshot;
+import io.prometheus.metrics.model.snapshots.Labels;
+import io.prometheus.metrics.model.snapshots.MetricMetadata;
+import io.prometheus.metrics.model.snapshots.MetricSnapshots;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MethodTimingsCollector implements MultiCollector {
+    private static final MetricMetadata DURATION = new MetricMetadata(
+            "lab6_method_duration_seconds",
+            "Execution time of service, controller and repository methods");
+    private static final MetricMetadata ERRORS = new MetricMetadata(
+            "lab6_method_errors", "Method calls ending in an exception");
+    private static final double[] UPPER_BOUNDS = upperBounds();
+
+    private final MethodTimings methodTimings;
+    private final ObjectProvider<PrometheusRegistry> registryProvider;
+    private PrometheusRegistry registry;
+
+    // The registry is absent when Prometheus export is switched off (and in tests).
+    public MethodTimingsCollector(MethodTimings methodTimings,
+                                  ObjectProvider<PrometheusRegistry> registryProvider) {
+        this.methodTimings = methodTimings;
+        this.registryProvider = registryProvider;
+    }
+
+    @PostConstruct
+    public void register() {
+        registry = registryProvider.getIfAvailable();
+        if (registry != null) {
+            registry.register(this);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (registry != null) {
+            registry.unregister(this);
+        }
+    }
+
+    @Override
+    public MetricSnapshots collect() {
+        List<HistogramSnapshot.HistogramDataPointSnapshot> durations = new ArrayList<>();
+        List<CounterSnapshot.CounterDataPointSnapshot> errors = new ArrayList<>();
+        methodTimings.forEach((method, histogram) -> {
+            Labels labels = Labels.of("method", method);
+            long[] counts = new long[histogram.bucketCount()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = histogram.bucketCount(i);
+            }
+            durations.add(new HistogramSnapshot.HistogramDataPointSnapshot(
+                    ClassicHistogramBuckets.of(UPPER_BOUNDS, counts),
+                    histogram.getTotalNanos() / 1e9, labels, null, 0));
+            errors.add(new CounterSnapshot.CounterDataPointSnapshot(
+                    histogram.getErrors(), labels, null, 0));
+        });
+        return new MetricSnapshots(new HistogramSnapshot(DURATION, durations),
+                new CounterSnapshot(ERRORS, errors));
+    }
+
+    @Override
+    public List<String> getPrometheusNames() {
+        return List.of(DURATION.getPrometheusName(), ERRORS.getPrometheusName());
+    }
+
+    private static double[] upperBounds() {
+        double[] bounds = new double[TimingHistogram.BUCKET_BOUNDS_NANOS.length + 1];
+        for (int i = 0; i < TimingHistogram.BUCKET_BOUNDS_NANOS.length; i++) {
+            bounds[i] = TimingHistogram.BUCKET_BOUNDS_NANOS[i] / 1e9;
+        }
+        bounds[bounds.length - 1] = Double.POSITIVE_INFINITY;
+        return bounds;
+    }
+}
@@ -0,0 +1,76 @@
+package idespring.lab6.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TimingHistogram {
+    static final long[] BUCKET_BOUNDS_NANOS = {
+        100_000L, 500_000L, 1_000_000L, 5_000_000L, 10_000_000L, 25_000_000L,
+        50_000_000L, 100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L,
+        2_500_000_000L, 5_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_NANOS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong intervalMaxNanos = new AtomicLong();
+
+    public TimingHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos, boolean failed) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        long intervalMax = intervalMaxNanos.get();
+        while (nanos > intervalMax && !intervalMaxNanos.compareAndSet(intervalMax, nanos)) {
+            intervalMax = intervalMaxNanos.get();
+        }
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public static long bucketUpperBoundNanos(int bucket) {
+        return bucket < BUCKET_BOUNDS_NANOS.length ? BUCKET_BOUNDS_NANOS[bucket] : Long.MAX_VALUE;
+    }
+
+    public long bucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    public int bucketCount() {
+        return buckets.length;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long takeIntervalMaxNanos() {
+        return intervalMaxNanos.getAndSet(0);
+    }
+}
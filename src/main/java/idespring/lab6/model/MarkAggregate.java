@@ -0,0 +1,127 @@
+package idespring.lab6.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+@Entity
+@Table(schema = "studentmanagement", name = "mark_aggregates")
+public class MarkAggregate {
+    public static final int MIN_MARK = 1;
+    public static final int MAX_MARK = 10;
+
+    public enum Scope { STUDENT, SUBJECT }
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "mark_sum")
+    private long sum;
+
+    @Column(name = "mark_count")
+    private long count;
+
+    @Column(name = "min_value")
+    private Integer minValue;
+
+    @Column(name = "max_value")
+    private Integer maxValue;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private long[] histogram = new long[MAX_MARK - MIN_MARK + 1];
+
+    @Version
+    private long version;
+
+    public MarkAggregate() {}
+
+    public void apply(int value, long delta) {
+        if (value < MIN_MARK || value > MAX_MARK) {
+            throw new IllegalArgumentException("Mark value out of range: " + value);
+        }
+        long[] updated = histogram.clone();
+        updated[value - MIN_MARK] = Math.max(0, updated[value - MIN_MARK] + delta);
+        histogram = updated;
+
+        sum = 0;
+        count = 0;
+        minValue = null;
+        maxValue = null;
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            int mark = i + MIN_MARK;
+            sum += histogram[i] * mark;
+            count += histogram[i];
+            if (minValue == null) {
+                minValue = mark;
+            }
+            maxValue = mark;
+        }
+    }
+
+    public Key getId() {
+        return id;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Integer getMinValue() {
+        return minValue;
+    }
+
+    public Integer getMaxValue() {
+        return maxValue;
+    }
+
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+        @Enumerated(EnumType.STRING)
+        private Scope scope;
+
+        @Column(name = "owner_id")
+        private Long ownerId;
+
+        public Key() {}
+
+        public Key(Scope scope, Long ownerId) {
+            this.scope = scope;
+            this.ownerId = ownerId;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && scope == key.scope && Objects.equals(ownerId, key.ownerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, ownerId);
+        }
+    }
+}
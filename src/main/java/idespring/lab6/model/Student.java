@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.util.HashSet;
 import java.util.Set;
+import org.hibernate.annotations.BatchSize;
 
 @Entity
 @Table(schema = "studentmanagement", name = "students")
@@ -32,6 +33,7 @@ public class Student {
             CascadeType.REFRESH, CascadeType.MERGE,
             CascadeType.PERSIST},
              fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @JoinTable (
             name = "student_subject",
             joinColumns = @JoinColumn(name = "studentid"),
@@ -0,0 +1,24 @@
+package idespring.lab6.model.projection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import idespring.lab6.expand.ExpandSpec;
+import idespring.lab6.model.Group;
+import java.util.List;
+import java.util.Set;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GroupDetails(Long id, String name, List<StudentSummary> students) {
+    public static final Set<String> EXPANDABLE = Set.of("students");
+    public static final String CACHE_PREFIX = "group-expand-";
+
+    public static GroupDetails of(Group group, ExpandSpec expand) {
+        return new GroupDetails(group.getId(), group.getName(),
+                expand.has("students")
+                        ? group.getStudents().stream().map(StudentSummary::of).toList()
+                        : null);
+    }
+
+    public static List<String> cacheKeys(Long id) {
+        return ExpandSpec.cacheKeys(CACHE_PREFIX, id, EXPANDABLE);
+    }
+}
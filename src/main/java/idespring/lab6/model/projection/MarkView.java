@@ -0,0 +1,10 @@
+package idespring.lab6.model.projection;
+
+import idespring.lab6.model.Mark;
+
+public record MarkView(Long id, int value, Long studentId, Long subjectId) {
+    public static MarkView of(Mark mark) {
+        return new MarkView(mark.getId(), mark.getValue(),
+                mark.getStudent().getId(), mark.getSubject().getId());
+    }
+}
@@ -0,0 +1,39 @@
+package idespring.lab6.model.projection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import idespring.lab6.expand.ExpandSpec;
+import idespring.lab6.model.Group;
+import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.StudentView.GroupRef;
+import idespring.lab6.model.projection.StudentView.SubjectRef;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StudentDetails(Long id, String name, int age, GroupRef group,
+                             Set<SubjectRef> subjects, Set<MarkView> marks) {
+    public static final Set<String> EXPANDABLE = Set.of("group", "subjects", "marks");
+    public static final String CACHE_PREFIX = "student-expand-";
+
+    public static StudentDetails of(Student student, ExpandSpec expand) {
+        return new StudentDetails(student.getId(), student.getName(), student.getAge(),
+                expand.has("group") ? groupRef(student.getGroup()) : null,
+                expand.has("subjects")
+                        ? student.getSubjects().stream()
+                                .map(subject -> new SubjectRef(subject.getId(), subject.getName()))
+                                .collect(Collectors.toSet())
+                        : null,
+                expand.has("marks")
+                        ? student.getMarks().stream().map(MarkView::of).collect(Collectors.toSet())
+                        : null);
+    }
+
+    private static GroupRef groupRef(Group group) {
+        return group != null ? new GroupRef(group.getId(), group.getName()) : null;
+    }
+
+    public static List<String> cacheKeys(Long id) {
+        return ExpandSpec.cacheKeys(CACHE_PREFIX, id, EXPANDABLE);
+    }
+}
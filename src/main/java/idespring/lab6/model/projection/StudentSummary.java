@@ -0,0 +1,9 @@
+package idespring.lab6.model.projection;
+
+import idespring.lab6.model.Student;
+
+public record StudentSummary(Long id, String name, int age) {
+    public static StudentSummary of(Student student) {
+        return new StudentSummary(student.getId(), student.getName(), student.getAge());
+    }
+}
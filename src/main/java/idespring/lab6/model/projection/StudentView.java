@@ -0,0 +1,14 @@
+package idespring.lab6.model.projection;
+
+import java.util.List;
+
+// same JSON as the Student entity: group and subjects as {id, name},
+// marks as {id, value, subjectId}
+public record StudentView(Long id, String name, int age, GroupRef group,
+                          List<SubjectRef> subjects, List<MarkRef> marks) {
+    public record GroupRef(Long id, String name) {}
+
+    public record SubjectRef(Long id, String name) {}
+
+    public record MarkRef(Long id, int value, Long subjectId) {}
+}
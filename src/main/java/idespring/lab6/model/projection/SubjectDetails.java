@@ -0,0 +1,30 @@
+package idespring.lab6.model.projection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import idespring.lab6.expand.ExpandSpec;
+import idespring.lab6.model.Subject;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SubjectDetails(Long id, String name, Set<StudentSummary> students,
+                             Set<MarkView> marks) {
+    public static final Set<String> EXPANDABLE = Set.of("students", "marks");
+    public static final String CACHE_PREFIX = "subject-expand-";
+
+    public static SubjectDetails of(Subject subject, ExpandSpec expand) {
+        return new SubjectDetails(subject.getId(), subject.getName(),
+                expand.has("students")
+                        ? subject.getStudents().stream().map(StudentSummary::of)
+                                .collect(Collectors.toSet())
+                        : null,
+                expand.has("marks")
+                        ? subject.getMarks().stream().map(MarkView::of).collect(Collectors.toSet())
+                        : null);
+    }
+
+    public static List<String> cacheKeys(Long id) {
+        return ExpandSpec.cacheKeys(CACHE_PREFIX, id, EXPANDABLE);
+    }
+}
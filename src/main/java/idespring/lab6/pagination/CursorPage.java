@@ -0,0 +1,16 @@
+package idespring.lab6.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasMore) {
+
+    public static <T> CursorPage<T> of(List<T> rows, int limit,
+                                       Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(List.copyOf(rows), null, false);
+        }
+        List<T> items = List.copyOf(rows.subList(0, limit));
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode(), true);
+    }
+}
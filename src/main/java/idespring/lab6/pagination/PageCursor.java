@@ -0,0 +1,144 @@
+package idespring.lab6.pagination;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+public record PageCursor(Order order, long id, String name) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    public enum Order {
+        ID('i'), NAME_ASC('a'), NAME_DESC('d');
+
+        private final char tag;
+
+        Order(char tag) {
+            this.tag = tag;
+        }
+
+        public boolean byName() {
+            return this != ID;
+        }
+
+        public static Order of(String sort) {
+            if (sort == null || sort.isBlank()) {
+                return ID;
+            }
+            if ("asc".equalsIgnoreCase(sort)) {
+                return NAME_ASC;
+            }
+            if ("desc".equalsIgnoreCase(sort)) {
+                return NAME_DESC;
+            }
+            throw new ValidationException("Параметр 'sort' должен быть 'asc' или 'desc'");
+        }
+
+        // the unpaged list endpoints keep their old contract: any other value sorts ascending
+        public static Order lenient(String sort) {
+            if (sort == null || sort.isBlank()) {
+                return ID;
+            }
+            return "desc".equalsIgnoreCase(sort) ? NAME_DESC : NAME_ASC;
+        }
+
+        private static Order ofTag(char tag) {
+            for (Order order : values()) {
+                if (order.tag == tag) {
+                    return order;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cursor order " + tag);
+        }
+    }
+
+    public static PageCursor start(Order order) {
+        return new PageCursor(order, 0, null);
+    }
+
+    public static PageCursor ofId(long id) {
+        return new PageCursor(Order.ID, id, null);
+    }
+
+    public static PageCursor of(Order order, long id, String name) {
+        if (!order.byName()) {
+            return ofId(id);
+        }
+        return new PageCursor(order, id, name != null ? name : "");
+    }
+
+    public boolean isStart() {
+        return id == 0 && name == null;
+    }
+
+    public String afterName() {
+        return name != null ? name : "";
+    }
+
+    public String encode() {
+        String raw = order.tag + (name != null ? id + ":" + name : Long.toString(id));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor, Order expected) {
+        if (cursor == null || cursor.isEmpty()) {
+            return start(expected);
+        }
+        PageCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Order order = Order.ofTag(raw.charAt(0));
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                decoded = new PageCursor(order, Long.parseLong(raw.substring(1)), null);
+            } else {
+                decoded = new PageCursor(order, Long.parseLong(raw.substring(1, separator)),
+                        raw.substring(separator + 1));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+        // a name cursor replayed in id mode (or the other way round) would silently
+        // skip or repeat rows, so the cursor has to come from the same sort order
+        if (decoded.order != expected || expected.byName() != (decoded.name != null)) {
+            throw new ValidationException("Курсор страницы не соответствует параметру 'sort'");
+        }
+        return decoded;
+    }
+
+    public static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Параметр 'limit' должен быть от 1 до " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    // Unpaged list endpoints still return every row. They walk the keyset in MAX_LIMIT
+    // batches, so no single statement has to read the whole table at once.
+    public static <T> List<T> readAll(Order order, Function<PageCursor, List<T>> page,
+                                      Function<T, PageCursor> cursorOf) {
+        List<T> rows = new ArrayList<>();
+        PageCursor after = start(order);
+        List<T> batch;
+        do {
+            batch = page.apply(after);
+            rows.addAll(batch);
+            if (!batch.isEmpty()) {
+                after = cursorOf.apply(batch.get(batch.size() - 1));
+            }
+        } while (batch.size() >= MAX_LIMIT);
+        return rows;
+    }
+
+    public static <T> List<T> readAllById(List<Long> ids, Function<List<Long>, List<T>> load) {
+        List<T> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += MAX_LIMIT) {
+            rows.addAll(load.apply(ids.subList(from, Math.min(ids.size(), from + MAX_LIMIT))));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,179 @@
+package idespring.lab6.repository.bulkrepo;
+
+import idespring.lab6.model.Group;
+import idespring.lab6.model.Mark;
+import idespring.lab6.model.Student;
+import idespring.lab6.model.Subject;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class BulkInsertRepository {
+    private static final String SCHEMA = "studentmanagement.";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record StudentRow(long id, int age, Long groupId) {}
+
+    public record Enrollment(long studentId, long subjectId) {}
+
+    @Autowired
+    public BulkInsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long[] allocateIds(String table, int count) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)",
+                Long.class, SCHEMA + table, count);
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public Set<Long> findExistingIds(String table, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.query(
+                "SELECT id FROM " + SCHEMA + table + " WHERE id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps, ids)),
+                (rs, row) -> rs.getLong(1)));
+    }
+
+    public Set<String> findExistingNames(String table, Collection<String> names) {
+        if (names.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.query(
+                "SELECT name FROM " + SCHEMA + table + " WHERE name = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", names.toArray())),
+                (rs, row) -> rs.getString(1)));
+    }
+
+    public Map<Long, StudentRow> findStudentRows(Collection<Long> studentIds) {
+        Map<Long, StudentRow> rows = new HashMap<>();
+        if (studentIds.isEmpty()) {
+            return rows;
+        }
+        jdbcTemplate.query("SELECT id, age, groupid FROM " + SCHEMA + "students WHERE id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps, studentIds)),
+                rs -> {
+                    long groupId = rs.getLong(3);
+                    rows.put(rs.getLong(1), new StudentRow(rs.getLong(1), rs.getInt(2),
+                            rs.wasNull() ? null : groupId));
+                });
+        return rows;
+    }
+
+    public Map<Long, Set<Long>> findAssignedSubjects(Collection<Long> studentIds) {
+        Map<Long, Set<Long>> assigned = new HashMap<>();
+        if (studentIds.isEmpty()) {
+            return assigned;
+        }
+        jdbcTemplate.query("SELECT studentid, subjectid FROM " + SCHEMA + "student_subject "
+                        + "WHERE studentid = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps, studentIds)),
+                rs -> {
+                    assigned.computeIfAbsent(rs.getLong(1), id -> new HashSet<>())
+                            .add(rs.getLong(2));
+                });
+        return assigned;
+    }
+
+    public void insertStudents(List<Student> students) {
+        List<Object[]> rows = new ArrayList<>(students.size());
+        for (Student student : students) {
+            rows.add(new Object[] {student.getId(), student.getName(), student.getAge(),
+                student.getGroup() != null ? student.getGroup().getId() : null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + SCHEMA + "students (id, name, age, groupid) "
+                + "VALUES (?, ?, ?, ?)", rows);
+    }
+
+    public void insertStudentSubjects(List<long[]> pairs) {
+        if (pairs.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(pairs.size());
+        for (long[] pair : pairs) {
+            rows.add(new Object[] {pair[0], pair[1]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + SCHEMA + "student_subject "
+                + "(studentid, subjectid) VALUES (?, ?)", rows);
+    }
+
+    public void insertMarks(List<Mark> marks) {
+        if (marks.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(marks.size());
+        for (Mark mark : marks) {
+            rows.add(new Object[] {mark.getId(), mark.getValue(),
+                mark.getStudent().getId(), mark.getSubject().getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + SCHEMA + "marks "
+                + "(id, value, studentid, subjectid) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    public void insertSubjects(List<Subject> subjects) {
+        List<Object[]> rows = new ArrayList<>(subjects.size());
+        for (Subject subject : subjects) {
+            rows.add(new Object[] {subject.getId(), subject.getName()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + SCHEMA + "subjects (id, name) VALUES (?, ?)",
+                rows);
+    }
+
+    public void insertGroups(List<Group> groups) {
+        List<Object[]> rows = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            rows.add(new Object[] {group.getId(), group.getName()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + SCHEMA + "groups (id, name) VALUES (?, ?)",
+                rows);
+    }
+
+    public void assignGroups(Map<Long, Long> groupByStudent) {
+        if (groupByStudent.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(groupByStudent.size());
+        groupByStudent.forEach((studentId, groupId) -> rows.add(new Object[] {groupId, studentId}));
+        jdbcTemplate.batchUpdate("UPDATE " + SCHEMA + "students SET groupid = ? WHERE id = ?",
+                rows);
+    }
+
+    public Set<Enrollment> enroll(Collection<Long> studentIds, Collection<Long> subjectIds) {
+        Set<Enrollment> inserted = new HashSet<>();
+        if (studentIds.isEmpty() || subjectIds.isEmpty()) {
+            return inserted;
+        }
+        jdbcTemplate.query("INSERT INTO " + SCHEMA + "student_subject (studentid, subjectid) "
+                        + "SELECT st.id, sb.id "
+                        + "FROM unnest(?) AS st(id) CROSS JOIN unnest(?) AS sb(id) "
+                        + "ON CONFLICT DO NOTHING RETURNING studentid, subjectid",
+                ps -> {
+                    ps.setArray(1, bigintArray(ps, studentIds));
+                    ps.setArray(2, bigintArray(ps, subjectIds));
+                },
+                rs -> {
+                    inserted.add(new Enrollment(rs.getLong(1), rs.getLong(2)));
+                });
+        return inserted;
+    }
+
+    private static Array bigintArray(PreparedStatement ps, Collection<Long> ids)
+            throws SQLException {
+        return ps.getConnection().createArrayOf("bigint", ids.toArray());
+    }
+}
@@ -0,0 +1,29 @@
+package idespring.lab6.repository.graphrepo;
+
+import idespring.lab6.expand.ExpandSpec;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Optional;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class EntityGraphRepository {
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public <T> Optional<T> findById(Class<T> type, Long id, ExpandSpec expand) {
+        EntityGraph<T> graph = em.createEntityGraph(type);
+        expand.attributes().forEach(graph::addAttributeNodes);
+
+        String entity = em.getMetamodel().entity(type).getName();
+        return em.createQuery("SELECT e FROM " + entity + " e WHERE e.id = :id", type)
+                .setParameter("id", id)
+                .setHint(FETCH_GRAPH, graph)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+}
@@ -30,9 +30,36 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
     @Query(value = "DELETE FROM studentmanagement.groups WHERE name = :name", nativeQuery = true)
     void deleteByName(@Param("name") String name);
 
-    @Query(value = "SELECT * FROM studentmanagement.groups ORDER BY name", nativeQuery = true)
-    List<Group> findAllByOrderByNameAsc();
-
     @Query("SELECT g FROM Group g LEFT JOIN FETCH g.students s WHERE g.id = :id")
     Optional<Group> findByIdWithStudents(@Param("id") Long id);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT * FROM studentmanagement.groups WHERE id > :afterId "
+            + "ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Group> findPage(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM studentmanagement.groups WHERE name LIKE "
+            + "CONCAT('%', :namePattern, '%') AND id > :afterId ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Group> findPageByNameContaining(@Param("namePattern") String namePattern,
+                                         @Param("afterId") long afterId,
+                                         @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM studentmanagement.groups "
+            + "WHERE name LIKE CONCAT('%', :namePattern, '%') "
+            + "AND (name, id) > (:afterName, :afterId) "
+            + "ORDER BY name, id LIMIT :limit", nativeQuery = true)
+    List<Group> findPageOrderByName(@Param("namePattern") String namePattern,
+                                    @Param("afterName") String afterName,
+                                    @Param("afterId") long afterId,
+                                    @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM studentmanagement.groups "
+            + "WHERE name LIKE CONCAT('%', :namePattern, '%') "
+            + "AND (:fromStart OR (name, id) < (:afterName, :afterId)) "
+            + "ORDER BY name DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Group> findPageOrderByNameDesc(@Param("namePattern") String namePattern,
+                                        @Param("fromStart") boolean fromStart,
+                                        @Param("afterName") String afterName,
+                                        @Param("afterId") long afterId,
+                                        @Param("limit") int limit);
+}
@@ -0,0 +1,26 @@
+package idespring.lab6.repository.markrepo;
+
+import idespring.lab6.model.MarkAggregate;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MarkAggregateRepository extends JpaRepository<MarkAggregate, MarkAggregate.Key>,
+        MarkAggregateRepositoryCustom {
+
+    @Modifying
+    @Query(value = "INSERT INTO studentmanagement.mark_aggregates (scope, owner_id, mark_sum, "
+            + "mark_count, histogram, version) VALUES (:scope, :ownerId, 0, 0, "
+            + "array_fill(0::bigint, ARRAY[10]), 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int ensureRow(@Param("scope") String scope, @Param("ownerId") Long ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM MarkAggregate a WHERE a.id = :id")
+    Optional<MarkAggregate> findForUpdate(@Param("id") MarkAggregate.Key id);
+}
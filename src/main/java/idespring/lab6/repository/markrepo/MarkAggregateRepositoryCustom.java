@@ -0,0 +1,10 @@
+package idespring.lab6.repository.markrepo;
+
+import idespring.lab6.model.MarkAggregate;
+import java.util.Collection;
+
+public interface MarkAggregateRepositoryCustom {
+    int rebuild(MarkAggregate.Scope scope, Collection<Long> ownerIds);
+
+    int rebuildAll(MarkAggregate.Scope scope);
+}
@@ -0,0 +1,99 @@
+package idespring.lab6.repository.markrepo;
+
+import idespring.lab6.model.MarkAggregate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class MarkAggregateRepositoryCustomImpl implements MarkAggregateRepositoryCustom {
+    private static final String HISTOGRAM = IntStream.rangeClosed(
+                    MarkAggregate.MIN_MARK, MarkAggregate.MAX_MARK)
+            .mapToObj(value -> "COUNT(m.id) FILTER (WHERE m.value = " + value + ")")
+            .collect(Collectors.joining(", ", "ARRAY[", "]"));
+    // keeps the IN list of one recount statement well below the bind parameter limit
+    private static final int RECOUNT_BATCH = 1000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public int rebuild(MarkAggregate.Scope scope, Collection<Long> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return 0;
+        }
+        return execute(scope, " WHERE o.id IN (:ownerIds)", " AND owner_id IN (:ownerIds)",
+                ownerIds);
+    }
+
+    @Override
+    public int rebuildAll(MarkAggregate.Scope scope) {
+        return execute(scope, "", "", null);
+    }
+
+    // record() changes a row under SELECT ... FOR UPDATE in the transaction that inserts or
+    // deletes the mark. The owners' rows are created and locked first, so the recount below
+    // runs in a later READ COMMITTED snapshot that already holds every committed record() and
+    // cannot be overtaken by one; rows created after the lock are left to record().
+    private int execute(MarkAggregate.Scope scope, String ownerFilter, String staleFilter,
+                        Collection<Long> ownerIds) {
+        String owners = scope == MarkAggregate.Scope.STUDENT ? "students" : "subjects";
+        String column = scope == MarkAggregate.Scope.STUDENT ? "studentid" : "subjectid";
+
+        // Pending entity changes (cascaded mark deletes among them) must reach the database
+        // before the aggregates are recomputed from it.
+        em.flush();
+
+        Query seed = em.createNativeQuery(
+                "INSERT INTO studentmanagement.mark_aggregates (scope, owner_id, mark_sum, "
+                        + "mark_count, histogram, version) "
+                        + "SELECT :scope, o.id, 0, 0, array_fill(0::bigint, ARRAY["
+                        + (MarkAggregate.MAX_MARK - MarkAggregate.MIN_MARK + 1) + "]), 0 "
+                        + "FROM studentmanagement." + owners + " o" + ownerFilter
+                        + " ON CONFLICT DO NOTHING")
+                .setParameter("scope", scope.name());
+        Query lock = em.createNativeQuery(
+                "SELECT owner_id FROM studentmanagement.mark_aggregates WHERE scope = :scope"
+                        + staleFilter + " ORDER BY owner_id FOR UPDATE")
+                .setParameter("scope", scope.name());
+        Query stale = em.createNativeQuery(
+                "DELETE FROM studentmanagement.mark_aggregates WHERE scope = :scope"
+                        + staleFilter + " AND owner_id NOT IN "
+                        + "(SELECT id FROM studentmanagement." + owners + ")")
+                .setParameter("scope", scope.name());
+        if (ownerIds != null) {
+            seed.setParameter("ownerIds", ownerIds);
+            lock.setParameter("ownerIds", ownerIds);
+            stale.setParameter("ownerIds", ownerIds);
+        }
+        seed.executeUpdate();
+        List<Long> locked = ((List<?>) lock.getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+
+        int touched = 0;
+        for (int from = 0; from < locked.size(); from += RECOUNT_BATCH) {
+            touched += em.createNativeQuery(
+                    "UPDATE studentmanagement.mark_aggregates a SET mark_sum = t.mark_sum, "
+                            + "mark_count = t.mark_count, min_value = t.min_value, "
+                            + "max_value = t.max_value, histogram = t.histogram, "
+                            + "version = a.version + 1 "
+                            + "FROM (SELECT o.id AS owner_id, "
+                            + "COALESCE(SUM(m.value), 0) AS mark_sum, "
+                            + "COUNT(m.id) AS mark_count, MIN(m.value) AS min_value, "
+                            + "MAX(m.value) AS max_value, " + HISTOGRAM + " AS histogram "
+                            + "FROM studentmanagement." + owners + " o "
+                            + "LEFT JOIN studentmanagement.marks m ON m." + column + " = o.id "
+                            + "WHERE o.id IN (:ownerIds) GROUP BY o.id) t "
+                            + "WHERE a.scope = :scope AND a.owner_id = t.owner_id")
+                    .setParameter("scope", scope.name())
+                    .setParameter("ownerIds",
+                            locked.subList(from, Math.min(from + RECOUNT_BATCH, locked.size())))
+                    .executeUpdate();
+        }
+        return touched + stale.executeUpdate();
+    }
+}
@@ -3,11 +3,18 @@ package idespring.lab6.repository.markrepo;
 import idespring.lab6.model.Mark;
 import idespring.lab6.model.Student;
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.MarkView;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -51,4 +58,47 @@ public interface MarkRepository extends JpaRepository<Mark, Long> {
                                                            @Param("subjectName") String subjectName,
                                                            @Param("markValue") int markValue,
                                                            @Param("id") Long id);
+
+    String MARK_VIEW = "SELECT new idespring.lab6.model.projection.MarkView("
+            + "m.id, m.value, m.student.id, m.subject.id) FROM Mark m ";
+
+    @Query(MARK_VIEW + "WHERE m.student.id = :studentId ORDER BY m.id")
+    List<MarkView> findViewsByStudentId(@Param("studentId") Long studentId);
+
+    @Query(MARK_VIEW + "WHERE m.student.id IN :studentIds ORDER BY m.id")
+    List<MarkView> findViewsByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query(MARK_VIEW + "WHERE m.subject.id = :subjectId ORDER BY m.id")
+    List<MarkView> findViewsBySubjectId(@Param("subjectId") Long subjectId);
+
+    @Query(MARK_VIEW + "WHERE m.student.id = :studentId AND m.subject.id = :subjectId "
+            + "ORDER BY m.id")
+    List<MarkView> findViewsByStudentIdAndSubjectId(@Param("studentId") Long studentId,
+                                                    @Param("subjectId") Long subjectId);
+
+    @Query(MARK_VIEW + "WHERE m.value = :value ORDER BY m.id")
+    List<MarkView> findViewsByValue(@Param("value") int value);
+
+    @Query(MARK_VIEW + "WHERE m.id > :afterId ORDER BY m.id")
+    List<MarkView> findViewPage(@Param("afterId") long afterId, Pageable limit);
+
+    @Query(MARK_VIEW + "WHERE m.student.id = :studentId AND m.id > :afterId ORDER BY m.id")
+    List<MarkView> findViewPageByStudentId(@Param("studentId") Long studentId,
+                                           @Param("afterId") long afterId, Pageable limit);
+
+    @Query(MARK_VIEW + "WHERE m.subject.id = :subjectId AND m.id > :afterId ORDER BY m.id")
+    List<MarkView> findViewPageBySubjectId(@Param("subjectId") Long subjectId,
+                                           @Param("afterId") long afterId, Pageable limit);
+
+    @Query(MARK_VIEW + "WHERE m.student.id = :studentId AND m.subject.id = :subjectId "
+            + "AND m.id > :afterId ORDER BY m.id")
+    List<MarkView> findViewPageByStudentIdAndSubjectId(@Param("studentId") Long studentId,
+                                                       @Param("subjectId") Long subjectId,
+                                                       @Param("afterId") long afterId,
+                                                       Pageable limit);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(MARK_VIEW + "ORDER BY m.id")
+    Stream<MarkView> streamAllViews();
 }
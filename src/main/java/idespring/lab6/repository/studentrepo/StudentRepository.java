@@ -4,6 +4,7 @@ import idespring.lab6.model.Student;
 import jakarta.transaction.Transactional;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,9 +14,6 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long>, StudentRepositoryCustom {
 
-    @Query(value = "SELECT * FROM studentmanagement.students WHERE age = :age", nativeQuery = true)
-    Set<Student> findByAge(@Param("age") int age);
-
     @Query(value = "SELECT * FROM studentmanagement.students WHERE id = :id", nativeQuery = true)
     Optional<Student> findById(@Param("id") long id);
 
@@ -48,6 +46,10 @@ public interface StudentRepository extends JpaRepository<Student, Long>, Student
             + "groupid = :groupId", nativeQuery = true)
     Set<Student> findByGroupId(@Param("groupId") Long groupId);
 
+    @EntityGraph(attributePaths = {"group", "subjects", "marks", "marks.subject"})
+    @Query("SELECT DISTINCT s FROM Student s JOIN s.subjects sub WHERE sub.id = :subjectId")
+    Set<Student> findBySubjectIdWithDetails(@Param("subjectId") Long subjectId);
+
     @Query("SELECT s FROM Student s LEFT JOIN FETCH s.subjects WHERE s.id = :id")
     Optional<Student> findByIdWithSubjects(@Param("id") Long id);
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 package idespring.lab6.repository.studentrepo;
 
-import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.StudentView;
+import idespring.lab6.pagination.PageCursor;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface StudentRepositoryCustom {
-    List<Student> findByAgeAndSortByName(int age, String sort);
+    List<StudentView> findViewsByGroupId(Long groupId);
 
-    List<Student> sortByName(String sort);
+    Optional<StudentView> findViewById(long id);
+
+    List<StudentView> findViewsByIds(Collection<Long> ids);
+
+    List<StudentView> findViewPage(Integer age, PageCursor after, int limit);
 }
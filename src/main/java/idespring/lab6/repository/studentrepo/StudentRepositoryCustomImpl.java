@@ -1,9 +1,19 @@
 package idespring.lab6.repository.studentrepo;
 
-import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.StudentView;
+import idespring.lab6.model.projection.StudentView.GroupRef;
+import idespring.lab6.model.projection.StudentView.MarkRef;
+import idespring.lab6.model.projection.StudentView.SubjectRef;
+import idespring.lab6.pagination.PageCursor;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class StudentRepositoryCustomImpl implements StudentRepositoryCustom {
 
@@ -11,30 +21,96 @@ public class StudentRepositoryCustomImpl implements StudentRepositoryCustom {
     private EntityManager em;
 
     @Override
-    public List<Student> sortByName(String sort) {
-        String orderBy = "ASC";
-        if ("DESC".equalsIgnoreCase(sort)) {
-            orderBy = "DESC";
-        }
+    public List<StudentView> findViewsByGroupId(Long groupId) {
+        return queryViews(" WHERE groupid = :groupId ORDER BY id", Map.of("groupId", groupId));
+    }
 
-        String jpql = "SELECT s FROM Student s ORDER BY s.name " + orderBy;
-        return em.createQuery(jpql, Student.class).getResultList();
+    @Override
+    public Optional<StudentView> findViewById(long id) {
+        return queryViews(" WHERE id = :id", Map.of("id", id)).stream().findFirst();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public List<Student> findByAgeAndSortByName(int age, String sort) {
+    public List<StudentView> findViewsByIds(Collection<Long> ids) {
+        return queryViews(" WHERE id IN (:ids) ORDER BY id", Map.of("ids", ids));
+    }
 
-        String orderBy = "ASC";
-        if ("DESC".equalsIgnoreCase(sort)) {
-            orderBy = "DESC";
+    @Override
+    public List<StudentView> findViewPage(Integer age, PageCursor after, int limit) {
+        boolean byName = after.order().byName();
+        boolean descending = after.order() == PageCursor.Order.NAME_DESC;
+        boolean keyed = !(descending && after.isStart());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("limit", limit);
+        List<String> conditions = new ArrayList<>();
+        if (age != null) {
+            conditions.add("age = :age");
+            params.put("age", age);
+        }
+        if (!byName) {
+            conditions.add("id > :afterId");
+        } else if (keyed) {
+            conditions.add("(name, id) " + (descending ? "<" : ">") + " (:afterName, :afterId)");
+            params.put("afterName", after.afterName());
+        }
+        if (keyed) {
+            params.put("afterId", after.id());
         }
 
-        String sql = "SELECT * FROM studentmanagement.students WHERE age = :age ORDER BY name "
-                + orderBy;
+        String direction = descending ? "DESC" : "ASC";
+        String clauses = (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + (byName ? " ORDER BY name " + direction + ", id " + direction : " ORDER BY id")
+                + " LIMIT :limit";
+        return queryViews(clauses, params);
+    }
+
+    private List<StudentView> queryViews(String clauses, Map<String, Object> params) {
+        String from = " FROM studentmanagement.students" + clauses;
+        List<Object[]> rows = nativeRows("SELECT id, name, age, groupid, "
+                + "(SELECT g.name FROM studentmanagement.groups g WHERE g.id = groupid)"
+                + from, params);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        String selectedIds = "SELECT id" + from;
+        Map<Long, List<SubjectRef>> subjects = new HashMap<>();
+        for (Object[] row : nativeRows("SELECT ss.studentid, sb.id, sb.name "
+                + "FROM studentmanagement.student_subject ss "
+                + "JOIN studentmanagement.subjects sb ON sb.id = ss.subjectid "
+                + "WHERE ss.studentid IN (" + selectedIds + ") ORDER BY sb.id", params)) {
+            subjects.computeIfAbsent(longValue(row[0]), id -> new ArrayList<>())
+                    .add(new SubjectRef(longValue(row[1]), (String) row[2]));
+        }
+        Map<Long, List<MarkRef>> marks = new HashMap<>();
+        for (Object[] row : nativeRows("SELECT studentid, id, value, subjectid "
+                + "FROM studentmanagement.marks "
+                + "WHERE studentid IN (" + selectedIds + ") ORDER BY id", params)) {
+            marks.computeIfAbsent(longValue(row[0]), id -> new ArrayList<>())
+                    .add(new MarkRef(longValue(row[1]), ((Number) row[2]).intValue(),
+                            row[3] != null ? longValue(row[3]) : null));
+        }
+
+        List<StudentView> views = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = longValue(row[0]);
+            GroupRef group = row[3] != null ? new GroupRef(longValue(row[3]), (String) row[4])
+                    : null;
+            views.add(new StudentView(id, (String) row[1], ((Number) row[2]).intValue(), group,
+                    subjects.getOrDefault(id, List.of()), marks.getOrDefault(id, List.of())));
+        }
+        return views;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> nativeRows(String sql, Map<String, Object> params) {
+        Query query = em.createNativeQuery(sql);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
 
-        return em.createNativeQuery(sql, Student.class)
-                .setParameter("age", age)
-                .getResultList();
+    private static long longValue(Object value) {
+        return ((Number) value).longValue();
     }
-}
\ No newline at end of file
+}
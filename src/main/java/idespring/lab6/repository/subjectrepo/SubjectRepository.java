@@ -4,6 +4,7 @@ import idespring.lab6.model.Subject;
 import jakarta.transaction.Transactional;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -31,10 +32,9 @@ public interface SubjectRepository extends JpaRepository<Subject, Long> {
     @Query(value = "DELETE FROM studentmanagement.subjects WHERE name = :name", nativeQuery = true)
     void deleteByName(@Param("name") String name);
 
-    @Query(value = "SELECT * FROM studentmanagement.subjects ORDER BY name", nativeQuery = true)
-    List<Subject> findAllByOrderByNameAsc();
-
-    @Query("SELECT s FROM Subject s LEFT JOIN FETCH s.students WHERE s.id = :id")
+    @EntityGraph(attributePaths = {"students", "students.group", "students.marks",
+        "students.marks.subject"})
+    @Query("SELECT s FROM Subject s WHERE s.id = :id")
     Optional<Subject> findByIdWithStudents(@Param("id") Long id);
 
     @Query("SELECT s FROM Subject s LEFT JOIN FETCH s.marks WHERE s.id = :id")
@@ -48,4 +48,34 @@ public interface SubjectRepository extends JpaRepository<Subject, Long> {
             + "JOIN studentmanagement.student_subject ss ON s.id = ss.subjectid "
             + "WHERE ss.studentid = :studentId", nativeQuery = true)
     List<Subject> findByStudentId(@Param("studentId") Long studentId);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT * FROM studentmanagement.subjects WHERE id > :afterId "
+            + "ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Subject> findPage(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM studentmanagement.subjects WHERE name LIKE "
+            + "CONCAT('%', :namePattern, '%') AND id > :afterId ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Subject> findPageByNameContaining(@Param("namePattern") String namePattern,
+                                           @Param("afterId") long afterId,
+                                           @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM studentmanagement.subjects "
+            + "WHERE name LIKE CONCAT('%', :namePattern, '%') "
+            + "AND (name, id) > (:afterName, :afterId) "
+            + "ORDER BY name, id LIMIT :limit", nativeQuery = true)
+    List<Subject> findPageOrderByName(@Param("namePattern") String namePattern,
+                                      @Param("afterName") String afterName,
+                                      @Param("afterId") long afterId,
+                                      @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM studentmanagement.subjects "
+            + "WHERE name LIKE CONCAT('%', :namePattern, '%') "
+            + "AND (:fromStart OR (name, id) < (:afterName, :afterId)) "
+            + "ORDER BY name DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Subject> findPageOrderByNameDesc(@Param("namePattern") String namePattern,
+                                          @Param("fromStart") boolean fromStart,
+                                          @Param("afterName") String afterName,
+                                          @Param("afterId") long afterId,
+                                          @Param("limit") int limit);
+}
@@ -0,0 +1,161 @@
+package idespring.lab6.search;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class NameSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(NameSearchService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<SearchTarget, TrigramIndex> indexes = new EnumMap<>(SearchTarget.class);
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean loadPending = new AtomicBoolean();
+    private final int retryMaxSeconds;
+    private volatile boolean ready;
+    // consecutive failed loads, only touched on the executor thread
+    private int failures;
+
+    @Autowired
+    public NameSearchService(JdbcTemplate jdbcTemplate,
+                             @Value("${search.retryMaxSeconds:60}") int retryMaxSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retryMaxSeconds = retryMaxSeconds;
+        for (SearchTarget target : SearchTarget.values()) {
+            indexes.put(target, new TrigramIndex());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (loadPending.compareAndSet(false, true)) {
+            executor.execute(this::loadQuietly);
+        }
+    }
+
+    // false until every index has loaded; searches then go to the database
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<SearchHit> search(SearchTarget target, String query, boolean prefix, int limit) {
+        long start = System.nanoTime();
+        boolean indexed = ready;
+        List<SearchHit> hits = indexed ? indexes.get(target).search(query, prefix, limit)
+                : searchDatabase(target, query, prefix, limit);
+
+        long end = System.nanoTime();
+        logger.info("Execution time for name search: {} us, {} hits{}",
+                (end - start) / 1_000, hits.size(), indexed ? "" : " (database)");
+        return hits;
+    }
+
+    public Optional<List<Long>> findIdsContaining(SearchTarget target, String pattern) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long[] ids = indexes.get(target).containing(pattern);
+        return Optional.of(Arrays.stream(ids).boxed().toList());
+    }
+
+    public void index(SearchTarget target, Long id, String name) {
+        if (id != null && name != null) {
+            afterCommit(() -> indexes.get(target).put(id, name));
+        }
+    }
+
+    public void remove(SearchTarget target, Long id) {
+        if (id != null) {
+            afterCommit(() -> indexes.get(target).remove(id));
+        }
+    }
+
+    public void remove(SearchTarget target, Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            afterCommit(() -> ids.forEach(indexes.get(target)::remove));
+        }
+    }
+
+    // LIKE narrows the rows; ranking them in a throwaway index keeps the order, the prefix rule
+    // and the handling of % and _ in the query the same as with the loaded index.
+    private List<SearchHit> searchDatabase(SearchTarget target, String query, boolean prefix,
+                                           int limit) {
+        TrigramIndex matches = new TrigramIndex();
+        jdbcTemplate.query("SELECT id, name FROM studentmanagement." + target.table()
+                        + " WHERE LOWER(name) LIKE CONCAT('%', ?, '%')",
+                (RowCallbackHandler) rs -> matches.put(rs.getLong(1), rs.getString(2)),
+                query.toLowerCase(Locale.ROOT));
+        return matches.search(query, prefix, limit);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            action.run();
+                        }
+                    });
+        } else {
+            action.run();
+        }
+    }
+
+    private void loadQuietly() {
+        loadPending.set(false);
+        try {
+            for (SearchTarget target : SearchTarget.values()) {
+                final long start = System.nanoTime();
+                TrigramIndex index = indexes.get(target);
+                index.rebuild(put -> jdbcTemplate.query("SELECT id, name FROM studentmanagement."
+                        + target.table() + " ORDER BY id", (RowCallbackHandler) rs -> {
+                            String name = rs.getString(2);
+                            if (name != null) {
+                                put.accept(rs.getLong(1), name);
+                            }
+                        }));
+                long end = System.nanoTime();
+                logger.info("Execution time for {} name index load: {} ms, {} names",
+                        target.table(), (end - start) / 1_000_000, index.size());
+            }
+            failures = 0;
+            ready = true;
+        } catch (RuntimeException e) {
+            long delay = Math.min(TimeUnit.SECONDS.toMillis(retryMaxSeconds),
+                    250L << Math.min(failures++, 16));
+            logger.warn("Name index load failed, searching the database and retrying in {} ms",
+                    delay, e);
+            if (loadPending.compareAndSet(false, true)) {
+                executor.schedule(this::loadQuietly, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package idespring.lab6.search;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+    private final NameSearchService nameSearchService;
+
+    public SearchController(NameSearchService nameSearchService) {
+        this.nameSearchService = nameSearchService;
+    }
+
+    @GetMapping("/{target}")
+    public ResponseEntity<List<SearchHit>> search(
+            @PathVariable String target,
+            @RequestParam @NotBlank String q,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(defaultValue = "10") @Positive @Max(100) int limit) {
+        return ResponseEntity.ok(
+                nameSearchService.search(SearchTarget.parse(target), q, prefix, limit));
+    }
+
+    @GetMapping("/{target}/autocomplete")
+    public ResponseEntity<List<SearchHit>> autocomplete(
+            @PathVariable String target,
+            @RequestParam @NotBlank String q,
+            @RequestParam(defaultValue = "10") @Positive @Max(100) int limit) {
+        return ResponseEntity.ok(
+                nameSearchService.search(SearchTarget.parse(target), q, true, limit));
+    }
+}
@@ -0,0 +1,3 @@
+package idespring.lab6.search;
+
+public record SearchHit(long id, String name) {}
@@ -0,0 +1,29 @@
+package idespring.lab6.search;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.util.Locale;
+
+public enum SearchTarget {
+    STUDENTS("students"),
+    GROUPS("groups"),
+    SUBJECTS("subjects");
+
+    private final String table;
+
+    SearchTarget(String table) {
+        this.table = table;
+    }
+
+    String table() {
+        return table;
+    }
+
+    public static SearchTarget parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестный тип поиска: " + value
+                    + ", допустимые значения: students, groups, subjects");
+        }
+    }
+}
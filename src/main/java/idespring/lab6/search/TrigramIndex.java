@@ -0,0 +1,320 @@
+package idespring.lab6.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+final class TrigramIndex {
+    private static final char WORD_START = '\u0002';
+    private static final long[] NO_IDS = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Name> names = new HashMap<>();
+    private Map<Long, Postings> postings = new HashMap<>();
+    // names put (null when removed) while a rebuild loads; replayed onto the loaded maps
+    private Map<Long, String> touched;
+
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    private record Name(String original, String normalized) {}
+
+    private record Match(long id, String name, int kind, int position) {}
+
+    private static final Comparator<Match> BY_RELEVANCE = TrigramIndex::compare;
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The loader fills a separate index, so searches keep using the current names until the
+    // loaded ones are swapped in.
+    void rebuild(Consumer<BiConsumer<Long, String>> loader) {
+        lock.writeLock().lock();
+        try {
+            touched = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TrigramIndex fresh = new TrigramIndex();
+        try {
+            loader.accept(fresh::putLocked);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            names = fresh.names;
+            postings = fresh.postings;
+            touched.forEach((id, name) -> {
+                if (name != null) {
+                    putLocked(id, name);
+                } else {
+                    removeLocked(id);
+                }
+            });
+            touched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void put(long id, String name) {
+        lock.writeLock().lock();
+        try {
+            if (touched != null) {
+                touched.put(id, name);
+            }
+            putLocked(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (touched != null) {
+                touched.put(id, null);
+            }
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(long id, String name) {
+        Name previous = names.put(id, new Name(name, normalize(name)));
+        if (previous != null) {
+            if (previous.original().equals(name)) {
+                return;
+            }
+            dropPostings(id, previous);
+        }
+        for (long trigram : trigrams(normalize(name))) {
+            postings.computeIfAbsent(trigram, key -> new Postings()).add(id);
+        }
+    }
+
+    private void removeLocked(long id) {
+        Name previous = names.remove(id);
+        if (previous != null) {
+            dropPostings(id, previous);
+        }
+    }
+
+    private void dropPostings(long id, Name previous) {
+        for (long trigram : trigrams(previous.normalized())) {
+            Postings list = postings.get(trigram);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    List<SearchHit> search(String query, boolean prefix, int limit) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            String key = prefix ? WORD_START + "" + WORD_START + needle : needle;
+            PriorityQueue<Match> best = new PriorityQueue<>((a, b) -> compare(b, a));
+            for (long id : candidates(key)) {
+                Match match = match(id, names.get(id), needle, prefix);
+                if (match == null) {
+                    continue;
+                }
+                if (best.size() < limit) {
+                    best.offer(match);
+                } else if (compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.offer(match);
+                }
+            }
+
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(BY_RELEVANCE);
+            List<SearchHit> hits = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                hits.add(new SearchHit(match.id(), match.name()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long[] containing(String pattern) {
+        lock.readLock().lock();
+        try {
+            long[] candidates = candidates(normalize(pattern));
+            int size = 0;
+            for (long id : candidates) {
+                if (names.get(id).original().contains(pattern)) {
+                    candidates[size++] = id;
+                }
+            }
+            return Arrays.copyOf(candidates, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(String key) {
+        long[] keys = trigramsOf(key);
+        if (keys.length == 0) {
+            return names.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        Postings[] lists = new Postings[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.get(keys[i]);
+            if (lists[i] == null) {
+                return NO_IDS;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        long[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int size = result.length;
+        for (int l = 1; l < lists.length && size > 0; l++) {
+            size = intersect(result, size, lists[l]);
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int intersect(long[] result, int size, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < size; i++) {
+            int at = Arrays.binarySearch(list.ids, from, list.size, result[i]);
+            if (at >= 0) {
+                result[kept++] = result[i];
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return kept;
+    }
+
+    private static Match match(long id, Name name, String needle, boolean prefix) {
+        String normalized = name.normalized();
+        int position = normalized.indexOf(needle);
+        while (position >= 0) {
+            boolean wordStart = isWordStart(normalized, position);
+            if (!prefix || wordStart) {
+                int kind;
+                if (position == 0 && normalized.length() == needle.length()) {
+                    kind = 0;
+                } else if (position == 0) {
+                    kind = 1;
+                } else if (wordStart) {
+                    kind = 2;
+                } else {
+                    kind = 3;
+                }
+                return new Match(id, name.original(), kind, position);
+            }
+            position = normalized.indexOf(needle, position + 1);
+        }
+        return null;
+    }
+
+    private static int compare(Match a, Match b) {
+        if (a.kind() != b.kind()) {
+            return Integer.compare(a.kind(), b.kind());
+        }
+        if (a.name().length() != b.name().length()) {
+            return Integer.compare(a.name().length(), b.name().length());
+        }
+        if (a.position() != b.position()) {
+            return Integer.compare(a.position(), b.position());
+        }
+        return Long.compare(a.id(), b.id());
+    }
+
+    private static long[] trigrams(String normalized) {
+        long[] plain = trigramsOf(normalized);
+        long[] all = Arrays.copyOf(plain, plain.length + normalized.length() * 2);
+        int size = plain.length;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (isWordStart(normalized, i)) {
+                all[size++] = key(WORD_START, WORD_START, normalized.charAt(i));
+                if (i + 1 < normalized.length()) {
+                    all[size++] = key(WORD_START, normalized.charAt(i), normalized.charAt(i + 1));
+                }
+            }
+        }
+        return Arrays.stream(all, 0, size).sorted().distinct().toArray();
+    }
+
+    private static long[] trigramsOf(String text) {
+        if (text.length() < 3) {
+            return NO_IDS;
+        }
+        long[] result = new long[text.length() - 2];
+        for (int i = 0; i + 2 < text.length(); i++) {
+            result[i] = key(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+        }
+        return result;
+    }
+
+    private static long key(char first, char second, char third) {
+        return (long) first << 32 | (long) second << 16 | third;
+    }
+
+    private static boolean isWordStart(String text, int position) {
+        return position == 0 || !Character.isLetterOrDigit(text.charAt(position - 1));
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,17 @@
+package idespring.lab6.service.bulkservice;
+
+import idespring.lab6.model.Group;
+import idespring.lab6.model.Mark;
+import idespring.lab6.model.Student;
+import idespring.lab6.model.Subject;
+import java.util.List;
+
+public interface BulkService {
+    List<Student> addStudents(List<Student> students);
+
+    List<Mark> addMarks(List<Mark> marks);
+
+    List<Subject> addSubjects(List<Subject> subjects);
+
+    List<Group> addGroups(List<Group> groups);
+}
@@ -0,0 +1,328 @@
+package idespring.lab6.service.bulkservice;
+
+import idespring.lab6.config.CacheConfig;
+import idespring.lab6.exceptions.EntityNotFoundException;
+import idespring.lab6.exceptions.SubjectNotAssignedException;
+import idespring.lab6.exceptions.ValidationException;
+import idespring.lab6.model.Group;
+import idespring.lab6.model.Mark;
+import idespring.lab6.model.Student;
+import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.repository.bulkrepo.BulkInsertRepository;
+import idespring.lab6.repository.bulkrepo.BulkInsertRepository.StudentRow;
+import idespring.lab6.search.NameSearchService;
+import idespring.lab6.search.SearchTarget;
+import idespring.lab6.service.groupservice.GroupServiceImpl;
+import idespring.lab6.service.markservice.MarkAggregateService;
+import idespring.lab6.service.markservice.MarkServiceImpl;
+import idespring.lab6.service.markservice.MarksChangedEvent;
+import idespring.lab6.service.studservice.StudentServiceImpl;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import idespring.lab6.service.subjectservice.SubjectServiceImpl;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class BulkServiceImpl implements BulkService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkServiceImpl.class);
+
+    private final BulkInsertRepository bulkRepository;
+    private final StudentServiceImpl studentService;
+    private final MarkServiceImpl markService;
+    private final MarkAggregateService markAggregateService;
+    private final SubjectServiceImpl subjectService;
+    private final GroupServiceImpl groupService;
+    private final NameSearchService nameSearchService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheConfig<String, Object> cache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public BulkServiceImpl(BulkInsertRepository bulkRepository,
+                           StudentServiceImpl studentService,
+                           MarkServiceImpl markService,
+                           MarkAggregateService markAggregateService,
+                           SubjectServiceImpl subjectService,
+                           GroupServiceImpl groupService,
+                           NameSearchService nameSearchService,
+                           ApplicationEventPublisher eventPublisher,
+                           CacheConfig<String, Object> cache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${bulk.chunkSize:1000}") int chunkSize) {
+        this.bulkRepository = bulkRepository;
+        this.studentService = studentService;
+        this.markService = markService;
+        this.markAggregateService = markAggregateService;
+        this.subjectService = subjectService;
+        this.groupService = groupService;
+        this.nameSearchService = nameSearchService;
+        this.eventPublisher = eventPublisher;
+        this.cache = cache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public List<Student> addStudents(List<Student> students) {
+        Set<Long> groupIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (Student student : students) {
+            if (student.getName() == null || student.getName().isBlank()) {
+                throw new ValidationException("Поле 'name' обязательно и не может быть пустым");
+            }
+            if (student.getGroup() != null && student.getGroup().getId() != null) {
+                groupIds.add(student.getGroup().getId());
+            }
+            for (Subject subject : student.getSubjects()) {
+                subjectIds.add(requireId(subject.getId(), "subjects"));
+            }
+            for (Mark mark : student.getMarks()) {
+                subjectIds.add(requireId(mark.getSubjectId(), "marks.subjectId"));
+            }
+        }
+        requireExisting("groups", groupIds, "Группы");
+        requireExisting("subjects", subjectIds, "Предметы");
+
+        return inChunks("addStudents", students, chunk -> {
+            long[] ids = bulkRepository.allocateIds("students", chunk.size());
+            List<long[]> enrollments = new ArrayList<>();
+            List<Mark> marks = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Student student = chunk.get(i);
+                student.setId(ids[i]);
+                for (Subject subject : student.getSubjects()) {
+                    enrollments.add(new long[] {ids[i], subject.getId()});
+                }
+                for (Mark mark : student.getMarks()) {
+                    mark.setStudent(student);
+                    marks.add(mark);
+                }
+            }
+            bulkRepository.insertStudents(chunk);
+            bulkRepository.insertStudentSubjects(enrollments);
+            insertMarks(marks);
+        }, chunk -> {
+            clearStudentCaches(chunk);
+            chunk.forEach(student -> nameSearchService.index(SearchTarget.STUDENTS,
+                    student.getId(), student.getName()));
+            eventPublisher.publishEvent(StudentsChangedEvent.of(
+                    chunk.stream().map(Student::getId).toList()));
+        });
+    }
+
+    @Override
+    public List<Mark> addMarks(List<Mark> marks) {
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (Mark mark : marks) {
+            if (mark.getValue() < 1 || mark.getValue() > 10) {
+                throw new ValidationException("Mark value must be between 1 and 10");
+            }
+            if (mark.getStudent() == null || mark.getStudent().getId() == null
+                    || mark.getSubjectId() == null) {
+                throw new ValidationException("Поля 'studentId' и 'subjectId' обязательны");
+            }
+            studentIds.add(mark.getStudent().getId());
+            subjectIds.add(mark.getSubjectId());
+        }
+        requireExisting("students", studentIds, "Студенты");
+        requireExisting("subjects", subjectIds, "Предметы");
+
+        Map<Long, Set<Long>> assigned = bulkRepository.findAssignedSubjects(studentIds);
+        for (Mark mark : marks) {
+            Long studentId = mark.getStudent().getId();
+            if (!assigned.getOrDefault(studentId, Set.of()).contains(mark.getSubjectId())) {
+                throw new SubjectNotAssignedException("Student with ID " + studentId
+                        + " does not have subject with ID " + mark.getSubjectId());
+            }
+        }
+
+        return inChunks("addMarks", marks, this::insertMarks,
+                markService::clearCachesForNewMarks);
+    }
+
+    @Override
+    public List<Subject> addSubjects(List<Subject> subjects) {
+        Map<String, Subject> byName = new LinkedHashMap<>();
+        for (Subject subject : subjects) {
+            if (subject.getName() == null || subject.getName().isBlank()) {
+                throw new ValidationException("Поле 'name' обязательно и не может быть пустым");
+            }
+            byName.putIfAbsent(subject.getName(), subject);
+        }
+        bulkRepository.findExistingNames("subjects", byName.keySet())
+                .forEach(byName::remove);
+
+        return inChunks("addSubjects", new ArrayList<>(byName.values()), chunk -> {
+            long[] ids = bulkRepository.allocateIds("subjects", chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(ids[i]);
+            }
+            bulkRepository.insertSubjects(chunk);
+        }, chunk -> {
+            subjectService.clearListCaches();
+            chunk.forEach(subject -> nameSearchService.index(SearchTarget.SUBJECTS,
+                    subject.getId(), subject.getName()));
+        });
+    }
+
+    @Override
+    public List<Group> addGroups(List<Group> groups) {
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> repeated = new TreeSet<>();
+        for (Group group : groups) {
+            if (group.getName() == null || group.getName().isBlank()) {
+                throw new ValidationException("Поле 'name' обязательно и не может быть пустым");
+            }
+            for (Student student : group.getStudents()) {
+                if (!studentIds.add(student.getId())) {
+                    repeated.add(student.getId());
+                }
+            }
+        }
+        if (!repeated.isEmpty()) {
+            throw new ValidationException("Студенты с ID " + repeated
+                    + " указаны в нескольких группах");
+        }
+
+        Map<Long, StudentRow> rows = bulkRepository.findStudentRows(studentIds);
+        Set<Long> missing = new TreeSet<>(studentIds);
+        missing.removeAll(rows.keySet());
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException("Студенты с ID " + missing + " не найдены");
+        }
+        List<Long> alreadyGrouped = rows.values().stream()
+                .filter(row -> row.groupId() != null)
+                .map(StudentRow::id)
+                .sorted()
+                .toList();
+        if (!alreadyGrouped.isEmpty()) {
+            throw new IllegalStateException("Студенты с ID " + alreadyGrouped
+                    + " уже прикреплены к группе");
+        }
+
+        return inChunks("addGroups", groups, chunk -> {
+            long[] ids = bulkRepository.allocateIds("groups", chunk.size());
+            Map<Long, Long> groupByStudent = new HashMap<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Group group = chunk.get(i);
+                group.setId(ids[i]);
+                for (Student student : group.getStudents()) {
+                    groupByStudent.put(student.getId(), ids[i]);
+                }
+            }
+            bulkRepository.insertGroups(chunk);
+            bulkRepository.assignGroups(groupByStudent);
+        }, chunk -> {
+            groupService.invalidateGroupListCaches();
+            chunk.forEach(group -> nameSearchService.index(SearchTarget.GROUPS, group.getId(),
+                    group.getName()));
+            Set<Integer> ages = new HashSet<>();
+            for (Group group : chunk) {
+                for (Student student : group.getStudents()) {
+                    studentService.clearStudentCache(student.getId());
+                    ages.add(rows.get(student.getId()).age());
+                }
+            }
+            ages.forEach(studentService::clearCachesByAge);
+            studentService.clearListCaches();
+            eventPublisher.publishEvent(StudentsChangedEvent.of(chunk.stream()
+                    .flatMap(group -> group.getStudents().stream())
+                    .map(Student::getId)
+                    .toList()));
+        });
+    }
+
+    private void insertMarks(List<Mark> marks) {
+        if (marks.isEmpty()) {
+            return;
+        }
+        long[] ids = bulkRepository.allocateIds("marks", marks.size());
+        for (int i = 0; i < marks.size(); i++) {
+            marks.get(i).setId(ids[i]);
+        }
+        bulkRepository.insertMarks(marks);
+
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (Mark mark : marks) {
+            studentIds.add(mark.getStudent().getId());
+            subjectIds.add(mark.getSubjectId());
+        }
+        markAggregateService.rebuild(studentIds, subjectIds,
+                MarksChangedEvent.added(marks.stream().map(MarkView::of).toList()));
+    }
+
+    private void clearStudentCaches(List<Student> students) {
+        Set<Integer> ages = new HashSet<>();
+        Set<Long> groupIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        List<Mark> marks = new ArrayList<>();
+        for (Student student : students) {
+            ages.add(student.getAge());
+            if (student.getGroup() != null && student.getGroup().getId() != null) {
+                groupIds.add(student.getGroup().getId());
+            }
+            student.getSubjects().forEach(subject -> subjectIds.add(subject.getId()));
+            marks.addAll(student.getMarks());
+        }
+
+        ages.forEach(studentService::clearCachesByAge);
+        groupIds.forEach(studentService::clearGroupCache);
+        for (Long subjectId : subjectIds) {
+            cache.remove("students-" + subjectId);
+            cache.remove("subject-with-students-" + subjectId);
+        }
+        studentService.clearListCaches();
+        if (!marks.isEmpty()) {
+            markService.clearCachesForNewMarks(marks);
+        }
+    }
+
+    private static Long requireId(Long id, String field) {
+        if (id == null) {
+            throw new ValidationException("Поле '" + field + "' должно содержать ID");
+        }
+        return id;
+    }
+
+    private void requireExisting(String table, Set<Long> ids, String label) {
+        Set<Long> missing = new TreeSet<>(ids);
+        missing.removeAll(bulkRepository.findExistingIds(table, ids));
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException(label + " с ID " + missing + " не найдены");
+        }
+    }
+
+    private <T> List<T> inChunks(String operation, List<T> items, Consumer<List<T>> write,
+                                 Consumer<List<T>> afterCommit) {
+        final long start = System.nanoTime();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+            transactionTemplate.executeWithoutResult(status -> write.accept(chunk));
+            afterCommit.accept(chunk);
+        }
+
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        logger.info("Execution time for {}: {} ms, {} rows, {} rows/s", operation,
+                elapsed / 1_000_000, items.size(), items.size() * 1_000_000_000L / elapsed);
+        return items;
+    }
+}
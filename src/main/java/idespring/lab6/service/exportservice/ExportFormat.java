@@ -0,0 +1,28 @@
+package idespring.lab6.service.exportservice;
+
+import idespring.lab6.exceptions.ValidationException;
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new ValidationException("Неизвестный формат экспорта: " + value);
+    }
+}
@@ -0,0 +1,10 @@
+package idespring.lab6.service.exportservice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    long writeStudents(OutputStream out, ExportFormat format) throws IOException;
+
+    long writeMarks(OutputStream out, ExportFormat format) throws IOException;
+}
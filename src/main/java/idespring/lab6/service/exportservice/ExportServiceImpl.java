@@ -0,0 +1,141 @@
+package idespring.lab6.service.exportservice;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab6.repository.markrepo.MarkRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportServiceImpl.class);
+    private static final int BATCH_SIZE = 500;
+    // one flat row per student: subject and mark ids come from correlated ARRAY
+    // subqueries, so the export is a single statement instead of lazy loads per row
+    private static final String EXPORT_STUDENTS = "SELECT s.id, s.name, s.age, s.groupid, "
+            + "ARRAY(SELECT ss.subjectid FROM studentmanagement.student_subject ss "
+            + "WHERE ss.studentid = s.id ORDER BY ss.subjectid), "
+            + "ARRAY(SELECT m.id FROM studentmanagement.marks m "
+            + "WHERE m.studentid = s.id ORDER BY m.id) "
+            + "FROM studentmanagement.students s ORDER BY s.id";
+
+    private record StudentRow(Long id, String name, int age, Long group,
+                              Set<Long> subjects, Set<Long> marks) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MarkRepository markRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ExportServiceImpl(JdbcTemplate jdbcTemplate,
+                             MarkRepository markRepository,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(BATCH_SIZE);
+        this.markRepository = markRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public long writeStudents(OutputStream out, ExportFormat format) throws IOException {
+        return export("students",
+                () -> jdbcTemplate.queryForStream(EXPORT_STUDENTS, ExportServiceImpl::studentRow),
+                out, format);
+    }
+
+    @Override
+    public long writeMarks(OutputStream out, ExportFormat format) throws IOException {
+        return export("marks", markRepository::streamAllViews, out, format);
+    }
+
+    private <T> long export(String table, Supplier<Stream<T>> query, OutputStream out,
+                            ExportFormat format) throws IOException {
+        final long start = System.nanoTime();
+        logger.info("Streaming {} export as {}", table, format);
+
+        long rows;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (format == ExportFormat.JSON) {
+                generator.writeStartArray();
+            }
+            try {
+                rows = transactionTemplate.execute(status -> writeRows(query, generator, format));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (format == ExportFormat.JSON) {
+                generator.writeEndArray();
+            }
+        }
+
+        long end = System.nanoTime();
+        logger.info("Execution time for {} export: {} ms, rows: {}",
+                table, (end - start) / 1_000_000, rows);
+        return rows;
+    }
+
+    private <T> long writeRows(Supplier<Stream<T>> query, JsonGenerator generator,
+                               ExportFormat format) {
+        long count = 0;
+        try (Stream<T> stream = query.get()) {
+            Iterator<T> rows = stream.iterator();
+            while (rows.hasNext()) {
+                T row = rows.next();
+                generator.writeObject(row);
+                if (format == ExportFormat.NDJSON) {
+                    generator.writeRaw('\n');
+                }
+                if (++count % BATCH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private static StudentRow studentRow(ResultSet rs, int rowNum) throws SQLException {
+        long groupId = rs.getLong(4);
+        return new StudentRow(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                rs.wasNull() ? null : groupId, ids(rs.getArray(5)), ids(rs.getArray(6)));
+    }
+
+    private static Set<Long> ids(Array array) throws SQLException {
+        if (array == null) {
+            return Set.of();
+        }
+        try {
+            Object[] values = (Object[]) array.getArray();
+            Set<Long> ids = new LinkedHashSet<>(values.length * 2);
+            for (Object value : values) {
+                ids.add(((Number) value).longValue());
+            }
+            return ids;
+        } finally {
+            array.free();
+        }
+    }
+}
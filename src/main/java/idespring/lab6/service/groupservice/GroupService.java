@@ -1,13 +1,19 @@
 package idespring.lab6.service.groupservice;
 
 import idespring.lab6.model.Group;
+import idespring.lab6.model.projection.GroupDetails;
+import idespring.lab6.pagination.CursorPage;
 import java.util.List;
 
 public interface GroupService {
     List<Group> readGroups(String namePattern, String sort);
 
+    CursorPage<Group> readGroupsPage(String namePattern, String sort, String cursor, int limit);
+
     Group findById(Long id);
 
+    GroupDetails findDetails(Long id, String expand);
+
     Group findByName(String name);
 
     Group addGroup(String name, List<Integer> studentIds);
@@ -1,12 +1,24 @@
 package idespring.lab6.service.groupservice;
 
+import idespring.lab6.analytics.AnalyticsService;
 import idespring.lab6.config.CacheConfig;
 import idespring.lab6.exceptions.EntityNotFoundException;
+import idespring.lab6.expand.ExpandSpec;
 import idespring.lab6.model.Group;
 import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.GroupDetails;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.pagination.PageCursor;
+import idespring.lab6.repository.graphrepo.EntityGraphRepository;
 import idespring.lab6.repository.grouprepo.GroupRepository;
 import idespring.lab6.repository.studentrepo.StudentRepository;
+import idespring.lab6.search.NameSearchService;
+import idespring.lab6.search.SearchTarget;
+import idespring.lab6.service.markservice.MarkAggregateService;
+import idespring.lab6.service.markservice.MarksChangedEvent;
 import idespring.lab6.service.studservice.StudentServiceImpl;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
 import jakarta.annotation.PreDestroy;
 import java.util.HashSet;
 import java.util.List;
@@ -16,6 +28,7 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,22 +36,35 @@ import org.springframework.transaction.annotation.Transactional;
 public class GroupServiceImpl implements GroupService {
     private final GroupRepository groupRepository;
     private final StudentRepository studentRepository;
+    private final EntityGraphRepository entityGraphRepository;
+    private final MarkAggregateService markAggregateService;
+    private final NameSearchService nameSearchService;
+    private final ApplicationEventPublisher eventPublisher;
     private final CacheConfig<String, Object> cache;
     private static final Logger logger = LoggerFactory.getLogger(GroupServiceImpl.class);
 
     private static final String GROUP_ID_PREFIX = "group_";
     private static final String GROUP_NAME_PREFIX = "name_";
     private static final String ALL_GROUPS_PREFIX = "allGroups";
+    private static final String GROUPS_PAGE_PREFIX = ALL_GROUPS_PREFIX + "Page-";
 
     public final Set<String> groupCacheKeys = ConcurrentHashMap.newKeySet();
     private final StudentServiceImpl studentServiceImpl;
 
     @Autowired
     public GroupServiceImpl(GroupRepository groupRepository, StudentRepository studentRepository,
+                            EntityGraphRepository entityGraphRepository,
+                            MarkAggregateService markAggregateService,
+                            NameSearchService nameSearchService,
+                            ApplicationEventPublisher eventPublisher,
                             CacheConfig<String, Object> cache,
                             StudentServiceImpl studentServiceImpl) {
         this.groupRepository = groupRepository;
         this.studentRepository = studentRepository;
+        this.entityGraphRepository = entityGraphRepository;
+        this.markAggregateService = markAggregateService;
+        this.nameSearchService = nameSearchService;
+        this.eventPublisher = eventPublisher;
         this.cache = cache;
         this.studentServiceImpl = studentServiceImpl;
     }
@@ -59,12 +85,13 @@ public class GroupServiceImpl implements GroupService {
         logger.info("Fetching groups with namePattern: {}, sort: {}", namePattern, sort);
 
         List<Group> groups;
-        if (namePattern != null) {
-            groups = groupRepository.findByNameContaining(namePattern);
-        } else if (sort != null && sort.equalsIgnoreCase("asc")) {
-            groups = groupRepository.findAllByOrderByNameAsc();
+        PageCursor.Order order = PageCursor.Order.lenient(sort);
+        if (namePattern != null && !order.byName()) {
+            groups = nameSearchService.findIdsContaining(SearchTarget.GROUPS, namePattern)
+                    .map(ids -> PageCursor.readAllById(ids, groupRepository::findAllById))
+                    .orElseGet(() -> readAll(namePattern, order));
         } else {
-            groups = groupRepository.findAll();
+            groups = readAll(namePattern, order);
         }
 
         cache.put(cacheKey, groups);
@@ -73,6 +100,55 @@ public class GroupServiceImpl implements GroupService {
         return groups;
     }
 
+    @Override
+    public CursorPage<Group> readGroupsPage(String namePattern, String sort, String cursor,
+                                            int limit) {
+        PageCursor.checkLimit(limit);
+        PageCursor.Order order = PageCursor.Order.of(sort);
+        PageCursor after = PageCursor.decode(cursor, order);
+        String cacheKey = GROUPS_PAGE_PREFIX + (namePattern != null ? namePattern : "")
+                + "-" + order + "-" + limit + "-" + (cursor != null ? cursor : "");
+
+        groupCacheKeys.add(cacheKey);
+
+        @SuppressWarnings("unchecked")
+        CursorPage<Group> cachedPage = (CursorPage<Group>) cache.get(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        final long start = System.nanoTime();
+        logger.info("Fetching groups page with namePattern: {}, sort: {}, limit: {}",
+                namePattern, sort, limit);
+
+        CursorPage<Group> page = CursorPage.of(findPage(namePattern, after, limit + 1), limit,
+                group -> PageCursor.of(order, group.getId(), group.getName()));
+
+        cache.put(cacheKey, page);
+        long end = System.nanoTime();
+        logger.info("Execution time for readGroupsPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    private List<Group> readAll(String namePattern, PageCursor.Order order) {
+        return PageCursor.readAll(order,
+                after -> findPage(namePattern, after, PageCursor.MAX_LIMIT),
+                group -> PageCursor.of(order, group.getId(), group.getName()));
+    }
+
+    private List<Group> findPage(String namePattern, PageCursor after, int rows) {
+        String pattern = namePattern != null ? namePattern : "";
+        return switch (after.order()) {
+            case NAME_ASC -> groupRepository.findPageOrderByName(pattern, after.afterName(),
+                    after.id(), rows);
+            case NAME_DESC -> groupRepository.findPageOrderByNameDesc(pattern, after.isStart(),
+                    after.afterName(), after.id(), rows);
+            case ID -> namePattern != null
+                    ? groupRepository.findPageByNameContaining(namePattern, after.id(), rows)
+                    : groupRepository.findPage(after.id(), rows);
+        };
+    }
+
     @Override
     public Group findById(Long id) {
         String cacheKey = GROUP_ID_PREFIX + id;
@@ -96,6 +172,32 @@ public class GroupServiceImpl implements GroupService {
         return group;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public GroupDetails findDetails(Long id, String expand) {
+        ExpandSpec spec = ExpandSpec.parse(expand, GroupDetails.EXPANDABLE);
+        String cacheKey = spec.cacheKey(GroupDetails.CACHE_PREFIX, id);
+
+        groupCacheKeys.add(cacheKey);
+
+        GroupDetails cachedDetails = (GroupDetails) cache.get(cacheKey);
+        if (cachedDetails != null) {
+            return cachedDetails;
+        }
+
+        long start = System.nanoTime();
+        logger.info("Fetching group {} with expand: {}", id, spec.attributes());
+
+        GroupDetails details = entityGraphRepository.findById(Group.class, id, spec)
+                .map(group -> GroupDetails.of(group, spec))
+                .orElseThrow(() -> new EntityNotFoundException("Group not found with id: " + id));
+
+        cache.put(cacheKey, details);
+        long end = System.nanoTime();
+        logger.info("Execution time for findDetails: {} ms", (end - start) / 1_000_000);
+        return details;
+    }
+
     @Override
     public Group findByName(String name) {
         String cacheKey = GROUP_NAME_PREFIX + name;
@@ -159,6 +261,11 @@ public class GroupServiceImpl implements GroupService {
         }
 
         Group savedGroup = groupRepository.save(group);
+        nameSearchService.index(SearchTarget.GROUPS, savedGroup.getId(), savedGroup.getName());
+        if (studentIds != null && !studentIds.isEmpty()) {
+            eventPublisher.publishEvent(StudentsChangedEvent.of(
+                    studentIds.stream().map(Long::valueOf).toList()));
+        }
 
         String groupIdKey = GROUP_ID_PREFIX + savedGroup.getId();
         String groupNameKey = GROUP_NAME_PREFIX + savedGroup.getName();
@@ -196,6 +303,8 @@ public class GroupServiceImpl implements GroupService {
         Set<Student> students = studentRepository.findByGroupId(id);
 
         clearStudentsCache(students);
+        Set<Long> studentIds = students.stream().map(Student::getId).collect(Collectors.toSet());
+        List<MarkView> marks = markAggregateService.marksOfStudents(studentIds);
 
         String groupIdKey = GROUP_ID_PREFIX + id;
         String groupNameKey = GROUP_NAME_PREFIX + group.getName();
@@ -205,10 +314,25 @@ public class GroupServiceImpl implements GroupService {
 
         groupCacheKeys.remove(groupIdKey);
         groupCacheKeys.remove(groupNameKey);
+        clearDetailsCaches(id);
 
         invalidateGroupListCaches();
 
         groupRepository.deleteById(id);
+        nameSearchService.remove(SearchTarget.GROUPS, id);
+        nameSearchService.remove(SearchTarget.STUDENTS, studentIds);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(studentIds));
+        markAggregateService.rebuild(studentIds,
+                marks.stream().map(MarkView::subjectId).collect(Collectors.toSet()),
+                MarksChangedEvent.removed(marks));
+    }
+
+    private void clearDetailsCaches(Long id) {
+        for (String key : GroupDetails.cacheKeys(id)) {
+            cache.remove(key);
+            groupCacheKeys.remove(key);
+        }
+        cache.remove(AnalyticsService.GROUP_RANKING_KEY);
     }
 
     private void clearStudentsCache(Set<Student> students) {
@@ -231,6 +355,8 @@ public class GroupServiceImpl implements GroupService {
         Set<Student> students = studentRepository.findByGroupId(group.getId());
 
         clearStudentsCache(students);
+        Set<Long> studentIds = students.stream().map(Student::getId).collect(Collectors.toSet());
+        List<MarkView> marks = markAggregateService.marksOfStudents(studentIds);
 
         String groupIdKey = GROUP_ID_PREFIX + group.getId();
         String groupNameKey = GROUP_NAME_PREFIX + name;
@@ -240,10 +366,17 @@ public class GroupServiceImpl implements GroupService {
 
         groupCacheKeys.remove(groupIdKey);
         groupCacheKeys.remove(groupNameKey);
+        clearDetailsCaches(group.getId());
 
         invalidateGroupListCaches();
 
         groupRepository.deleteByName(name);
+        nameSearchService.remove(SearchTarget.GROUPS, group.getId());
+        nameSearchService.remove(SearchTarget.STUDENTS, studentIds);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(studentIds));
+        markAggregateService.rebuild(studentIds,
+                marks.stream().map(MarkView::subjectId).collect(Collectors.toSet()),
+                MarksChangedEvent.removed(marks));
     }
 
     public void invalidateGroupListCaches() {
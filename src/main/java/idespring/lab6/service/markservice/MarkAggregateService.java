@@ -0,0 +1,21 @@
+package idespring.lab6.service.markservice;
+
+import idespring.lab6.model.MarkAggregate;
+import idespring.lab6.model.projection.MarkView;
+import java.util.Collection;
+import java.util.List;
+
+public interface MarkAggregateService {
+    void record(Long studentId, Long subjectId, int value, long delta);
+
+    MarkDistribution distribution(MarkAggregate.Scope scope, Long ownerId);
+
+    List<MarkView> marksOfStudents(Collection<Long> studentIds);
+
+    List<MarkView> marksOfSubject(Long subjectId);
+
+    void rebuild(Collection<Long> studentIds, Collection<Long> subjectIds,
+                 MarksChangedEvent change);
+
+    void rebuildAll();
+}
@@ -0,0 +1,180 @@
+package idespring.lab6.service.markservice;
+
+import idespring.lab6.model.MarkAggregate;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.repository.markrepo.MarkAggregateRepository;
+import idespring.lab6.repository.markrepo.MarkRepository;
+import idespring.lab6.service.markservice.MarkAggregatesChangedEvent.Versioned;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class MarkAggregateServiceImpl implements MarkAggregateService {
+    private static final Logger logger = LoggerFactory.getLogger(MarkAggregateServiceImpl.class);
+
+    private final MarkAggregateRepository aggregateRepository;
+    private final MarkRepository markRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<MarkAggregate.Key, Versioned> mirror = new ConcurrentHashMap<>();
+    // bumped before every eviction, so a load that read the row before it does not re-cache it
+    private final AtomicLong evictions = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final long rebuildMinutes;
+
+    @Autowired
+    public MarkAggregateServiceImpl(MarkAggregateRepository aggregateRepository,
+                                    MarkRepository markRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${marks.aggregates.rebuildMinutes:60}")
+                                    long rebuildMinutes) {
+        this.aggregateRepository = aggregateRepository;
+        this.markRepository = markRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildMinutes = rebuildMinutes;
+    }
+
+    // record() keeps the rows exact, so the first correction waits a full period instead of
+    // recounting every mark while the application is starting up.
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuild() {
+        if (rebuildMinutes > 0) {
+            executor.scheduleWithFixedDelay(this::rebuildQuietly,
+                    rebuildMinutes, rebuildMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void record(Long studentId, Long subjectId, int value, long delta) {
+        Map<MarkAggregate.Key, Versioned> updated = new HashMap<>();
+        for (MarkAggregate.Key key : List.of(
+                new MarkAggregate.Key(MarkAggregate.Scope.STUDENT, studentId),
+                new MarkAggregate.Key(MarkAggregate.Scope.SUBJECT, subjectId))) {
+            aggregateRepository.ensureRow(key.getScope().name(), key.getOwnerId());
+            MarkAggregate aggregate = aggregateRepository.findForUpdate(key)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Mark aggregate row missing for " + key.getScope()
+                                    + " " + key.getOwnerId()));
+            aggregate.apply(value, delta);
+            aggregate = aggregateRepository.saveAndFlush(aggregate);
+            updated.put(key, new Versioned(aggregate.getVersion(),
+                    MarkDistribution.of(aggregate)));
+        }
+        eventPublisher.publishEvent(new MarkAggregatesChangedEvent(updated, List.of(), false));
+    }
+
+    @Override
+    public MarkDistribution distribution(MarkAggregate.Scope scope, Long ownerId) {
+        MarkAggregate.Key key = new MarkAggregate.Key(scope, ownerId);
+        Versioned cached = mirror.get(key);
+        if (cached != null) {
+            return cached.distribution();
+        }
+        long generation = evictions.get();
+        Versioned loaded = aggregateRepository.findById(key)
+                .map(aggregate -> new Versioned(aggregate.getVersion(),
+                        MarkDistribution.of(aggregate)))
+                .orElse(new Versioned(-1, MarkDistribution.EMPTY));
+        Versioned current = mirror.compute(key, (k, present) -> present != null ? present
+                : evictions.get() == generation ? loaded : null);
+        return current != null ? current.distribution() : loaded.distribution();
+    }
+
+    @Override
+    public List<MarkView> marksOfStudents(Collection<Long> studentIds) {
+        return studentIds.isEmpty() ? List.of() : markRepository.findViewsByStudentIds(studentIds);
+    }
+
+    @Override
+    public List<MarkView> marksOfSubject(Long subjectId) {
+        return markRepository.findViewsBySubjectId(subjectId);
+    }
+
+    // The change is published inside the rebuild transaction, so listeners see it after commit
+    // even when the caller itself is not transactional.
+    @Override
+    @Transactional
+    public void rebuild(Collection<Long> studentIds, Collection<Long> subjectIds,
+                        MarksChangedEvent change) {
+        int touched = aggregateRepository.rebuild(MarkAggregate.Scope.STUDENT, studentIds)
+                + aggregateRepository.rebuild(MarkAggregate.Scope.SUBJECT, subjectIds);
+
+        List<MarkAggregate.Key> evicted = new ArrayList<>();
+        studentIds.forEach(id ->
+                evicted.add(new MarkAggregate.Key(MarkAggregate.Scope.STUDENT, id)));
+        subjectIds.forEach(id ->
+                evicted.add(new MarkAggregate.Key(MarkAggregate.Scope.SUBJECT, id)));
+        eventPublisher.publishEvent(new MarkAggregatesChangedEvent(Map.of(), evicted, false));
+        if (!change.isEmpty()) {
+            eventPublisher.publishEvent(change);
+        }
+        logger.info("Rebuilt {} mark aggregate rows for {} students and {} subjects",
+                touched, studentIds.size(), subjectIds.size());
+    }
+
+    @Override
+    public void rebuildAll() {
+        long start = System.nanoTime();
+        Integer touched = transactionTemplate.execute(status -> {
+            int rows = aggregateRepository.rebuildAll(MarkAggregate.Scope.STUDENT)
+                    + aggregateRepository.rebuildAll(MarkAggregate.Scope.SUBJECT);
+            eventPublisher.publishEvent(new MarkAggregatesChangedEvent(Map.of(), List.of(), true));
+            return rows;
+        });
+        long end = System.nanoTime();
+        logger.info("Execution time for rebuildAll: {} ms, {} aggregate rows",
+                (end - start) / 1_000_000, touched);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAggregatesChanged(MarkAggregatesChangedEvent event) {
+        if (event.evictAll() || !event.evicted().isEmpty()) {
+            evictions.incrementAndGet();
+        }
+        if (event.evictAll()) {
+            mirror.clear();
+        }
+        event.evicted().forEach(mirror::remove);
+        event.updated().forEach((key, versioned) -> mirror.merge(key, versioned,
+                (current, incoming) -> incoming.version() > current.version()
+                        ? incoming : current));
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuildAll();
+        } catch (RuntimeException e) {
+            logger.warn("Scheduled mark aggregate rebuild failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,11 @@
+package idespring.lab6.service.markservice;
+
+import idespring.lab6.model.MarkAggregate;
+import java.util.Collection;
+import java.util.Map;
+
+public record MarkAggregatesChangedEvent(Map<MarkAggregate.Key, Versioned> updated,
+                                         Collection<MarkAggregate.Key> evicted,
+                                         boolean evictAll) {
+    public record Versioned(long version, MarkDistribution distribution) {}
+}
@@ -0,0 +1,25 @@
+package idespring.lab6.service.markservice;
+
+import idespring.lab6.model.MarkAggregate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public record MarkDistribution(long count, long sum, Double average, Integer min, Integer max,
+                               Map<Integer, Long> histogram) {
+    public static final MarkDistribution EMPTY =
+            new MarkDistribution(0, 0, null, null, null, Map.of());
+
+    public static MarkDistribution of(MarkAggregate aggregate) {
+        long[] counts = aggregate.getHistogram();
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                histogram.put(i + MarkAggregate.MIN_MARK, counts[i]);
+            }
+        }
+        long count = aggregate.getCount();
+        return new MarkDistribution(count, aggregate.getSum(),
+                count > 0 ? (double) aggregate.getSum() / count : null,
+                aggregate.getMinValue(), aggregate.getMaxValue(), histogram);
+    }
+}
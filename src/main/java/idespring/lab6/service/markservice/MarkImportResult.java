@@ -0,0 +1,9 @@
+package idespring.lab6.service.markservice;
+
+import java.util.List;
+
+public record MarkImportResult(long received, long imported, long rejected,
+                               List<RejectedRow> rejects) {
+
+    public record RejectedRow(long line, String reason) {}
+}
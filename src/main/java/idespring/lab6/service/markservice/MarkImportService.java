@@ -0,0 +1,8 @@
+package idespring.lab6.service.markservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface MarkImportService {
+    MarkImportResult importCsv(InputStream csv) throws IOException;
+}
@@ -0,0 +1,215 @@
+package idespring.lab6.service.markservice;
+
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.service.markservice.MarkImportResult.RejectedRow;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class MarkImportServiceImpl implements MarkImportService {
+    private static final Logger logger = LoggerFactory.getLogger(MarkImportServiceImpl.class);
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE mark_import_staging "
+            + "(line bigint, studentid bigint, subjectid bigint, value int) ON COMMIT DROP";
+    private static final String COPY_STAGING = "COPY mark_import_staging "
+            + "(line, studentid, subjectid, value) FROM STDIN";
+    private static final String VALID_ROWS = "FROM mark_import_staging s "
+            + "JOIN studentmanagement.student_subject ss "
+            + "ON ss.studentid = s.studentid AND ss.subjectid = s.subjectid";
+    private static final String INSERT_VALID_ROWS = "INSERT INTO studentmanagement.marks "
+            + "(value, studentid, subjectid) SELECT s.value, s.studentid, s.subjectid "
+            + VALID_ROWS + " RETURNING id, value, studentid, subjectid";
+    private static final String REJECTED_ROWS = "SELECT s.line, CASE "
+            + "WHEN st.id IS NULL THEN 'student ' || s.studentid || ' not found' "
+            + "WHEN sb.id IS NULL THEN 'subject ' || s.subjectid || ' not found' "
+            + "ELSE 'student ' || s.studentid || ' does not have subject ' || s.subjectid END "
+            + "FROM mark_import_staging s "
+            + "LEFT JOIN studentmanagement.students st ON st.id = s.studentid "
+            + "LEFT JOIN studentmanagement.subjects sb ON sb.id = s.subjectid "
+            + "WHERE NOT EXISTS (SELECT 1 FROM studentmanagement.student_subject ss "
+            + "WHERE ss.studentid = s.studentid AND ss.subjectid = s.subjectid) "
+            + "ORDER BY s.line LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MarkServiceImpl markService;
+    private final MarkAggregateService markAggregateService;
+    private final int maxRejects;
+
+    @Autowired
+    public MarkImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 MarkServiceImpl markService,
+                                 MarkAggregateService markAggregateService,
+                                 @Value("${marks.import.maxRejects:1000}") int maxRejects) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.markService = markService;
+        this.markAggregateService = markAggregateService;
+        this.maxRejects = maxRejects;
+    }
+
+    @Override
+    public MarkImportResult importCsv(InputStream csv) throws IOException {
+        final long start = System.nanoTime();
+        List<RejectedRow> rejects = new ArrayList<>();
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        long[] counts = new long[2];
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute(
+                    (ConnectionCallback<Void>) connection -> {
+                        jdbcTemplate.execute(CREATE_STAGING);
+                        counts[0] = copyToStaging(connection, csv, rejects);
+                        if (rejects.size() < maxRejects) {
+                            jdbcTemplate.query(REJECTED_ROWS,
+                                    (RowCallbackHandler) rs ->
+                                            reject(rejects, rs.getLong(1), rs.getString(2)),
+                                    maxRejects - rejects.size());
+                        }
+                        collectAffected(studentIds, subjectIds);
+                        List<MarkView> inserted = jdbcTemplate.query(INSERT_VALID_ROWS,
+                                (rs, row) -> new MarkView(rs.getLong(1), rs.getInt(2),
+                                        rs.getLong(3), rs.getLong(4)));
+                        counts[1] = inserted.size();
+                        markAggregateService.rebuild(studentIds, subjectIds,
+                                MarksChangedEvent.added(inserted));
+                        return null;
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (!studentIds.isEmpty()) {
+            markService.clearCachesForNewMarks(studentIds, subjectIds);
+        }
+        rejects.sort(Comparator.comparingLong(RejectedRow::line));
+
+        long received = counts[0];
+        long rejected = received - counts[1];
+        long end = System.nanoTime();
+        logger.info("Execution time for importCsv: {} ms, {} rows received, {} rejected",
+                (end - start) / 1_000_000, received, rejected);
+        return new MarkImportResult(received, counts[1], rejected, rejects);
+    }
+
+    private long copyToStaging(Connection connection, InputStream csv,
+                               List<RejectedRow> rejects) throws SQLException {
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+        long received = 0;
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(csv, StandardCharsets.UTF_8), COPY_BUFFER);
+            StringBuilder block = new StringBuilder(COPY_BUFFER + 128);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                    continue;
+                }
+                received++;
+                String error = appendRow(block, lineNumber, line);
+                if (error != null) {
+                    reject(rejects, lineNumber, error);
+                    continue;
+                }
+                if (block.length() >= COPY_BUFFER) {
+                    writeBlock(copy, block);
+                }
+            }
+            writeBlock(copy, block);
+            copy.endCopy();
+            return received;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static String appendRow(StringBuilder block, long lineNumber, String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            return "expected 3 columns (studentId,subjectId,value), got " + fields.length;
+        }
+        long studentId;
+        long subjectId;
+        int value;
+        try {
+            studentId = Long.parseLong(unquote(fields[0]));
+            subjectId = Long.parseLong(unquote(fields[1]));
+            value = Integer.parseInt(unquote(fields[2]));
+        } catch (NumberFormatException e) {
+            return "non-numeric field";
+        }
+        if (value < 1 || value > 10) {
+            return "Mark value must be between 1 and 10";
+        }
+        block.append(lineNumber).append('\t').append(studentId).append('\t')
+                .append(subjectId).append('\t').append(value).append('\n');
+        return null;
+    }
+
+    private static void writeBlock(CopyIn copy, StringBuilder block) throws SQLException {
+        if (block.isEmpty()) {
+            return;
+        }
+        byte[] bytes = block.toString().getBytes(StandardCharsets.US_ASCII);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        block.setLength(0);
+    }
+
+    private void collectAffected(Set<Long> studentIds, Set<Long> subjectIds) {
+        studentIds.addAll(jdbcTemplate.queryForList(
+                "SELECT DISTINCT s.studentid " + VALID_ROWS, Long.class));
+        subjectIds.addAll(jdbcTemplate.queryForList(
+                "SELECT DISTINCT s.subjectid " + VALID_ROWS, Long.class));
+    }
+
+    private void reject(List<RejectedRow> rejects, long line, String reason) {
+        if (rejects.size() < maxRejects) {
+            rejects.add(new RejectedRow(line, reason));
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        String first = unquote(line.split(",", 2)[0]);
+        return !first.isEmpty() && !Character.isDigit(first.charAt(0));
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+}
@@ -1,12 +1,16 @@
 package idespring.lab6.service.markservice;
 
 import idespring.lab6.model.Mark;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.pagination.CursorPage;
 import java.util.List;
 
 public interface MarkService {
-    List<Mark> readMarks(Long studentId, Long subjectId);
+    List<MarkView> readMarks(Long studentId, Long subjectId);
 
-    List<Mark> findByValue(int value);
+    CursorPage<MarkView> readMarksPage(Long studentId, Long subjectId, String cursor, int limit);
+
+    List<MarkView> findByValue(int value);
 
     void deleteMarkSpecific(Long studentId, String subjectName, int markValue, Long id);
 
@@ -14,6 +18,10 @@ public interface MarkService {
 
     Double getAverageMarkBySubjectId(Long subjectId);
 
+    MarkDistribution getDistributionByStudentId(Long studentId);
+
+    MarkDistribution getDistributionBySubjectId(Long subjectId);
+
     Mark addMark(Mark mark);
 
     void deleteMark(Long id);
@@ -4,18 +4,30 @@ import idespring.lab6.config.CacheConfig;
 import idespring.lab6.exceptions.EntityNotFoundException;
 import idespring.lab6.exceptions.SubjectNotAssignedException;
 import idespring.lab6.model.Mark;
+import idespring.lab6.model.MarkAggregate;
 import idespring.lab6.model.Student;
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.model.projection.StudentDetails;
+import idespring.lab6.model.projection.SubjectDetails;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.pagination.PageCursor;
 import idespring.lab6.repository.markrepo.MarkRepository;
 import idespring.lab6.repository.studentrepo.StudentRepository;
 import idespring.lab6.repository.subjectrepo.SubjectRepository;
-import idespring.lab6.service.studentsubjserv.StudentSubjectService;
+import idespring.lab6.service.studentsubjserv.EnrollmentIndex;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,30 +36,36 @@ public class MarkServiceImpl implements MarkService {
     private final MarkRepository markRepository;
     private final StudentRepository studentRepository;
     private final SubjectRepository subjectRepository;
-    private final StudentSubjectService studentSubjectService;
+    private final EnrollmentIndex enrollmentIndex;
+    private final MarkAggregateService markAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
     private final CacheConfig<String, Object> cache;
     private static final Logger logger = LoggerFactory.getLogger(MarkServiceImpl.class);
+    private static final String PAGE_PREFIX = "marks-page-";
+
+    private final Set<String> pageCacheKeys = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public MarkServiceImpl(MarkRepository markRepository,
                            StudentRepository studentRepository,
                            SubjectRepository subjectRepository,
-                           StudentSubjectService studentSubjectService,
+                           EnrollmentIndex enrollmentIndex,
+                           MarkAggregateService markAggregateService,
+                           ApplicationEventPublisher eventPublisher,
                            CacheConfig<String, Object> cache) {
         this.markRepository = markRepository;
         this.studentRepository = studentRepository;
         this.subjectRepository = subjectRepository;
-        this.studentSubjectService = studentSubjectService;
+        this.enrollmentIndex = enrollmentIndex;
+        this.markAggregateService = markAggregateService;
+        this.eventPublisher = eventPublisher;
         this.cache = cache;
     }
 
     @Override
-    public List<Mark> readMarks(Long studentId, Long subjectId) {
+    public List<MarkView> readMarks(Long studentId, Long subjectId) {
         if (studentId != null && subjectId != null) {
-            boolean hasSubject = studentSubjectService.getSubjectsByStudent(studentId)
-                    .stream().anyMatch(s ->
-                            s.getId().equals(subjectId));
-            if (!hasSubject) {
+            if (!enrollmentIndex.isEnrolled(studentId, subjectId)) {
                 throw new SubjectNotAssignedException("Student with ID " + studentId
                         + " does not have subject with ID " + subjectId);
             }
@@ -55,27 +73,24 @@ public class MarkServiceImpl implements MarkService {
 
         String cacheKey = "marks-" + (studentId != null ? studentId : "all")
                 + "-" + (subjectId != null ? subjectId : "all");
-        List<Mark> cachedMarks = (List<Mark>) cache.get(cacheKey);
+        List<MarkView> cachedMarks = (List<MarkView>) cache.get(cacheKey);
         if (cachedMarks != null) {
             return cachedMarks;
         }
 
         logger.info("Fetching marks for student: {}, subject: {}", studentId, subjectId);
-        List<Mark> marks;
+        List<MarkView> marks;
         if (studentId != null && subjectId != null) {
-            Student student = studentRepository.findById(studentId)
-                    .orElseThrow(() ->
-                            new EntityNotFoundException("Student not found with id: " + studentId));
-            Subject subject = subjectRepository.findById(subjectId)
-                    .orElseThrow(() ->
-                            new EntityNotFoundException("Subject not found with id: " + subjectId));
-            marks = markRepository.findByStudentAndSubject(student, subject);
+            marks = markRepository.findViewsByStudentIdAndSubjectId(studentId, subjectId);
         } else if (studentId != null) {
-            marks = markRepository.findByStudentId(studentId);
+            marks = markRepository.findViewsByStudentId(studentId);
         } else if (subjectId != null) {
-            marks = markRepository.findBySubjectId(subjectId);
+            marks = markRepository.findViewsBySubjectId(subjectId);
         } else {
-            marks = markRepository.findAll();
+            marks = PageCursor.readAll(PageCursor.Order.ID,
+                    after -> markRepository.findViewPage(after.id(),
+                            PageRequest.ofSize(PageCursor.MAX_LIMIT)),
+                    mark -> PageCursor.ofId(mark.id()));
         }
 
         cache.put(cacheKey, marks);
@@ -83,42 +98,74 @@ public class MarkServiceImpl implements MarkService {
     }
 
     @Override
-    public List<Mark> findByValue(int value) {
+    public CursorPage<MarkView> readMarksPage(Long studentId, Long subjectId, String cursor,
+                                              int limit) {
+        PageCursor.checkLimit(limit);
+        PageCursor after = PageCursor.decode(cursor, PageCursor.Order.ID);
+        String cacheKey = PAGE_PREFIX + (studentId != null ? studentId : "all")
+                + "-" + (subjectId != null ? subjectId : "all")
+                + "-" + limit + "-" + (cursor != null ? cursor : "");
+        @SuppressWarnings("unchecked")
+        CursorPage<MarkView> cachedPage = (CursorPage<MarkView>) cache.get(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        final long start = System.nanoTime();
+        logger.info("Fetching marks page for student: {}, subject: {}, limit: {}",
+                studentId, subjectId, limit);
+        Pageable window = PageRequest.ofSize(limit + 1);
+        List<MarkView> rows;
+        if (studentId != null && subjectId != null) {
+            rows = markRepository.findViewPageByStudentIdAndSubjectId(studentId, subjectId,
+                    after.id(), window);
+        } else if (studentId != null) {
+            rows = markRepository.findViewPageByStudentId(studentId, after.id(), window);
+        } else if (subjectId != null) {
+            rows = markRepository.findViewPageBySubjectId(subjectId, after.id(), window);
+        } else {
+            rows = markRepository.findViewPage(after.id(), window);
+        }
+
+        CursorPage<MarkView> page = CursorPage.of(rows, limit, mark -> PageCursor.ofId(mark.id()));
+        pageCacheKeys.add(cacheKey);
+        cache.put(cacheKey, page);
+        long end = System.nanoTime();
+        logger.info("Execution time for readMarksPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    @Override
+    public List<MarkView> findByValue(int value) {
         String cacheKey = "value-" + value;
-        List<Mark> cachedMarks = (List<Mark>) cache.get(cacheKey);
+        List<MarkView> cachedMarks = (List<MarkView>) cache.get(cacheKey);
         if (cachedMarks != null) {
             return cachedMarks;
         }
 
-        List<Mark> marks = markRepository.findByValue(value);
+        List<MarkView> marks = markRepository.findViewsByValue(value);
         cache.put(cacheKey, marks);
         return marks;
     }
 
     @Override
     public Double getAverageMarkByStudentId(Long studentId) {
-        String cacheKey = "avg-student-" + studentId;
-        Double cachedAvg = (Double) cache.get(cacheKey);
-        if (cachedAvg != null) {
-            return cachedAvg;
-        }
-
-        Double avgMark = markRepository.getAverageMarkByStudentId(studentId);
-        cache.put(cacheKey, avgMark);
-        return avgMark;
+        return getDistributionByStudentId(studentId).average();
     }
 
     @Override
     public Double getAverageMarkBySubjectId(Long subjectId) {
-        String cacheKey = "avg-subject-" + subjectId;
-        Double cachedAvg = (Double) cache.get(cacheKey);
-        if (cachedAvg != null) {
-            return cachedAvg;
-        }
+        return getDistributionBySubjectId(subjectId).average();
+    }
 
-        Double avgMark = markRepository.getAverageMarkBySubjectId(subjectId);
-        cache.put(cacheKey, avgMark);
-        return avgMark;
+    @Override
+    public MarkDistribution getDistributionByStudentId(Long studentId) {
+        return markAggregateService.distribution(MarkAggregate.Scope.STUDENT, studentId);
+    }
+
+    @Override
+    public MarkDistribution getDistributionBySubjectId(Long subjectId) {
+        return markAggregateService.distribution(MarkAggregate.Scope.SUBJECT, subjectId);
     }
 
     @Override
@@ -131,12 +178,18 @@ public class MarkServiceImpl implements MarkService {
                 .orElseThrow(() ->
                         new EntityNotFoundException("Subject not found with name: " + subjectName));
         Long subjectId = subject.getId();
+        List<MarkView> deleted = markRepository
+                .findViewsByStudentIdAndSubjectId(studentId, subjectId).stream()
+                .filter(mark -> mark.value() == markValue && (id == null || id.equals(mark.id())))
+                .toList();
 
         int deletedCount = markRepository.deleteMarkByStudentIdSubjectNameValueAndOptionalId(
                 studentId, subjectName, markValue, id);
         if (deletedCount == 0) {
             throw new EntityNotFoundException("Mark not found with the given criteria.");
         }
+        markAggregateService.record(studentId, subjectId, markValue, -deletedCount);
+        eventPublisher.publishEvent(MarksChangedEvent.removed(deleted));
 
         clearCacheForSubject(subjectId);
         clearCacheForStudent(studentId);
@@ -158,15 +211,14 @@ public class MarkServiceImpl implements MarkService {
                 .orElseThrow(() -> new EntityNotFoundException("Subject not found with id: "
                         + mark.getSubject().getId()));
 
-        boolean hasSubject = studentSubjectService.getSubjectsByStudent(student.getId())
-                .stream().anyMatch(s ->
-                        s.getId().equals(subject.getId()));
-        if (!hasSubject) {
+        if (!enrollmentIndex.isEnrolled(student.getId(), subject.getId())) {
             throw new SubjectNotAssignedException("Student with ID " + student.getId()
                     + " does not have subject with ID " + subject.getId());
         }
 
         final Mark savedMark = markRepository.save(mark);
+        markAggregateService.record(student.getId(), subject.getId(), savedMark.getValue(), 1);
+        eventPublisher.publishEvent(MarksChangedEvent.added(MarkView.of(savedMark)));
 
         clearCacheForSubject(subject.getId());
         clearCacheForStudent(student.getId());
@@ -186,6 +238,8 @@ public class MarkServiceImpl implements MarkService {
         Long subjectId = mark.getSubject().getId();
 
         markRepository.deleteById(id);
+        markAggregateService.record(studentId, subjectId, mark.getValue(), -1);
+        eventPublisher.publishEvent(MarksChangedEvent.removed(List.of(MarkView.of(mark))));
 
         clearCacheForSubject(subjectId);
         clearCacheForStudent(studentId);
@@ -194,50 +248,115 @@ public class MarkServiceImpl implements MarkService {
     public void clearCacheForSubject(Long subjectId) {
         logger.info("Clearing cache for subject with id: {}", subjectId);
 
-        List<Mark> subjectMarks = markRepository.findBySubjectId(subjectId);
+        List<MarkView> subjectMarks = markRepository.findViewsBySubjectId(subjectId);
 
         Set<Long> affectedStudentIds = subjectMarks.stream()
-                .map(mark -> mark.getStudent().getId())
+                .map(MarkView::studentId)
                 .collect(Collectors.toSet());
 
         for (Long studentId : affectedStudentIds) {
             cache.remove("marks-" + studentId + "-" + subjectId);
             cache.remove("marks-" + studentId + "-all");
-            cache.remove("avg-student-" + studentId);
+            StudentDetails.cacheKeys(studentId).forEach(cache::remove);
         }
 
         cache.remove("marks-all-" + subjectId);
         cache.remove("marks-all-all");
-        cache.remove("avg-subject-" + subjectId);
+        SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
+        clearPageCaches();
 
-        for (Mark mark : subjectMarks) {
-            cache.remove("mark-" + mark.getId());
-            cache.remove("value-" + mark.getValue());
+        for (MarkView mark : subjectMarks) {
+            cache.remove("mark-" + mark.id());
+            cache.remove("value-" + mark.value());
         }
     }
 
     public void clearCacheForStudent(Long studentId) {
         logger.info("Clearing cache for student with id: {}", studentId);
 
-        List<Mark> studentMarks = markRepository.findByStudentId(studentId);
+        List<MarkView> studentMarks = markRepository.findViewsByStudentId(studentId);
 
         Set<Long> affectedSubjectIds = studentMarks.stream()
-                .map(mark -> mark.getSubject().getId())
+                .map(MarkView::subjectId)
                 .collect(Collectors.toSet());
 
         for (Long subjectId : affectedSubjectIds) {
             cache.remove("marks-" + studentId + "-" + subjectId);
             cache.remove("marks-all-" + subjectId);
-            cache.remove("avg-subject-" + subjectId);
+            SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
         }
 
         cache.remove("marks-" + studentId + "-all");
         cache.remove("marks-all-all");
-        cache.remove("avg-student-" + studentId);
+        StudentDetails.cacheKeys(studentId).forEach(cache::remove);
+        clearPageCaches();
+
+        for (MarkView mark : studentMarks) {
+            cache.remove("mark-" + mark.id());
+            cache.remove("value-" + mark.value());
+        }
+    }
+
+    public void clearCachesForNewMarks(Collection<Mark> marks) {
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        Set<Integer> values = new HashSet<>();
+        for (Mark mark : marks) {
+            Long studentId = mark.getStudent().getId();
+            Long subjectId = mark.getSubject().getId();
+            if (studentIds.add(studentId)) {
+                cache.remove("marks-" + studentId + "-all");
+                StudentDetails.cacheKeys(studentId).forEach(cache::remove);
+            }
+            if (subjectIds.add(subjectId)) {
+                cache.remove("marks-all-" + subjectId);
+                SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
+            }
+            if (values.add(mark.getValue())) {
+                cache.remove("value-" + mark.getValue());
+            }
+            cache.remove("marks-" + studentId + "-" + subjectId);
+        }
+        cache.remove("marks-all-all");
+        clearPageCaches();
+        logger.info("Cleared mark caches for {} students and {} subjects",
+                studentIds.size(), subjectIds.size());
+    }
+
+    // set-based variant for imports, where only the affected ids are known; the per-pair
+    // keys are removed for every combination unless that is more than the cache can hold
+    public void clearCachesForNewMarks(Set<Long> studentIds, Set<Long> subjectIds) {
+        if ((long) studentIds.size() * subjectIds.size() > cache.getMaxSize()) {
+            cache.clear();
+            logger.info("Cleared all caches for {} students and {} subjects",
+                    studentIds.size(), subjectIds.size());
+            return;
+        }
+        for (Long studentId : studentIds) {
+            cache.remove("marks-" + studentId + "-all");
+            StudentDetails.cacheKeys(studentId).forEach(cache::remove);
+            for (Long subjectId : subjectIds) {
+                cache.remove("marks-" + studentId + "-" + subjectId);
+            }
+        }
+        for (Long subjectId : subjectIds) {
+            cache.remove("marks-all-" + subjectId);
+            SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
+        }
+        for (int value = 1; value <= 10; value++) {
+            cache.remove("value-" + value);
+        }
+        cache.remove("marks-all-all");
+        clearPageCaches();
+        logger.info("Cleared mark caches for {} students and {} subjects",
+                studentIds.size(), subjectIds.size());
+    }
 
-        for (Mark mark : studentMarks) {
-            cache.remove("mark-" + mark.getId());
-            cache.remove("value-" + mark.getValue());
+    public void clearPageCaches() {
+        Set<String> keysToRemove = new HashSet<>(pageCacheKeys);
+        for (String key : keysToRemove) {
+            cache.remove(key);
         }
+        pageCacheKeys.removeAll(keysToRemove);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package idespring.lab6.service.markservice;
+
+import idespring.lab6.model.projection.MarkView;
+import java.util.List;
+
+public record MarksChangedEvent(List<MarkView> added, List<MarkView> removed) {
+    public static MarksChangedEvent added(MarkView mark) {
+        return new MarksChangedEvent(List.of(mark), List.of());
+    }
+
+    public static MarksChangedEvent added(List<MarkView> marks) {
+        return new MarksChangedEvent(marks, List.of());
+    }
+
+    public static MarksChangedEvent removed(List<MarkView> marks) {
+        return new MarksChangedEvent(List.of(), marks);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,380 @@
+package idespring.lab6.service.studentsubjserv;
+
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class EnrollmentIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentIndex.class);
+    private static final long[] NONE = new long[0];
+    private static final String LOAD_ENROLLMENTS = "SELECT studentid, subjectid "
+            + "FROM studentmanagement.student_subject";
+    private static final String ORDER = " ORDER BY studentid, subjectid";
+    private static final String EXISTS = "SELECT EXISTS (SELECT 1 "
+            + "FROM studentmanagement.student_subject WHERE studentid = ? AND subjectid = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retryMaxSeconds;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean loadPending = new AtomicBoolean();
+    private final StampedLock lock = new StampedLock();
+    // serializes partial refreshes so a slower, older read never overwrites a newer one
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final LongAdder fallbackQueries = new LongAdder();
+
+    private volatile boolean loaded;
+    private Table table = new Table(16);
+    // changes seen while the bulk load runs; re-read once the loaded table is installed
+    private Set<Long> touchedStudents;
+    private Set<Long> touchedSubjects;
+    private int failures;
+
+    @Autowired
+    public EnrollmentIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${enrollment.retryMaxSeconds:60}") int retryMaxSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retryMaxSeconds = retryMaxSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        requestLoad();
+    }
+
+    // false until the first load succeeds and after a failed refresh; checks then go
+    // to the database, which the fallback counter makes visible
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long getFallbackCount() {
+        return fallbackQueries.sum();
+    }
+
+    public boolean isEnrolled(long studentId, long subjectId) {
+        if (!loaded) {
+            fallbackQueries.increment();
+            return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS, Boolean.class,
+                    studentId, subjectId));
+        }
+        long stamp = lock.tryOptimisticRead();
+        boolean enrolled = table.contains(studentId, subjectId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                enrolled = table.contains(studentId, subjectId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return enrolled;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudentsChanged(StudentsChangedEvent event) {
+        Set<Long> studentIds = new HashSet<>(event.studentIds());
+        if (!event.subjectIds().isEmpty()) {
+            long stamp = lock.readLock();
+            try {
+                table.collectStudents(event.subjectIds(), studentIds);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            stamp = lock.writeLock();
+            try {
+                if (touchedSubjects != null) {
+                    touchedSubjects.addAll(event.subjectIds());
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        refresh(studentIds);
+    }
+
+    private void requestLoad() {
+        if (loadPending.compareAndSet(false, true)) {
+            executor.execute(this::loadQuietly);
+        }
+    }
+
+    private boolean refresh(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return true;
+        }
+        refreshLock.lock();
+        try {
+            Table fresh;
+            try {
+                fresh = jdbcTemplate.query(LOAD_ENROLLMENTS + " WHERE studentid = ANY(?)"
+                                + ORDER,
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint",
+                                studentIds.toArray())),
+                        (ResultSetExtractor<Table>) rs -> group(rs, 16));
+            } catch (RuntimeException e) {
+                logger.warn("Enrollment index refresh failed, checking enrollments in the "
+                        + "database until it reloads", e);
+                loaded = false;
+                requestLoad();
+                return false;
+            }
+            long stamp = lock.writeLock();
+            try {
+                for (Long studentId : studentIds) {
+                    table.put(studentId, fresh.subjectsOf(studentId));
+                }
+                if (touchedStudents != null) {
+                    touchedStudents.addAll(studentIds);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // the bulk load holds no lock while it reads, so refreshes keep going; a failed
+    // load keeps the database fallback and is retried with backoff
+    private void loadQuietly() {
+        loadPending.set(false);
+        final long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            touchedStudents = new HashSet<>();
+            touchedSubjects = new HashSet<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        Table fresh;
+        try {
+            fresh = jdbcTemplate.query(LOAD_ENROLLMENTS + ORDER,
+                    (ResultSetExtractor<Table>) rs -> group(rs, 1024));
+        } catch (RuntimeException e) {
+            stamp = lock.writeLock();
+            try {
+                touchedStudents = null;
+                touchedSubjects = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            long delay = Math.min(TimeUnit.SECONDS.toMillis(retryMaxSeconds),
+                    250L << Math.min(failures++, 16));
+            logger.warn("Enrollment index load failed, checking enrollments in the database "
+                    + "and retrying in {} ms", delay, e);
+            if (loadPending.compareAndSet(false, true)) {
+                executor.schedule(this::loadQuietly, delay, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        Set<Long> students;
+        Set<Long> subjects;
+        stamp = lock.writeLock();
+        try {
+            table = fresh;
+            students = touchedStudents;
+            subjects = touchedSubjects;
+            touchedStudents = null;
+            touchedSubjects = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (!subjects.isEmpty()) {
+            stamp = lock.readLock();
+            try {
+                fresh.collectStudents(subjects, students);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (refresh(students)) {
+            failures = 0;
+            loaded = true;
+        }
+        long end = System.nanoTime();
+        logger.info("Execution time for enrollment index load: {} ms, {} students",
+                (end - start) / 1_000_000, fresh.size());
+    }
+
+    private static Table group(ResultSet rs, int capacity) throws SQLException {
+        Table grouped = new Table(capacity);
+        long studentId = 0;
+        long[] buffer = new long[8];
+        int count = 0;
+        while (rs.next()) {
+            if (count > 0 && rs.getLong(1) != studentId) {
+                grouped.put(studentId, Arrays.copyOf(buffer, count));
+                count = 0;
+            }
+            studentId = rs.getLong(1);
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count++] = rs.getLong(2);
+        }
+        if (count > 0) {
+            grouped.put(studentId, Arrays.copyOf(buffer, count));
+        }
+        return grouped;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static final class Table {
+        private long[] keys;
+        private long[][] subjects;
+        private int size;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            subjects = new long[capacity][];
+        }
+
+        boolean contains(long studentId, long subjectId) {
+            long[] keyArray = keys;
+            long[][] subjectArray = subjects;
+            int mask = Math.min(keyArray.length, subjectArray.length) - 1;
+            for (int slot = slot(studentId, mask), probes = 0; probes <= mask;
+                 slot = (slot + 1) & mask, probes++) {
+                long[] owned = subjectArray[slot];
+                if (owned == null) {
+                    return false;
+                }
+                if (keyArray[slot] == studentId) {
+                    return Arrays.binarySearch(owned, subjectId) >= 0;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] subjectsOf(long studentId) {
+            int mask = keys.length - 1;
+            for (int slot = slot(studentId, mask); subjects[slot] != null;
+                 slot = (slot + 1) & mask) {
+                if (keys[slot] == studentId) {
+                    return subjects[slot];
+                }
+            }
+            return NONE;
+        }
+
+        void put(long studentId, long[] sorted) {
+            if (sorted.length == 0) {
+                remove(studentId);
+                return;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = slot(studentId, mask);
+            while (subjects[slot] != null && keys[slot] != studentId) {
+                slot = (slot + 1) & mask;
+            }
+            if (subjects[slot] == null) {
+                size++;
+                keys[slot] = studentId;
+            }
+            subjects[slot] = sorted;
+        }
+
+        void remove(long studentId) {
+            int mask = keys.length - 1;
+            int slot = slot(studentId, mask);
+            while (subjects[slot] != null && keys[slot] != studentId) {
+                slot = (slot + 1) & mask;
+            }
+            if (subjects[slot] == null) {
+                return;
+            }
+            size--;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; subjects[next] != null; next = (next + 1) & mask) {
+                int home = slot(keys[next], mask);
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    keys[hole] = keys[next];
+                    subjects[hole] = subjects[next];
+                    hole = next;
+                }
+            }
+            subjects[hole] = null;
+            keys[hole] = 0;
+        }
+
+        void collectStudents(Collection<Long> subjectIds, Set<Long> into) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                long[] owned = subjects[slot];
+                if (owned != null) {
+                    for (Long subjectId : subjectIds) {
+                        if (Arrays.binarySearch(owned, subjectId) >= 0) {
+                            into.add(keys[slot]);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[][] oldSubjects = subjects;
+            long[] newKeys = new long[oldKeys.length * 2];
+            long[][] newSubjects = new long[oldKeys.length * 2][];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldSubjects[i] != null) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (newSubjects[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    newKeys[slot] = oldKeys[i];
+                    newSubjects[slot] = oldSubjects[i];
+                }
+            }
+            keys = newKeys;
+            subjects = newSubjects;
+        }
+
+        private static int slot(long studentId, int mask) {
+            return (int) ((studentId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package idespring.lab6.service.studentsubjserv;
+
+public record EnrollmentOutcome(long studentId, long subjectId, Status status) {
+
+    public enum Status {
+        ENROLLED,
+        ALREADY_ENROLLED,
+        STUDENT_NOT_FOUND,
+        SUBJECT_NOT_FOUND
+    }
+}
@@ -2,6 +2,7 @@ package idespring.lab6.service.studentsubjserv;
 
 import idespring.lab6.model.Student;
 import idespring.lab6.model.Subject;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -10,6 +11,8 @@ public interface StudentSubjectService {
 
     void removeSubjectFromStudent(Long studentId, Long subjectId);
 
+    List<EnrollmentOutcome> enroll(Collection<Long> studentIds, Collection<Long> subjectIds);
+
     List<Subject> getSubjectsByStudent(Long studentId);
 
     Set<Student> getStudentsBySubject(Long subjectId);
@@ -2,16 +2,27 @@ package idespring.lab6.service.studentsubjserv;
 
 import idespring.lab6.config.CacheConfig;
 import idespring.lab6.exceptions.EntityNotFoundException;
+import idespring.lab6.exceptions.ValidationException;
 import idespring.lab6.model.Student;
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.StudentDetails;
+import idespring.lab6.model.projection.SubjectDetails;
+import idespring.lab6.repository.bulkrepo.BulkInsertRepository;
+import idespring.lab6.repository.bulkrepo.BulkInsertRepository.Enrollment;
 import idespring.lab6.repository.studentrepo.StudentRepository;
 import idespring.lab6.repository.subjectrepo.SubjectRepository;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
 import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,6 +30,9 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
     private final StudentRepository studentRepository;
     private final SubjectRepository subjectRepository;
     private final CacheConfig<String, Object> cache;
+    private final BulkInsertRepository bulkRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxEnrollmentPairs;
     private static final String STUDENT_ERR = "Student not found";
     private static final String SUBJECT_ERR = "Subject not found";
     private static final Logger logger = LoggerFactory.getLogger(StudentSubjectServiceImpl.class);
@@ -26,10 +40,17 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
     @Autowired
     public StudentSubjectServiceImpl(StudentRepository studentRepository,
                                      SubjectRepository subjectRepository,
-                                     CacheConfig<String, Object> cache) {
+                                     CacheConfig<String, Object> cache,
+                                     BulkInsertRepository bulkRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${enrollment.maxPairs:100000}")
+                                     int maxEnrollmentPairs) {
         this.studentRepository = studentRepository;
         this.subjectRepository = subjectRepository;
         this.cache = cache;
+        this.bulkRepository = bulkRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxEnrollmentPairs = maxEnrollmentPairs;
     }
 
     private void clearCaches(Long studentId, Long subjectId) {
@@ -38,6 +59,8 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
 
         cache.remove("student-with-subjects-" + studentId);
         cache.remove("subject-with-students-" + subjectId);
+        StudentDetails.cacheKeys(studentId).forEach(cache::remove);
+        SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
 
         logger.debug("Cleared caches for student {} and subject {}", studentId, subjectId);
     }
@@ -54,9 +77,75 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
 
         studentRepository.addSubject(studentId, subjectId);
         clearCaches(studentId, subjectId);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(studentId));
         logger.info("Subject {} added to student {}", subjectId, studentId);
     }
 
+    @Override
+    @Transactional
+    public List<EnrollmentOutcome> enroll(Collection<Long> studentIds,
+                                          Collection<Long> subjectIds) {
+        Set<Long> students = new LinkedHashSet<>(studentIds);
+        Set<Long> subjects = new LinkedHashSet<>(subjectIds);
+        if (students.isEmpty() || subjects.isEmpty()) {
+            throw new ValidationException("Поля 'studentIds' и 'subjectIds' не могут быть пустыми");
+        }
+        if ((long) students.size() * subjects.size() > maxEnrollmentPairs) {
+            throw new ValidationException("Слишком много пар студент-предмет, максимум "
+                    + maxEnrollmentPairs);
+        }
+
+        final long start = System.nanoTime();
+        logger.info("Enrolling {} students into {} subjects", students.size(), subjects.size());
+
+        Set<Long> existingStudents = bulkRepository.findExistingIds("students", students);
+        Set<Long> existingSubjects = bulkRepository.findExistingIds("subjects", subjects);
+        Set<Enrollment> inserted = bulkRepository.enroll(existingStudents, existingSubjects);
+
+        List<EnrollmentOutcome> outcomes = new ArrayList<>(students.size() * subjects.size());
+        for (Long studentId : students) {
+            for (Long subjectId : subjects) {
+                EnrollmentOutcome.Status status;
+                if (!existingStudents.contains(studentId)) {
+                    status = EnrollmentOutcome.Status.STUDENT_NOT_FOUND;
+                } else if (!existingSubjects.contains(subjectId)) {
+                    status = EnrollmentOutcome.Status.SUBJECT_NOT_FOUND;
+                } else if (inserted.contains(new Enrollment(studentId, subjectId))) {
+                    status = EnrollmentOutcome.Status.ENROLLED;
+                } else {
+                    status = EnrollmentOutcome.Status.ALREADY_ENROLLED;
+                }
+                outcomes.add(new EnrollmentOutcome(studentId, subjectId, status));
+            }
+        }
+
+        Set<Long> touchedStudents = new LinkedHashSet<>();
+        Set<Long> touchedSubjects = new LinkedHashSet<>();
+        for (Enrollment enrollment : inserted) {
+            touchedStudents.add(enrollment.studentId());
+            touchedSubjects.add(enrollment.subjectId());
+        }
+        for (Long studentId : touchedStudents) {
+            cache.remove("subjects-" + studentId);
+            cache.remove("student-with-subjects-" + studentId);
+            cache.remove(studentId.toString());
+            StudentDetails.cacheKeys(studentId).forEach(cache::remove);
+        }
+        if (!touchedStudents.isEmpty()) {
+            eventPublisher.publishEvent(StudentsChangedEvent.of(touchedStudents));
+        }
+        for (Long subjectId : touchedSubjects) {
+            cache.remove("students-" + subjectId);
+            cache.remove("subject-with-students-" + subjectId);
+            SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
+        }
+
+        long end = System.nanoTime();
+        logger.info("Execution time for enroll: {} ms, {} pairs enrolled",
+                (end - start) / 1_000_000, inserted.size());
+        return outcomes;
+    }
+
     @Override
     @Transactional
     public void removeSubjectFromStudent(Long studentId, Long subjectId) {
@@ -69,6 +158,7 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
 
         studentRepository.removeSubject(studentId, subjectId);
         clearCaches(studentId, subjectId);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(studentId));
         logger.info("Subject {} removed from student {}", subjectId, studentId);
     }
 
@@ -97,10 +187,10 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
         @SuppressWarnings("unchecked")
         Set<Student> students = (Set<Student>) cache.get("students-" + subjectId);
         if (students == null) {
-            Subject subject = subjectRepository.findByIdWithStudents(subjectId)
-                    .orElseThrow(() ->
-                            new jakarta.persistence.EntityNotFoundException(SUBJECT_ERR));
-            students = subject.getStudents();
+            students = studentRepository.findBySubjectIdWithDetails(subjectId);
+            if (students.isEmpty() && !subjectRepository.existsById(subjectId)) {
+                throw new jakarta.persistence.EntityNotFoundException(SUBJECT_ERR);
+            }
             cache.put("students-" + subjectId, students);
         }
 
@@ -1,15 +1,22 @@
 package idespring.lab6.service.studservice;
 
 import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.StudentDetails;
+import idespring.lab6.model.projection.StudentView;
+import idespring.lab6.pagination.CursorPage;
 import java.util.List;
 
 public interface StudentServ {
-    List<Student> readStudents(Integer age, String sort, Long id);
+    List<StudentView> readStudents(Integer age, String sort, Long id);
 
-    List<Student> findByGroupId(Long groupId);
+    CursorPage<StudentView> readStudentsPage(Integer age, String sort, String cursor, int limit);
+
+    List<StudentView> findByGroupId(Long groupId);
 
     Student findById(Long id);
 
+    StudentDetails findDetails(Long id, String expand);
+
     Student addStudent(Student student);
 
     void updateStudent(String name, int age, long id);
@@ -1,55 +1,84 @@
 package idespring.lab6.service.studservice;
 
+import idespring.lab6.analytics.AnalyticsService;
 import idespring.lab6.config.CacheConfig;
 import idespring.lab6.exceptions.EntityNotFoundException;
+import idespring.lab6.expand.ExpandSpec;
 import idespring.lab6.model.Mark;
 import idespring.lab6.model.Student;
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.GroupDetails;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.model.projection.StudentDetails;
+import idespring.lab6.model.projection.StudentView;
+import idespring.lab6.model.projection.SubjectDetails;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.pagination.PageCursor;
+import idespring.lab6.repository.graphrepo.EntityGraphRepository;
 import idespring.lab6.repository.studentrepo.StudentRepository;
+import idespring.lab6.search.NameSearchService;
+import idespring.lab6.search.SearchTarget;
+import idespring.lab6.service.markservice.MarkAggregateService;
+import idespring.lab6.service.markservice.MarksChangedEvent;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
 import jakarta.transaction.Transactional;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class StudentServiceImpl implements StudentServ {
     private final StudentRepository studentRepository;
+    private final EntityGraphRepository entityGraphRepository;
+    private final MarkAggregateService markAggregateService;
+    private final NameSearchService nameSearchService;
+    private final ApplicationEventPublisher eventPublisher;
     private final CacheConfig<String, Object> cache;
     private static final String NOTFOUND = "Student not found with id: ";
     private static final Logger logger = LoggerFactory.getLogger(StudentServiceImpl.class);
+    private static final String PAGE_PREFIX = "students-page-";
+
+    private final Set<String> pageCacheKeys = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public StudentServiceImpl(StudentRepository studentRepository,
+                              EntityGraphRepository entityGraphRepository,
+                              MarkAggregateService markAggregateService,
+                              NameSearchService nameSearchService,
+                              ApplicationEventPublisher eventPublisher,
                               CacheConfig<String, Object> cache) {
         this.studentRepository = studentRepository;
+        this.entityGraphRepository = entityGraphRepository;
+        this.markAggregateService = markAggregateService;
+        this.nameSearchService = nameSearchService;
+        this.eventPublisher = eventPublisher;
         this.cache = cache;
     }
 
     @Override
-    public List<Student> readStudents(Integer age, String sort, Long id) {
+    public List<StudentView> readStudents(Integer age, String sort, Long id) {
         long start = System.nanoTime();
         String cacheKey = age + "-" + sort + "-" + id;
         logger.info("Fetching students with age: {}, sort: {}, id: {}", age, sort, id);
 
         @SuppressWarnings("unchecked")
-        List<Student> students = (List<Student>) cache.get(cacheKey);
+        List<StudentView> students = (List<StudentView>) cache.get(cacheKey);
         if (students == null) {
             if (id != null) {
                 students = Collections.singletonList(
-                        studentRepository.findById(id)
+                        studentRepository.findViewById(id)
                                 .orElseThrow(() -> new EntityNotFoundException(NOTFOUND + id))
                 );
-            } else if (age != null && sort != null) {
-                students = studentRepository.findByAgeAndSortByName(age, sort);
-            } else if (age != null) {
-                students = studentRepository.findByAge(age).stream().toList();
-            } else if (sort != null) {
-                students = studentRepository.sortByName(sort);
             } else {
-                students = studentRepository.findAll();
+                PageCursor.Order order = PageCursor.Order.lenient(sort);
+                students = PageCursor.readAll(order,
+                        after -> studentRepository.findViewPage(age, after, PageCursor.MAX_LIMIT),
+                        student -> PageCursor.of(order, student.id(), student.name()));
             }
             cache.put(cacheKey, students);
         }
@@ -60,14 +89,43 @@ public class StudentServiceImpl implements StudentServ {
     }
 
     @Override
-    public List<Student> findByGroupId(Long groupId) {
+    public CursorPage<StudentView> readStudentsPage(Integer age, String sort, String cursor,
+                                                    int limit) {
+        PageCursor.checkLimit(limit);
+        PageCursor.Order order = PageCursor.Order.of(sort);
+        PageCursor after = PageCursor.decode(cursor, order);
+        String cacheKey = PAGE_PREFIX + age + "-" + order + "-" + limit + "-"
+                + (cursor != null ? cursor : "");
+
+        @SuppressWarnings("unchecked")
+        CursorPage<StudentView> page = (CursorPage<StudentView>) cache.get(cacheKey);
+        if (page != null) {
+            return page;
+        }
+
+        long start = System.nanoTime();
+        logger.info("Fetching students page with age: {}, sort: {}, limit: {}", age, sort, limit);
+
+        List<StudentView> rows = studentRepository.findViewPage(age, after, limit + 1);
+        page = CursorPage.of(rows, limit,
+                student -> PageCursor.of(order, student.id(), student.name()));
+
+        pageCacheKeys.add(cacheKey);
+        cache.put(cacheKey, page);
+        long end = System.nanoTime();
+        logger.info("Execution time for readStudentsPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    @Override
+    public List<StudentView> findByGroupId(Long groupId) {
         logger.info("Fetching students from group ID: {}", groupId);
         String cacheKey = "group-" + groupId;
 
         @SuppressWarnings("unchecked")
-        List<Student> students = (List<Student>) cache.get(cacheKey);
+        List<StudentView> students = (List<StudentView>) cache.get(cacheKey);
         if (students == null) {
-            students = studentRepository.findByGroupId(groupId).stream().toList();
+            students = studentRepository.findViewsByGroupId(groupId);
             cache.put(cacheKey, students);
         }
         return students;
@@ -90,6 +148,28 @@ public class StudentServiceImpl implements StudentServ {
         return student;
     }
 
+    @Override
+    @Transactional
+    public StudentDetails findDetails(Long id, String expand) {
+        ExpandSpec spec = ExpandSpec.parse(expand, StudentDetails.EXPANDABLE);
+        String cacheKey = spec.cacheKey(StudentDetails.CACHE_PREFIX, id);
+        StudentDetails details = (StudentDetails) cache.get(cacheKey);
+        if (details != null) {
+            return details;
+        }
+
+        long start = System.nanoTime();
+        logger.info("Fetching student {} with expand: {}", id, spec.attributes());
+        details = entityGraphRepository.findById(Student.class, id, spec)
+                .map(student -> StudentDetails.of(student, spec))
+                .orElseThrow(() -> new EntityNotFoundException(NOTFOUND + id));
+        cache.put(cacheKey, details);
+
+        long end = System.nanoTime();
+        logger.info("Execution time for findDetails: {} ms", (end - start) / 1_000_000);
+        return details;
+    }
+
     @Override
     public Student addStudent(Student student) {
         final long start = System.nanoTime();
@@ -107,12 +187,21 @@ public class StudentServiceImpl implements StudentServ {
         student.setSubjects(new HashSet<>());
         Student savedStudent = studentRepository.save(student);
         cache.put(savedStudent.getId().toString(), savedStudent);
+        nameSearchService.index(SearchTarget.STUDENTS, savedStudent.getId(),
+                savedStudent.getName());
 
         for (Long subjectId : subjectIds) {
             studentRepository.addSubject(savedStudent.getId(), subjectId);
         }
+        if (!savedStudent.getMarks().isEmpty()) {
+            List<MarkView> marks = savedStudent.getMarks().stream().map(MarkView::of).toList();
+            markAggregateService.rebuild(List.of(savedStudent.getId()),
+                    marks.stream().map(MarkView::subjectId).collect(Collectors.toSet()),
+                    MarksChangedEvent.added(marks));
+        }
 
         clearRelatedCaches(savedStudent);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(savedStudent.getId()));
 
         long end = System.nanoTime();
         logger.info("Execution time for addStudent: {} ms", (end - start) / 1_000_000);
@@ -124,6 +213,8 @@ public class StudentServiceImpl implements StudentServ {
         logger.info("Updating student with id: {}", id);
         Student student = findById(id);
         studentRepository.update(name, age, id);
+        nameSearchService.index(SearchTarget.STUDENTS, id, name);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(id));
         clearStudentCache(id);
         clearRelatedCaches(student);
         logger.info("Student with id {} updated", id);
@@ -136,10 +227,17 @@ public class StudentServiceImpl implements StudentServ {
         Student student = studentRepository.findById(id).orElseThrow();
         final Long groupId = student.getGroup() != null ? student.getGroup().getId() : null;
         final int age = student.getAge();
+        final List<MarkView> marks = markAggregateService.marksOfStudents(List.of(id));
+        student.getSubjects().forEach(this::clearSubjectDetailsCache);
 
         student.getSubjects().clear();
         studentRepository.saveAndFlush(student);
         studentRepository.delete(student);
+        nameSearchService.remove(SearchTarget.STUDENTS, id);
+        eventPublisher.publishEvent(StudentsChangedEvent.of(id));
+        markAggregateService.rebuild(List.of(id),
+                marks.stream().map(MarkView::subjectId).collect(Collectors.toSet()),
+                MarksChangedEvent.removed(marks));
 
         clearStudentCache(id);
         clearCachesByAge(age);
@@ -153,6 +251,7 @@ public class StudentServiceImpl implements StudentServ {
 
     public void clearStudentCache(long id) {
         cache.remove(String.valueOf(id));
+        StudentDetails.cacheKeys(id).forEach(cache::remove);
         logger.info("Cleared cache for student id: {}", id);
     }
 
@@ -160,6 +259,8 @@ public class StudentServiceImpl implements StudentServ {
         String groupCacheKey = "group-" + groupId;
         cache.remove(groupCacheKey);
         cache.remove("students-in-group-" + groupId);
+        GroupDetails.cacheKeys(groupId).forEach(cache::remove);
+        cache.remove(AnalyticsService.GROUP_RANKING_KEY);
         logger.info("Cleared cache for group id: {}", groupId);
     }
 
@@ -201,10 +302,19 @@ public class StudentServiceImpl implements StudentServ {
         for (String key : keysToRemove) {
             cache.remove(key);
         }
+        clearPageCaches();
 
         logger.info("Cleared list caches");
     }
 
+    public void clearPageCaches() {
+        Set<String> keysToRemove = new HashSet<>(pageCacheKeys);
+        for (String key : keysToRemove) {
+            cache.remove(key);
+        }
+        pageCacheKeys.removeAll(keysToRemove);
+    }
+
     public void clearRelatedCaches(Student student) {
         if (student == null) {
             return;
@@ -217,8 +327,13 @@ public class StudentServiceImpl implements StudentServ {
         if (groupId != null) {
             clearGroupCache(groupId);
         }
+        student.getSubjects().forEach(this::clearSubjectDetailsCache);
         clearListCaches();
 
         logger.info("Cleared all related caches for student: {}", student.getId());
     }
+
+    private void clearSubjectDetailsCache(Subject subject) {
+        SubjectDetails.cacheKeys(subject.getId()).forEach(cache::remove);
+    }
 }
@@ -0,0 +1,18 @@
+package idespring.lab6.service.studservice;
+
+import java.util.Collection;
+import java.util.List;
+
+public record StudentsChangedEvent(Collection<Long> studentIds, Collection<Long> subjectIds) {
+    public static StudentsChangedEvent of(Collection<Long> studentIds) {
+        return new StudentsChangedEvent(List.copyOf(studentIds), List.of());
+    }
+
+    public static StudentsChangedEvent of(Long studentId) {
+        return new StudentsChangedEvent(List.of(studentId), List.of());
+    }
+
+    public static StudentsChangedEvent subject(Long subjectId) {
+        return new StudentsChangedEvent(List.of(), List.of(subjectId));
+    }
+}
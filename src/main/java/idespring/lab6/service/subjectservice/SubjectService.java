@@ -1,13 +1,20 @@
 package idespring.lab6.service.subjectservice;
 
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.SubjectDetails;
+import idespring.lab6.pagination.CursorPage;
 import java.util.List;
 
 public interface SubjectService {
     List<Subject> readSubjects(String namePattern, String sort);
 
+    CursorPage<Subject> readSubjectsPage(String namePattern, String sort, String cursor,
+                                         int limit);
+
     Subject findById(Long id);
 
+    SubjectDetails findDetails(Long id, String expand);
+
     Subject findByName(String name);
 
     Subject addSubject(Subject subject);
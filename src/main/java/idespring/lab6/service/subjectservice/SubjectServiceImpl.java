@@ -2,16 +2,29 @@ package idespring.lab6.service.subjectservice;
 
 import idespring.lab6.config.CacheConfig;
 import idespring.lab6.exceptions.EntityNotFoundException;
-import idespring.lab6.model.Mark;
+import idespring.lab6.expand.ExpandSpec;
 import idespring.lab6.model.Subject;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.model.projection.SubjectDetails;
+import idespring.lab6.pagination.CursorPage;
+import idespring.lab6.pagination.PageCursor;
+import idespring.lab6.repository.graphrepo.EntityGraphRepository;
 import idespring.lab6.repository.markrepo.MarkRepository;
 import idespring.lab6.repository.subjectrepo.SubjectRepository;
+import idespring.lab6.search.NameSearchService;
+import idespring.lab6.search.SearchTarget;
+import idespring.lab6.service.markservice.MarkAggregateService;
+import idespring.lab6.service.markservice.MarksChangedEvent;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,16 +32,31 @@ import org.springframework.transaction.annotation.Transactional;
 public class SubjectServiceImpl implements SubjectService {
     private final SubjectRepository subjectRepository;
     private final MarkRepository markRepository;
+    private final EntityGraphRepository entityGraphRepository;
+    private final MarkAggregateService markAggregateService;
+    private final NameSearchService nameSearchService;
+    private final ApplicationEventPublisher eventPublisher;
     private final CacheConfig<String, Object> cache;
     private static final String NOTFOUND = "Subject not found with id: ";
     private static final Logger logger = LoggerFactory.getLogger(SubjectServiceImpl.class);
+    private static final String PAGE_PREFIX = "subjects-page-";
+
+    private final Set<String> pageCacheKeys = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public SubjectServiceImpl(SubjectRepository subjectRepository,
                               MarkRepository markRepository,
+                              EntityGraphRepository entityGraphRepository,
+                              MarkAggregateService markAggregateService,
+                              NameSearchService nameSearchService,
+                              ApplicationEventPublisher eventPublisher,
                               CacheConfig<String, Object> cache) {
         this.subjectRepository = subjectRepository;
         this.markRepository = markRepository;
+        this.entityGraphRepository = entityGraphRepository;
+        this.markAggregateService = markAggregateService;
+        this.nameSearchService = nameSearchService;
+        this.eventPublisher = eventPublisher;
         this.cache = cache;
     }
 
@@ -44,12 +72,13 @@ public class SubjectServiceImpl implements SubjectService {
                 namePattern, sort);
 
         List<Subject> subjects;
-        if (namePattern != null) {
-            subjects = subjectRepository.findByNameContaining(namePattern);
-        } else if ("asc".equalsIgnoreCase(sort)) {
-            subjects = subjectRepository.findAllByOrderByNameAsc();
+        PageCursor.Order order = PageCursor.Order.lenient(sort);
+        if (namePattern != null && !order.byName()) {
+            subjects = nameSearchService.findIdsContaining(SearchTarget.SUBJECTS, namePattern)
+                    .map(ids -> PageCursor.readAllById(ids, subjectRepository::findAllById))
+                    .orElseGet(() -> readAll(namePattern, order));
         } else {
-            subjects = subjectRepository.findAll();
+            subjects = readAll(namePattern, order);
         }
 
         cache.put(cacheKey, subjects);
@@ -58,6 +87,53 @@ public class SubjectServiceImpl implements SubjectService {
         return subjects;
     }
 
+    @Override
+    public CursorPage<Subject> readSubjectsPage(String namePattern, String sort, String cursor,
+                                                int limit) {
+        PageCursor.checkLimit(limit);
+        PageCursor.Order order = PageCursor.Order.of(sort);
+        PageCursor after = PageCursor.decode(cursor, order);
+        String cacheKey = PAGE_PREFIX + namePattern + "-" + order
+                + "-" + limit + "-" + (cursor != null ? cursor : "");
+        @SuppressWarnings("unchecked")
+        CursorPage<Subject> cachedPage = (CursorPage<Subject>) cache.get(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        final long start = System.nanoTime();
+        logger.info("Fetching subjects page for namePattern: {}, sort: {}, limit: {}",
+                namePattern, sort, limit);
+
+        CursorPage<Subject> page = CursorPage.of(findPage(namePattern, after, limit + 1), limit,
+                subject -> PageCursor.of(order, subject.getId(), subject.getName()));
+
+        pageCacheKeys.add(cacheKey);
+        cache.put(cacheKey, page);
+        long end = System.nanoTime();
+        logger.info("Execution time for readSubjectsPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    private List<Subject> readAll(String namePattern, PageCursor.Order order) {
+        return PageCursor.readAll(order,
+                after -> findPage(namePattern, after, PageCursor.MAX_LIMIT),
+                subject -> PageCursor.of(order, subject.getId(), subject.getName()));
+    }
+
+    private List<Subject> findPage(String namePattern, PageCursor after, int rows) {
+        String pattern = namePattern != null ? namePattern : "";
+        return switch (after.order()) {
+            case NAME_ASC -> subjectRepository.findPageOrderByName(pattern, after.afterName(),
+                    after.id(), rows);
+            case NAME_DESC -> subjectRepository.findPageOrderByNameDesc(pattern, after.isStart(),
+                    after.afterName(), after.id(), rows);
+            case ID -> namePattern != null
+                    ? subjectRepository.findPageByNameContaining(namePattern, after.id(), rows)
+                    : subjectRepository.findPage(after.id(), rows);
+        };
+    }
+
     @Override
     public Subject findById(Long id) {
         String cacheKey = "subject-" + id;
@@ -77,6 +153,28 @@ public class SubjectServiceImpl implements SubjectService {
         return subject;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public SubjectDetails findDetails(Long id, String expand) {
+        ExpandSpec spec = ExpandSpec.parse(expand, SubjectDetails.EXPANDABLE);
+        String cacheKey = spec.cacheKey(SubjectDetails.CACHE_PREFIX, id);
+        SubjectDetails details = (SubjectDetails) cache.get(cacheKey);
+        if (details != null) {
+            return details;
+        }
+
+        long start = System.nanoTime();
+        logger.info("Fetching subject {} with expand: {}", id, spec.attributes());
+        details = entityGraphRepository.findById(Subject.class, id, spec)
+                .map(subject -> SubjectDetails.of(subject, spec))
+                .orElseThrow(() -> new EntityNotFoundException(NOTFOUND + id));
+        cache.put(cacheKey, details);
+
+        long end = System.nanoTime();
+        logger.info("Execution time for findDetails: {} ms", (end - start) / 1_000_000);
+        return details;
+    }
+
     @Override
     public Subject findByName(String name) {
         String cacheKey = "subject-" + name;
@@ -103,8 +201,11 @@ public class SubjectServiceImpl implements SubjectService {
         logger.info("Saving subject: {}", subject.getName());
 
         Subject savedSubject = subjectRepository.save(subject);
+        nameSearchService.index(SearchTarget.SUBJECTS, savedSubject.getId(),
+                savedSubject.getName());
         cache.put("subject-" + savedSubject.getId(), savedSubject);
         cache.put("subject-" + savedSubject.getName(), savedSubject);
+        clearPageCaches();
 
         long end = System.nanoTime();
         logger.info("Execution time for addSubject: {} ms", (end - start) / 1_000_000);
@@ -119,8 +220,14 @@ public class SubjectServiceImpl implements SubjectService {
                 .orElseThrow(() -> new EntityNotFoundException(NOTFOUND + id));
 
         clearCacheForSubject(subject);
+        List<MarkView> marks = markAggregateService.marksOfSubject(id);
 
         subjectRepository.deleteById(id);
+        nameSearchService.remove(SearchTarget.SUBJECTS, id);
+        eventPublisher.publishEvent(StudentsChangedEvent.subject(id));
+        markAggregateService.rebuild(
+                marks.stream().map(MarkView::studentId).collect(Collectors.toSet()),
+                List.of(id), MarksChangedEvent.removed(marks));
         logger.info("Subject with id {} deleted", id);
     }
 
@@ -133,8 +240,14 @@ public class SubjectServiceImpl implements SubjectService {
                         new EntityNotFoundException("Subject not found with name: " + name));
 
         clearCacheForSubject(subject);
+        List<MarkView> marks = markAggregateService.marksOfSubject(subject.getId());
 
         subjectRepository.deleteByName(name);
+        nameSearchService.remove(SearchTarget.SUBJECTS, subject.getId());
+        eventPublisher.publishEvent(StudentsChangedEvent.subject(subject.getId()));
+        markAggregateService.rebuild(
+                marks.stream().map(MarkView::studentId).collect(Collectors.toSet()),
+                List.of(subject.getId()), MarksChangedEvent.removed(marks));
         logger.info("Subject with name {} deleted", name);
     }
 
@@ -149,22 +262,36 @@ public class SubjectServiceImpl implements SubjectService {
 
         cache.remove("subject-" + subjectId);
         cache.remove("subject-" + subject.getName());
+        SubjectDetails.cacheKeys(subjectId).forEach(cache::remove);
 
-        cache.remove("avg-subject-" + subjectId);
+        clearPageCaches();
 
-        List<Mark> subjectMarks = markRepository.findBySubjectId(subjectId);
+        List<MarkView> subjectMarks = markRepository.findViewsBySubjectId(subjectId);
 
         Set<Long> affectedStudentIds = subjectMarks.stream()
-                .map(mark -> mark.getStudent().getId())
+                .map(MarkView::studentId)
                 .collect(Collectors.toSet());
 
         for (Long studentId : affectedStudentIds) {
             cache.remove("marks-" + studentId + "-" + subjectId);
-            cache.remove("avg-student-" + studentId);
         }
 
-        for (Mark mark : subjectMarks) {
-            cache.remove("mark-" + mark.getId());
+        for (MarkView mark : subjectMarks) {
+            cache.remove("mark-" + mark.id());
+        }
+    }
+
+    public void clearListCaches() {
+        cache.remove("null-default");
+        cache.remove("null-asc");
+        clearPageCaches();
+    }
+
+    private void clearPageCaches() {
+        Set<String> keysToRemove = new HashSet<>(pageCacheKeys);
+        for (String key : keysToRemove) {
+            cache.remove(key);
         }
+        pageCacheKeys.removeAll(keysToRemove);
     }
 }
\ No newline at end of file
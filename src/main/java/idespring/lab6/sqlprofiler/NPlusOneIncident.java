@@ -0,0 +1,4 @@
+package idespring.lab6.sqlprofiler;
+
+public record NPlusOneIncident(String route, String traceId, String fingerprint,
+                               int executions, long timestamp) {}
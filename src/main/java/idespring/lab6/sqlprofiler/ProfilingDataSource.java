@@ -0,0 +1,134 @@
+package idespring.lab6.sqlprofiler;
+
+import idespring.lab6.tracing.Tracer;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Wraps the pool instead of replacing it: unwrap(HikariDataSource.class) and Boot's
+// DataSourceUnwrapper still reach the Hikari pool for metrics and health, and close() shuts it
+// down with the context. Only connections and statements handed out are proxied.
+public class ProfilingDataSource extends DelegatingDataSource implements Closeable {
+    private final Supplier<SqlProfiler> profiler;
+
+    public ProfilingDataSource(DataSource target, Supplier<SqlProfiler> profiler) {
+        super(target);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection(), Connection.class, null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password), Connection.class, null,
+                null);
+    }
+
+    @Override
+    public void close() {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to close data source", e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T wrap(T target, Class<T> type, String sql, Connection connection) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                new StatementHandler(target, sql, connection));
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Object target;
+        private final String sql;
+        private final Connection connection;
+
+        private StatementHandler(Object target, String sql, Connection connection) {
+            this.target = target;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            // JdbcTemplate.queryForStream releases ps.getConnection(); handing out the pooled
+            // connection there makes DataSourceUtils miss the transaction's holder and close it
+            if (name.equals("getConnection") && connection != null) {
+                return connection;
+            }
+            if (target instanceof Statement && name.startsWith("execute")) {
+                String statementSql = args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : sql;
+                return profile(method, args, statementSql);
+            }
+
+            Object result = invokeTarget(method, args);
+            if (target instanceof Connection && result instanceof Statement) {
+                String statementSql = args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : null;
+                Connection owner = (Connection) proxy;
+                if (result instanceof CallableStatement statement) {
+                    return wrap(statement, CallableStatement.class, statementSql, owner);
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return wrap(statement, PreparedStatement.class, statementSql, owner);
+                }
+                return wrap((Statement) result, Statement.class, statementSql, owner);
+            }
+            return result;
+        }
+
+        private Object profile(Method method, Object[] args, String statementSql)
+                throws Throwable {
+            SqlProfiler sqlProfiler = profiler.get();
+            if (!sqlProfiler.isEnabled()) {
+                return invokeTarget(method, args);
+            }
+
+            String fingerprint = sqlProfiler.beforeStatement(statementSql);
+            int span = Tracer.enter("SQL " + fingerprint);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invokeTarget(method, args);
+                failed = false;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                Tracer.exit(span, failed);
+                sqlProfiler.afterStatement(fingerprint, elapsed, failed);
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
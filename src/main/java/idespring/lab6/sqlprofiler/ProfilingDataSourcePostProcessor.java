@@ -0,0 +1,33 @@
+package idespring.lab6.sqlprofiler;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProfilingDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SqlProfiler> profilerProvider;
+    private volatile SqlProfiler profiler;
+
+    public ProfilingDataSourcePostProcessor(ObjectProvider<SqlProfiler> profilerProvider) {
+        this.profilerProvider = profilerProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProfilingDataSource) {
+            return bean;
+        }
+        return new ProfilingDataSource(dataSource, this::profiler);
+    }
+
+    private SqlProfiler profiler() {
+        SqlProfiler current = profiler;
+        if (current == null) {
+            current = profilerProvider.getObject();
+            profiler = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,13 @@
+package idespring.lab6.sqlprofiler;
+
+public record RouteSqlStats(String route, long requests, long statements, long totalNanos,
+                            long maxStatements, long nplusOneRequests, long budgetViolations,
+                            int maxQueries) {
+    public double averageStatements() {
+        return requests == 0 ? 0.0 : (double) statements / requests;
+    }
+
+    public double averageSqlMillis() {
+        return requests == 0 ? 0.0 : totalNanos / 1e6 / requests;
+    }
+}
@@ -0,0 +1,258 @@
+package idespring.lab6.sqlprofiler;
+
+import idespring.lab6.exceptions.QueryBudgetExceededException;
+import idespring.lab6.metrics.TimingHistogram;
+import idespring.lab6.tracing.Tracer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Component
+public class SqlProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(SqlProfiler.class);
+    private static final String OTHER_FINGERPRINT = "<other>";
+    private static final int FINGERPRINT_CACHE_LIMIT = 10_000;
+
+    private static final ThreadLocal<Capture> CURRENT = new ThreadLocal<>();
+
+    private final SqlProfilerProperties properties;
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TimingHistogram> statements =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RouteCounters> routes = new ConcurrentHashMap<>();
+    private final NPlusOneIncident[] incidents;
+    private final AtomicLong incidentCount = new AtomicLong();
+
+    static final class Capture {
+        private final HttpServletRequest request;
+        private final String traceId = MDC.get(Tracer.MDC_KEY);
+        private final Map<String, Integer> executions = new HashMap<>();
+        private int statements;
+        private long nanos;
+        private int budget = -1;
+        private boolean budgetExceeded;
+        private boolean completed;
+
+        private Capture(HttpServletRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static final class RouteCounters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder nplusOneRequests = new LongAdder();
+        private final LongAdder budgetViolations = new LongAdder();
+    }
+
+    public SqlProfiler(SqlProfilerProperties properties) {
+        this.properties = properties;
+        this.incidents = new NPlusOneIncident[Math.max(1, properties.getIncidentCapacity())];
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    void begin(HttpServletRequest request) {
+        CURRENT.set(new Capture(request));
+    }
+
+    void end() {
+        Capture capture = CURRENT.get();
+        CURRENT.remove();
+        complete(capture);
+    }
+
+    // An async request leaves the filter before its body runs: the filter detaches the capture
+    // here and completes it from the async listener once the response is done.
+    Capture suspend() {
+        Capture capture = CURRENT.get();
+        CURRENT.remove();
+        return capture;
+    }
+
+    // Decorates async MVC tasks (streaming bodies, callables) so their statements count
+    // towards the request that started them.
+    public Runnable propagate(Runnable task) {
+        Capture capture = CURRENT.get();
+        if (capture == null) {
+            return task;
+        }
+        return () -> {
+            Capture previous = CURRENT.get();
+            CURRENT.set(capture);
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    void complete(Capture capture) {
+        if (capture == null || capture.completed) {
+            return;
+        }
+        capture.completed = true;
+
+        String route = routeOf(capture.request);
+        RouteCounters counters = routes.computeIfAbsent(route, r -> new RouteCounters());
+        counters.requests.increment();
+        counters.statements.add(capture.statements);
+        counters.nanos.add(capture.nanos);
+        counters.maxStatements.accumulate(capture.statements);
+
+        int limit = properties.resolveMaxQueries(route);
+        if (capture.budgetExceeded || (limit > 0 && capture.statements > limit)) {
+            counters.budgetViolations.increment();
+            logger.warn("{} exceeded its SQL budget of {} statements", route, limit);
+        }
+
+        boolean flagged = false;
+        for (Map.Entry<String, Integer> entry : capture.executions.entrySet()) {
+            if (entry.getValue() >= properties.getNplusOneThreshold()
+                    && entry.getKey().regionMatches(true, 0, "select", 0, 6)) {
+                flagged = true;
+                recordIncident(new NPlusOneIncident(route, capture.traceId,
+                        entry.getKey(), entry.getValue(), System.currentTimeMillis()));
+                logger.warn("Possible N+1 in {}: {} executions of {}",
+                        route, entry.getValue(), entry.getKey());
+            }
+        }
+        if (flagged) {
+            counters.nplusOneRequests.increment();
+        }
+    }
+
+    String beforeStatement(String sql) {
+        String fingerprint = fingerprint(sql);
+        Capture capture = CURRENT.get();
+        if (capture != null && properties.isEnforce()) {
+            if (capture.budget < 0) {
+                capture.budget = properties.resolveMaxQueries(routeOf(capture.request));
+            }
+            if (capture.budget > 0 && capture.statements >= capture.budget) {
+                capture.budgetExceeded = true;
+                throw new QueryBudgetExceededException("Query budget of " + capture.budget
+                        + " statements exceeded for " + routeOf(capture.request)
+                        + " at: " + fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    void afterStatement(String fingerprint, long nanos, boolean failed) {
+        statementHistogram(fingerprint).record(nanos, failed);
+        Capture capture = CURRENT.get();
+        if (capture != null) {
+            capture.statements++;
+            capture.nanos += nanos;
+            capture.executions.merge(fingerprint, 1, Integer::sum);
+        }
+    }
+
+    private String fingerprint(String sql) {
+        if (sql == null) {
+            return OTHER_FINGERPRINT;
+        }
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = SqlFingerprint.of(sql);
+            if (fingerprints.size() < FINGERPRINT_CACHE_LIMIT) {
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    private TimingHistogram statementHistogram(String fingerprint) {
+        TimingHistogram histogram = statements.get(fingerprint);
+        if (histogram != null) {
+            return histogram;
+        }
+        String key = statements.size() < properties.getMaxFingerprints()
+                ? fingerprint : OTHER_FINGERPRINT;
+        return statements.computeIfAbsent(key, k -> new TimingHistogram());
+    }
+
+    private void recordIncident(NPlusOneIncident incident) {
+        long slot = incidentCount.getAndIncrement();
+        synchronized (incidents) {
+            incidents[(int) (slot % incidents.length)] = incident;
+        }
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " "
+                + (pattern != null ? pattern.toString() : request.getRequestURI());
+    }
+
+    public List<SqlStatementStats> getStatementStats(int limit) {
+        List<SqlStatementStats> result = new ArrayList<>(statements.size());
+        statements.forEach((fingerprint, histogram) -> {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < histogram.bucketCount(); i++) {
+                long upper = TimingHistogram.bucketUpperBoundNanos(i);
+                buckets.put(upper == Long.MAX_VALUE ? "+Inf" : "le_" + upper / 1000 + "us",
+                        histogram.bucketCount(i));
+            }
+            result.add(new SqlStatementStats(fingerprint, histogram.getCount(),
+                    histogram.getErrors(), histogram.getTotalNanos(), histogram.getMaxNanos(),
+                    buckets));
+        });
+        result.sort(Comparator.comparingLong(SqlStatementStats::totalNanos).reversed());
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    public List<RouteSqlStats> getRouteStats() {
+        List<RouteSqlStats> result = new ArrayList<>(routes.size());
+        routes.forEach((route, counters) -> result.add(new RouteSqlStats(route,
+                counters.requests.sum(), counters.statements.sum(), counters.nanos.sum(),
+                counters.maxStatements.get(), counters.nplusOneRequests.sum(),
+                counters.budgetViolations.sum(), properties.resolveMaxQueries(route))));
+        result.sort(Comparator.comparingLong(RouteSqlStats::statements).reversed());
+        return result;
+    }
+
+    public List<NPlusOneIncident> getIncidents() {
+        List<NPlusOneIncident> result = new ArrayList<>(incidents.length);
+        synchronized (incidents) {
+            long count = incidentCount.get();
+            long first = Math.max(0, count - incidents.length);
+            for (long i = count - 1; i >= first; i--) {
+                NPlusOneIncident incident = incidents[(int) (i % incidents.length)];
+                if (incident != null) {
+                    result.add(incident);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        statements.clear();
+        routes.clear();
+        synchronized (incidents) {
+            Arrays.fill(incidents, null);
+            incidentCount.set(0);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package idespring.lab6.sqlprofiler;
+
+import idespring.lab6.exceptions.ValidationException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sql-profiler")
+@Tag(name = "SQL Profiler Controller", description = "API for JDBC statement statistics")
+public class SqlProfilerController {
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfilerController(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @GetMapping("/statements")
+    @Operation(summary = "Get statement fingerprints ordered by total time")
+    public ResponseEntity<List<SqlStatementStats>> getStatements(
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1) {
+            throw new ValidationException("Параметр 'limit' должен быть положительным");
+        }
+        return ResponseEntity.ok(sqlProfiler.getStatementStats(limit));
+    }
+
+    @GetMapping("/routes")
+    @Operation(summary = "Get per-route statement counts and N+1 flags")
+    public ResponseEntity<List<RouteSqlStats>> getRoutes() {
+        return ResponseEntity.ok(sqlProfiler.getRouteStats());
+    }
+
+    @GetMapping("/n-plus-one")
+    @Operation(summary = "Get recent requests flagged as N+1")
+    public ResponseEntity<List<NPlusOneIncident>> getNplusOneIncidents() {
+        return ResponseEntity.ok(sqlProfiler.getIncidents());
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Reset collected SQL statistics")
+    public ResponseEntity<Void> reset() {
+        sqlProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
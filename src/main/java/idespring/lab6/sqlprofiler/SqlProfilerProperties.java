@@ -0,0 +1,79 @@
+package idespring.lab6.sqlprofiler;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sql.profiler")
+public class SqlProfilerProperties {
+    private boolean enabled = true;
+    private int nplusOneThreshold = 5;
+    private boolean enforce = false;
+    private int defaultMaxQueries = 0;
+    private Map<String, Integer> maxQueries = new HashMap<>();
+    private int maxFingerprints = 500;
+    private int incidentCapacity = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getNplusOneThreshold() {
+        return nplusOneThreshold;
+    }
+
+    public void setNplusOneThreshold(int nplusOneThreshold) {
+        this.nplusOneThreshold = nplusOneThreshold;
+    }
+
+    public boolean isEnforce() {
+        return enforce;
+    }
+
+    public void setEnforce(boolean enforce) {
+        this.enforce = enforce;
+    }
+
+    public int getDefaultMaxQueries() {
+        return defaultMaxQueries;
+    }
+
+    public void setDefaultMaxQueries(int defaultMaxQueries) {
+        this.defaultMaxQueries = defaultMaxQueries;
+    }
+
+    public Map<String, Integer> getMaxQueries() {
+        return maxQueries;
+    }
+
+    public void setMaxQueries(Map<String, Integer> maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    public int getMaxFingerprints() {
+        return maxFingerprints;
+    }
+
+    public void setMaxFingerprints(int maxFingerprints) {
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    public int getIncidentCapacity() {
+        return incidentCapacity;
+    }
+
+    public void setIncidentCapacity(int incidentCapacity) {
+        this.incidentCapacity = incidentCapacity;
+    }
+
+    public int resolveMaxQueries(String route) {
+        Integer max = maxQueries.get(route);
+        return max != null ? max : defaultMaxQueries;
+    }
+}
@@ -0,0 +1,78 @@
+package idespring.lab6.sqlprofiler;
+
+import idespring.lab6.tracing.TraceFilter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Inside TraceFilter: N+1 incidents are tagged with the trace id from the MDC.
+@Component
+@Order(TraceFilter.ORDER + 1)
+public class SqlProfilingFilter extends OncePerRequestFilter {
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfilingFilter(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !sqlProfiler.isEnabled() || uri.startsWith("/sql-profiler")
+                || uri.startsWith("/actuator") || uri.startsWith("/traces");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        sqlProfiler.begin(request);
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(
+                        new AsyncCompletion(sqlProfiler.suspend()));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                sqlProfiler.end();
+            }
+        }
+    }
+
+    // Streaming exports run their queries after the filter returns; the route totals are
+    // recorded when the container completes the async request.
+    private final class AsyncCompletion implements AsyncListener {
+        private final SqlProfiler.Capture capture;
+
+        private AsyncCompletion(SqlProfiler.Capture capture) {
+            this.capture = capture;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            sqlProfiler.complete(capture);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package idespring.lab6.sqlprofiler;
+
+import java.util.Map;
+
+public record SqlStatementStats(String fingerprint, long executions, long errors,
+                                long totalNanos, long maxNanos, Map<String, Long> histogram) {
+    public double averageMillis() {
+        return executions == 0 ? 0.0 : totalNanos / 1e6 / executions;
+    }
+
+    public double maxMillis() {
+        return maxNanos / 1e6;
+    }
+}
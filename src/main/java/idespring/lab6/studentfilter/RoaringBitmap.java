@@ -0,0 +1,382 @@
+package idespring.lab6.studentfilter;
+
+import java.util.Arrays;
+
+public final class RoaringBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public RoaringBitmap() {
+        this(new char[4], new Container[4], 0);
+    }
+
+    private RoaringBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        int at = find(key);
+        if (at < 0) {
+            at = -at - 1;
+            insertContainer(at, key, new ArrayContainer());
+        }
+        containers[at] = containers[at].add((char) value);
+    }
+
+    public void remove(int value) {
+        int at = find((char) (value >>> 16));
+        if (at >= 0) {
+            containers[at] = containers[at].remove((char) value);
+            if (containers[at].cardinality == 0) {
+                System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+                System.arraycopy(containers, at + 1, containers, at, size - at - 1);
+                containers[--size] = null;
+            }
+        }
+    }
+
+    public boolean contains(int value) {
+        int at = find((char) (value >>> 16));
+        return at >= 0 && containers[at].contains((char) value);
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] page(long offset, int limit) {
+        int[] result = new int[(int) Math.max(0, Math.min(limit, cardinality() - offset))];
+        int filled = 0;
+        long skip = offset;
+        for (int i = 0; i < size && filled < result.length; i++) {
+            Container container = containers[i];
+            if (skip >= container.cardinality) {
+                skip -= container.cardinality;
+                continue;
+            }
+            filled = container.fill(keys[i] << 16, (int) skip, result, filled);
+            skip = 0;
+        }
+        return result;
+    }
+
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap(new char[Math.min(a.size, b.size) + 1],
+                new Container[Math.min(a.size, b.size) + 1], 0);
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality > 0) {
+                    result.append(a.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap(new char[a.size + b.size + 1],
+                new Container[a.size + b.size + 1], 0);
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || i < a.size && a.keys[i] < b.keys[j]) {
+                result.append(a.keys[i], a.containers[i++]);
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j++]);
+            } else {
+                result.append(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap(new char[a.size + 1],
+                new Container[a.size + 1], 0);
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container container = j < b.size && b.keys[j] == a.keys[i]
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i];
+            if (container.cardinality > 0) {
+                result.append(a.keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int at, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(containers, at, containers, at + 1, size - at);
+        keys[at] = key;
+        containers[at] = container;
+        size++;
+    }
+
+    private void append(char key, Container container) {
+        keys[size] = key;
+        containers[size++] = container;
+    }
+
+    private abstract static class Container {
+        int cardinality;
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int fill(int high, int skip, int[] target, int filled);
+
+        abstract BitmapContainer toBitmap();
+
+        Container and(Container other) {
+            if (this instanceof ArrayContainer array) {
+                return array.filter(other, true);
+            }
+            if (other instanceof ArrayContainer array) {
+                return array.filter(this, true);
+            }
+            return ((BitmapContainer) this).combine((BitmapContainer) other, 0);
+        }
+
+        Container or(Container other) {
+            if (this instanceof ArrayContainer a && other instanceof ArrayContainer b
+                    && a.cardinality + b.cardinality <= ARRAY_LIMIT) {
+                return a.union(b);
+            }
+            return toBitmap().combine(other.toBitmap(), 1);
+        }
+
+        Container andNot(Container other) {
+            if (this instanceof ArrayContainer array) {
+                return array.filter(other, false);
+            }
+            return ((BitmapContainer) this).combine(other.toBitmap(), 2);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int at = Arrays.binarySearch(values, 0, cardinality, value);
+            if (at >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            at = -at - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, at, values, at + 1, cardinality - at);
+            values[at] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int at = Arrays.binarySearch(values, 0, cardinality, value);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, cardinality - at - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int fill(int high, int skip, int[] target, int filled) {
+            for (int i = skip; i < cardinality && filled < target.length; i++) {
+                target[filled++] = high | values[i];
+            }
+            return filled;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+
+        ArrayContainer filter(Container other, boolean keep) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]) == keep) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        ArrayContainer union(ArrayContainer other) {
+            char[] result = new char[cardinality + other.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < other.cardinality) {
+                if (j >= other.cardinality || i < cardinality && values[i] < other.values[j]) {
+                    result[count++] = values[i++];
+                } else if (i >= cardinality || values[i] > other.values[j]) {
+                    result[count++] = other.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) == 0) {
+                words[value >>> 6] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) != 0) {
+                words[value >>> 6] &= ~mask;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT / 2 ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & 1L << value) != 0;
+        }
+
+        @Override
+        int fill(int high, int skip, int[] target, int filled) {
+            int seen = 0;
+            for (int w = 0; w < WORDS && filled < target.length; w++) {
+                long word = words[w];
+                int bits = Long.bitCount(word);
+                if (seen + bits <= skip) {
+                    seen += bits;
+                    continue;
+                }
+                while (word != 0 && filled < target.length) {
+                    long lowest = word & -word;
+                    if (seen++ >= skip) {
+                        target[filled++] = high | (w << 6) + Long.numberOfTrailingZeros(lowest);
+                    }
+                    word ^= lowest;
+                }
+            }
+            return filled;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        Container combine(BitmapContainer other, int operation) {
+            long[] result = new long[WORDS];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = switch (operation) {
+                    case 0 -> words[w] & other.words[w];
+                    case 1 -> words[w] | other.words[w];
+                    default -> words[w] & ~other.words[w];
+                };
+                result[w] = word;
+                count += Long.bitCount(word);
+            }
+            BitmapContainer container = new BitmapContainer(result, count);
+            return count <= ARRAY_LIMIT ? container.toArray() : container;
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    values[count++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package idespring.lab6.studentfilter;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+public record StudentFilter(@Valid List<StudentFilter> and,
+                            @Valid List<StudentFilter> or,
+                            @Valid StudentFilter not,
+                            AgeRange age,
+                            List<Long> groups,
+                            List<Long> subjects,
+                            AverageRange average) {
+    public record AgeRange(Integer min, Integer max) {}
+
+    public record AverageRange(Double atLeast, Double below) {}
+}
@@ -0,0 +1,424 @@
+package idespring.lab6.studentfilter;
+
+import idespring.lab6.exceptions.ValidationException;
+import idespring.lab6.model.MarkAggregate;
+import idespring.lab6.service.markservice.MarkAggregatesChangedEvent;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class StudentFilterIndex {
+    private static final Logger logger = LoggerFactory.getLogger(StudentFilterIndex.class);
+    private static final int BUCKETS = 101;
+    private static final String LOAD_STUDENTS = "SELECT s.id, s.age, s.groupid, "
+            + "a.mark_sum, a.mark_count, a.version, "
+            + "ARRAY(SELECT ss.subjectid FROM studentmanagement.student_subject ss "
+            + "WHERE ss.studentid = s.id) "
+            + "FROM studentmanagement.students s "
+            + "LEFT JOIN studentmanagement.mark_aggregates a "
+            + "ON a.scope = 'STUDENT' AND a.owner_id = s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retryMaxSeconds;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // serializes partial refreshes so a slower, older read never overwrites a newer one
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private State state = new State();
+    // ids refreshed while a full load is in flight; they are re-read once it is installed
+    private Set<Long> touched;
+    private int failures;
+
+    private record Row(int age, Long groupId, long[] subjects, int bucket, long version) {
+        Row withAverage(int bucket, long version) {
+            return new Row(age, groupId, subjects, bucket, version);
+        }
+    }
+
+    private record Loaded(long studentId, Row row) {}
+
+    private static final class State {
+        final RoaringBitmap all = new RoaringBitmap();
+        final TreeMap<Integer, RoaringBitmap> byAge = new TreeMap<>();
+        final Map<Long, RoaringBitmap> byGroup = new HashMap<>();
+        final Map<Long, RoaringBitmap> bySubject = new HashMap<>();
+        final RoaringBitmap[] byAverage = new RoaringBitmap[BUCKETS];
+        final Map<Integer, Row> rows = new HashMap<>();
+
+        State() {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                byAverage[bucket] = new RoaringBitmap();
+            }
+        }
+
+        void put(int id, Row row) {
+            remove(id);
+            rows.put(id, row);
+            all.add(id);
+            byAge.computeIfAbsent(row.age(), age -> new RoaringBitmap()).add(id);
+            if (row.groupId() != null) {
+                byGroup.computeIfAbsent(row.groupId(), group -> new RoaringBitmap()).add(id);
+            }
+            for (long subjectId : row.subjects()) {
+                bySubject.computeIfAbsent(subjectId, subject -> new RoaringBitmap()).add(id);
+            }
+            if (row.bucket() >= 0) {
+                byAverage[row.bucket()].add(id);
+            }
+        }
+
+        void remove(int id) {
+            Row row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            all.remove(id);
+            removeFrom(byAge, row.age(), id);
+            if (row.groupId() != null) {
+                removeFrom(byGroup, row.groupId(), id);
+            }
+            for (long subjectId : row.subjects()) {
+                removeFrom(bySubject, subjectId, id);
+            }
+            if (row.bucket() >= 0) {
+                byAverage[row.bucket()].remove(id);
+            }
+        }
+
+        void updateAverage(int id, int bucket, long version) {
+            Row row = rows.get(id);
+            if (row != null && version > row.version()) {
+                move(byAverage, row.bucket(), bucket, id);
+                rows.put(id, row.withAverage(bucket, version));
+            }
+        }
+    }
+
+    public record Result(long total, int[] ids) {}
+
+    @Autowired
+    public StudentFilterIndex(JdbcTemplate jdbcTemplate,
+                              @Value("${students.filter.retryMaxSeconds:60}")
+                              int retryMaxSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retryMaxSeconds = retryMaxSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        requestReload();
+    }
+
+    public Result query(StudentFilter filter, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = filter != null ? evaluate(state, filter) : state.all;
+            return new Result(matches.cardinality(), matches.page(offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudentsChanged(StudentsChangedEvent event) {
+        Set<Long> studentIds = new HashSet<>(event.studentIds());
+        lock.readLock().lock();
+        try {
+            for (Long subjectId : event.subjectIds()) {
+                RoaringBitmap members = state.bySubject.get(subjectId);
+                if (members != null) {
+                    for (int id : members.page(0, Integer.MAX_VALUE)) {
+                        studentIds.add((long) id);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        refresh(studentIds);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAggregatesChanged(MarkAggregatesChangedEvent event) {
+        if (event.evictAll()) {
+            requestReload();
+            return;
+        }
+        List<Long> evicted = event.evicted().stream()
+                .filter(key -> key.getScope() == MarkAggregate.Scope.STUDENT)
+                .map(MarkAggregate.Key::getOwnerId)
+                .toList();
+        refresh(evicted);
+
+        lock.writeLock().lock();
+        try {
+            event.updated().forEach((key, versioned) -> {
+                if (key.getScope() == MarkAggregate.Scope.STUDENT) {
+                    state.updateAverage(key.getOwnerId().intValue(),
+                            bucket(versioned.distribution().sum(),
+                                    versioned.distribution().count()),
+                            versioned.version());
+                    if (touched != null) {
+                        touched.add(key.getOwnerId());
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void requestReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            executor.execute(this::reloadQuietly);
+        }
+    }
+
+    private void refresh(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        refreshLock.lock();
+        try {
+            List<Loaded> loaded = new ArrayList<>();
+            try {
+                jdbcTemplate.query(LOAD_STUDENTS + " WHERE s.id = ANY(?)",
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint",
+                                studentIds.toArray())),
+                        (RowCallbackHandler) rs -> loaded.add(load(rs)));
+            } catch (RuntimeException e) {
+                logger.warn("Student filter refresh failed, scheduling a full reload", e);
+                requestReload();
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                Set<Long> missing = new HashSet<>(studentIds);
+                for (Loaded row : loaded) {
+                    missing.remove(row.studentId());
+                    if (row.row() != null) {
+                        state.put((int) row.studentId(), row.row());
+                    }
+                }
+                missing.forEach(id -> state.remove(id.intValue()));
+                if (touched != null) {
+                    touched.addAll(studentIds);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+        long end = System.nanoTime();
+        logger.info("Execution time for student filter refresh: {} ms, {} students",
+                (end - start) / 1_000_000, studentIds.size());
+    }
+
+    // the full load builds a new State without holding the lock; queries keep using the
+    // previous one, which also stays in place when the load fails and is retried
+    private void reloadQuietly() {
+        reloadPending.set(false);
+        final long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State loaded = new State();
+        try {
+            jdbcTemplate.query(LOAD_STUDENTS + " ORDER BY s.id", (RowCallbackHandler) rs -> {
+                Loaded row = load(rs);
+                if (row.row() != null) {
+                    loaded.put((int) row.studentId(), row.row());
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long delay = Math.min(TimeUnit.SECONDS.toMillis(retryMaxSeconds),
+                    250L << Math.min(failures++, 16));
+            logger.warn("Student filter index load failed, keeping the previous index "
+                    + "and retrying in {} ms", delay, e);
+            if (reloadPending.compareAndSet(false, true)) {
+                executor.schedule(this::reloadQuietly, delay, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        Set<Long> pending;
+        lock.writeLock().lock();
+        try {
+            state = loaded;
+            pending = touched;
+            touched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        failures = 0;
+        refresh(pending);
+        long end = System.nanoTime();
+        logger.info("Execution time for student filter load: {} ms, {} students",
+                (end - start) / 1_000_000, loaded.all.cardinality());
+    }
+
+    private static Loaded load(ResultSet rs) throws SQLException {
+        long studentId = rs.getLong(1);
+        if (studentId > Integer.MAX_VALUE) {
+            logger.warn("Student {} is outside the filter index id range", studentId);
+            return new Loaded(studentId, null);
+        }
+        long groupId = rs.getLong(3);
+        boolean noGroup = rs.wasNull();
+        Array subjectArray = rs.getArray(7);
+        Long[] subjects = subjectArray != null ? (Long[]) subjectArray.getArray() : new Long[0];
+        long[] subjectIds = new long[subjects.length];
+        for (int i = 0; i < subjects.length; i++) {
+            subjectIds[i] = subjects[i];
+        }
+        return new Loaded(studentId, new Row(rs.getInt(2), noGroup ? null : groupId, subjectIds,
+                bucket(rs.getLong(4), rs.getLong(5)), rs.getLong(6)));
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> index, K key, int id) {
+        RoaringBitmap bitmap = index.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static void move(RoaringBitmap[] buckets, int from, int to, int id) {
+        if (from >= 0) {
+            buckets[from].remove(id);
+        }
+        if (to >= 0) {
+            buckets[to].add(id);
+        }
+    }
+
+    private static int bucket(long sum, long count) {
+        return count > 0 ? (int) Math.min(BUCKETS - 1, sum * 10 / count) : -1;
+    }
+
+    private static RoaringBitmap evaluate(State state, StudentFilter filter) {
+        List<RoaringBitmap> required = new ArrayList<>();
+        if (filter.age() != null) {
+            int min = filter.age().min() != null ? filter.age().min() : Integer.MIN_VALUE;
+            int max = filter.age().max() != null ? filter.age().max() : Integer.MAX_VALUE;
+            if (min > max) {
+                throw new ValidationException("Минимальный возраст больше максимального");
+            }
+            required.add(union(state.byAge.subMap(min, true, max, true).values()));
+        }
+        if (filter.groups() != null) {
+            required.add(union(filter.groups().stream()
+                    .map(groupId -> state.byGroup.getOrDefault(groupId, new RoaringBitmap()))
+                    .toList()));
+        }
+        if (filter.subjects() != null) {
+            for (Long subjectId : filter.subjects()) {
+                required.add(state.bySubject.getOrDefault(subjectId, new RoaringBitmap()));
+            }
+        }
+        if (filter.average() != null) {
+            int from = filter.average().atLeast() != null
+                    ? tenths(filter.average().atLeast()) : 0;
+            int to = filter.average().below() != null
+                    ? tenths(filter.average().below()) : BUCKETS;
+            List<RoaringBitmap> buckets = new ArrayList<>();
+            for (int bucket = Math.max(0, from); bucket < Math.min(BUCKETS, to); bucket++) {
+                buckets.add(state.byAverage[bucket]);
+            }
+            required.add(union(buckets));
+        }
+        if (filter.and() != null) {
+            for (StudentFilter child : filter.and()) {
+                required.add(evaluate(state, child));
+            }
+        }
+        if (filter.or() != null) {
+            required.add(union(filter.or().stream()
+                    .map(child -> evaluate(state, child)).toList()));
+        }
+
+        RoaringBitmap result;
+        if (required.isEmpty()) {
+            result = state.all;
+        } else {
+            required.sort(Comparator.comparingLong(RoaringBitmap::cardinality));
+            result = required.get(0);
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result = RoaringBitmap.and(result, required.get(i));
+            }
+        }
+        if (filter.not() != null) {
+            result = RoaringBitmap.andNot(result, evaluate(state, filter.not()));
+        }
+        return result;
+    }
+
+    private static RoaringBitmap union(Collection<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps) {
+            result = RoaringBitmap.or(result, bitmap);
+        }
+        return result;
+    }
+
+    private static int tenths(double average) {
+        double scaled = average * 10;
+        if (Math.abs(scaled - Math.rint(scaled)) > 1e-9) {
+            throw new ValidationException(
+                    "Средний балл в фильтре задаётся с точностью до 0.1: " + average);
+        }
+        return (int) Math.rint(scaled);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,6 @@
+package idespring.lab6.studentfilter;
+
+import idespring.lab6.model.projection.StudentView;
+import java.util.List;
+
+public record StudentFilterPage(long total, long offset, int limit, List<StudentView> items) {}
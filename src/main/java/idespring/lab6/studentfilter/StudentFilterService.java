@@ -0,0 +1,45 @@
+package idespring.lab6.studentfilter;
+
+import idespring.lab6.exceptions.ValidationException;
+import idespring.lab6.model.projection.StudentView;
+import idespring.lab6.pagination.PageCursor;
+import idespring.lab6.repository.studentrepo.StudentRepository;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class StudentFilterService {
+    private static final Logger logger = LoggerFactory.getLogger(StudentFilterService.class);
+
+    private final StudentFilterIndex index;
+    private final StudentRepository studentRepository;
+
+    @Autowired
+    public StudentFilterService(StudentFilterIndex index, StudentRepository studentRepository) {
+        this.index = index;
+        this.studentRepository = studentRepository;
+    }
+
+    public StudentFilterPage filter(StudentFilter filter, long offset, int limit) {
+        PageCursor.checkLimit(limit);
+        if (offset < 0) {
+            throw new ValidationException("Параметр 'offset' не может быть отрицательным");
+        }
+        final long start = System.nanoTime();
+
+        StudentFilterIndex.Result result = index.query(filter, offset, limit);
+        List<StudentView> items = result.ids().length == 0
+                ? List.of()
+                : studentRepository.findViewsByIds(
+                        Arrays.stream(result.ids()).mapToObj(id -> (long) id).toList());
+
+        long end = System.nanoTime();
+        logger.info("Execution time for filterStudents: {} ms, {} matches",
+                (end - start) / 1_000_000, result.total());
+        return new StudentFilterPage(result.total(), offset, limit, items);
+    }
+}
@@ -0,0 +1,115 @@
+package idespring.lab6.tracing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class Trace {
+    private static final int INITIAL_SPANS = 32;
+    private static final int MAX_SPANS = 4096;
+
+    private final String traceId;
+    private final String method;
+    private final String uri;
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private long durationNanos;
+    private int status;
+
+    private String[] names = new String[INITIAL_SPANS];
+    private long[] starts = new long[INITIAL_SPANS];
+    private long[] ends = new long[INITIAL_SPANS];
+    private int[] parents = new int[INITIAL_SPANS];
+    private int[] cacheHits = new int[INITIAL_SPANS];
+    private int[] cacheMisses = new int[INITIAL_SPANS];
+    private boolean[] failed = new boolean[INITIAL_SPANS];
+    private int size;
+    private int current = -1;
+    private int droppedSpans;
+    private int rootCacheHits;
+    private int rootCacheMisses;
+
+    Trace(String traceId, String method, String uri) {
+        this.traceId = traceId;
+        this.method = method;
+        this.uri = uri;
+    }
+
+    int enter(String name) {
+        if (size == MAX_SPANS) {
+            droppedSpans++;
+            return -1;
+        }
+        if (size == names.length) {
+            grow();
+        }
+        int span = size++;
+        names[span] = name;
+        starts[span] = System.nanoTime() - startNanos;
+        parents[span] = current;
+        current = span;
+        return span;
+    }
+
+    void exit(int span, boolean error) {
+        ends[span] = System.nanoTime() - startNanos;
+        failed[span] = error;
+        current = parents[span];
+    }
+
+    void cacheHit() {
+        if (current >= 0) {
+            cacheHits[current]++;
+        } else {
+            rootCacheHits++;
+        }
+    }
+
+    void cacheMiss() {
+        if (current >= 0) {
+            cacheMisses[current]++;
+        } else {
+            rootCacheMisses++;
+        }
+    }
+
+    void finish(int status) {
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.status = status;
+    }
+
+    private void grow() {
+        int capacity = Math.min(MAX_SPANS, names.length * 2);
+        names = Arrays.copyOf(names, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        cacheHits = Arrays.copyOf(cacheHits, capacity);
+        cacheMisses = Arrays.copyOf(cacheMisses, capacity);
+        failed = Arrays.copyOf(failed, capacity);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public TraceView toView() {
+        List<TraceView.SpanView> spans = new ArrayList<>(size);
+        int[] depth = new int[size];
+        for (int i = 0; i < size; i++) {
+            depth[i] = parents[i] < 0 ? 0 : depth[parents[i]] + 1;
+            spans.add(new TraceView.SpanView(names[i], depth[i], millis(starts[i]),
+                    millis(ends[i] - starts[i]), failed[i], cacheHits[i], cacheMisses[i]));
+        }
+        return new TraceView(traceId, method, uri, status, startedAtMillis,
+                millis(durationNanos), rootCacheHits, rootCacheMisses, droppedSpans, spans);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
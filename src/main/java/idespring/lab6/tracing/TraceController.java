@@ -0,0 +1,55 @@
+package idespring.lab6.tracing;
+
+import idespring.lab6.exceptions.EntityNotFoundException;
+import idespring.lab6.exceptions.ValidationException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/traces")
+@Tag(name = "Trace Controller", description = "API for per-request traces")
+public class TraceController {
+    private final TraceStore traceStore;
+
+    public TraceController(TraceStore traceStore) {
+        this.traceStore = traceStore;
+    }
+
+    @GetMapping("/slowest")
+    @Operation(summary = "Get the slowest recorded request traces")
+    public ResponseEntity<List<TraceView>> getSlowest(
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(traceStore.getSlowest(checkLimit(limit)));
+    }
+
+    @GetMapping("/recent")
+    @Operation(summary = "Get the most recent request traces")
+    public ResponseEntity<List<TraceView>> getRecent(
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(traceStore.getRecent(checkLimit(limit)));
+    }
+
+    @GetMapping("/{traceId}")
+    @Operation(summary = "Get a request trace by id")
+    public ResponseEntity<TraceView> getTrace(@PathVariable String traceId) {
+        TraceView trace = traceStore.find(traceId);
+        if (trace == null) {
+            throw new EntityNotFoundException("Trace not found: " + traceId);
+        }
+        return ResponseEntity.ok(trace);
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1) {
+            throw new ValidationException("Параметр 'limit' должен быть положительным");
+        }
+        return limit;
+    }
+}
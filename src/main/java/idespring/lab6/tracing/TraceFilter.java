@@ -0,0 +1,108 @@
+package idespring.lab6.tracing;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Component
+@Order(TraceFilter.ORDER)
+public class TraceFilter extends OncePerRequestFilter {
+    public static final String TRACE_HEADER = "X-Trace-Id";
+    // Right after Boot's character encoding filter, so every other filter runs inside the trace.
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9-]{8,64}");
+
+    private final TraceStore traceStore;
+
+    public TraceFilter(TraceStore traceStore) {
+        this.traceStore = traceStore;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/traces") || uri.startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String traceId = request.getHeader(TRACE_HEADER);
+        if (traceId == null || !VALID_ID.matcher(traceId).matches()) {
+            traceId = newTraceId();
+        }
+        String query = request.getQueryString();
+        Trace trace = Tracer.start(traceId, request.getMethod(),
+                query != null ? request.getRequestURI() + "?" + query : request.getRequestURI());
+        MDC.put(Tracer.MDC_KEY, traceId);
+        response.setHeader(TRACE_HEADER, traceId);
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncCompletion(trace, response));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                finish(trace, response);
+            }
+            MDC.remove(Tracer.MDC_KEY);
+            Tracer.clear();
+        }
+    }
+
+    private void finish(Trace trace, HttpServletResponse response) {
+        trace.finish(response.getStatus());
+        traceStore.record(trace);
+    }
+
+    // Streaming and deferred responses keep running after the filter returns, so their trace
+    // is closed when the container completes the async request (onComplete also follows a
+    // timeout or an error).
+    private final class AsyncCompletion implements AsyncListener {
+        private final Trace trace;
+        private final HttpServletResponse response;
+
+        private AsyncCompletion(Trace trace, HttpServletResponse response) {
+            this.trace = trace;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(trace, response);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong() | Long.MIN_VALUE)
+                + Long.toHexString(random.nextLong() | Long.MIN_VALUE);
+    }
+}
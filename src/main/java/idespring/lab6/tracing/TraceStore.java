@@ -0,0 +1,83 @@
+package idespring.lab6.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TraceStore {
+    private static final Comparator<Trace> BY_DURATION =
+            Comparator.comparingLong(Trace::getDurationNanos);
+
+    private final int slowestCapacity;
+    private final Trace[] recent;
+    private final PriorityQueue<Trace> slowest;
+    private long recorded;
+    private volatile long slowestThreshold = Long.MIN_VALUE;
+
+    public TraceStore(@Value("${tracing.slowest:50}") int slowestCapacity,
+                      @Value("${tracing.recent:200}") int recentCapacity) {
+        this.slowestCapacity = slowestCapacity;
+        this.recent = new Trace[recentCapacity];
+        this.slowest = new PriorityQueue<>(slowestCapacity, BY_DURATION);
+    }
+
+    public synchronized void record(Trace trace) {
+        recent[(int) (recorded++ % recent.length)] = trace;
+        if (trace.getDurationNanos() <= slowestThreshold) {
+            return;
+        }
+        slowest.offer(trace);
+        if (slowest.size() > slowestCapacity) {
+            slowest.poll();
+        }
+        if (slowest.size() == slowestCapacity) {
+            slowestThreshold = slowest.peek().getDurationNanos();
+        }
+    }
+
+    public List<TraceView> getSlowest(int limit) {
+        List<Trace> traces;
+        synchronized (this) {
+            traces = new ArrayList<>(slowest);
+        }
+        traces.sort(BY_DURATION.reversed());
+        return toViews(traces, limit);
+    }
+
+    public List<TraceView> getRecent(int limit) {
+        List<Trace> traces = new ArrayList<>();
+        synchronized (this) {
+            long first = Math.max(0, recorded - recent.length);
+            for (long i = recorded - 1; i >= first; i--) {
+                traces.add(recent[(int) (i % recent.length)]);
+            }
+        }
+        return toViews(traces, limit);
+    }
+
+    public TraceView find(String traceId) {
+        Trace found = null;
+        synchronized (this) {
+            for (Trace trace : recent) {
+                if (trace != null && trace.getTraceId().equals(traceId)) {
+                    found = trace;
+                    break;
+                }
+            }
+            if (found == null) {
+                found = slowest.stream()
+                        .filter(trace -> trace.getTraceId().equals(traceId))
+                        .findFirst().orElse(null);
+            }
+        }
+        return found != null ? found.toView() : null;
+    }
+
+    private static List<TraceView> toViews(List<Trace> traces, int limit) {
+        return traces.stream().limit(limit).map(Trace::toView).toList();
+    }
+}
@@ -0,0 +1,11 @@
+package idespring.lab6.tracing;
+
+import java.util.List;
+
+public record TraceView(String traceId, String method, String uri, int status,
+                        long startedAt, double durationMillis, int cacheHits,
+                        int cacheMisses, int droppedSpans, List<SpanView> spans) {
+
+    public record SpanView(String name, int depth, double startMillis, double durationMillis,
+                           boolean failed, int cacheHits, int cacheMisses) {}
+}
@@ -0,0 +1,49 @@
+package idespring.lab6.tracing;
+
+public final class Tracer {
+    public static final String MDC_KEY = "traceId";
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private Tracer() {
+    }
+
+    static Trace start(String traceId, String method, String uri) {
+        Trace trace = new Trace(traceId, method, uri);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static int enter(String name) {
+        Trace trace = CURRENT.get();
+        return trace != null ? trace.enter(name) : -1;
+    }
+
+    public static void exit(int span, boolean failed) {
+        if (span < 0) {
+            return;
+        }
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.exit(span, failed);
+        }
+    }
+
+    public static void cacheHit() {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.cacheHit();
+        }
+    }
+
+    public static void cacheMiss() {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.cacheMiss();
+        }
+    }
+}
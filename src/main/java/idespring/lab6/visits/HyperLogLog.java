@@ -0,0 +1,91 @@
+package idespring.lab6.visits;
+
+import java.nio.charset.StandardCharsets;
+
+public class HyperLogLog {
+    private final int precision;
+    private final int registerCount;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new byte[registerCount];
+    }
+
+    public synchronized void offer(String value) {
+        long hash = hash64(value);
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (registers[index] < rank) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public synchronized void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision");
+        }
+        byte[] otherRegisters = other.snapshotRegisters();
+        for (int i = 0; i < registerCount; i++) {
+            if (otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        byte[] snapshot = snapshotRegisters();
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : snapshot) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double raw = alpha * registerCount * registerCount / sum;
+        if (raw <= 2.5 * registerCount && zeros > 0) {
+            return Math.round(registerCount * Math.log((double) registerCount / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    public double standardError() {
+        return 1.04 / Math.sqrt(registerCount);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.merge(this);
+        return copy;
+    }
+
+    private synchronized byte[] snapshotRegisters() {
+        return registers.clone();
+    }
+
+    private static long hash64(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
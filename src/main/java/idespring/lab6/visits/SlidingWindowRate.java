@@ -0,0 +1,50 @@
+package idespring.lab6.visits;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+public class SlidingWindowRate {
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final int windowSeconds;
+    private final AtomicLongArray slots;
+    private final LongSupplier clockMillis;
+
+    public SlidingWindowRate(int windowSeconds) {
+        this(windowSeconds, System::currentTimeMillis);
+    }
+
+    SlidingWindowRate(int windowSeconds, LongSupplier clockMillis) {
+        this.windowSeconds = windowSeconds;
+        this.slots = new AtomicLongArray(windowSeconds);
+        this.clockMillis = clockMillis;
+    }
+
+    public void mark() {
+        long second = clockMillis.getAsLong() / 1000;
+        int slot = (int) (second % windowSeconds);
+        while (true) {
+            long current = slots.get(slot);
+            long stamp = current >>> 32;
+            if (stamp > second || stamp == second && (current & COUNT_MASK) == COUNT_MASK) {
+                return;
+            }
+            long next = stamp == second ? current + 1 : second << 32 | 1;
+            if (slots.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    public double perSecond() {
+        long now = clockMillis.getAsLong() / 1000;
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            long packed = slots.get(i);
+            if (now - (packed >>> 32) < windowSeconds) {
+                total += packed & COUNT_MASK;
+            }
+        }
+        return (double) total / windowSeconds;
+    }
+}
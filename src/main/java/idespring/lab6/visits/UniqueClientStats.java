@@ -0,0 +1,7 @@
+package idespring.lab6.visits;
+
+public record UniqueClientStats(long estimate, double standardError) {
+    public static UniqueClientStats of(HyperLogLog sketch) {
+        return new UniqueClientStats(sketch.estimate(), sketch.standardError());
+    }
+}
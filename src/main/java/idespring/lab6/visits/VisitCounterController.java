@@ -1,6 +1,9 @@
 package idespring.lab6.visits;
 
+import idespring.lab6.exceptions.ValidationException;
+import java.time.LocalDate;
 import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,4 +32,22 @@ public class VisitCounterController {
     public ResponseEntity<Map<String, Integer>> getAllVisitCounts() {
         return ResponseEntity.ok(visitCounterService.getAllVisitCounts());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/unique")
+    public ResponseEntity<Map<String, UniqueClientStats>> getDailyUniqueClients(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        return ResponseEntity.ok(visitCounterService.getDailyUniqueClients(day));
+    }
+
+    @GetMapping("/unique/range")
+    public ResponseEntity<Map<String, UniqueClientStats>> getUniqueClients(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("Параметр 'from' должен быть не позже 'to'");
+        }
+        return ResponseEntity.ok(visitCounterService.getUniqueClients(from, to));
+    }
+}
@@ -3,8 +3,10 @@ package idespring.lab6.visits;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.ModelAndView;
 
 @Component
@@ -12,6 +14,9 @@ public class VisitCounterInterceptor implements HandlerInterceptor {
     @Autowired
     private VisitCounterService visitCounterService;
 
+    @Value("${visits.unique.clientHeader:X-API-Key}")
+    private String clientHeader;
+
     @Override
     public void postHandle(HttpServletRequest request,
                            HttpServletResponse response,
@@ -20,5 +25,12 @@ public class VisitCounterInterceptor implements HandlerInterceptor {
 
         String url = request.getRequestURI();
         visitCounterService.incrementCount(url);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = request.getMethod() + " " + (pattern != null ? pattern : url);
+        String apiKey = request.getHeader(clientHeader);
+        String clientId = apiKey != null && !apiKey.isBlank()
+                ? "key:" + apiKey : "addr:" + request.getRemoteAddr();
+        visitCounterService.recordClient(route, clientId);
     }
 }
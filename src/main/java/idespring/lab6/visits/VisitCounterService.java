@@ -1,9 +1,16 @@
 package idespring.lab6.visits;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,9 +20,28 @@ public class VisitCounterService {
 
     private final ConcurrentHashMap<String, AtomicLong> urlCounters = new ConcurrentHashMap<>();
 
+    private final SlidingWindowRate visitRate = new SlidingWindowRate(60);
+
+    private final ConcurrentSkipListMap<LocalDate, ConcurrentHashMap<String, HyperLogLog>>
+            dailyUniqueClients = new ConcurrentSkipListMap<>();
+
+    private final Set<String> knownRoutes = ConcurrentHashMap.newKeySet();
+
+    private volatile Consumer<String> routeListener = route -> { };
+
+    private final int precision;
+    private final int retentionDays;
+
+    public VisitCounterService(@Value("${visits.unique.precision:12}") int precision,
+                               @Value("${visits.unique.retentionDays:90}") int retentionDays) {
+        this.precision = precision;
+        this.retentionDays = retentionDays;
+    }
+
     public void incrementCount(String url) {
 
         totalVisits.incrementAndGet();
+        visitRate.mark();
 
         urlCounters.compute(url, (key, counter) -> {
             if (counter == null) {
@@ -26,6 +52,59 @@ public class VisitCounterService {
         });
     }
 
+    public void recordClient(String route, String clientId) {
+        LocalDate today = LocalDate.now();
+        ConcurrentHashMap<String, HyperLogLog> routes = dailyUniqueClients.get(today);
+        if (routes == null) {
+            routes = dailyUniqueClients.computeIfAbsent(today, d -> new ConcurrentHashMap<>());
+            dailyUniqueClients.headMap(today.minusDays(retentionDays)).clear();
+        }
+        HyperLogLog sketch = routes.get(route);
+        if (sketch == null) {
+            sketch = routes.computeIfAbsent(route, r -> new HyperLogLog(precision));
+            if (knownRoutes.add(route)) {
+                routeListener.accept(route);
+            }
+        }
+        sketch.offer(clientId);
+    }
+
+    public void onNewRoute(Consumer<String> listener) {
+        routeListener = listener;
+        knownRoutes.forEach(listener);
+    }
+
+    public long getTodayUniqueClients(String route) {
+        Map<String, HyperLogLog> routes = dailyUniqueClients.get(LocalDate.now());
+        HyperLogLog sketch = routes != null ? routes.get(route) : null;
+        return sketch != null ? sketch.estimate() : 0;
+    }
+
+    public Map<String, UniqueClientStats> getDailyUniqueClients(LocalDate date) {
+        Map<String, HyperLogLog> routes =
+                dailyUniqueClients.getOrDefault(date, new ConcurrentHashMap<>());
+        Map<String, UniqueClientStats> result = new HashMap<>();
+        routes.forEach((route, sketch) -> result.put(route, UniqueClientStats.of(sketch)));
+        return result;
+    }
+
+    public Map<String, UniqueClientStats> getUniqueClients(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, ConcurrentHashMap<String, HyperLogLog>> range =
+                dailyUniqueClients.subMap(from, true, to, true);
+
+        Map<String, HyperLogLog> merged = new HashMap<>();
+        for (Map<String, HyperLogLog> routes : range.values()) {
+            routes.forEach((route, sketch) -> merged.merge(route, sketch.copy(), (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+        }
+
+        Map<String, UniqueClientStats> result = new HashMap<>();
+        merged.forEach((route, sketch) -> result.put(route, UniqueClientStats.of(sketch)));
+        return result;
+    }
+
     public int getVisitCount(String url) {
         return urlCounters.getOrDefault(url, new AtomicLong(0)).intValue();
     }
@@ -34,6 +113,14 @@ public class VisitCounterService {
         return totalVisits.intValue();
     }
 
+    public long getTotalVisits() {
+        return totalVisits.get();
+    }
+
+    public double getVisitsPerSecond() {
+        return visitRate.perSecond();
+    }
+
     public Map<String, Integer> getAllVisitCounts() {
         return urlCounters.entrySet().stream()
                 .collect(Collectors.toMap(
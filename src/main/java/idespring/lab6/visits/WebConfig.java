@@ -1,19 +1,44 @@
 package idespring.lab6.visits;
 
+import idespring.lab6.sqlprofiler.SqlProfiler;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+    // Not a bean: an Executor bean would replace Boot's applicationTaskExecutor for @Async.
+    private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     @Autowired
     private VisitCounterInterceptor visitCounterInterceptor;
 
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(visitCounterInterceptor)
                 .addPathPatterns("/**")
-                .excludePathPatterns("/visits/**");
+                .excludePathPatterns(
+                        "/visits/**", "/actuator/**", "/traces/**", "/sql-profiler/**");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        TaskExecutorAdapter executor = new TaskExecutorAdapter(asyncExecutor);
+        executor.setTaskDecorator(sqlProfiler::propagate);
+        configurer.setTaskExecutor(executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncExecutor.close();
     }
 }
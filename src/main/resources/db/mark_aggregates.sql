@@ -0,0 +1,13 @@
+-- Running mark totals per student and per subject, kept by MarkAggregateServiceImpl.
+-- histogram[i] counts marks with value i (1..10).
+CREATE TABLE IF NOT EXISTS studentmanagement.mark_aggregates (
+    scope      VARCHAR(16) NOT NULL,
+    owner_id   BIGINT      NOT NULL,
+    mark_sum   BIGINT      NOT NULL DEFAULT 0,
+    mark_count BIGINT      NOT NULL DEFAULT 0,
+    min_value  INTEGER,
+    max_value  INTEGER,
+    histogram  BIGINT[]    NOT NULL,
+    version    BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (scope, owner_id)
+);
@@ -0,0 +1,48 @@
+package idespring.lab6;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Shared fixture for the MockMvc tests: they run in one Spring context over one in-memory
+// H2 database, so whichever test starts first seeds it and the others reuse the rows.
+public final class SeedData {
+    public static final int GROUPS = 3;
+    public static final int SUBJECTS = 5;
+    public static final int STUDENTS = 30;
+
+    private SeedData() {
+    }
+
+    public static void seed(JdbcTemplate jdbcTemplate) {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM studentmanagement.students",
+                Integer.class) > 0) {
+            return;
+        }
+        for (int g = 1; g <= GROUPS; g++) {
+            jdbcTemplate.update("INSERT INTO studentmanagement.groups (id, name) VALUES (?, ?)",
+                    g, "G-" + g);
+        }
+        for (int s = 1; s <= SUBJECTS; s++) {
+            jdbcTemplate.update("INSERT INTO studentmanagement.subjects (id, name) VALUES (?, ?)",
+                    s, "Subject " + s);
+        }
+        long markId = 1;
+        for (int st = 1; st <= STUDENTS; st++) {
+            jdbcTemplate.update("INSERT INTO studentmanagement.students (id, name, age, groupid) "
+                    + "VALUES (?, ?, ?, ?)", st, "Student " + st, 17 + st % 5, 1 + st % GROUPS);
+            for (int k = 0; k < 3; k++) {
+                int subject = 1 + (st + k) % SUBJECTS;
+                jdbcTemplate.update("INSERT INTO studentmanagement.student_subject "
+                        + "(studentid, subjectid) VALUES (?, ?)", st, subject);
+                for (int m = 0; m < 2; m++) {
+                    jdbcTemplate.update("INSERT INTO studentmanagement.marks "
+                                    + "(id, value, studentid, subjectid) VALUES (?, ?, ?, ?)",
+                            markId++, 1 + (st + m) % 10, st, subject);
+                }
+            }
+        }
+        for (String table : new String[] {"groups", "subjects", "students", "marks"}) {
+            jdbcTemplate.execute("ALTER TABLE studentmanagement." + table
+                    + " ALTER COLUMN id RESTART WITH 1000");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package idespring.lab6.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.service.markservice.MarksChangedEvent;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class MarkStoreTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<MarkView> applied = new ArrayList<>();
+    private final List<MarkView> removed = new ArrayList<>();
+    private MarkStore store;
+
+    @BeforeEach
+    void setUp() {
+        MarkStoreListener listener = new MarkStoreListener() {
+            @Override
+            public Runnable prepareReload(MarkSnapshot loaded) {
+                return () -> { };
+            }
+
+            @Override
+            public void onApplied(List<MarkView> added, List<MarkView> gone) {
+                applied.addAll(added);
+                removed.addAll(gone);
+            }
+        };
+        store = new MarkStore(jdbcTemplate, mock(PlatformTransactionManager.class), 8, 100, 1,
+                List.of(listener));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void retriesAFailedStartupReloadWithBackoff() throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong(1)).thenReturn(7L);
+        when(row.getLong(2)).thenReturn(10L);
+        when(row.getLong(3)).thenReturn(1L);
+        when(row.getInt(4)).thenReturn(6);
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class),
+                any(RowCallbackHandler.class));
+
+        store.start();
+
+        assertThat(store.isLoaded()).isFalse();
+        await().atMost(Duration.ofSeconds(5)).until(store::isLoaded);
+        assertThat(attempts).hasValue(3);
+        assertThat(store.snapshot().size()).isEqualTo(1);
+        assertThat(store.snapshot().histogram(1)[6]).isEqualTo(1);
+    }
+
+    @Test
+    void deletesLeaveTheSharedColumnsUntouched() {
+        MarkColumns base = columns(mark(1, 10, 1, 5), mark(2, 11, 1, 7), mark(3, 10, 2, 9));
+
+        MarkColumns deleted = base.withDeleted(new int[] {1});
+
+        assertThat(deleted.values).isSameAs(base.values);
+        assertThat(deleted.find(2, 1)).isEqualTo(-1);
+        assertThat(base.find(2, 1)).isEqualTo(1);
+        MarkSnapshot snapshot = new MarkSnapshot(deleted, MarkColumns.EMPTY, 0);
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.histogram()[7]).isZero();
+        assertThat(snapshot.totalsByStudent()).containsOnlyKeys(10L);
+        assertThat(snapshot.totalsByStudent().get(10L)).isEqualTo(new MarkTotals(2, 14));
+        assertThat(MarkColumns.merge(deleted, MarkColumns.EMPTY).size()).isEqualTo(2);
+    }
+
+    @Test
+    void appliesBatchedAddsAndRemoves() {
+        store.onMarksChanged(MarksChangedEvent.added(List.of(
+                mark(3, 10, 2, 9), mark(1, 10, 1, 5), mark(2, 11, 1, 7), mark(1, 10, 1, 5))));
+        store.onMarksChanged(MarksChangedEvent.removed(List.of(mark(2, 11, 1, 7),
+                mark(99, 11, 1, 7))));
+
+        MarkSnapshot snapshot = store.snapshot();
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.histogram(1)[5]).isEqualTo(1);
+        assertThat(snapshot.histogram(1)[7]).isZero();
+        assertThat(snapshot.totalsByStudent(2)).containsOnlyKeys(10L);
+        assertThat(applied).extracting(MarkView::id).containsExactly(1L, 2L, 3L);
+        assertThat(removed).extracting(MarkView::id).containsExactly(2L);
+    }
+
+    @Test
+    void subjectStatsHistogramStartsAtValueOne() {
+        MarkSnapshot snapshot = new MarkSnapshot(
+                columns(mark(1, 10, 1, 1), mark(2, 11, 1, 10), mark(3, 12, 1, 10)),
+                MarkColumns.EMPTY, 0);
+
+        SubjectStats stats = MarkAnalytics.subjectStats(snapshot, 1);
+
+        assertThat(stats.histogram()).hasSize(MarkSnapshot.MAX_VALUE)
+                .containsExactly(1, 0, 0, 0, 0, 0, 0, 0, 0, 2);
+        assertThat(stats.median()).isEqualTo(10);
+        assertThat(stats.count()).isEqualTo(3);
+    }
+
+    @Test
+    void foldsDeltaAndTombstonesIntoBaseAtTheLimit() {
+        List<MarkView> marks = new ArrayList<>();
+        for (long id = 1; id <= 12; id++) {
+            marks.add(mark(id, 100 + id % 3, id % 2, (int) (1 + id % 10)));
+        }
+        store.onMarksChanged(MarksChangedEvent.added(marks));
+        store.onMarksChanged(MarksChangedEvent.removed(marks.subList(0, 4)));
+
+        MarkSnapshot snapshot = store.snapshot();
+        assertThat(snapshot.delta().size()).isZero();
+        assertThat(snapshot.base().deletedCount()).isLessThanOrEqualTo(4);
+        assertThat(snapshot.size()).isEqualTo(8);
+        assertThat(snapshot.totalsByStudent().values().stream()
+                .mapToLong(MarkTotals::count).sum()).isEqualTo(8);
+    }
+
+    private static MarkView mark(long id, long studentId, long subjectId, int value) {
+        return new MarkView(id, value, studentId, subjectId);
+    }
+
+    private static MarkColumns columns(MarkView... marks) {
+        MarkColumns.Builder builder = new MarkColumns.Builder(marks.length);
+        for (MarkView mark : marks) {
+            builder.add(mark.id(), mark.studentId(), mark.subjectId(), (byte) mark.value());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,68 @@
+package idespring.lab6.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheConfigTest {
+    private CacheConfig<String, Object> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheConfig<>(200, 2);
+        cache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void countsHitsMissesAndPuts() {
+        cache.put("a", 1);
+
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getPutCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void countsEachExpiredEntryOnce() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> cache.size() == 0);
+        await().pollDelay(Duration.ofMillis(400)).until(() -> true);
+
+        assertThat(cache.getExpirationCount()).isEqualTo(2);
+    }
+
+    @Test
+    void expiryOfReplacedEntryKeepsNewValue() throws InterruptedException {
+        cache.put("a", 1);
+        Thread.sleep(120);
+        cache.put("a", 2);
+        Thread.sleep(120);
+
+        assertThat(cache.get("a")).isEqualTo(2);
+    }
+}
@@ -0,0 +1,102 @@
+package idespring.lab6.expand;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab6.SeedData;
+import idespring.lab6.config.CacheConfig;
+import idespring.lab6.model.projection.StudentDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExpandEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CacheConfig<String, Object> cache;
+
+    @BeforeEach
+    void seed() {
+        SeedData.seed(jdbcTemplate);
+    }
+
+    @Test
+    void studentExpandReturnsReferencesNotEntities() throws Exception {
+        JsonNode student = getJson("/students/1?expand=group,subjects,marks");
+
+        assertThat(student.get("group").fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "name");
+        assertThat(student.get("group").get("name").asText()).isEqualTo("G-2");
+        assertThat(student.get("subjects")).hasSize(3);
+        assertThat(student.get("subjects").get(0).fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "name");
+        assertThat(student.get("subjects").findValuesAsText("name"))
+                .containsExactlyInAnyOrder("Subject 2", "Subject 3", "Subject 4");
+        assertThat(student.get("marks")).hasSize(6);
+    }
+
+    @Test
+    void omittedAttributesAreLeftOutOfTheJson() throws Exception {
+        JsonNode student = getJson("/students/1?expand=");
+
+        assertThat(student.fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "name", "age");
+        assertThat(getJson("/groups/1?expand=students").get("students"))
+                .hasSize(SeedData.STUDENTS / SeedData.GROUPS);
+        assertThat(getJson("/subjects/1?expand=marks").has("students")).isFalse();
+    }
+
+    @Test
+    void attributesOutsideTheAllowListAreRejected() throws Exception {
+        mockMvc.perform(get("/students/1?expand=group,password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/groups/1?expand=subjects")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/subjects/1?expand=group")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void enrollmentEvictsEveryCachedExpandOfTheStudent() throws Exception {
+        assertThat(getJson("/students/1?expand=subjects").get("subjects")).hasSize(3);
+        assertThat(getJson("/students/1?expand=group,subjects").get("subjects")).hasSize(3);
+        getJson("/students/2?expand=subjects");
+        assertThat(cache.get(StudentDetails.CACHE_PREFIX + "1-subjects")).isNotNull();
+        assertThat(cache.get(StudentDetails.CACHE_PREFIX + "1-group,subjects")).isNotNull();
+
+        mockMvc.perform(post("/student-subjects?studentId=1&subjectId=1"))
+                .andExpect(status().isCreated());
+        try {
+            assertThat(StudentDetails.cacheKeys(1L)).allMatch(key -> cache.get(key) == null);
+            assertThat(StudentDetails.cacheKeys(2L)).anyMatch(key -> cache.get(key) != null);
+            assertThat(getJson("/students/1?expand=subjects").get("subjects")).hasSize(4);
+            assertThat(getJson("/students/1?expand=group,subjects").get("subjects")).hasSize(4);
+        } finally {
+            mockMvc.perform(delete("/student-subjects?studentId=1&subjectId=1"))
+                    .andExpect(status().isOk());
+        }
+        assertThat(getJson("/students/1?expand=subjects").get("subjects")).hasSize(3);
+    }
+
+    private JsonNode getJson(String uri) throws Exception {
+        String body = mockMvc.perform(get(uri)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
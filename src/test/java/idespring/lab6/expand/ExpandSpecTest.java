@@ -0,0 +1,52 @@
+package idespring.lab6.expand;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ExpandSpecTest {
+    private static final Set<String> ALLOWED = Set.of("group", "subjects", "marks");
+
+    @Test
+    void parsesTrimsAndDeduplicates() {
+        ExpandSpec spec = ExpandSpec.parse(" subjects,group,,subjects ", ALLOWED);
+
+        assertThat(spec.attributes()).containsExactly("group", "subjects");
+        assertThat(spec.has("group")).isTrue();
+        assertThat(spec.has("marks")).isFalse();
+        assertThat(ExpandSpec.parse(null, ALLOWED).attributes()).isEmpty();
+    }
+
+    @Test
+    void rejectsAttributesOutsideTheAllowList() {
+        assertThatThrownBy(() -> ExpandSpec.parse("group,password", ALLOWED))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("'password'")
+                .hasMessageContaining("[group, marks, subjects]");
+        assertThatThrownBy(() -> ExpandSpec.parse("Group", ALLOWED))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void cacheKeyDoesNotDependOnRequestOrder() {
+        assertThat(ExpandSpec.parse("marks,group", ALLOWED).cacheKey("s-", 7))
+                .isEqualTo(ExpandSpec.parse("group,marks", ALLOWED).cacheKey("s-", 7))
+                .isEqualTo("s-7-group,marks");
+        assertThat(ExpandSpec.parse("", ALLOWED).cacheKey("s-", 7)).isEqualTo("s-7-none");
+    }
+
+    @Test
+    void cacheKeysCoverEveryExpandCombination() {
+        List<String> keys = ExpandSpec.cacheKeys("s-", 7, ALLOWED);
+
+        assertThat(keys).hasSize(8).doesNotHaveDuplicates();
+        for (String expand : List.of("", "group", "subjects,marks", "marks,group,subjects")) {
+            assertThat(keys).contains(ExpandSpec.parse(expand, ALLOWED).cacheKey("s-", 7));
+        }
+        assertThat(keys).noneMatch(key -> key.startsWith("s-70"));
+    }
+}
@@ -0,0 +1,138 @@
+package idespring.lab6.leaderboard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import idespring.lab6.analytics.MarkTotals;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class RankTreapTest {
+    private record Entry(long studentId, long count, long sum) {
+    }
+
+    private static final Comparator<Entry> ORDER = (a, b) -> RankTreap.compare(
+            a.studentId, a.count, a.sum, b.studentId, b.count, b.sum);
+
+    @Test
+    void ordersByAverageDescendingThenByStudentId() {
+        RankTreap treap = new RankTreap();
+        treap.insert(3, 2, 14);
+        treap.insert(1, 1, 5);
+        treap.insert(2, 4, 28);
+        treap.insert(4, 3, 30);
+
+        assertThat(treap.range(0, 10)).extracting(node -> node.studentId)
+                .containsExactly(4L, 2L, 3L, 1L);
+        assertThat(treap.rank(2, 4, 28)).isEqualTo(1);
+        assertThat(treap.rank(3, 2, 14)).isEqualTo(2);
+        assertThat(treap.range(1, 2)).extracting(node -> node.studentId)
+                .containsExactly(2L, 3L);
+        assertThat(treap.range(4, 10)).isEmpty();
+    }
+
+    @Test
+    void bulkBuildMatchesSortedInput() {
+        List<Entry> entries = randomEntries(new SplittableRandom(7), 1_000);
+        entries.sort(ORDER);
+
+        RankTreap treap = build(entries);
+
+        assertThat(treap.size()).isEqualTo(entries.size());
+        assertThat(treap.range(0, entries.size())).extracting(node -> node.studentId)
+                .containsExactlyElementsOf(entries.stream().map(Entry::studentId).toList());
+        for (int i = 0; i < entries.size(); i += 97) {
+            Entry entry = entries.get(i);
+            assertThat(treap.rank(entry.studentId, entry.count, entry.sum)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void randomUpdatesAgreeWithSortedReference() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Entry> initial = randomEntries(random, 300);
+        TreeSet<Entry> reference = new TreeSet<>(ORDER);
+        reference.addAll(initial);
+        Map<Long, Entry> current = new HashMap<>();
+        initial.forEach(entry -> current.put(entry.studentId, entry));
+        RankTreap treap = build(new ArrayList<>(reference));
+
+        for (int step = 0; step < 5_000; step++) {
+            long studentId = random.nextInt(400) + 1;
+            Entry previous = current.remove(studentId);
+            if (previous != null) {
+                reference.remove(previous);
+                treap.remove(previous.studentId, previous.count, previous.sum);
+            }
+            if (previous == null || random.nextInt(4) > 0) {
+                long count = random.nextInt(20) + 1;
+                Entry next = new Entry(studentId, count, count * (random.nextInt(10) + 1));
+                current.put(studentId, next);
+                reference.add(next);
+                treap.insert(next.studentId, next.count, next.sum);
+            }
+        }
+
+        List<Entry> expected = new ArrayList<>(reference);
+        assertThat(treap.size()).isEqualTo(expected.size());
+        assertThat(treap.range(0, expected.size())).extracting(node -> node.studentId)
+                .containsExactlyElementsOf(expected.stream().map(Entry::studentId).toList());
+        for (int i = 0; i < expected.size(); i++) {
+            Entry entry = expected.get(i);
+            assertThat(treap.rank(entry.studentId, entry.count, entry.sum)).isEqualTo(i);
+        }
+        assertThat(treap.range(10, 5)).extracting(node -> node.studentId)
+                .containsExactlyElementsOf(expected.subList(10, 15).stream()
+                        .map(Entry::studentId).toList());
+    }
+
+    @Test
+    void removingAnAbsentEntryIsANoOp() {
+        RankTreap treap = new RankTreap();
+        treap.insert(1, 2, 10);
+
+        treap.remove(1, 2, 12);
+        treap.remove(2, 2, 10);
+
+        assertThat(treap.size()).isEqualTo(1);
+    }
+
+    @Test
+    void leaderboardAccumulatesDeltasAndDropsEmptyStudents() {
+        Leaderboard leaderboard = Leaderboard.of(Map.of(
+                1L, new MarkTotals(2, 10), 2L, new MarkTotals(2, 16), 3L, new MarkTotals(1, 7)));
+
+        leaderboard.update(1, 2, 20);
+        leaderboard.update(3, -1, -7);
+
+        assertThat(leaderboard.size()).isEqualTo(2);
+        assertThat(leaderboard.rankOf(3)).isNull();
+        assertThat(leaderboard.top(0, 10)).extracting(LeaderboardEntry::studentId)
+                .containsExactly(2L, 1L);
+        LeaderboardEntry first = leaderboard.rankOf(1);
+        assertThat(first.rank()).isEqualTo(2);
+        assertThat(first.average()).isEqualTo(7.5);
+    }
+
+    private static List<Entry> randomEntries(SplittableRandom random, int size) {
+        List<Entry> entries = new ArrayList<>();
+        for (long studentId = 1; studentId <= size; studentId++) {
+            long count = random.nextInt(20) + 1;
+            entries.add(new Entry(studentId, count, count * (random.nextInt(10) + 1)
+                    - random.nextInt((int) count)));
+        }
+        return entries;
+    }
+
+    private static RankTreap build(List<Entry> sorted) {
+        return RankTreap.ofSorted(
+                sorted.stream().mapToLong(Entry::studentId).toArray(),
+                sorted.stream().mapToLong(Entry::count).toArray(),
+                sorted.stream().mapToLong(Entry::sum).toArray());
+    }
+}
@@ -0,0 +1,138 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogArchivesTest {
+    @TempDir
+    Path directory;
+
+    private LogIndex logIndex;
+    private LogArchives archives;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeArchive("app.log.1.gz", List.of(record("2025-01-02", 1)));
+        writeArchive("app.log.2.gz", List.of(record("2025-01-03", 2)));
+        writeArchive("app-2024-12-31.log.gz", List.of(record("2024-12-31", 3)));
+        writeArchive("app-2025-01-01.log.gz", List.of(record("2025-01-01", 4)));
+        writeArchive("app-undated.log.gz", List.of(record("2025-01-01", 5)));
+        writeArchive("other-2025-01-01.log.gz", List.of(record("2025-01-01", 6)));
+        Files.write(directory.resolve("archives.manifest"), List.of(
+                "# name first [last]",
+                "app.log.1.gz 2025-01-01 2025-01-02",
+                "app.log.2.gz   2025-01-03",
+                "app-2025-01-01.log.gz 2025-01-02"));
+        logIndex = new LogIndex(directory.resolve("app.log").toString(), 0);
+        archives = new LogArchives(logIndex, "", "archives.manifest");
+    }
+
+    @AfterEach
+    void tearDown() {
+        logIndex.shutdown();
+    }
+
+    @Test
+    void manifestDatesOverrideTheDateInTheName() throws IOException {
+        assertThat(names(archives.archivesBetween(null, null))).containsExactly(
+                "app-2024-12-31.log.gz", "app.log.1.gz", "app-2025-01-01.log.gz",
+                "app.log.2.gz");
+        assertThat(names(archives.archivesBetween("2025-01-02", "2025-01-02")))
+                .containsExactly("app.log.1.gz", "app-2025-01-01.log.gz");
+        assertThat(archives.archivesBetween("2025-01-02", "2025-01-02").get(0))
+                .extracting(LogArchives.Archive::firstDate, LogArchives.Archive::lastDate)
+                .containsExactly("2025-01-01", "2025-01-02");
+    }
+
+    @Test
+    void openRangesSelectByTheirOneBound() throws IOException {
+        assertThat(names(archives.archivesBetween(null, "2024-12-31")))
+                .containsExactly("app-2024-12-31.log.gz");
+        assertThat(names(archives.archivesBetween("2025-01-03", null)))
+                .containsExactly("app.log.2.gz");
+        assertThat(archives.archivesBetween("2025-01-04", null)).isEmpty();
+    }
+
+    @Test
+    void missingDirectoryHasNoArchives() throws IOException {
+        LogArchives elsewhere = new LogArchives(logIndex,
+                directory.resolve("missing").toString(), "archives.manifest");
+
+        assertThat(elsewhere.archivesBetween(null, null)).isEmpty();
+    }
+
+    @Test
+    void scanJoinsContinuationLinesAndSkipsALeadingFragment() throws IOException {
+        List<String> records = List.of(record("2025-01-05", 1),
+                record("2025-01-05", 2) + "\njava.lang.IllegalStateException: boom\n\tat x.Y.z",
+                record("2025-01-05", 3));
+        Path path = writeArchive("app-2025-01-05.log.gz",
+                List.of("\tat the.tail.of.an.earlier.Record", String.join("\n", records)));
+
+        List<String> scanned = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
+        LogArchives.scan(new LogArchives.Archive(path, "2025-01-05", "2025-01-05"),
+                (record, length, headerLength) -> {
+                    scanned.add(new String(record, 0, length, StandardCharsets.UTF_8));
+                    headers.add(new String(record, 0, headerLength, StandardCharsets.UTF_8));
+                    return true;
+                });
+
+        assertThat(scanned).isEqualTo(records);
+        assertThat(headers).containsExactly(record("2025-01-05", 1), record("2025-01-05", 2),
+                record("2025-01-05", 3));
+    }
+
+    @Test
+    void scanStopsWhenTheVisitorDeclines() throws IOException {
+        List<String> records = new ArrayList<>();
+        for (int n = 0; n < 10_000; n++) {
+            records.add(record("2025-01-06", n));
+        }
+        Path path = writeArchive("app-2025-01-06.log.gz", records);
+
+        List<Integer> lengths = new ArrayList<>();
+        LogArchives.scan(new LogArchives.Archive(path, "2025-01-06", "2025-01-06"),
+                (record, length, headerLength) -> {
+                    lengths.add(length);
+                    return lengths.size() < 3;
+                });
+
+        assertThat(lengths).hasSize(3);
+    }
+
+    private Path writeArchive(String name, List<String> lines) throws IOException {
+        Path path = directory.resolve(name);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path));
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        return path;
+    }
+
+    private static String record(String date, int n) {
+        return date + " 10:00:00.000 INFO  [main] idespring.lab6.Service : request " + n;
+    }
+
+    private static List<String> names(List<LogArchives.Archive> selected) {
+        return selected.stream().map(archive -> archive.path().getFileName().toString())
+                .toList();
+    }
+}
@@ -0,0 +1,51 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LogExportJobTest {
+
+    private static LogExportJob completedJob() {
+        LogExportJob job = new LogExportJob("task", "2025-01-01");
+        job.complete("logs/logs-2025-01-01-task.log");
+        return job;
+    }
+
+    @Test
+    void runningJobIsNeverEvicted() {
+        LogExportJob job = new LogExportJob("task", "2025-01-01");
+
+        assertThat(job.evictIfIdle(Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    void openDownloadBlocksEviction() {
+        LogExportJob job = completedJob();
+        assertThat(job.acquireDownload()).isTrue();
+
+        assertThat(job.evictIfIdle(Long.MAX_VALUE)).isFalse();
+
+        job.releaseDownload();
+        assertThat(job.evictIfIdle(Long.MAX_VALUE)).isTrue();
+    }
+
+    @Test
+    void recentDownloadExtendsTtl() throws InterruptedException {
+        LogExportJob job = completedJob();
+        long deadline = job.getFinishedAt();
+        Thread.sleep(5);
+        job.acquireDownload();
+        job.releaseDownload();
+
+        assertThat(job.evictIfIdle(deadline)).isFalse();
+    }
+
+    @Test
+    void evictedJobCannotBeDownloaded() {
+        LogExportJob job = completedJob();
+        assertThat(job.evictIfIdle(Long.MAX_VALUE)).isTrue();
+
+        assertThat(job.acquireDownload()).isFalse();
+    }
+}
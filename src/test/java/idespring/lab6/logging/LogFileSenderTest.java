@@ -0,0 +1,202 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class LogFileSenderTest {
+    private static final int SIZE = 1_000;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private byte[] content;
+    private MockMvc mockMvc;
+
+    @RestController
+    static class FileController {
+        private final LogFileSender sender = new LogFileSender();
+        private final Path file;
+
+        FileController(Path file) {
+            this.file = file;
+        }
+
+        @GetMapping("/file")
+        ResponseEntity<StreamingResponseBody> file(HttpServletRequest request)
+                throws IOException {
+            return sender.send(file, "app.log", request);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int n = 0; text.length() < SIZE; n++) {
+            text.append("line ").append(n).append('\n');
+        }
+        content = text.substring(0, SIZE).getBytes(StandardCharsets.UTF_8);
+        file = Files.write(directory.resolve("app.log"), content);
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(file)).build();
+    }
+
+    @Test
+    void servesTheWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = perform(get("/file"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"3e8-");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    void singleRangeReturnsPartialContent() throws Exception {
+        MockHttpServletResponse response = perform(get("/file")
+                .header(HttpHeaders.RANGE, "bytes=100-199"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/1000");
+        assertThat(response.getContentLengthLong()).isEqualTo(100);
+        assertThat(response.getContentAsByteArray()).isEqualTo(slice(100, 200));
+    }
+
+    @Test
+    void suffixRangeReturnsTheTail() throws Exception {
+        MockHttpServletResponse response = perform(get("/file")
+                .header(HttpHeaders.RANGE, "bytes=-50"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 950-999/1000");
+        assertThat(response.getContentAsByteArray()).isEqualTo(slice(950, SIZE));
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws Exception {
+        MockHttpServletResponse response = perform(get("/file")
+                .header(HttpHeaders.RANGE, "bytes=1000-"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */1000");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void mismatchedIfRangeSendsTheWholeFile() throws Exception {
+        String etag = perform(get("/file")).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse stale = perform(get("/file")
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, "\"0-0\""));
+        MockHttpServletResponse current = perform(get("/file")
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, etag));
+
+        assertThat(stale.getStatus()).isEqualTo(200);
+        assertThat(stale.getContentAsByteArray()).isEqualTo(content);
+        assertThat(current.getStatus()).isEqualTo(206);
+        assertThat(current.getContentAsByteArray()).isEqualTo(slice(0, 10));
+    }
+
+    @Test
+    void gzipIsNegotiatedAndCachedNextToTheFile() throws Exception {
+        MockHttpServletResponse first = perform(get("/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"));
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(first.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(first.getHeader(HttpHeaders.ETAG)).endsWith("-gzip\"");
+        assertThat(first.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gunzip(first.getContentAsByteArray())).isEqualTo(content);
+        Path cached = LogFileSender.gzipVariant(file);
+        assertThat(cached).exists();
+
+        MockHttpServletResponse second = perform(get("/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        assertThat(second.getContentLengthLong()).isEqualTo(Files.size(cached));
+        assertThat(gunzip(second.getContentAsByteArray())).isEqualTo(content);
+
+        MockHttpServletResponse refused = perform(get("/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"));
+        assertThat(refused.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(refused.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void rangesAreNeverCompressed() throws Exception {
+        MockHttpServletResponse response = perform(get("/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.RANGE, "bytes=0-9"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(slice(0, 10));
+    }
+
+    @Test
+    void ifNoneMatchIsCheckedPerVariant() throws Exception {
+        String plain = perform(get("/file")).getHeader(HttpHeaders.ETAG);
+        String gzip = perform(get("/file").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse notModified = perform(get("/file")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + plain));
+        MockHttpServletResponse weak = perform(get("/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + gzip));
+        MockHttpServletResponse otherVariant = perform(get("/file")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, plain));
+
+        assertThat(notModified.getStatus()).isEqualTo(304);
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+        assertThat(notModified.getHeader(HttpHeaders.ETAG)).isEqualTo(plain);
+        assertThat(weak.getStatus()).isEqualTo(304);
+        assertThat(otherVariant.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request)
+            throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result.getResponse();
+    }
+
+    private byte[] slice(int from, int to) {
+        byte[] part = new byte[to - from];
+        System.arraycopy(content, from, part, 0, part.length);
+        return part;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
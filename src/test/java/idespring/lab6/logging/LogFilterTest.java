@@ -0,0 +1,73 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LogFilterTest {
+    private static final String HEADER =
+            "2025-01-02 10:15:30.123 ERROR [main] idespring.lab6.service.StudentService : boom";
+    private static final String RECORD = HEADER + "\n"
+            + "java.lang.NullPointerException: name\n"
+            + "\tat idespring.lab6.Foo.bar(Foo.java:12)";
+
+    @Test
+    void matchesHeaderFields() {
+        LocalDateTime morning = LocalDateTime.of(2025, 1, 2, 10, 0);
+
+        assertThat(LogFilter.of(morning, morning.plusHours(1), List.of("error", "WARN"),
+                "StudentService", null).matches(RECORD)).isTrue();
+        assertThat(LogFilter.of(morning.plusHours(1), null, null, null, null)
+                .matches(RECORD)).isFalse();
+        assertThat(LogFilter.of(null, null, List.of("INFO"), null, null)
+                .matches(RECORD)).isFalse();
+        assertThat(LogFilter.of(null, null, null, "MarkService", null)
+                .matches(RECORD)).isFalse();
+    }
+
+    @Test
+    void regexSeesStackTraceLinesButHeaderFieldsDoNot() {
+        byte[] bytes = RECORD.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int headerEnd = HEADER.getBytes(StandardCharsets.UTF_8).length;
+
+        LogFilter npe = LogFilter.of(null, null, null, null, "NullPointerException");
+        assertThat(npe.matches(RECORD)).isTrue();
+        assertThat(npe.matches(buffer, 0, headerEnd, bytes.length)).isTrue();
+        assertThat(npe.matches(buffer, 0, headerEnd, headerEnd)).isFalse();
+
+        // "Foo" only appears in a continuation line, never in the logger column
+        assertThat(LogFilter.of(null, null, null, "Foo", null)
+                .matches(buffer, 0, headerEnd, bytes.length)).isFalse();
+    }
+
+    @Test
+    void recognisesRecordStarts() {
+        ByteBuffer buffer = ByteBuffer.wrap(RECORD.getBytes(StandardCharsets.UTF_8));
+        int continuation = HEADER.length() + 1;
+
+        assertThat(LogFilter.isRecordStart(buffer, 0, HEADER.length())).isTrue();
+        assertThat(LogFilter.isRecordStart(buffer, continuation, continuation + 20)).isFalse();
+        assertThat(LogFilter.isRecordStart(buffer, 0, 9)).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 2, 10, 0);
+
+        assertThatThrownBy(() -> LogFilter.of(now, now.minusDays(1), null, null, null))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> LogFilter.of(null, null, null, null, "(unclosed"))
+                .isInstanceOf(ValidationException.class);
+        assertThat(LogFilter.of(now, now.plusDays(2), null, null, null).fromDate())
+                .isEqualTo("2025-01-02");
+        assertThat(LogFilter.of(now, now.plusDays(2), null, null, null).toDate())
+                .isEqualTo("2025-01-04");
+    }
+}
@@ -0,0 +1,127 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogQueryServiceTest {
+    // large enough for the live file to be split into several 4 MiB chunks
+    private static final int LIVE_RECORDS = 120_000;
+
+    @TempDir
+    Path directory;
+
+    private final List<String> expected = new ArrayList<>();
+    private LogIndex logIndex;
+    private LogQueryService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeArchive("app-2025-01-01.log.gz", "2025-01-01", 0, 500);
+        writeArchive("app-2025-01-02.log.gz", "2025-01-02", 500, 500);
+        Path logFile = directory.resolve("app.log");
+        try (Writer writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8)) {
+            for (int n = 0; n < LIVE_RECORDS; n++) {
+                String record = record(n < LIVE_RECORDS / 2 ? "2025-01-03" : "2025-01-04",
+                        1_000 + n);
+                expected.add(record);
+                writer.write(record);
+                writer.write('\n');
+            }
+        }
+        logIndex = new LogIndex(logFile.toString(), 0);
+        LogArchives archives = new LogArchives(logIndex, directory.toString(), "archives.manifest");
+        service = new LogQueryService(logIndex, archives);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        logIndex.shutdown();
+    }
+
+    @Test
+    void mergesArchivesAndChunksInFileOrder() {
+        List<String> all = service.query(LogFilter.matchAll(), Integer.MAX_VALUE);
+
+        assertThat(all).hasSameSizeAs(expected);
+        assertThat(all).isEqualTo(expected);
+    }
+
+    @Test
+    void regexMatchesStackTraceLinesInEveryChunk() {
+        List<String> failures = service.query(
+                LogFilter.of(null, null, null, null, "IllegalStateException: #\\d+3\\b"),
+                Integer.MAX_VALUE);
+
+        List<String> reference = expected.stream()
+                .filter(record -> record.matches("(?s).*IllegalStateException: #\\d+3\\b.*"))
+                .toList();
+        assertThat(reference).hasSizeGreaterThan(100);
+        assertThat(failures).isEqualTo(reference);
+    }
+
+    @Test
+    void dateRangeSkipsArchivesAndEarlierDays() {
+        LogFilter lastDay = LogFilter.of(LocalDateTime.of(2025, 1, 4, 0, 0), null, null, null,
+                null);
+
+        List<String> records = service.query(lastDay, 3);
+
+        assertThat(records).containsExactlyElementsOf(
+                expected.subList(500 + 500 + LIVE_RECORDS / 2, 500 + 500 + LIVE_RECORDS / 2 + 3));
+    }
+
+    @Test
+    void stopsAtTheLimitAndKeepsServingQueries() {
+        List<String> sunk = new ArrayList<>();
+
+        int emitted = service.query(LogFilter.of(null, null, List.of("ERROR"), null, null), 4,
+                sunk::add);
+
+        assertThat(emitted).isEqualTo(4);
+        assertThat(sunk).containsExactlyElementsOf(expected.stream()
+                .filter(record -> record.contains(" ERROR ")).limit(4).toList());
+        assertThat(service.query(LogFilter.matchAll(), 1)).containsExactly(expected.get(0));
+    }
+
+    private void writeArchive(String name, String date, int first, int count)
+            throws IOException {
+        try (OutputStream out = new GZIPOutputStream(
+                Files.newOutputStream(directory.resolve(name)));
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (int n = first; n < first + count; n++) {
+                String record = record(date, n);
+                expected.add(record);
+                writer.write(record);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // every seventh record is an ERROR with a two-line stack trace
+    private static String record(String date, int n) {
+        String time = String.format("%02d:%02d:%02d.%03d", n / 360_000 % 24, n / 6_000 % 60,
+                n / 100 % 60, n % 1000);
+        if (n % 7 != 0) {
+            return date + " " + time + " INFO  [main] idespring.lab6.Service : request " + n;
+        }
+        return date + " " + time + " ERROR [main] idespring.lab6.Service : failed " + n
+                + "\njava.lang.IllegalStateException: #" + n
+                + "\n\tat idespring.lab6.Service.handle(Service.java:" + n % 100 + ")";
+    }
+}
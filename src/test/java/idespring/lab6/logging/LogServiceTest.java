@@ -0,0 +1,135 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogServiceTest {
+    private static final int ARCHIVES = 5;
+    private static final int READERS = 2;
+    // several pipeline blocks per archive, so later readers wait for the writer to drain them
+    private static final int RECORDS_PER_ARCHIVE = 40_000;
+
+    @TempDir
+    Path directory;
+
+    private final List<String> firstDay = new ArrayList<>();
+    private final List<String> secondDay = new ArrayList<>();
+    private final List<String> exports = new ArrayList<>();
+    private LogIndex logIndex;
+    private LogService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<String> manifest = new ArrayList<>();
+        int n = 0;
+        for (int part = 1; part <= ARCHIVES; part++) {
+            List<String> records = new ArrayList<>();
+            for (int i = 0; i < RECORDS_PER_ARCHIVE; i++) {
+                records.add(record("2025-01-01", n++));
+            }
+            firstDay.addAll(records);
+            if (part == ARCHIVES) {
+                for (int i = 0; i < 100; i++) {
+                    records.add(record("2025-01-02", n++));
+                }
+                secondDay.addAll(records.subList(RECORDS_PER_ARCHIVE, records.size()));
+                manifest.add("app.log." + part + ".gz 2025-01-01 2025-01-02");
+            } else {
+                manifest.add("app.log." + part + ".gz 2025-01-01");
+            }
+            writeArchive("app.log." + part + ".gz", records);
+        }
+        writeArchive("app-2024-12-31.log.gz", List.of(record("2024-12-31", n++)));
+        Files.write(directory.resolve("archives.manifest"), manifest);
+
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            live.add(record("2025-01-02", n++));
+        }
+        secondDay.addAll(live);
+        for (int i = 0; i < 100; i++) {
+            live.add(record("2025-01-03", n++));
+        }
+        Path logFile = Files.write(directory.resolve("app.log"), live);
+
+        logIndex = new LogIndex(logFile.toString(), 0);
+        logIndex.start();
+        service = new LogService(logIndex, new LogArchives(logIndex, "", "archives.manifest"),
+                1, 4, 60, READERS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.shutdown();
+        logIndex.shutdown();
+        for (String export : exports) {
+            Files.deleteIfExists(Paths.get(export));
+        }
+    }
+
+    @Test
+    void exportKeepsArchiveOrderWithMoreArchivesThanReaders() throws Exception {
+        assertThat(export("2025-01-01")).isEqualTo(firstDay);
+    }
+
+    @Test
+    void exportAppendsTheLiveFileAfterTheArchives() throws Exception {
+        assertThat(export("2025-01-02")).isEqualTo(secondDay);
+    }
+
+    @Test
+    void exportSelectsArchivesByTheDateInTheirName() throws Exception {
+        assertThat(export("2024-12-31")).hasSize(1)
+                .allMatch(line -> line.startsWith("2024-12-31"));
+    }
+
+    @Test
+    void exportWithoutLogsForTheDateFails() throws Exception {
+        String taskId = service.generateLogFileForDateAsync("2025-02-01").get();
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> service.getTaskStatus(taskId).startsWith("FAILED"));
+    }
+
+    private List<String> export(String date) throws Exception {
+        String taskId = service.generateLogFileForDateAsync(date).get();
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> !"PROCESSING".equals(service.getTaskStatus(taskId)));
+        String path = service.getLogFilePath(taskId);
+        assertThat(service.getTaskStatus(taskId)).startsWith("COMPLETED");
+        exports.add(path);
+        return Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+    }
+
+    private void writeArchive(String name, List<String> records) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(
+                Files.newOutputStream(directory.resolve(name)));
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String record(String date, int n) {
+        return date + " 10:00:00.000 INFO  [main] idespring.lab6.Service : request " + n;
+    }
+}
@@ -0,0 +1,190 @@
+package idespring.lab6.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import idespring.lab6.exceptionhandler.GlobalExceptionHandler;
+import idespring.lab6.metrics.MethodTimings;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class LogTailServiceTest {
+    private record Event(String id, String name, String data) {
+    }
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger pings = new AtomicInteger();
+    private Path logFile;
+    private LogIndex logIndex;
+    private LogTailService service;
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (service != null) {
+            service.shutdown();
+            logIndex.shutdown();
+        }
+    }
+
+    @Test
+    void resumesFromLastEventIdWhileItIsStillInTheRing() throws Exception {
+        start(8, 8);
+        MockHttpServletResponse live = open(get("/logs/stream"));
+        warmUp(live);
+
+        append(records(1, 5));
+        await().atMost(Duration.ofSeconds(10)).until(() -> data(live).contains(record(5)));
+        List<Event> seen = events(live);
+        String first = idOf(seen, record(1));
+        String second = idOf(seen, record(2));
+        assertThat(Long.parseLong(idOf(seen, record(5))))
+                .isEqualTo(Long.parseLong(first) + 4);
+
+        MockHttpServletResponse resumed = open(get("/logs/stream")
+                .header("Last-Event-ID", second));
+        await().atMost(Duration.ofSeconds(10)).until(() -> data(resumed).size() == 3);
+        assertThat(data(resumed)).containsExactly(record(3), record(4), record(5));
+
+        // five more records overwrite record 1 in a ring of eight, so this subscriber starts live
+        append(records(6, 10));
+        await().atMost(Duration.ofSeconds(10)).until(() -> data(live).contains(record(10)));
+        MockHttpServletResponse evicted = open(get("/logs/stream")
+                .param("level", "ERROR")
+                .header("Last-Event-ID", first));
+        append(records(11, 12));
+        await().atMost(Duration.ofSeconds(10)).until(() -> data(live).contains(record(12)));
+        await().atMost(Duration.ofSeconds(10)).until(() -> !data(evicted).isEmpty());
+        assertThat(data(evicted)).containsExactly(record(12));
+        await().atMost(Duration.ofSeconds(10)).until(() -> data(resumed).size() == 10);
+    }
+
+    @Test
+    void slowSubscriberGetsAnOverflowEventAndFreesItsSlot() throws Exception {
+        start(4, 1);
+        MockHttpServletResponse live = open(get("/logs/stream"));
+        warmUp(live);
+
+        MvcResult rejected = mockMvc.perform(get("/logs/stream")).andReturn();
+        assertThat(rejected.getResponse().getStatus()).isEqualTo(429);
+        assertThat(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+
+        // one burst publishes records far faster than a subscriber can send them
+        String[] burst = new String[20_000];
+        for (int n = 0; n < burst.length; n++) {
+            burst[n] = record(101 + 2 * n);
+        }
+        append(burst);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> events(live).stream()
+                .anyMatch(event -> "overflow".equals(event.name())));
+        assertThat(events(live).getLast().data()).contains("buffer holds 4");
+        await().atMost(Duration.ofSeconds(10)).until(() -> service.getSubscriberCount() == 0);
+        assertThat(mockMvc.perform(get("/logs/stream")).andReturn().getRequest()
+                .isAsyncStarted()).isTrue();
+    }
+
+    private void start(int bufferSize, int maxSubscribers) throws IOException {
+        logFile = Files.writeString(directory.resolve("app.log"), record(0) + "\n");
+        logIndex = new LogIndex(logFile.toString(), 0);
+        service = new LogTailService(logIndex, bufferSize, maxSubscribers, 1);
+        LogController controller = new LogController(mock(LogService.class),
+                mock(LogQueryService.class), mock(MethodTimings.class), new LogFileSender(),
+                service);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private MockHttpServletResponse open(MockHttpServletRequestBuilder request)
+            throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertThat(result.getRequest().isAsyncStarted()).isTrue();
+        return result.getResponse();
+    }
+
+    // the reader thread starts at the end of the file, so keep appending until it sees one
+    private void warmUp(MockHttpServletResponse response) {
+        await().atMost(Duration.ofSeconds(10)).until(() -> {
+            append(record(-pings.incrementAndGet()));
+            return !data(response).isEmpty();
+        });
+    }
+
+    private void append(String... records) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String record : records) {
+            text.append(record).append('\n');
+        }
+        Files.writeString(logFile, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private static String[] records(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(LogTailServiceTest::record)
+                .toArray(String[]::new);
+    }
+
+    // even records are errors with a stack-trace line, which must stay in the same event
+    private static String record(int n) {
+        if (n % 2 != 0 || n <= 0) {
+            return "2025-01-05 10:00:00.000 INFO  [main] idespring.lab6.Service : event " + n;
+        }
+        return "2025-01-05 10:00:00.000 ERROR [main] idespring.lab6.Service : event " + n
+                + "\n\tat idespring.lab6.Service.handle(Service.java:" + n + ")";
+    }
+
+    private static String idOf(List<Event> events, String data) {
+        return events.stream().filter(event -> data.equals(event.data())).findFirst()
+                .orElseThrow().id();
+    }
+
+    private static List<String> data(MockHttpServletResponse response) throws IOException {
+        return events(response).stream().filter(event -> event.name() == null)
+                .map(Event::data).toList();
+    }
+
+    private static List<Event> events(MockHttpServletResponse response) throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (String block : response.getContentAsString(StandardCharsets.UTF_8).split("\n\n")) {
+            String id = null;
+            String name = null;
+            StringBuilder data = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data = data == null ? new StringBuilder() : data.append('\n');
+                    data.append(line.substring(5));
+                }
+            }
+            if (data != null) {
+                events.add(new Event(id, name, data.toString()));
+            }
+        }
+        return events;
+    }
+}
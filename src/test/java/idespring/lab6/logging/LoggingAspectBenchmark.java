@@ -0,0 +1,165 @@
+package idespring.lab6.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import idespring.lab6.metrics.MethodTimings;
+import idespring.lab6.service.bench.BenchmarkTarget;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+// Per-call overhead of the logging advice around a trivial service method.
+// "baseline" is the aspect before sampling/aggregation: two synchronous INFO lines and a
+// toShortString() per call. Log lines go to a file appender in a temp directory.
+// Run: mvn test-compile, then start main() with the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    @Param({"none", "baseline", "full", "full-async", "sampled", "aggregate"})
+    public String variant;
+
+    private BenchmarkTarget target;
+    private AsyncLogDispatcher dispatcher;
+    private FileAppender<ILoggingEvent> appender;
+    private Path logDir;
+    private long value;
+
+    @Aspect
+    public static class BaselineAspect {
+        private static final org.slf4j.Logger logger =
+                LoggerFactory.getLogger("ApplicationLog");
+
+        @Around("execution(* idespring.lab6.service..*(..))")
+        public Object logMethods(ProceedingJoinPoint joinPoint) throws Throwable {
+            String methodName = joinPoint.getSignature().toShortString();
+            logger.info("Executing: {}", methodName);
+            try {
+                Object result = joinPoint.proceed();
+                logger.info("Successfully executed: {}", methodName);
+                return result;
+            } catch (Exception e) {
+                logger.error("Error in method: {}", methodName, e);
+                throw e;
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("aspect-bench");
+        routeLogsToFile(logDir.resolve("app.log"));
+
+        BenchmarkTarget plain = new BenchmarkTarget();
+        if ("none".equals(variant)) {
+            target = plain;
+            return;
+        }
+        AspectJProxyFactory factory = new AspectJProxyFactory(plain);
+        factory.setProxyTargetClass(true);
+        if ("baseline".equals(variant)) {
+            factory.addAspect(new BaselineAspect());
+        } else {
+            LoggingAspectProperties properties = propertiesFor(variant);
+            dispatcher = new AsyncLogDispatcher(properties);
+            dispatcher.start();
+            factory.addAspect(new LoggingAspect(new MethodTimings(),
+                    dispatcher, properties));
+        }
+        target = factory.getProxy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            System.out.println("dropped async events: " + dispatcher.getDroppedCount());
+        }
+        appender.stop();
+        try (Stream<Path> files = Files.walk(logDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long call() {
+        return target.work(++value);
+    }
+
+    private static LoggingAspectProperties propertiesFor(String variant) {
+        LoggingAspectProperties properties = new LoggingAspectProperties();
+        properties.setSummaryIntervalSeconds(0);
+        switch (variant) {
+            case "full" -> properties.setMode(LoggingAspectProperties.Mode.FULL);
+            case "full-async" -> {
+                properties.setMode(LoggingAspectProperties.Mode.FULL);
+                properties.setAsync(true);
+            }
+            case "sampled" -> {
+                properties.setMode(LoggingAspectProperties.Mode.SAMPLED);
+                properties.setSampleRate(0.01);
+                properties.setAsync(true);
+            }
+            case "aggregate" -> properties.setMode(LoggingAspectProperties.Mode.AGGREGATE);
+            default -> throw new IllegalArgumentException(variant);
+        }
+        return properties;
+    }
+
+    private void routeLogsToFile(Path file) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{ISO8601} [%thread] %-5level %logger - %msg%n");
+        encoder.start();
+
+        appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+
+        Logger logger = context.getLogger("ApplicationLog");
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger.addAppender(appender);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoggingAspectBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
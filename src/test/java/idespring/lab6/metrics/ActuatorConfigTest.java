@@ -0,0 +1,34 @@
+package idespring.lab6.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.prometheus.PrometheusMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.endpoint.EndpointId;
+import org.springframework.boot.actuate.endpoint.web.PathMappedEndpoints;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+class ActuatorConfigTest {
+    private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withUserConfiguration(ActuatorConfig.class)
+            .withConfiguration(AutoConfigurations.of(EndpointAutoConfiguration.class,
+                    WebEndpointAutoConfiguration.class, MetricsAutoConfiguration.class,
+                    PrometheusMetricsExportAutoConfiguration.class));
+
+    @Test
+    void exposesPrometheusEndpointByDefault() {
+        runner.run(context -> assertThat(context.getBean(PathMappedEndpoints.class)
+                .getPath(EndpointId.of("prometheus"))).isEqualTo("/actuator/prometheus"));
+    }
+
+    @Test
+    void explicitExposureOverridesDefault() {
+        runner.withPropertyValues("management.endpoints.web.exposure.include=health")
+                .run(context -> assertThat(context.getBean(PathMappedEndpoints.class)
+                        .getPath(EndpointId.of("prometheus"))).isNull());
+    }
+}
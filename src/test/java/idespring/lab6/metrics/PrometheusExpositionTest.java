@@ -0,0 +1,110 @@
+package idespring.lab6.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import idespring.lab6.analytics.MarkStore;
+import idespring.lab6.config.CacheConfig;
+import idespring.lab6.service.studentsubjserv.EnrollmentIndex;
+import idespring.lab6.visits.VisitCounterService;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import io.prometheus.metrics.model.registry.PrometheusRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class PrometheusExpositionTest {
+    private final PrometheusRegistry prometheusRegistry = new PrometheusRegistry();
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(
+            PrometheusConfig.DEFAULT, prometheusRegistry, Clock.SYSTEM);
+    private final VisitCounterService visits = new VisitCounterService(12, 90);
+    private final CacheConfig<String, Object> cache = new CacheConfig<>(60_000, 10);
+    private final EnrollmentIndex enrollmentIndex =
+            new EnrollmentIndex(mock(JdbcTemplate.class), 60);
+    private final MarkStore markStore = new MarkStore(mock(JdbcTemplate.class),
+            mock(PlatformTransactionManager.class), 4096, 100, 60, List.of());
+
+    @BeforeEach
+    void setUp() {
+        new Lab6MeterBinder(visits, cache, enrollmentIndex, markStore).bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+        enrollmentIndex.shutdown();
+        markStore.shutdown();
+    }
+
+    @Test
+    void exposesVisitAndCacheCounters() {
+        visits.incrementCount("/students");
+        visits.incrementCount("/students");
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("b");
+
+        String scrape = registry.scrape();
+
+        assertThat(scrape).contains("lab6_visits_total 2.0");
+        assertThat(scrape).contains("lab6_cache_requests_total{result=\"hit\"} 1.0");
+        assertThat(scrape).contains("lab6_cache_requests_total{result=\"miss\"} 1.0");
+        assertThat(scrape).contains("lab6_cache_hit_ratio 0.5");
+        assertThat(scrape).contains("lab6_cache_max_size 10.0");
+    }
+
+    @Test
+    void signalsEnrollmentChecksFallingBackToTheDatabase() {
+        enrollmentIndex.isEnrolled(1, 2);
+
+        String scrape = registry.scrape();
+
+        assertThat(scrape).contains("lab6_enrollment_index_loaded 0.0");
+        assertThat(scrape).contains("lab6_enrollment_fallback_queries_total 1.0");
+        assertThat(scrape).contains("lab6_analytics_store_loaded 0.0");
+    }
+
+    @Test
+    void registersUniqueClientGaugePerRoute() {
+        visits.recordClient("GET /students", "addr:1");
+        visits.recordClient("GET /students", "addr:2");
+        visits.recordClient("GET /groups", "addr:1");
+
+        String scrape = registry.scrape();
+
+        assertThat(scrape).contains("lab6_unique_clients_today{route=\"GET /students\"} 2.0");
+        assertThat(scrape).contains("lab6_unique_clients_today{route=\"GET /groups\"} 1.0");
+    }
+
+    @Test
+    void exposesMethodTimingsAsHistogram() {
+        MethodTimings timings = new MethodTimings();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("prometheusRegistry", prometheusRegistry);
+        new MethodTimingsCollector(timings, beans.getBeanProvider(PrometheusRegistry.class))
+                .register();
+        timings.record("StudentService.readStudents(..)", 2_000_000, false);
+        timings.record("StudentService.readStudents(..)", 30_000_000, true);
+
+        String scrape = registry.scrape();
+
+        assertThat(scrape).contains(
+                "lab6_method_duration_seconds_bucket{method=\"StudentService.readStudents(..)\","
+                        + "le=\"0.005\"} 1");
+        assertThat(scrape).contains(
+                "lab6_method_duration_seconds_count{method=\"StudentService.readStudents(..)\"} 2");
+        assertThat(scrape).contains(
+                "lab6_method_duration_seconds_bucket{method=\"StudentService.readStudents(..)\","
+                        + "le=\"+Inf\"} 2");
+        assertThat(scrape).contains(
+                "lab6_method_errors_total{method=\"StudentService.readStudents(..)\"} 1.0");
+        assertThat(timings.snapshot()).singleElement()
+                .extracting(MethodStats::calls).isEqualTo(2L);
+    }
+}
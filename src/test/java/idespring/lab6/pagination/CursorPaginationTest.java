@@ -0,0 +1,140 @@
+package idespring.lab6.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab6.SeedData;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CursorPaginationTest {
+    private record Row(long id, String name) {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        SeedData.seed(jdbcTemplate);
+    }
+
+    @ParameterizedTest(name = "sort={0}")
+    @ValueSource(strings = {"", "asc", "desc"})
+    void walksStudentsWithoutGapsOrRepeats(String sort) throws Exception {
+        List<Row> expected = expected(IntStream.rangeClosed(1, SeedData.STUDENTS)
+                .mapToObj(id -> new Row(id, "Student " + id)).toList(), sort);
+
+        assertThat(walk("/students/page?limit=7&sort=" + sort)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest(name = "sort={0}")
+    @ValueSource(strings = {"", "asc", "desc"})
+    void walksGroupsAndSubjects(String sort) throws Exception {
+        List<Row> groups = expected(IntStream.rangeClosed(1, SeedData.GROUPS)
+                .mapToObj(id -> new Row(id, "G-" + id)).toList(), sort);
+        List<Row> subjects = expected(IntStream.rangeClosed(1, SeedData.SUBJECTS)
+                .mapToObj(id -> new Row(id, "Subject " + id)).toList(), sort);
+
+        assertThat(walk("/groups/page?limit=2&sort=" + sort)).isEqualTo(groups);
+        assertThat(walk("/subjects/page?limit=2&sort=" + sort)).isEqualTo(subjects);
+    }
+
+    @Test
+    void namePatternCombinesWithDescendingSort() throws Exception {
+        assertThat(walk("/subjects/page?limit=2&sort=desc&namePattern=ject"))
+                .extracting(Row::id).containsExactly(5L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void unpagedListHonoursDescendingSort() throws Exception {
+        JsonNode groups = getJson("/groups?sort=desc");
+
+        assertThat(groups.findValuesAsText("name")).containsExactly("G-3", "G-2", "G-1");
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrder() throws Exception {
+        String ascending = getJson("/students/page?limit=5&sort=asc").get("nextCursor").asText();
+        String byId = getJson("/students/page?limit=5").get("nextCursor").asText();
+
+        mockMvc.perform(get("/students/page?limit=5&sort=desc&cursor=" + ascending))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/students/page?limit=5&cursor=" + ascending))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/groups/page?limit=1&sort=asc&cursor=" + byId))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unpagedListsFallBackToAscendingForUnknownSort() throws Exception {
+        assertThat(getJson("/subjects?sort=name").findValuesAsText("name"))
+                .containsExactlyInAnyOrder("Subject 1", "Subject 2", "Subject 3", "Subject 4",
+                        "Subject 5");
+        assertThat(getJson("/groups?sort=name").findValuesAsText("name"))
+                .containsExactly("G-1", "G-2", "G-3");
+        List<String> students = new ArrayList<>();
+        getJson("/students?sort=name")
+                .forEach(student -> students.add(student.get("name").asText()));
+        assertThat(students).hasSize(SeedData.STUDENTS)
+                .isSortedAccordingTo(Comparator.naturalOrder());
+    }
+
+    @Test
+    void rejectsUnknownSortAndLimits() throws Exception {
+        mockMvc.perform(get("/groups/page?sort=name")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/subjects/page?sort=name")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/students/page?limit=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/marks/page?limit=" + (PageCursor.MAX_LIMIT + 1)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static List<Row> expected(List<Row> rows, String sort) {
+        Comparator<Row> byName = Comparator.comparing(Row::name).thenComparingLong(Row::id);
+        return switch (sort) {
+            case "asc" -> rows.stream().sorted(byName).toList();
+            case "desc" -> rows.stream().sorted(byName.reversed()).toList();
+            default -> rows;
+        };
+    }
+
+    private List<Row> walk(String uri) throws Exception {
+        List<Row> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode page = getJson(cursor == null ? uri : uri + "&cursor=" + cursor);
+            page.get("items").forEach(item ->
+                    rows.add(new Row(item.get("id").asLong(), item.get("name").asText())));
+            cursor = page.get("hasMore").asBoolean() ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return rows;
+    }
+
+    private JsonNode getJson(String uri) throws Exception {
+        String body = mockMvc.perform(get(uri)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,115 @@
+package idespring.lab6.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import idespring.lab6.exceptions.ValidationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class PageCursorTest {
+
+    @Test
+    void roundTripsIdAndNameCursors() {
+        PageCursor byId = PageCursor.ofId(42);
+        PageCursor byName = PageCursor.of(PageCursor.Order.NAME_DESC, 7, "Иванов: Пётр");
+
+        assertThat(PageCursor.decode(byId.encode(), PageCursor.Order.ID)).isEqualTo(byId);
+        assertThat(PageCursor.decode(byName.encode(), PageCursor.Order.NAME_DESC))
+                .isEqualTo(byName);
+    }
+
+    @Test
+    void missingCursorStartsFromTheRequestedOrder() {
+        PageCursor start = PageCursor.decode(null, PageCursor.Order.NAME_DESC);
+
+        assertThat(start.isStart()).isTrue();
+        assertThat(start.order()).isEqualTo(PageCursor.Order.NAME_DESC);
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrder() {
+        String ascending = PageCursor.of(PageCursor.Order.NAME_ASC, 3, "B").encode();
+        String byId = PageCursor.ofId(3).encode();
+
+        assertThatThrownBy(() -> PageCursor.decode(ascending, PageCursor.Order.NAME_DESC))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageCursor.decode(ascending, PageCursor.Order.ID))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageCursor.decode(byId, PageCursor.Order.NAME_ASC))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> PageCursor.decode("%%%", PageCursor.Order.ID))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageCursor.decode("eDEy", PageCursor.Order.ID))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void parsesSortParameter() {
+        assertThat(PageCursor.Order.of(null)).isEqualTo(PageCursor.Order.ID);
+        assertThat(PageCursor.Order.of("ASC")).isEqualTo(PageCursor.Order.NAME_ASC);
+        assertThat(PageCursor.Order.of("desc")).isEqualTo(PageCursor.Order.NAME_DESC);
+        assertThatThrownBy(() -> PageCursor.Order.of("name"))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void unpagedSortFallsBackToAscending() {
+        assertThat(PageCursor.Order.lenient(null)).isEqualTo(PageCursor.Order.ID);
+        assertThat(PageCursor.Order.lenient("")).isEqualTo(PageCursor.Order.ID);
+        assertThat(PageCursor.Order.lenient("DESC")).isEqualTo(PageCursor.Order.NAME_DESC);
+        assertThat(PageCursor.Order.lenient("name")).isEqualTo(PageCursor.Order.NAME_ASC);
+    }
+
+    @Test
+    void readAllWalksPastMaxLimitInBatches() {
+        List<Long> table = LongStream.rangeClosed(1, 2 * PageCursor.MAX_LIMIT + 7).boxed()
+                .toList();
+        List<Long> requested = new ArrayList<>();
+
+        List<Long> rows = PageCursor.readAll(PageCursor.Order.ID, after -> {
+            requested.add(after.id());
+            return table.stream().filter(id -> id > after.id()).limit(PageCursor.MAX_LIMIT)
+                    .toList();
+        }, PageCursor::ofId);
+
+        assertThat(rows).isEqualTo(table);
+        assertThat(requested).containsExactly(0L, (long) PageCursor.MAX_LIMIT,
+                2L * PageCursor.MAX_LIMIT);
+    }
+
+    @Test
+    void readAllStopsAfterAnExactlyFullLastBatch() {
+        List<Integer> calls = new ArrayList<>();
+
+        List<Long> rows = PageCursor.readAll(PageCursor.Order.ID, after -> {
+            calls.add(1);
+            return after.id() == 0
+                    ? LongStream.rangeClosed(1, PageCursor.MAX_LIMIT).boxed().toList()
+                    : List.of();
+        }, PageCursor::ofId);
+
+        assertThat(rows).hasSize(PageCursor.MAX_LIMIT);
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void readAllByIdLoadsInBatches() {
+        List<Long> ids = LongStream.rangeClosed(1, PageCursor.MAX_LIMIT + 1).boxed().toList();
+        List<Integer> batches = new ArrayList<>();
+
+        List<Long> rows = PageCursor.readAllById(ids, batch -> {
+            batches.add(batch.size());
+            return batch;
+        });
+
+        assertThat(rows).isEqualTo(ids);
+        assertThat(batches).containsExactly(PageCursor.MAX_LIMIT, 1);
+    }
+}
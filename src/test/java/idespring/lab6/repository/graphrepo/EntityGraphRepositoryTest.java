@@ -0,0 +1,50 @@
+package idespring.lab6.repository.graphrepo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import idespring.lab6.SeedData;
+import idespring.lab6.expand.ExpandSpec;
+import idespring.lab6.model.Student;
+import idespring.lab6.model.projection.StudentDetails;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityGraphRepositoryTest {
+    @Autowired
+    private EntityGraphRepository entityGraphRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        SeedData.seed(jdbcTemplate);
+    }
+
+    @Test
+    void fetchesOnlyTheRequestedAssociations() {
+        Student plain = entityGraphRepository.findById(Student.class, 1L,
+                ExpandSpec.parse(null, StudentDetails.EXPANDABLE)).orElseThrow();
+        Student expanded = entityGraphRepository.findById(Student.class, 1L,
+                ExpandSpec.parse("subjects,marks", StudentDetails.EXPANDABLE)).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(plain.getSubjects())).isFalse();
+        assertThat(Hibernate.isInitialized(plain.getMarks())).isFalse();
+        assertThat(Hibernate.isInitialized(expanded.getSubjects())).isTrue();
+        assertThat(Hibernate.isInitialized(expanded.getMarks())).isTrue();
+        assertThat(expanded.getSubjects()).hasSize(3);
+        assertThat(expanded.getMarks()).hasSize(6);
+    }
+
+    @Test
+    void missingIdIsEmpty() {
+        assertThat(entityGraphRepository.findById(Student.class, 999_999L,
+                ExpandSpec.parse("group", StudentDetails.EXPANDABLE))).isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package idespring.lab6.repository.studentrepo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import idespring.lab6.SeedData;
+import idespring.lab6.model.Student;
+import idespring.lab6.pagination.PageCursor;
+import idespring.lab6.sqlprofiler.SqlProfiler;
+import idespring.lab6.sqlprofiler.SqlStatementStats;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The student list endpoints moved from entities to StudentView. The JSON has to stay the
+// same while the statement count stops growing with the number of students.
+@SpringBootTest
+@ActiveProfiles("test")
+class StudentViewTest {
+    private record Measured(String json, long statements) {}
+
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private SqlProfiler sqlProfiler;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void seed() {
+        SeedData.seed(jdbcTemplate);
+    }
+
+    @Test
+    void viewsSerializeLikeEntitiesWithFewerStatements() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Measured entities = readOnly.execute(status -> measure(() -> {
+            List<Student> students = new ArrayList<>(studentRepository.findAll());
+            students.sort(Comparator.comparing(Student::getId));
+            return students;
+        }));
+        Measured views = measure(() -> studentRepository.findViewPage(null,
+                PageCursor.start(PageCursor.Order.ID), PageCursor.MAX_LIMIT));
+
+        assertThat(normalize(views.json())).isEqualTo(normalize(entities.json()));
+        assertThat(views.json()).hasSameSizeAs(entities.json());
+        assertThat(views.statements()).isEqualTo(3);
+        assertThat(entities.statements()).isGreaterThan(SeedData.STUDENTS);
+    }
+
+    @Test
+    void viewCarriesGroupSubjectAndMarkDetails() throws Exception {
+        JsonNode student = objectMapper.valueToTree(studentRepository.findViewById(1).get());
+
+        assertThat(student.get("group").get("name").asText()).isEqualTo("G-2");
+        assertThat(student.get("subjects").findValuesAsText("name"))
+                .containsExactly("Subject 2", "Subject 3", "Subject 4");
+        assertThat(student.get("marks")).hasSize(6);
+        assertThat(student.get("marks").get(0).fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "value", "subjectId");
+    }
+
+    private Measured measure(Supplier<Object> read) {
+        sqlProfiler.reset();
+        Object result = read.get();
+        try {
+            String json = objectMapper.writeValueAsString(result);
+            long statements = sqlProfiler.getStatementStats(Integer.MAX_VALUE).stream()
+                    .mapToLong(SqlStatementStats::executions).sum();
+            return new Measured(json, statements);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // entity collections are sets, so compare with nested arrays ordered by id
+    private JsonNode normalize(String json) throws Exception {
+        ArrayNode students = (ArrayNode) objectMapper.readTree(json);
+        for (JsonNode student : students) {
+            for (String field : List.of("subjects", "marks")) {
+                List<JsonNode> items = new ArrayList<>();
+                student.get(field).forEach(items::add);
+                items.sort(Comparator.comparingLong(item -> item.get("id").asLong()));
+                ((ObjectNode) student).set(field, objectMapper.valueToTree(items));
+            }
+        }
+        return students;
+    }
+}
@@ -0,0 +1,107 @@
+package idespring.lab6.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class NameSearchServiceTest {
+    private static final Map<Long, String> STUDENTS =
+            Map.of(1L, "Иванов Пётр", 2L, "Петров Иван", 3L, "Сидоров Олег");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger databaseSearches = new AtomicInteger();
+    private volatile boolean failing = true;
+    private NameSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            loads.incrementAndGet();
+            if (failing) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            if (invocation.<String>getArgument(0).contains(".students ")) {
+                feed(invocation.getArgument(1), null);
+            }
+            return null;
+        }).when(jdbcTemplate).query(endsWith("ORDER BY id"), any(RowCallbackHandler.class));
+        doAnswer(invocation -> {
+            databaseSearches.incrementAndGet();
+            feed(invocation.getArgument(1), invocation.<String>getArgument(2));
+            return null;
+        }).when(jdbcTemplate).query(contains("LIKE"), any(RowCallbackHandler.class),
+                any(Object[].class));
+        service = new NameSearchService(jdbcTemplate, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void searchesTheDatabaseUntilTheRetriedLoadSucceeds() {
+        service.start();
+
+        assertThat(ids(service.search(SearchTarget.STUDENTS, "иван", false, 10)))
+                .containsExactly(1L, 2L);
+        assertThat(ids(service.search(SearchTarget.STUDENTS, "иван", true, 1)))
+                .containsExactly(1L);
+        assertThat(service.findIdsContaining(SearchTarget.STUDENTS, "Иван")).isEmpty();
+        assertThat(databaseSearches).hasValue(2);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> loads.get() >= 2);
+        failing = false;
+        await().atMost(Duration.ofSeconds(5)).until(service::isReady);
+
+        assertThat(ids(service.search(SearchTarget.STUDENTS, "иван", false, 10)))
+                .containsExactly(1L, 2L);
+        assertThat(service.findIdsContaining(SearchTarget.STUDENTS, "Иван")).contains(
+                List.of(1L, 2L));
+        assertThat(databaseSearches).hasValue(2);
+    }
+
+    @Test
+    void nothingIsLoadedBeforeTheApplicationIsReady() {
+        assertThat(loads).hasValue(0);
+        assertThat(service.isReady()).isFalse();
+    }
+
+    // streams the students whose lower-cased name contains the LIKE pattern, or all of them
+    private static void feed(RowCallbackHandler handler, String pattern) throws SQLException {
+        for (Map.Entry<Long, String> student : STUDENTS.entrySet()) {
+            String name = student.getValue();
+            if (pattern != null && !name.toLowerCase(Locale.ROOT).contains(pattern)) {
+                continue;
+            }
+            ResultSet row = mock(ResultSet.class);
+            when(row.getLong(1)).thenReturn(student.getKey());
+            when(row.getString(2)).thenReturn(name);
+            handler.processRow(row);
+        }
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::id).toList();
+    }
+}
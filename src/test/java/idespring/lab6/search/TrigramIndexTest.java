@@ -0,0 +1,155 @@
+package idespring.lab6.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.rebuild(put -> {
+            put.accept(1L, "Иванов Пётр");
+            put.accept(2L, "Петров Иван");
+            put.accept(3L, "Иван");
+            put.accept(4L, "Сидоров-Иванов Олег");
+            put.accept(5L, "Ivanova Anna");
+        });
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordStartThenInfix() {
+        assertThat(ids(index.search("иван", false, 10))).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(ids(index.search("ИВАН", false, 2))).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void prefixModeOnlyMatchesAtWordStarts() {
+        assertThat(ids(index.search("иван", true, 10))).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(ids(index.search("ванов", true, 10))).isEmpty();
+        assertThat(ids(index.search("ванов", false, 10))).containsExactly(1L, 4L);
+        assertThat(ids(index.search("ol", true, 10))).isEmpty();
+        assertThat(ids(index.search("ол", true, 10))).containsExactly(4L);
+    }
+
+    @Test
+    void shortQueriesFallBackToScanningEveryName() {
+        assertThat(ids(index.search("ан", false, 10))).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(ids(index.search("", false, 10))).hasSize(5);
+    }
+
+    @Test
+    void putReplacesTheOldNameAndRemoveDropsIt() {
+        index.put(3L, "Козлов Семён");
+        index.remove(1L);
+        index.remove(42L);
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(ids(index.search("иван", false, 10))).containsExactly(2L, 4L);
+        assertThat(ids(index.search("козл", true, 10))).containsExactly(3L);
+        assertThat(index.containing("Пётр")).isEmpty();
+    }
+
+    @Test
+    void rebuildServesTheOldNamesAndReplaysChangesMadeWhileLoading() {
+        ExecutorService searcher = Executors.newSingleThreadExecutor();
+        try {
+            index.rebuild(put -> {
+                put.accept(1L, "Иванов Пётр");
+                put.accept(2L, "Петров Иван");
+                put.accept(3L, "Иван");
+                // the load holds no lock, so other threads still search the old names
+                assertThat(ids(callOn(searcher, () -> index.search("олег", false, 10))))
+                        .containsExactly(4L);
+                index.put(6L, "Иван Новиков");
+                index.remove(2L);
+                index.put(3L, "Семён");
+            });
+        } finally {
+            searcher.shutdownNow();
+        }
+
+        assertThat(ids(index.search("иван", false, 10))).containsExactly(1L, 6L);
+        assertThat(ids(index.search("семён", false, 10))).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void failedRebuildKeepsTheOldNames() {
+        assertThatThrownBy(() -> index.rebuild(put -> {
+            put.accept(7L, "Козлов");
+            throw new IllegalStateException("connection lost");
+        })).isInstanceOf(IllegalStateException.class);
+        index.put(8L, "Иван Второй");
+
+        assertThat(index.size()).isEqualTo(6);
+        assertThat(ids(index.search("козл", false, 10))).isEmpty();
+        assertThat(ids(index.search("иван", true, 10))).contains(8L);
+    }
+
+    @Test
+    void containingIsCaseSensitiveLikeSqlLike() {
+        assertThat(index.containing("Иван")).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.containing("иван")).isEmpty();
+        assertThat(index.containing("ov")).containsExactly(5L);
+    }
+
+    @Test
+    void randomNamesAgreeWithLinearScan() {
+        SplittableRandom random = new SplittableRandom(11);
+        String alphabet = "абвгде ";
+        Map<Long, String> names = new TreeMap<>();
+        TrigramIndex scanned = new TrigramIndex();
+        for (long id = 1; id <= 2_000; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int i = random.nextInt(3, 12); i > 0; i--) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            names.put(id, name.toString());
+            scanned.put(id, name.toString());
+        }
+        for (long id = 1; id <= 2_000; id += 7) {
+            names.remove(id);
+            scanned.remove(id);
+        }
+
+        for (String query : List.of("аб", "абв", "где", "в г", "ааа", "дебе")) {
+            List<Long> expected = new ArrayList<>();
+            names.forEach((id, name) -> {
+                if (name.contains(query)) {
+                    expected.add(id);
+                }
+            });
+            assertThat(scanned.containing(query)).as(query)
+                    .containsExactly(expected.stream().mapToLong(Long::longValue).toArray());
+            assertThat(ids(scanned.search(query.toUpperCase(Locale.ROOT), false,
+                    Integer.MAX_VALUE))).as(query).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    private static <T> T callOn(ExecutorService executor, Callable<T> task) {
+        try {
+            return executor.submit(task).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::id).toList();
+    }
+}
@@ -0,0 +1,10 @@
+package idespring.lab6.service.bench;
+
+public class BenchmarkTarget {
+    private long counter;
+
+    public long work(long value) {
+        counter += value;
+        return counter;
+    }
+}
@@ -0,0 +1,114 @@
+package idespring.lab6.service.bulkservice;
+
+import idespring.lab6.Lab6Application;
+import idespring.lab6.model.Mark;
+import idespring.lab6.service.markservice.MarkService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Inserts/s of POST /marks/bulk before and after the JDBC batch path.
+// "per-item" is the old endpoint: MarkService.addMark once per element, each in its own
+// JPA transaction. "bulk" is BulkService.addMarks (one batch per bulk.chunkSize chunk).
+// Needs PostgreSQL (ids come from nextval over the column sequence):
+// mvn test-compile, then start main() with the test classpath and
+// -Dspring.datasource.url=... -Dspring.datasource.username=... -Dspring.datasource.password=...
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dlogging.level.ApplicationLog=WARN"})
+public class BulkInsertBenchmark {
+    private static final int ROWS = 1000;
+
+    @Param({"per-item", "bulk"})
+    public String variant;
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private MarkService markService;
+    private BulkService bulkService;
+    private long studentId;
+    private long subjectId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Lab6Application.class)
+                .web(WebApplicationType.NONE)
+                .properties("bulk.chunkSize=" + chunkSize, "logs.index.refreshSeconds=0")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        markService = context.getBean(MarkService.class);
+        bulkService = context.getBean(BulkService.class);
+
+        subjectId = jdbcTemplate.queryForObject("INSERT INTO studentmanagement.subjects (name) "
+                + "VALUES ('bulk-bench ' || clock_timestamp()) RETURNING id", Long.class);
+        studentId = jdbcTemplate.queryForObject("INSERT INTO studentmanagement.students "
+                + "(name, age) VALUES ('bulk-bench', 20) RETURNING id", Long.class);
+        jdbcTemplate.update("INSERT INTO studentmanagement.student_subject "
+                + "(studentid, subjectid) VALUES (?, ?)", studentId, subjectId);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteMarks() {
+        jdbcTemplate.update("DELETE FROM studentmanagement.marks WHERE studentid = ?", studentId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteMarks();
+        jdbcTemplate.update("DELETE FROM studentmanagement.student_subject WHERE studentid = ?",
+                studentId);
+        jdbcTemplate.update("DELETE FROM studentmanagement.students WHERE id = ?", studentId);
+        jdbcTemplate.update("DELETE FROM studentmanagement.subjects WHERE id = ?", subjectId);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int insertMarks() {
+        List<Mark> marks = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Mark mark = new Mark(1 + i % 10);
+            mark.setStudentId(studentId);
+            mark.setSubjectId(subjectId);
+            marks.add(mark);
+        }
+        if ("bulk".equals(variant)) {
+            return bulkService.addMarks(marks).size();
+        }
+        marks.forEach(markService::addMark);
+        return marks.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
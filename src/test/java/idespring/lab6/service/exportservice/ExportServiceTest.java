@@ -0,0 +1,72 @@
+package idespring.lab6.service.exportservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab6.SeedData;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ExportServiceTest {
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        SeedData.seed(jdbcTemplate);
+    }
+
+    @Test
+    void streamsStudentsAsFlatNdjsonRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.writeStudents(out, ExportFormat.NDJSON);
+
+        List<JsonNode> lines = ndjson(out);
+        assertThat(rows).isEqualTo(SeedData.STUDENTS);
+        assertThat(lines).hasSize(SeedData.STUDENTS);
+        JsonNode first = lines.get(0);
+        assertThat(first.get("id").asLong()).isEqualTo(1);
+        assertThat(first.get("name").asText()).isEqualTo("Student 1");
+        assertThat(first.get("group").asLong()).isEqualTo(2);
+        assertThat(first.get("subjects")).extracting(JsonNode::asLong)
+                .containsExactly(2L, 3L, 4L);
+        assertThat(first.get("marks")).hasSize(6);
+    }
+
+    @Test
+    void streamsMarksAsJsonArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.writeMarks(out, ExportFormat.JSON);
+
+        JsonNode marks = objectMapper.readTree(out.toByteArray());
+        assertThat(rows).isEqualTo(SeedData.STUDENTS * 6L);
+        assertThat(marks).hasSize(SeedData.STUDENTS * 6);
+        assertThat(marks.get(0).get("studentId").asLong()).isEqualTo(1);
+        assertThat(marks.get(0).get("subjectId").asLong()).isEqualTo(2);
+    }
+
+    private List<JsonNode> ndjson(ByteArrayOutputStream out) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,194 @@
+package idespring.lab6.service.markservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import idespring.lab6.model.MarkAggregate;
+import idespring.lab6.model.MarkAggregate.Key;
+import idespring.lab6.model.MarkAggregate.Scope;
+import idespring.lab6.model.projection.MarkView;
+import idespring.lab6.repository.markrepo.MarkAggregateRepository;
+import idespring.lab6.repository.markrepo.MarkRepository;
+import idespring.lab6.service.markservice.MarkAggregatesChangedEvent.Versioned;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// The aggregate rows are maintained with PostgreSQL-only statements, so the repository is a
+// map here and the after-commit listener is driven with the events the service publishes.
+class MarkAggregateServiceImplTest {
+    private static final Key STUDENT = new Key(Scope.STUDENT, 1L);
+    private static final Key SUBJECT = new Key(Scope.SUBJECT, 10L);
+    private static final Key OTHER_STUDENT = new Key(Scope.STUDENT, 2L);
+
+    private final MarkAggregateRepository repository = mock(MarkAggregateRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final Map<Key, MarkAggregate> rows = new HashMap<>();
+    private MarkAggregateServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findForUpdate(any())).thenAnswer(invocation -> Optional.of(
+                rows.computeIfAbsent(invocation.getArgument(0), key -> new MarkAggregate())));
+        // bumps @Version the way the flush would
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+            MarkAggregate aggregate = invocation.getArgument(0);
+            ReflectionTestUtils.setField(aggregate, "version", aggregate.getVersion() + 1);
+            return aggregate;
+        });
+        when(repository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<Key>getArgument(0))));
+        service = new MarkAggregateServiceImpl(repository, mock(MarkRepository.class),
+                eventPublisher, mock(PlatformTransactionManager.class), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void recordAddsAndDeletesMarksForStudentAndSubject() {
+        record(7, 1);
+        record(7, 1);
+        record(4, 1);
+        record(7, -1);
+
+        for (Key key : List.of(STUDENT, SUBJECT)) {
+            MarkDistribution distribution = service.distribution(key.getScope(), key.getOwnerId());
+            assertThat(distribution.count()).isEqualTo(2);
+            assertThat(distribution.sum()).isEqualTo(11);
+            assertThat(distribution.average()).isEqualTo(5.5);
+            assertThat(distribution.histogram()).containsExactly(Map.entry(4, 1L),
+                    Map.entry(7, 1L));
+        }
+    }
+
+    @Test
+    void minAndMaxFollowDeletes() {
+        record(2, 1);
+        record(9, 1);
+        record(5, 1);
+
+        assertThat(record(9, -1)).extracting(MarkDistribution::min, MarkDistribution::max)
+                .containsExactly(2, 5);
+        assertThat(record(2, -1)).extracting(MarkDistribution::min, MarkDistribution::max)
+                .containsExactly(5, 5);
+        assertThat(record(5, -1)).isEqualTo(new MarkDistribution(0, 0, null, null, null,
+                Map.of()));
+        // a delete the row never counted does not drive it negative
+        assertThat(record(5, -3).count()).isZero();
+    }
+
+    @Test
+    void distributionIsMirroredUntilEvicted() {
+        record(8, 1);
+        assertThat(service.distribution(Scope.STUDENT, 1L).max()).isEqualTo(8);
+        verify(repository, never()).findById(any());
+
+        service.onAggregatesChanged(new MarkAggregatesChangedEvent(Map.of(), List.of(STUDENT),
+                false));
+        assertThat(service.distribution(Scope.STUDENT, 1L).max()).isEqualTo(8);
+        assertThat(service.distribution(Scope.STUDENT, 1L).max()).isEqualTo(8);
+        verify(repository, times(1)).findById(STUDENT);
+    }
+
+    @Test
+    void committedRecordsUpdateTheMirrorByVersion() {
+        MarkDistribution older = new MarkDistribution(1, 3, 3.0, 3, 3, Map.of(3, 1L));
+        MarkDistribution newer = new MarkDistribution(1, 9, 9.0, 9, 9, Map.of(9, 1L));
+        service.onAggregatesChanged(new MarkAggregatesChangedEvent(
+                Map.of(STUDENT, new Versioned(5, newer)), List.of(), false));
+        service.onAggregatesChanged(new MarkAggregatesChangedEvent(
+                Map.of(STUDENT, new Versioned(4, older)), List.of(), false));
+
+        assertThat(service.distribution(Scope.STUDENT, 1L)).isEqualTo(newer);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void evictionDuringLoadIsNotCached() {
+        when(repository.findById(STUDENT)).thenAnswer(invocation -> {
+            service.onAggregatesChanged(new MarkAggregatesChangedEvent(Map.of(),
+                    List.of(STUDENT), false));
+            return Optional.empty();
+        });
+
+        assertThat(service.distribution(Scope.STUDENT, 1L)).isEqualTo(MarkDistribution.EMPTY);
+        service.distribution(Scope.STUDENT, 1L);
+        verify(repository, times(2)).findById(STUDENT);
+    }
+
+    @Test
+    void rebuildEvictsOnlyTheRebuiltOwnersAndForwardsTheChange() {
+        List.of(STUDENT, SUBJECT, OTHER_STUDENT)
+                .forEach(key -> service.distribution(key.getScope(), key.getOwnerId()));
+        MarksChangedEvent change =
+                MarksChangedEvent.removed(List.of(new MarkView(5L, 6, 1L, 10L)));
+
+        service.rebuild(List.of(1L), List.of(10L), change);
+
+        verify(repository).rebuild(Scope.STUDENT, List.of(1L));
+        verify(repository).rebuild(Scope.SUBJECT, List.of(10L));
+        List<Object> events = publishedEvents();
+        assertThat(events).hasSize(2).contains(change);
+        service.onAggregatesChanged((MarkAggregatesChangedEvent) events.get(0));
+        List.of(STUDENT, SUBJECT, OTHER_STUDENT)
+                .forEach(key -> service.distribution(key.getScope(), key.getOwnerId()));
+        verify(repository, times(2)).findById(STUDENT);
+        verify(repository, times(2)).findById(SUBJECT);
+        verify(repository, times(1)).findById(OTHER_STUDENT);
+    }
+
+    @Test
+    void rebuildAllClearsTheWholeMirror() {
+        service.distribution(Scope.STUDENT, 1L);
+        service.distribution(Scope.SUBJECT, 10L);
+
+        service.rebuildAll();
+
+        verify(repository).rebuildAll(Scope.STUDENT);
+        verify(repository).rebuildAll(Scope.SUBJECT);
+        List<Object> events = publishedEvents();
+        assertThat(events).singleElement()
+                .isEqualTo(new MarkAggregatesChangedEvent(Map.of(), List.of(), true));
+        service.onAggregatesChanged((MarkAggregatesChangedEvent) events.get(0));
+        service.distribution(Scope.STUDENT, 1L);
+        service.distribution(Scope.SUBJECT, 10L);
+        verify(repository, times(2)).findById(STUDENT);
+        verify(repository, times(2)).findById(SUBJECT);
+    }
+
+    // records one mark change, delivers it as a commit would and returns the student's totals
+    private MarkDistribution record(int value, long delta) {
+        service.record(STUDENT.getOwnerId(), SUBJECT.getOwnerId(), value, delta);
+        ArgumentCaptor<MarkAggregatesChangedEvent> event =
+                ArgumentCaptor.forClass(MarkAggregatesChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertThat(event.getValue().updated()).containsOnlyKeys(STUDENT, SUBJECT);
+        service.onAggregatesChanged(event.getValue());
+        clearInvocations(eventPublisher);
+        return event.getValue().updated().get(STUDENT).distribution();
+    }
+
+    private List<Object> publishedEvents() {
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        return events.getAllValues();
+    }
+}
@@ -0,0 +1,161 @@
+package idespring.lab6.service.studentsubjserv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+class EnrollmentIndexTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicReference<EnrollmentIndex.Table> stored =
+            new AtomicReference<>(new EnrollmentIndex.Table(16));
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile boolean failing;
+    private EnrollmentIndex index;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            loads.incrementAndGet();
+            if (failing) {
+                throw new DataAccessResourceFailureException("database is down");
+            }
+            return stored.get();
+        }).when(jdbcTemplate).query(anyString(),
+                ArgumentMatchers.<ResultSetExtractor<EnrollmentIndex.Table>>any());
+        index = new EnrollmentIndex(jdbcTemplate, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void tableTracksPutsAndRemovesThroughCollisionsAndGrowth() {
+        EnrollmentIndex.Table table = new EnrollmentIndex.Table(4);
+        Map<Long, long[]> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(5);
+        for (int step = 0; step < 20_000; step++) {
+            long studentId = random.nextLong(1, 500);
+            long[] subjects = random.nextInt(4) == 0
+                    ? new long[0]
+                    : random.longs(random.nextInt(1, 5), 1, 20).sorted().distinct().toArray();
+            table.put(studentId, subjects);
+            if (subjects.length == 0) {
+                expected.remove(studentId);
+            } else {
+                expected.put(studentId, subjects);
+            }
+        }
+
+        assertThat(table.size()).isEqualTo(expected.size());
+        for (long studentId = 0; studentId <= 500; studentId++) {
+            long[] subjects = expected.getOrDefault(studentId, new long[0]);
+            assertThat(table.subjectsOf(studentId)).as("student %d", studentId)
+                    .isEqualTo(subjects);
+            for (long subjectId = 1; subjectId < 20; subjectId++) {
+                assertThat(table.contains(studentId, subjectId))
+                        .isEqualTo(Arrays.binarySearch(subjects, subjectId) >= 0);
+            }
+        }
+    }
+
+    @Test
+    void tableCollectsStudentsOfSubjects() {
+        EnrollmentIndex.Table table = new EnrollmentIndex.Table(4);
+        table.put(1, new long[] {1, 2});
+        table.put(2, new long[] {3});
+        table.put(3, new long[] {2, 4});
+        table.remove(4);
+
+        Set<Long> students = new HashSet<>();
+        table.collectStudents(List.of(2L, 5L), students);
+
+        assertThat(students).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void fallsBackToTheDatabaseUntilAFailedLoadIsRetried() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyLong(), anyLong()))
+                .thenReturn(true);
+        failing = true;
+        index.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> loads.get() >= 2);
+
+        assertThat(index.isLoaded()).isFalse();
+        assertThat(index.isEnrolled(1, 7)).isTrue();
+        assertThat(index.getFallbackCount()).isEqualTo(1);
+
+        stored.get().put(1, new long[] {2});
+        failing = false;
+        await().atMost(Duration.ofSeconds(5)).until(index::isLoaded);
+        assertThat(index.isEnrolled(1, 7)).isFalse();
+        assertThat(index.isEnrolled(1, 2)).isTrue();
+        assertThat(index.getFallbackCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshesDuringTheLoadDoNotWaitAndAreReplayed() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EnrollmentIndex.Table before = new EnrollmentIndex.Table(16);
+        before.put(1, new long[] {1});
+        before.put(2, new long[] {2});
+        EnrollmentIndex.Table after = new EnrollmentIndex.Table(16);
+        after.put(1, new long[] {3});
+        AtomicInteger refreshes = new AtomicInteger();
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return before;
+        }).when(jdbcTemplate).query(anyString(),
+                ArgumentMatchers.<ResultSetExtractor<EnrollmentIndex.Table>>any());
+        doAnswer(invocation -> {
+            refreshes.incrementAndGet();
+            return after;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class),
+                ArgumentMatchers.<ResultSetExtractor<EnrollmentIndex.Table>>any());
+
+        index.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        index.onStudentsChanged(StudentsChangedEvent.of(1L));
+        index.onStudentsChanged(StudentsChangedEvent.subject(2L));
+        assertThat(refreshes.get()).isEqualTo(1);
+
+        // the load read both students before the changes committed
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(index::isLoaded);
+        assertThat(refreshes.get()).isEqualTo(2);
+        assertThat(index.isEnrolled(1, 1)).isFalse();
+        assertThat(index.isEnrolled(1, 3)).isTrue();
+        assertThat(index.isEnrolled(2, 2)).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+package idespring.lab6.service.studentsubjserv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import idespring.lab6.config.CacheConfig;
+import idespring.lab6.exceptions.ValidationException;
+import idespring.lab6.model.projection.StudentDetails;
+import idespring.lab6.repository.bulkrepo.BulkInsertRepository;
+import idespring.lab6.repository.bulkrepo.BulkInsertRepository.Enrollment;
+import idespring.lab6.repository.studentrepo.StudentRepository;
+import idespring.lab6.repository.subjectrepo.SubjectRepository;
+import idespring.lab6.service.studentsubjserv.EnrollmentOutcome.Status;
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+// The unnest/ON CONFLICT insert only runs on PostgreSQL, so the bulk repository is mocked
+// and these tests cover how its answers are turned into per-pair outcomes.
+class StudentSubjectServiceImplTest {
+    private final BulkInsertRepository bulkRepository = mock(BulkInsertRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final CacheConfig<String, Object> cache = new CacheConfig<>();
+    private StudentSubjectServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StudentSubjectServiceImpl(mock(StudentRepository.class),
+                mock(SubjectRepository.class), cache, bulkRepository, eventPublisher, 9);
+        when(bulkRepository.findExistingIds("students", Set.of(1L, 2L, 99L)))
+                .thenReturn(Set.of(1L, 2L));
+        when(bulkRepository.findExistingIds("subjects", Set.of(10L, 20L, 77L)))
+                .thenReturn(Set.of(10L, 20L));
+        when(bulkRepository.enroll(Set.of(1L, 2L), Set.of(10L, 20L)))
+                .thenReturn(Set.of(new Enrollment(1, 10), new Enrollment(2, 20)));
+    }
+
+    @Test
+    void classifiesEveryRequestedPair() {
+        List<EnrollmentOutcome> outcomes = service.enroll(List.of(1L, 2L, 99L, 1L),
+                List.of(10L, 20L, 77L));
+
+        assertThat(outcomes).containsExactly(
+                new EnrollmentOutcome(1, 10, Status.ENROLLED),
+                new EnrollmentOutcome(1, 20, Status.ALREADY_ENROLLED),
+                new EnrollmentOutcome(1, 77, Status.SUBJECT_NOT_FOUND),
+                new EnrollmentOutcome(2, 10, Status.ALREADY_ENROLLED),
+                new EnrollmentOutcome(2, 20, Status.ENROLLED),
+                new EnrollmentOutcome(2, 77, Status.SUBJECT_NOT_FOUND),
+                new EnrollmentOutcome(99, 10, Status.STUDENT_NOT_FOUND),
+                new EnrollmentOutcome(99, 20, Status.STUDENT_NOT_FOUND),
+                new EnrollmentOutcome(99, 77, Status.STUDENT_NOT_FOUND));
+    }
+
+    @Test
+    void onlyInsertedPairsInvalidateCachesAndPublishChanges() {
+        cache.put("subjects-1", List.of());
+        cache.put("students-20", List.of());
+        cache.put(StudentDetails.cacheKeys(2L).get(0), List.of());
+        cache.put("students-77", List.of());
+
+        service.enroll(List.of(1L, 2L, 99L), List.of(10L, 20L, 77L));
+
+        assertThat(cache.get("subjects-1")).isNull();
+        assertThat(cache.get("students-20")).isNull();
+        assertThat(cache.get(StudentDetails.cacheKeys(2L).get(0))).isNull();
+        assertThat(cache.get("students-77")).isNotNull();
+        ArgumentCaptor<StudentsChangedEvent> event =
+                ArgumentCaptor.forClass(StudentsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().studentIds()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void nothingInsertedPublishesNothing() {
+        when(bulkRepository.enroll(Set.of(1L, 2L), Set.of(10L, 20L))).thenReturn(Set.of());
+
+        assertThat(service.enroll(List.of(1L, 2L, 99L), List.of(10L, 20L, 77L)))
+                .extracting(EnrollmentOutcome::status).doesNotContain(Status.ENROLLED)
+                .filteredOn(status -> status == Status.ALREADY_ENROLLED).hasSize(4);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void rejectsEmptyListsAndTooManyPairsBeforeTouchingTheDatabase() {
+        assertThatThrownBy(() -> service.enroll(List.of(), List.of(10L)))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.enroll(List.of(1L, 2L, 3L, 4L, 5L), List.of(10L, 20L)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("9");
+        verify(bulkRepository, never()).findExistingIds(anyString(), anyCollection());
+        verify(bulkRepository, never()).enroll(anyCollection(), anyCollection());
+
+        // duplicates are collapsed before the limit is checked
+        assertThat(service.enroll(List.of(1L, 1L, 2L, 99L), List.of(10L, 20L, 77L, 20L)))
+                .hasSize(9);
+    }
+}
@@ -0,0 +1,84 @@
+package idespring.lab6.sqlprofiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.stream.Stream;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ProfilingDataSourceTest {
+    private final SqlProfiler profiler = new SqlProfiler(new SqlProfilerProperties());
+
+    @Test
+    void hikariPoolStaysReachableThroughUnwrap() {
+        HikariDataSource pool = new HikariDataSource();
+        ProfilingDataSource dataSource = new ProfilingDataSource(pool, () -> profiler);
+
+        assertThat(DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class))
+                .isSameAs(pool);
+    }
+
+    @Test
+    void closeShutsDownThePool() {
+        HikariDataSource pool = new HikariDataSource();
+        ProfilingDataSource dataSource = new ProfilingDataSource(pool, () -> profiler);
+
+        dataSource.close();
+
+        assertThat(pool.isClosed()).isTrue();
+    }
+
+    @Test
+    void postProcessorLeavesAlreadyWrappedDataSourceAlone() {
+        ProfilingDataSourcePostProcessor postProcessor =
+                new ProfilingDataSourcePostProcessor(null);
+        Object wrapped = postProcessor.postProcessAfterInitialization(new HikariDataSource(),
+                "dataSource");
+
+        assertThat(wrapped).isInstanceOf(ProfilingDataSource.class);
+        assertThat(postProcessor.postProcessAfterInitialization(wrapped, "dataSource"))
+                .isSameAs(wrapped);
+    }
+
+    @Test
+    void statementsHandBackTheProfilingConnection() throws Exception {
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2(), () -> profiler);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            assertThat(statement.getConnection()).isSameAs(connection);
+        }
+    }
+
+    @Test
+    void streamedQueryKeepsTheTransactionConnectionOpen() {
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2(), () -> profiler);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        Long rows = transactionTemplate.execute(status -> {
+            try (Stream<Integer> stream = jdbcTemplate.queryForStream(
+                    "SELECT X FROM SYSTEM_RANGE(1, 10)", (rs, rowNum) -> rs.getInt(1))) {
+                long count = stream.count();
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                return count;
+            }
+        });
+
+        assertThat(rows).isEqualTo(10);
+    }
+
+    private static JdbcDataSource h2() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:profiling;DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+}
@@ -0,0 +1,89 @@
+package idespring.lab6.sqlprofiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import idespring.lab6.SeedData;
+import idespring.lab6.config.CacheConfig;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+// Statement budget per read endpoint, measured through the profiling data source over a
+// seeded H2 database: 3 groups, 5 subjects, 30 students with 3 subjects and 6 marks each.
+// A budget that scales with the row count (N+1) fails here long before production does.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryBudgetTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SqlProfiler sqlProfiler;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CacheConfig<String, Object> cache;
+
+    static Stream<Arguments> endpoints() {
+        return Stream.of(
+                Arguments.of("/students", 3),
+                Arguments.of("/students?age=19", 3),
+                Arguments.of("/students/page?limit=20", 3),
+                Arguments.of("/students/group/1", 3),
+                Arguments.of("/students/1", 2),
+                Arguments.of("/students/1?expand=group,subjects,marks", 1),
+                Arguments.of("/groups", 1),
+                Arguments.of("/groups/page?limit=2", 1),
+                Arguments.of("/groups/1", 1),
+                Arguments.of("/groups/1?expand=students", 1),
+                Arguments.of("/subjects", 1),
+                Arguments.of("/subjects/page?limit=2", 1),
+                Arguments.of("/subjects/1", 1),
+                Arguments.of("/subjects/1?expand=students,marks", 1),
+                Arguments.of("/marks", 1),
+                Arguments.of("/marks/page?limit=50", 1),
+                Arguments.of("/marks?studentId=1", 1),
+                Arguments.of("/marks/value/5", 1),
+                Arguments.of("/student-subjects/1/subjects", 1),
+                Arguments.of("/student-subjects/1/students", 1),
+                Arguments.of("/student-subjects/student/1/with-subjects", 3),
+                Arguments.of("/student-subjects/subject/1/with-students", 1),
+                Arguments.of("/export/students", 1),
+                Arguments.of("/export/students?format=ndjson", 1),
+                Arguments.of("/export/marks", 1));
+    }
+
+    @BeforeEach
+    void seed() {
+        SeedData.seed(jdbcTemplate);
+        cache.clear();
+    }
+
+    @ParameterizedTest(name = "GET {0} within {1} statements")
+    @MethodSource("endpoints")
+    void staysWithinQueryBudget(String uri, int budget) throws Exception {
+        sqlProfiler.reset();
+
+        MvcResult result = mockMvc.perform(get(uri)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertThat(result.getResponse().getStatus()).as("status for GET %s", uri)
+                .isBetween(200, 299);
+
+        long statements = sqlProfiler.getRouteStats().stream()
+                .mapToLong(RouteSqlStats::statements).sum();
+        assertThat(statements).as("statements for GET %s", uri).isBetween(1L, (long) budget);
+    }
+}
@@ -0,0 +1,123 @@
+package idespring.lab6.studentfilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class RoaringBitmapTest {
+
+    @Test
+    void addRemoveAndContainsAcrossContainers() {
+        RoaringBitmap bitmap = RoaringBitmap.of(5, 70_000, 3, 5, 1 << 20);
+
+        assertThat(bitmap.cardinality()).isEqualTo(4);
+        assertThat(bitmap.contains(70_000)).isTrue();
+        assertThat(bitmap.contains(4)).isFalse();
+        assertThat(bitmap.page(0, 10)).containsExactly(3, 5, 70_000, 1 << 20);
+
+        bitmap.remove(70_000);
+        bitmap.remove(70_001);
+
+        assertThat(bitmap.page(0, 10)).containsExactly(3, 5, 1 << 20);
+        bitmap.remove(3);
+        bitmap.remove(5);
+        bitmap.remove(1 << 20);
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.page(0, 10)).isEmpty();
+    }
+
+    @Test
+    void denseContainersConvertBothWays() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value = 0; value < 10_000; value++) {
+            bitmap.add(value * 2);
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(10_000);
+        assertThat(bitmap.contains(19_998)).isTrue();
+        assertThat(bitmap.contains(19_999)).isFalse();
+        assertThat(bitmap.page(4_095, 3)).containsExactly(8_190, 8_192, 8_194);
+
+        for (int value = 0; value < 9_000; value++) {
+            bitmap.remove(value * 2);
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(1_000);
+        assertThat(bitmap.page(0, 2)).containsExactly(18_000, 18_002);
+        assertThat(bitmap.page(999, 5)).containsExactly(19_998);
+        assertThat(bitmap.page(1_000, 5)).isEmpty();
+    }
+
+    @Test
+    void pagesSkipWholeContainers() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int value = 0; value < 300_000; value += 3) {
+            bitmap.add(value);
+            expected.add(value);
+        }
+        Integer[] sorted = expected.toArray(Integer[]::new);
+
+        for (int offset : new int[] {0, 21_845, 21_846, 50_000, 99_999}) {
+            int[] page = bitmap.page(offset, 4);
+            for (int i = 0; i < page.length; i++) {
+                assertThat(page[i]).as("offset %d", offset).isEqualTo(sorted[offset + i]);
+            }
+        }
+    }
+
+    @Test
+    void setOperationsAgreeWithTreeSet() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 20; round++) {
+            TreeSet<Integer> left = new TreeSet<>();
+            TreeSet<Integer> right = new TreeSet<>();
+            RoaringBitmap a = randomBitmap(random, left);
+            RoaringBitmap b = randomBitmap(random, right);
+
+            TreeSet<Integer> both = new TreeSet<>(left);
+            both.retainAll(right);
+            TreeSet<Integer> either = new TreeSet<>(left);
+            either.addAll(right);
+            TreeSet<Integer> onlyLeft = new TreeSet<>(left);
+            onlyLeft.removeAll(right);
+
+            assertThat(a.cardinality()).isEqualTo(left.size());
+            assertThat(RoaringBitmap.and(a, b).page(0, Integer.MAX_VALUE))
+                    .isEqualTo(toArray(both));
+            assertThat(RoaringBitmap.or(a, b).page(0, Integer.MAX_VALUE))
+                    .isEqualTo(toArray(either));
+            assertThat(RoaringBitmap.andNot(a, b).page(0, Integer.MAX_VALUE))
+                    .isEqualTo(toArray(onlyLeft));
+            assertThat(a.page(0, Integer.MAX_VALUE)).isEqualTo(toArray(left));
+            assertThat(b.page(0, Integer.MAX_VALUE)).isEqualTo(toArray(right));
+        }
+    }
+
+    // each chunk is sparse, dense or missing so every container pairing gets exercised
+    private static RoaringBitmap randomBitmap(SplittableRandom random, TreeSet<Integer> values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int chunk = 0; chunk < 4; chunk++) {
+            int kind = random.nextInt(3);
+            int count = kind == 0 ? 0 : kind == 1 ? random.nextInt(1, 200) : 30_000;
+            for (int i = 0; i < count; i++) {
+                int value = (chunk << 16) | random.nextInt(1 << 16);
+                bitmap.add(value);
+                values.add(value);
+            }
+        }
+        for (int i = 0; i < 50 && !values.isEmpty(); i++) {
+            Integer next = values.ceiling(random.nextInt(4 << 16));
+            int value = next != null ? next : values.first();
+            bitmap.remove(value);
+            values.remove(value);
+        }
+        return bitmap;
+    }
+
+    private static int[] toArray(TreeSet<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
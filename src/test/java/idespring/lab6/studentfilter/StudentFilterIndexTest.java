@@ -0,0 +1,130 @@
+package idespring.lab6.studentfilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import idespring.lab6.service.studservice.StudentsChangedEvent;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class StudentFilterIndexTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicReference<List<ResultSet>> table = new AtomicReference<>(List.of());
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile boolean failing;
+    private StudentFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            loads.incrementAndGet();
+            if (failing) {
+                throw new DataAccessResourceFailureException("database is down");
+            }
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : table.get()) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        index = new StudentFilterIndex(jdbcTemplate, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void failedReloadKeepsThePreviousIndexAndRetries() throws Exception {
+        table.set(List.of(row(1, 18, 1, 2), row(2, 19, 2, 3)));
+        index.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> index.query(null, 0, 10).total() == 2);
+
+        failing = true;
+        int before = loads.get();
+        index.requestReload();
+        await().atMost(Duration.ofSeconds(5)).until(() -> loads.get() >= before + 3);
+
+        assertThat(index.query(null, 0, 10).ids()).containsExactly(1, 2);
+        table.set(List.of(row(1, 18, 1, 2), row(2, 19, 2, 3), row(3, 20, 1, 3)));
+        failing = false;
+        await().atMost(Duration.ofSeconds(5)).until(() -> index.query(null, 0, 10).total() == 3);
+        assertThat(index.query(groups(1L), 0, 10).ids()).containsExactly(1, 3);
+    }
+
+    @Test
+    void queriesAndRefreshesDoNotWaitForTheFullLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger refreshes = new AtomicInteger();
+        ResultSet inGroupOne = row(1, 18, 1, 2);
+        ResultSet inGroupTwo = row(1, 18, 2, 2);
+        table.set(List.of(inGroupOne));
+        index.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> index.query(null, 0, 10).total() == 1);
+
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(inGroupOne);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        doAnswer(invocation -> {
+            refreshes.incrementAndGet();
+            RowCallbackHandler handler = invocation.getArgument(2);
+            handler.processRow(inGroupTwo);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class),
+                any(RowCallbackHandler.class));
+
+        index.requestReload();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        index.onStudentsChanged(StudentsChangedEvent.of(1L));
+        assertThat(index.query(groups(2L), 0, 10).ids()).containsExactly(1);
+
+        // the load read student 1 before the refresh, so the refresh is replayed on top of it
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> refreshes.get() == 2);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(index.query(groups(2L), 0, 10).ids()).containsExactly(1);
+            assertThat(index.query(groups(1L), 0, 10).ids()).isEmpty();
+        });
+    }
+
+    private static StudentFilter groups(Long... groupIds) {
+        return new StudentFilter(null, null, null, null, List.of(groupIds), null, null);
+    }
+
+    private static ResultSet row(long id, int age, long groupId, long subjectId)
+            throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        Array subjects = mock(Array.class);
+        when(subjects.getArray()).thenReturn(new Long[] {subjectId});
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getInt(2)).thenReturn(age);
+        when(rs.getLong(3)).thenReturn(groupId);
+        when(rs.getArray(7)).thenReturn(subjects);
+        return rs;
+    }
+}
@@ -0,0 +1,47 @@
+package idespring.lab6.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class TraceFilterTest {
+    private final TraceStore store = new TraceStore(10, 10);
+    private final TraceFilter filter = new TraceFilter(store);
+
+    @Test
+    void recordsSynchronousRequestWhenChainReturns() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/students");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            int span = Tracer.enter("StudentService.readStudents()");
+            Tracer.exit(span, false);
+        });
+
+        assertThat(store.getRecent(10)).singleElement()
+                .satisfies(view -> assertThat(view.spans()).hasSize(1));
+    }
+
+    @Test
+    void recordsAsyncRequestOnlyWhenItCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/logs/1/file");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain startsAsync = (req, res) -> req.startAsync();
+
+        filter.doFilter(request, response, startsAsync);
+
+        assertThat(store.getRecent(10)).isEmpty();
+        assertThat(Tracer.enter("after filter")).isNegative();
+
+        response.setStatus(206);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        assertThat(store.getRecent(10)).singleElement()
+                .satisfies(view -> assertThat(view.status()).isEqualTo(206));
+    }
+}
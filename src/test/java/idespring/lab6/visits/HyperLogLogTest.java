@@ -0,0 +1,102 @@
+package idespring.lab6.visits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog(12).estimate()).isZero();
+    }
+
+    @Test
+    void estimateStaysWithinThreeStandardErrors() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        int distinct = 100_000;
+        for (int i = 0; i < distinct; i++) {
+            sketch.offer("client-" + i);
+        }
+
+        double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+        assertThat(error).isLessThan(3 * sketch.standardError());
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("client-" + i);
+        }
+
+        assertThat(sketch.estimate()).isBetween(98L, 102L);
+    }
+
+    @Test
+    void repeatedValuesDoNotChangeEstimate() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer("client-" + i);
+        }
+        long estimate = sketch.estimate();
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                sketch.offer("client-" + i);
+            }
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            first.offer("client-" + i);
+            union.offer("client-" + i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            second.offer("client-" + i);
+            union.offer("client-" + i);
+        }
+
+        first.merge(second);
+
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+    }
+
+    @Test
+    void copyIsIndependentOfOriginal() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        sketch.offer("a");
+        HyperLogLog copy = sketch.copy();
+
+        for (int i = 0; i < 1000; i++) {
+            copy.offer("client-" + i);
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(1);
+        assertThat(copy.estimate()).isGreaterThan(900);
+    }
+
+    @Test
+    void rejectsUnsupportedPrecision() {
+        assertThatThrownBy(() -> new HyperLogLog(3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HyperLogLog(19))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMergeWithDifferentPrecision() {
+        HyperLogLog sketch = new HyperLogLog(10);
+
+        assertThatThrownBy(() -> sketch.merge(new HyperLogLog(12)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,78 @@
+package idespring.lab6.visits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowRateTest {
+
+    @Test
+    void averagesMarksOverWindow() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SlidingWindowRate rate = new SlidingWindowRate(10, clock::get);
+
+        for (int second = 0; second < 5; second++) {
+            for (int i = 0; i < 4; i++) {
+                rate.mark();
+            }
+            clock.addAndGet(1000);
+        }
+
+        assertThat(rate.perSecond()).isEqualTo(2.0);
+    }
+
+    @Test
+    void dropsSlotsOlderThanWindow() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SlidingWindowRate rate = new SlidingWindowRate(10, clock::get);
+        rate.mark();
+        rate.mark();
+
+        clock.addAndGet(10_000);
+
+        assertThat(rate.perSecond()).isZero();
+    }
+
+    @Test
+    void reusedSlotStartsFromZero() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SlidingWindowRate rate = new SlidingWindowRate(10, clock::get);
+        for (int i = 0; i < 50; i++) {
+            rate.mark();
+        }
+
+        clock.addAndGet(10_000);
+        rate.mark();
+
+        assertThat(rate.perSecond()).isEqualTo(0.1);
+    }
+
+    @Test
+    void concurrentMarksAcrossSlotResetAreNotLost() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SlidingWindowRate rate = new SlidingWindowRate(10, clock::get);
+        rate.mark();
+        clock.addAndGet(10_000);
+
+        int threads = 8;
+        int marks = 20_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < marks; i++) {
+                    rate.mark();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertThat(rate.perSecond()).isEqualTo(threads * marks / 10.0);
+    }
+}